@@ -0,0 +1,73 @@
+package com.performancemanagement.benchmark;
+
+import com.performancemanagement.config.JwtTokenProvider.JwtUserDetails;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+
+import javax.crypto.SecretKey;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * JwtTokenProvider.parseToken as it was before the verified token cache, without the logging: a
+ * parser is built for every token and, when unsigned tokens are allowed, a signed token is first
+ * parsed as unsigned and then again as signed after the exception.
+ */
+class BaselineTokenParser {
+
+    private final SecretKey secretKey;
+    private final boolean unsignedAllowed;
+
+    BaselineTokenParser(SecretKey secretKey, boolean unsignedAllowed) {
+        this.secretKey = secretKey;
+        this.unsignedAllowed = unsignedAllowed;
+    }
+
+    JwtUserDetails parseToken(String token) {
+        Claims claims;
+        try {
+            if (unsignedAllowed) {
+                claims = Jwts.parserBuilder().build().parseClaimsJwt(token).getBody();
+            } else {
+                claims = Jwts.parserBuilder().setSigningKey(secretKey).build().parseClaimsJws(token).getBody();
+            }
+        } catch (Exception ex) {
+            if (!unsignedAllowed) {
+                return null;
+            }
+            try {
+                claims = Jwts.parserBuilder().setSigningKey(secretKey).build().parseClaimsJws(token).getBody();
+            } catch (Exception signedEx) {
+                return null;
+            }
+        }
+
+        Date expiration = claims.getExpiration();
+        if (expiration == null || expiration.toInstant().isBefore(Instant.now())) {
+            return null;
+        }
+
+        String username = claims.get("username", String.class);
+        if (username == null) {
+            username = claims.get("name", String.class);
+        }
+        String email = claims.get("email", String.class);
+        String tenantId = claims.get("tenantId", String.class);
+        if (tenantId == null) {
+            tenantId = claims.get("tenant_id", String.class);
+        }
+        @SuppressWarnings("unchecked")
+        List<String> roles = claims.get("roles", List.class);
+        @SuppressWarnings("unchecked")
+        List<String> permissions = claims.get("permissions", List.class);
+
+        if (email == null || tenantId == null) {
+            return null;
+        }
+        if (username == null || username.trim().isEmpty()) {
+            username = email.split("@")[0];
+        }
+        return new JwtUserDetails(username, email, tenantId, roles, permissions);
+    }
+}
@@ -0,0 +1,108 @@
+package com.performancemanagement.benchmark;
+
+import com.performancemanagement.config.JwtTokenProvider;
+import com.performancemanagement.config.JwtTokenProvider.JwtUserDetails;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authentication cost of one request with a signed token, before and after the verified token
+ * cache of {@link JwtTokenProvider}:
+ *
+ * - baseline: the parsing of {@link BaselineTokenParser}, for every request;
+ * - firstUse: the provider with a token it has not verified yet, the cost of a cache miss;
+ * - cached: the provider with the token of the previous request, which the SPA sends again.
+ *
+ * allowUnsigned is true in the dev, local and demo profiles, where the baseline parsed a signed
+ * token twice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-of-at-least-32-bytes";
+
+    // Tokens are used in turn, so the empty cache has evicted a token before it comes again
+    private static final int DISTINCT_TOKENS = 4096;
+
+    @Param({"false", "true"})
+    private boolean allowUnsigned;
+
+    private BaselineTokenParser baseline;
+    private JwtTokenProvider uncachedProvider;
+    private JwtTokenProvider cachedProvider;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        baseline = new BaselineTokenParser(key, allowUnsigned);
+        // A cache of size 0 keeps nothing, so every token is verified
+        uncachedProvider = new JwtTokenProvider(SECRET, String.valueOf(allowUnsigned), 0, new StandardEnvironment());
+        cachedProvider = new JwtTokenProvider(SECRET, String.valueOf(allowUnsigned), 10_000, new StandardEnvironment());
+
+        Date expiration = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        tokens = new String[DISTINCT_TOKENS];
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            tokens[i] = Jwts.builder()
+                    .setClaims(Map.of(
+                            "username", "user" + i,
+                            "email", "user" + i + "@example.test",
+                            "tenantId", "example.test",
+                            "roles", List.of("USER"),
+                            "permissions", List.of()))
+                    .setExpiration(expiration)
+                    .signWith(key, SignatureAlgorithm.HS256)
+                    .compact();
+        }
+        if (baseline.parseToken(tokens[0]) == null || cachedProvider.parseToken(tokens[0]) == null) {
+            throw new IllegalStateException("The benchmark token is not accepted");
+        }
+    }
+
+    private String nextToken() {
+        String token = tokens[next];
+        next = (next + 1) % DISTINCT_TOKENS;
+        return token;
+    }
+
+    @Benchmark
+    public JwtUserDetails baseline() {
+        return baseline.parseToken(nextToken());
+    }
+
+    @Benchmark
+    public JwtUserDetails firstUse() {
+        return uncachedProvider.parseToken(nextToken());
+    }
+
+    @Benchmark
+    public JwtUserDetails cached() {
+        return cachedProvider.parseToken(tokens[0]);
+    }
+}
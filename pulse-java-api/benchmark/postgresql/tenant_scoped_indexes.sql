@@ -0,0 +1,77 @@
+-- Query plans of the tenant-scoped access paths before and after V2__tenant_scoped_indexes.sql.
+--
+-- Run with psql against an empty scratch database, from this directory:
+--
+--   createdb pulse_index_benchmark
+--   psql -X -q -v ON_ERROR_STOP=1 -d pulse_index_benchmark -f tenant_scoped_indexes.sql
+--
+-- The script applies V1 (tables only), fills 20 tenants with 50,000 users, 2,000 departments,
+-- 5,000 teams, 500,000 goals in ten-way trees, 500,000 KPIs and assignments and 1,000,000 visible
+-- goal entries, then prints EXPLAIN ANALYZE of each access path without and with the V2 indexes.
+-- The queries are the SQL the repositories send, with literal parameters. The output of a run is
+-- in tenant_scoped_indexes.out.
+
+\ir ../../src/main/resources/db/migration/postgresql/V1__baseline_schema.sql
+
+INSERT INTO epm_tenants (fqdn, name, active)
+SELECT 'tenant' || t || '.test', 'Tenant ' || t, true FROM generate_series(0, 19) t;
+
+INSERT INTO epm_territories (id, tenant_id, name, created_at)
+SELECT t + 1, 'tenant' || t || '.test', 'Territory', TIMESTAMP '2024-01-01' FROM generate_series(0, 19) t;
+
+-- User i, department d, team t and goal g belong to tenant i % 20, d % 20, t % 20 and g % 20
+INSERT INTO epm_users (id, tenant_id, email, first_name, last_name, role)
+SELECT i, 'tenant' || (i % 20) || '.test', 'user' || i || '@example.test', 'First', 'Last', 'USER'
+FROM generate_series(1, 50000) i;
+
+INSERT INTO epm_departments (id, tenant_id, name, small_description, creation_date, status,
+                             manager_id, manager_assistant_id, parent_department_id)
+SELECT d, 'tenant' || (d % 20) || '.test', 'Department ' || d, 'Department', DATE '2024-01-01', 'ACTIVE',
+       d, d + 2000, CASE WHEN d > 20 THEN d - 20 END
+FROM generate_series(1, 2000) d;
+
+INSERT INTO epm_teams (id, tenant_id, department_id, team_lead_id, name)
+SELECT t, 'tenant' || (t % 20) || '.test', (t - 1) % 2000 + 1, (t - 1) % 2000 + 4001, 'Team ' || t
+FROM generate_series(1, 5000) t;
+
+UPDATE epm_users SET department_id = (id - 1) % 2000 + 1, team_id = (id - 1) % 2000 + 1,
+                     manager_id = CASE WHEN id > 2000 THEN (id - 1) % 2000 + 1 END;
+
+-- Goal 20k + r is a child of goal 20 (k / 10) + r, which gives each tenant ten-way trees
+INSERT INTO epm_goals (id, tenant_id, short_description, long_description, owner_id, creation_date, status,
+                       parent_goal_id, territory_id, confidential, locked)
+SELECT g, 'tenant' || (g % 20) || '.test', 'Goal ' || g, 'Goal', (g - 1) % 50000 + 1, DATE '2024-01-01',
+       (ARRAY['DRAFT','PENDING_APPROVAL','APPROVED','PUBLISHED','ACHIEVED','ARCHIVED','RETIRED'])[g % 7 + 1],
+       CASE WHEN g / 200 >= 1 THEN (g / 200) * 20 + g % 20 END,
+       CASE WHEN g % 3 = 0 THEN g % 20 + 1 END, false, false
+FROM generate_series(1, 500000) g;
+
+INSERT INTO epm_goal_assignments (goal_id, user_id)
+SELECT g, COALESCE(NULLIF((g / 20 * 7919 % 2500) * 20 + g % 20, 0), 50000) FROM generate_series(1, 500000) g;
+
+INSERT INTO epm_kpis (id, tenant_id, goal_id, description, status, completion_percentage, due_date)
+SELECT k, 'tenant' || (k % 20) || '.test', k, 'KPI ' || k, 'IN_PROGRESS', k % 101, DATE '2025-01-01'
+FROM generate_series(1, 500000) k;
+
+INSERT INTO epm_visible_goals (goal_id, user_id, reason)
+SELECT id, owner_id, 'OWNER' FROM epm_goals
+UNION ALL
+SELECT goal_id, user_id, 'ASSIGNEE' FROM epm_goal_assignments;
+
+INSERT INTO epm_hierarchy_closure (ancestor_id, descendant_id, depth, hierarchy)
+SELECT id, id, 0, 'DEPARTMENT' FROM epm_departments
+UNION ALL
+SELECT parent_department_id, id, 1, 'DEPARTMENT' FROM epm_departments WHERE parent_department_id IS NOT NULL;
+
+ANALYZE;
+
+\echo
+\echo ======== Without the V2 indexes ========
+\ir tenant_scoped_queries.sql
+
+\ir ../../src/main/resources/db/migration/postgresql/V2__tenant_scoped_indexes.sql
+ANALYZE;
+
+\echo
+\echo ======== With the V2 indexes ========
+\ir tenant_scoped_queries.sql
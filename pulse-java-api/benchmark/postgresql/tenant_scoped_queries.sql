@@ -0,0 +1,62 @@
+-- The access paths compared by tenant_scoped_indexes.sql, for user 12347, goal 2407 and
+-- department 347 of tenant7.test
+
+\echo
+\echo -- Keyset page of a tenant's goals (GoalRepository.findPageByTenantId)
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT g.id, g.short_description FROM epm_goals g
+WHERE g.tenant_id = 'tenant7.test' AND g.id > 250000 ORDER BY g.id LIMIT 21;
+
+\echo
+\echo -- Keyset page filtered by status
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT g.id, g.short_description FROM epm_goals g
+WHERE g.tenant_id = 'tenant7.test' AND g.status = 'PENDING_APPROVAL' AND g.id > 0 ORDER BY g.id LIMIT 21;
+
+\echo
+\echo -- Goals assigned to a user
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT g.id, g.short_description FROM epm_goals g JOIN epm_goal_assignments a ON a.goal_id = g.id
+WHERE a.user_id = 12347 AND g.tenant_id = 'tenant7.test' ORDER BY g.id;
+
+\echo
+\echo -- Goals owned by a user
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT g.id, g.short_description FROM epm_goals g
+WHERE g.owner_id = 12347 AND g.tenant_id = 'tenant7.test' ORDER BY g.id;
+
+\echo
+\echo -- Child goals of a goal
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT g.id, g.short_description FROM epm_goals g
+WHERE g.parent_goal_id = 2407 AND g.tenant_id = 'tenant7.test' ORDER BY g.id;
+
+\echo
+\echo -- Subtree of a goal (GoalRepository.findSubtreeRows)
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+WITH RECURSIVE subtree(id) AS (
+    SELECT CAST(2407 AS BIGINT)
+    UNION
+    SELECT g.id FROM epm_goals g JOIN subtree s ON g.parent_goal_id = s.id)
+SELECT COUNT(*) FROM subtree;
+
+\echo
+\echo -- KPIs of a goal
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT k.id, k.status, k.completion_percentage FROM epm_kpis k WHERE k.goal_id = 2407 ORDER BY k.id;
+
+\echo
+\echo -- Members of a department
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT u.id, u.email FROM epm_users u WHERE u.department_id = 347 AND u.tenant_id = 'tenant7.test' ORDER BY u.id;
+
+\echo
+\echo -- Goals visible to a user (epm_visible_goals)
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT v.goal_id FROM epm_visible_goals v WHERE v.user_id = 12347;
+
+\echo
+\echo -- Ancestors of a department (epm_hierarchy_closure)
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT c.ancestor_id, c.depth FROM epm_hierarchy_closure c
+WHERE c.hierarchy = 'DEPARTMENT' AND c.descendant_id = 1987;
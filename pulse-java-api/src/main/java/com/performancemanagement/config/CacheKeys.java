@@ -0,0 +1,77 @@
+package com.performancemanagement.config;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache key strategy used from {@code @Cacheable} SpEL expressions as {@code @cacheKeys}.
+ *
+ * Every key starts with the tenant FQDN followed by ':', so entries of one tenant can never be
+ * served to another and all entries of a tenant can be evicted by prefix. Results that are
+ * RBAC-filtered per user are additionally keyed by the viewer's user id.
+ *
+ * Key layout:
+ * - {@code <tenant>:all}           tenant-wide lists (users, teams, root departments, ...)
+ * - {@code <tenant>:<id>}          single entities or lists scoped by a parent id
+ * - {@code <tenant>:user:<userId>} results filtered for one viewer (goals)
+ */
+@Component("cacheKeys")
+public class CacheKeys {
+
+    public static final String SEPARATOR = ":";
+
+    private static final String ALL = "all";
+    private static final String VIEWER = "user";
+
+    /**
+     * True when a tenant is bound to the current request. Results computed without a tenant are
+     * empty placeholders and must not be cached.
+     */
+    public boolean hasTenant() {
+        return TenantContext.getCurrentTenantId() != null;
+    }
+
+    /**
+     * True when both a tenant and an authenticated user are bound to the current request.
+     */
+    public boolean hasViewer() {
+        RequestContext context = RequestContext.current();
+        return context != null && context.visibilityFingerprint() != null;
+    }
+
+    /**
+     * Key for a tenant-wide result.
+     */
+    public String tenant() {
+        return forTenant(TenantContext.getCurrentTenantId(), ALL);
+    }
+
+    /**
+     * Key for a result identified by an id within the current tenant.
+     */
+    public String tenant(Object id) {
+        return forTenant(TenantContext.getCurrentTenantId(), id);
+    }
+
+    /**
+     * Key for a result filtered for the current user within the current tenant.
+     */
+    public String viewer() {
+        RequestContext context = RequestContext.current();
+        return context != null ? context.visibilityFingerprint() : null;
+    }
+
+    public static String forTenant(String tenantId, Object id) {
+        return tenantId + SEPARATOR + id;
+    }
+
+    public static String forViewer(String tenantId, Long userId) {
+        return forTenant(tenantId, VIEWER + SEPARATOR + userId);
+    }
+
+    /**
+     * Prefix shared by every key of the given tenant.
+     */
+    public static String tenantPrefix(String tenantId) {
+        return tenantId + SEPARATOR;
+    }
+}
@@ -5,6 +5,10 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.performancemanagement.model.*;
 import com.performancemanagement.repository.*;
+import com.performancemanagement.service.BatchWriteService;
+import com.performancemanagement.service.GoalRollupService;
+import com.performancemanagement.service.OrgHierarchyService;
+import com.performancemanagement.service.VisibleGoalService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,6 +45,18 @@ public class DemoDataLoader implements CommandLineRunner {
     @Autowired
     private KPIRepository kpiRepository;
 
+    @Autowired
+    private OrgHierarchyService orgHierarchyService;
+
+    @Autowired
+    private VisibleGoalService visibleGoalService;
+
+    @Autowired
+    private GoalRollupService goalRollupService;
+
+    @Autowired
+    private BatchWriteService batchWriteService;
+
     @Override
     @Transactional
     public void run(String... args) {
@@ -74,9 +90,7 @@ public class DemoDataLoader implements CommandLineRunner {
 
             logger.info("Loading demo data for tenant: {}", demoData.tenant.name);
 
-            // Set tenant context
             Tenant tenant = createTenant(demoData.tenant);
-            TenantContext.setCurrentTenant(tenant);
 
             // Phase 1: Create all users (without manager relationships)
             Map<String, User> userMap = createUsers(demoData.users, tenant);
@@ -87,6 +101,9 @@ public class DemoDataLoader implements CommandLineRunner {
             // Phase 3: Assign users to departments (explicitly from JSON)
             assignUsersToDepartments(demoData.users, userMap, departmentMap);
 
+            // Phase 4: Build the department hierarchy paths
+            orgHierarchyService.rebuild(tenantFqdn);
+
             // Phase 5: Create goals (root goals first, then children)
             Map<String, Goal> goalMap = createGoals(demoData.goals, tenant, userMap, departmentMap);
 
@@ -96,6 +113,12 @@ public class DemoDataLoader implements CommandLineRunner {
             // Phase 7: Create KPIs
             createKPIs(demoData.goals, tenant, goalMap);
 
+            // Phase 8: Build the visible goal index
+            visibleGoalService.rebuild(tenantFqdn);
+
+            // Phase 9: Aggregate KPI progress
+            goalRollupService.rebuild(tenantFqdn);
+
             logger.info("Demo data loading completed successfully for tenant: {}", tenantFqdn);
         } catch (Exception e) {
             logger.error("Failed to load demo data", e);
@@ -289,14 +312,15 @@ public class DemoDataLoader implements CommandLineRunner {
         for (DemoData.GoalData goalData : goalsData) {
             Goal goal = goalMap.get(goalData.shortDescription);
             if (goal != null && goalData.assignedUserEmails != null) {
+                List<Long> userIds = new ArrayList<>();
                 for (String email : goalData.assignedUserEmails) {
                     User user = userMap.get(email);
                     if (user != null) {
-                        goal.getAssignedUsers().add(user);
+                        userIds.add(user.getId());
                         logger.debug("Assigned goal {} to user {}", goalData.shortDescription, email);
                     }
                 }
-                goalRepository.save(goal);
+                batchWriteService.insertGoalAssignments(goal.getId(), userIds);
             }
         }
     }
@@ -305,6 +329,7 @@ public class DemoDataLoader implements CommandLineRunner {
             List<DemoData.GoalData> goalsData,
             Tenant tenant,
             Map<String, Goal> goalMap) {
+        List<KPI> kpis = new ArrayList<>();
         for (DemoData.GoalData goalData : goalsData) {
             Goal goal = goalMap.get(goalData.shortDescription);
             if (goal != null && goalData.kpis != null) {
@@ -316,11 +341,12 @@ public class DemoDataLoader implements CommandLineRunner {
                     kpi.setStatus(KPI.KPIStatus.valueOf(kpiData.status));
                     kpi.setCompletionPercentage(kpiData.completionPercentage);
                     kpi.setDueDate(LocalDate.parse(kpiData.dueDate));
-                    kpiRepository.save(kpi);
+                    kpis.add(kpi);
                     logger.debug("Created KPI for goal {}: {}", goalData.shortDescription, kpiData.description);
                 }
             }
         }
+        kpiRepository.saveAll(kpis);
     }
 
     // Inner classes for JSON deserialization
@@ -0,0 +1,171 @@
+package com.performancemanagement.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.performancemanagement.model.Tenant;
+import com.performancemanagement.model.User;
+import com.performancemanagement.repository.TenantRepository;
+import com.performancemanagement.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * In-process cache of the tenant and user resolved for each request by {@link JwtAuthenticationFilter},
+ * so steady-state requests do not hit the database for identity.
+ *
+ * Entries are the detached entities loaded by the repositories (the same objects the filter
+ * previously put into {@link TenantContext} and {@link UserContext}) and must be treated as read-only.
+ * Lookups that find nothing are cached as well, with a shorter TTL. Entries are reloaded in the
+ * background after identity.cache.refresh-after, which also bounds how long a replica can serve
+ * an entry that was changed on another replica. Local organization changes invalidate the
+ * tenant's users immediately through {@link #evictUsers(String)}.
+ *
+ * {@link TenantContext} and {@link UserContext} resolve the entities of the current request here,
+ * possibly inside a transaction of the request. Misses are therefore loaded on a thread of their
+ * own, which the caller waits for, so the entities never belong to the caller's persistence
+ * context; this also keeps the query outside the lock Caffeine holds on the entry, which would pin
+ * the carrier of a virtual thread. The loading threads are virtual when virtual threads are enabled.
+ */
+@Component
+public class IdentityCache {
+
+    private static final String SEPARATOR = ":";
+
+    private final AsyncLoadingCache<String, Optional<Tenant>> tenants;
+    private final AsyncLoadingCache<String, Optional<User>> users;
+
+    public IdentityCache(TenantRepository tenantRepository,
+                         UserRepository userRepository,
+                         MeterRegistry meterRegistry,
+                         Environment environment,
+                         @Value("${identity.cache.maximum-size:10000}") long maximumSize,
+                         @Value("${identity.cache.time-to-live:10m}") Duration timeToLive,
+                         @Value("${identity.cache.negative-time-to-live:30s}") Duration negativeTimeToLive,
+                         @Value("${identity.cache.refresh-after:30s}") Duration refreshAfter) {
+        SimpleAsyncTaskExecutor missLoader = new SimpleAsyncTaskExecutor("identity-load-");
+        missLoader.setVirtualThreads(Threading.VIRTUAL.isActive(environment));
+        this.tenants = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(IdentityCache.<Tenant>expiry(timeToLive, negativeTimeToLive))
+                .refreshAfterWrite(refreshAfter)
+                .recordStats()
+                .buildAsync(loader(tenantRepository::findByFqdn, missLoader));
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(IdentityCache.<User>expiry(timeToLive, negativeTimeToLive))
+                .refreshAfterWrite(refreshAfter)
+                .recordStats()
+                .buildAsync(IdentityCache.<User>loader(key -> {
+                    int separator = key.indexOf(SEPARATOR);
+                    return userRepository.findByEmailAndTenantId(key.substring(separator + 1), key.substring(0, separator));
+                }, missLoader));
+
+        CaffeineCacheMetrics.monitor(meterRegistry, tenants, "identityTenants");
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "identityUsers");
+        TenantContext.resolveWith(this);
+        UserContext.resolveWith(this);
+    }
+
+    /**
+     * Tenant by FQDN, loading it on a miss. Inactive tenants are returned as well.
+     */
+    public Optional<Tenant> getTenant(String fqdn) {
+        return join(tenants.get(fqdn));
+    }
+
+    public void putTenant(Tenant tenant) {
+        tenants.synchronous().put(tenant.getFqdn(), Optional.of(tenant));
+    }
+
+    public void evictTenant(String fqdn) {
+        tenants.synchronous().invalidate(fqdn);
+    }
+
+    /**
+     * User by tenant FQDN and email, loading it on a miss.
+     */
+    public Optional<User> getUser(String tenantId, String email) {
+        return join(users.get(userKey(tenantId, email)));
+    }
+
+    public void putUser(String tenantId, String email, User user) {
+        users.synchronous().put(userKey(tenantId, email), Optional.of(user));
+    }
+
+    public void evictUser(String tenantId, String email) {
+        users.synchronous().invalidate(userKey(tenantId, email));
+    }
+
+    /**
+     * Drop every cached user (and cached miss) of the tenant.
+     */
+    public void evictUsers(String tenantId) {
+        String prefix = tenantId + SEPARATOR;
+        users.synchronous().asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private static String userKey(String tenantId, String email) {
+        return tenantId + SEPARATOR + email;
+    }
+
+    /**
+     * Misses run on missLoader; background refreshes keep running on the cache's executor.
+     */
+    private static <V> AsyncCacheLoader<String, Optional<V>> loader(Function<String, Optional<V>> load, Executor missLoader) {
+        return new AsyncCacheLoader<>() {
+            @Override
+            public CompletableFuture<Optional<V>> asyncLoad(String key, Executor executor) {
+                return CompletableFuture.supplyAsync(() -> load.apply(key), missLoader);
+            }
+
+            @Override
+            public CompletableFuture<Optional<V>> asyncReload(String key, Optional<V> oldValue, Executor executor) {
+                return CompletableFuture.supplyAsync(() -> load.apply(key), executor);
+            }
+        };
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static <V> Expiry<String, Optional<V>> expiry(Duration timeToLive, Duration negativeTimeToLive) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String key, Optional<V> value, long currentTime) {
+                return (value.isPresent() ? timeToLive : negativeTimeToLive).toNanos();
+            }
+
+            @Override
+            public long expireAfterUpdate(String key, Optional<V> value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(String key, Optional<V> value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package com.performancemanagement.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JpaConfig {
+
+    private static final String SQLITE_MAPPINGS = "META-INF/orm-sqlite.xml";
+
+    /**
+     * The entities take their IDs from pooled sequences so that inserts can be batched. On SQLite,
+     * Hibernate would emulate the sequences with tables updated through a second connection, which
+     * waits for the write lock held by the transaction asking for the ID; the IDs are the rowid there.
+     */
+    @Bean
+    public EntityManagerFactoryBuilderCustomizer sqliteIdentityIds(@Value("${spring.datasource.url:}") String dbUrl) {
+        return builder -> {
+            if (dbUrl.contains("sqlite")) {
+                builder.setPersistenceUnitPostProcessors(unit -> unit.addMappingFileName(SQLITE_MAPPINGS));
+            }
+        };
+    }
+}
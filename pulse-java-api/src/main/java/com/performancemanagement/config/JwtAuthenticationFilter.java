@@ -3,8 +3,6 @@ package com.performancemanagement.config;
 import com.performancemanagement.config.JwtTokenProvider.JwtUserDetails;
 import com.performancemanagement.model.Tenant;
 import com.performancemanagement.model.User;
-import com.performancemanagement.repository.TenantRepository;
-import com.performancemanagement.repository.UserRepository;
 import com.performancemanagement.service.AutoProvisioningService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -20,8 +18,10 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -30,19 +30,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final TenantResolver tenantResolver;
-    private final TenantRepository tenantRepository;
-    private final UserRepository userRepository;
+    private final IdentityCache identityCache;
     private final AutoProvisioningService autoProvisioningService;
 
     public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider,
                                   TenantResolver tenantResolver,
-                                  TenantRepository tenantRepository,
-                                  UserRepository userRepository,
+                                  IdentityCache identityCache,
                                   AutoProvisioningService autoProvisioningService) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.tenantResolver = tenantResolver;
-        this.tenantRepository = tenantRepository;
-        this.userRepository = userRepository;
+        this.identityCache = identityCache;
         this.autoProvisioningService = autoProvisioningService;
     }
 
@@ -59,149 +56,122 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        try {
-            String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
-            JwtUserDetails jwtDetails = null;
-
-            if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                String token = authHeader.substring(7);
-                logger.debug("Attempting to parse JWT token for request: {}", path);
-                jwtDetails = jwtTokenProvider.parseToken(token);
-
-                if (jwtDetails != null) {
-                    logger.debug("Successfully parsed JWT token for user: {}", jwtDetails.getEmail());
-                    // Set Spring Security authentication FIRST - this ensures the user is authenticated
-                    // even if tenant/user provisioning fails
-                    // All logged-in users have the USER role in addition to whatever roles are in the JWT
-                    List<SimpleGrantedAuthority> authorities = new java.util.ArrayList<>();
-                    // Always add USER role
-                    authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
-                    // Add additional roles from JWT if present
-                    if (jwtDetails.getRoles() != null && !jwtDetails.getRoles().isEmpty()) {
-                        jwtDetails.getRoles().stream()
-                                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                                .forEach(authorities::add);
-                    }
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        JwtUserDetails jwtDetails = null;
+        String contextTenantId = null;
+        User contextUser = null;
+        String contextUserEmail = null;
+
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            String token = authHeader.substring(7);
+            logger.debug("Attempting to parse JWT token for request: {}", path);
+            jwtDetails = jwtTokenProvider.parseToken(token);
 
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(jwtDetails, null, authorities);
+            if (jwtDetails != null) {
+                logger.debug("Successfully parsed JWT token for user: {}", jwtDetails.getEmail());
+                // Set Spring Security authentication FIRST - this ensures the user is authenticated
+                // even if tenant/user provisioning fails
+                List<SimpleGrantedAuthority> authorities = roles(jwtDetails).stream()
+                        .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                        .toList();
 
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(jwtDetails, null, authorities);
 
-                    // Resolve or create tenant from JWT (priority) or headers (fallback)
-                    // Note: Tenant/user provisioning failures should not prevent authentication
-                    try {
-                        Optional<Tenant> tenant = Optional.empty();
-                        
-                        // First, try to get or create tenant from JWT if tenantId is present
-                        if (jwtDetails.getTenantId() != null) {
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+
+                // Resolve or create tenant from JWT (priority) or headers (fallback)
+                // Note: Tenant/user provisioning failures should not prevent authentication
+                try {
+                    Optional<Tenant> tenant = Optional.empty();
+                    
+                    // First, try to get or create tenant from JWT if tenantId is present
+                    if (jwtDetails.getTenantId() != null) {
+                        String tenantId = jwtDetails.getTenantId().trim().toLowerCase();
+                        tenant = identityCache.getTenant(tenantId);
+                        if (tenant.isEmpty()) {
                             try {
+                                // Returns null if auto-provisioning is disabled
                                 Tenant provisionedTenant = autoProvisioningService.provisionTenantIfNeeded(jwtDetails);
                                 if (provisionedTenant != null) {
+                                    identityCache.putTenant(provisionedTenant);
                                     tenant = Optional.of(provisionedTenant);
-                                } else {
-                                    // If auto-provisioning is disabled, try to find existing tenant
-                                    String tenantId = jwtDetails.getTenantId().trim().toLowerCase();
-                                    tenant = tenantRepository.findByFqdn(tenantId);
                                 }
                             } catch (Exception e) {
-                                // Log but don't fail - try to find existing tenant
+                                // Log but don't fail - the tenant may have been created concurrently
                                 logger.warn("Error provisioning tenant, trying to find existing: " + e.getMessage());
-                                String tenantId = jwtDetails.getTenantId().trim().toLowerCase();
-                                tenant = tenantRepository.findByFqdn(tenantId);
+                                identityCache.evictTenant(tenantId);
+                                tenant = identityCache.getTenant(tenantId);
                             }
                         }
-                        
-                        // Fallback: If no tenant from JWT, try header-based resolution
-                        if (tenant.isEmpty()) {
-                            tenant = tenantResolver.resolveTenant(request);
-                        }
-
-                        // Set Tenant Context if tenant is present and active
-                        if (tenant.isPresent() && Boolean.TRUE.equals(tenant.get().getActive())) {
-                            TenantContext.setCurrentTenant(tenant.get());
-                            Tenant resolvedTenant = tenant.get();
+                    }
+                    
+                    // Fallback: If no tenant from JWT, try header-based resolution
+                    if (tenant.isEmpty()) {
+                        tenant = tenantResolver.resolveTenant(request);
+                    }
 
-                            // Resolve or create user
-                            try {
-                                User currentUser = null;
-                                
-                                // First, try X-User-Email header
-                                String userEmail = request.getHeader("X-User-Email");
-                                if (userEmail != null && !userEmail.isBlank()) {
-                                    String tenantId = TenantContext.getCurrentTenantId();
-                                    Optional<User> userOpt = userRepository.findByEmailAndTenantId(userEmail, tenantId);
-                                    if (userOpt.isPresent()) {
-                                        currentUser = userOpt.get();
-                                    }
-                                }
-                                
-                                // If no user found and we have valid JWT, try auto-provisioning or find existing
-                                if (currentUser == null && jwtDetails.getEmail() != null) {
+                    // Bind the tenant to the request context if it is present and active
+                    if (tenant.isPresent() && Boolean.TRUE.equals(tenant.get().getActive())) {
+                        Tenant resolvedTenant = tenant.get();
+                        contextTenantId = resolvedTenant.getFqdn();
+
+                        // Resolve or create user
+                        try {
+                            User currentUser = null;
+                            
+                            String tenantId = resolvedTenant.getFqdn();
+
+                            // First, try X-User-Email header
+                            String userEmail = request.getHeader("X-User-Email");
+                            if (userEmail != null && !userEmail.isBlank()) {
+                                currentUser = identityCache.getUser(tenantId, userEmail).orElse(null);
+                                contextUserEmail = userEmail;
+                            }
+                            
+                            // If no user found and we have valid JWT, find existing or try auto-provisioning
+                            if (currentUser == null && jwtDetails.getEmail() != null) {
+                                String jwtEmail = jwtDetails.getEmail();
+                                currentUser = identityCache.getUser(tenantId, jwtEmail).orElse(null);
+                                contextUserEmail = jwtEmail;
+                                if (currentUser == null) {
                                     try {
-                                        // Try to auto-provision user from JWT
+                                        // Returns null if auto-provisioning is disabled
                                         User provisionedUser = autoProvisioningService.provisionUserIfNeeded(jwtDetails, resolvedTenant);
                                         if (provisionedUser != null) {
+                                            identityCache.putUser(tenantId, jwtEmail, provisionedUser);
                                             currentUser = provisionedUser;
-                                        } else {
-                                            // Try to find existing user by email from JWT
-                                            String tenantId = TenantContext.getCurrentTenantId();
-                                            Optional<User> userOpt = userRepository.findByEmailAndTenantId(jwtDetails.getEmail(), tenantId);
-                                            if (userOpt.isPresent()) {
-                                                currentUser = userOpt.get();
-                                            }
                                         }
                                     } catch (Exception e) {
-                                        // Log but don't fail - try to find existing user
+                                        // Log but don't fail - the user may have been created concurrently
                                         logger.warn("Error provisioning user, trying to find existing: " + e.getMessage());
-                                        String tenantId = TenantContext.getCurrentTenantId();
-                                        Optional<User> userOpt = userRepository.findByEmailAndTenantId(jwtDetails.getEmail(), tenantId);
-                                        if (userOpt.isPresent()) {
-                                            currentUser = userOpt.get();
-                                        }
+                                        identityCache.evictUser(tenantId, jwtEmail);
+                                        currentUser = identityCache.getUser(tenantId, jwtEmail).orElse(null);
                                     }
                                 }
-                                
-                                // Set User Context if user is found
-                                if (currentUser != null) {
-                                    UserContext.setCurrentUser(currentUser);
-                                }
-                            } catch (Exception e) {
-                                // Log but don't fail authentication
-                                logger.warn("Error setting user context: " + e.getMessage());
                             }
+                            
+                            contextUser = currentUser;
+                        } catch (Exception e) {
+                            // Log but don't fail authentication
+                            logger.warn("Error setting user context: " + e.getMessage());
                         }
-                    } catch (Exception e) {
-                        // Log but don't fail authentication - user is still authenticated via JWT
-                        logger.warn("Error during tenant/user provisioning: " + e.getMessage());
-                    }
-                } else {
-                    // Invalid JWT token - set authentication as null to trigger 401 from Spring Security
-                    // or return 401 directly
-                    logger.debug("JWT token received (for debugging): {}", token);
-                    logger.warn("Invalid or expired JWT token for request: {} - token parsing returned null", path);
-                    try {
-                        if (!response.isCommitted()) {
-                            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                            response.setContentType("application/json");
-                            response.setCharacterEncoding("UTF-8");
-                            response.getWriter().write("{\"error\":\"Invalid or expired JWT token\"}");
-                            response.getWriter().flush();
-                        }
-                    } catch (IOException e) {
-                        logger.error("Error writing error response", e);
                     }
-                    return;
+                } catch (Exception e) {
+                    // Log but don't fail authentication - user is still authenticated via JWT
+                    logger.warn("Error during tenant/user provisioning: " + e.getMessage());
                 }
             } else {
-                // No Authorization header - return 401 Unauthorized
-                logger.debug("No Authorization header for request: {}", path);
+                // Invalid JWT token - set authentication as null to trigger 401 from Spring Security
+                // or return 401 directly
+                logger.debug("JWT token received (for debugging): {}", token);
+                logger.warn("Invalid or expired JWT token for request: {} - token parsing returned null", path);
                 try {
                     if (!response.isCommitted()) {
                         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                         response.setContentType("application/json");
                         response.setCharacterEncoding("UTF-8");
-                        response.getWriter().write("{\"error\":\"Authentication required. Please provide a valid JWT token.\"}");
+                        response.getWriter().write("{\"error\":\"Invalid or expired JWT token\"}");
                         response.getWriter().flush();
                     }
                 } catch (IOException e) {
@@ -209,14 +179,45 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 }
                 return;
             }
+        } else {
+            // No Authorization header - return 401 Unauthorized
+            logger.debug("No Authorization header for request: {}", path);
+            try {
+                if (!response.isCommitted()) {
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    response.setContentType("application/json");
+                    response.setCharacterEncoding("UTF-8");
+                    response.getWriter().write("{\"error\":\"Authentication required. Please provide a valid JWT token.\"}");
+                    response.getWriter().flush();
+                }
+            } catch (IOException e) {
+                logger.error("Error writing error response", e);
+            }
+            return;
+        }
 
+        // The user email is the identity cache key the user was found under, which UserContext resolves
+        RequestContext context = new RequestContext(contextTenantId,
+                contextUser != null ? contextUser.getId() : null,
+                contextUser != null ? contextUserEmail : null,
+                roles(jwtDetails));
+        try (RequestContext.Scope scope = context.bind()) {
             filterChain.doFilter(request, response);
-        } finally {
-            // Always clear tenant and user context after request
-            UserContext.clear();
-            TenantContext.clear();
         }
     }
-}
-
 
+    /**
+     * All logged-in users have the USER role in addition to whatever roles are in the JWT.
+     */
+    private static Set<String> roles(JwtUserDetails jwtDetails) {
+        if (jwtDetails == null) {
+            return Set.of();
+        }
+        Set<String> roles = new LinkedHashSet<>();
+        roles.add("USER");
+        if (jwtDetails.getRoles() != null) {
+            roles.addAll(jwtDetails.getRoles());
+        }
+        return roles;
+    }
+}
@@ -1,7 +1,13 @@
 package com.performancemanagement.config;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -13,10 +19,15 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility for parsing and validating JWT tokens.
@@ -31,13 +42,20 @@ public class JwtTokenProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private final SecretKey secretKey;
     private final Environment environment;
     private final String jwtAllowUnsignedProperty;
+    private final JwtParser signedParser;
+    private final JwtParser unsignedParser;
+    private final boolean unsignedAllowed;
+    private final Cache<String, VerifiedToken> verifiedTokens;
 
     public JwtTokenProvider(
             @Value("${security.jwt.secret:change-me-secret}") String secret,
             @Value("${security.jwt.allow-unsigned:}") String jwtAllowUnsigned,
+            @Value("${security.jwt.cache.maximum-size:10000}") long cacheMaximumSize,
             Environment environment
     ) {
         this.environment = environment;
@@ -52,47 +70,83 @@ public class JwtTokenProvider {
         } else {
             this.secretKey = Keys.hmacShaKeyFor(keyBytes);
         }
+
+        // Parsers are immutable and thread-safe, so they are built once
+        this.signedParser = Jwts.parserBuilder().setSigningKey(secretKey).build();
+        this.unsignedParser = Jwts.parserBuilder().build();
+        // Environment and profiles do not change after startup
+        this.unsignedAllowed = isUnsignedAllowed();
+
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expiresAt() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
+    /**
+     * Validate the token and extract the user details, or return null if the token is invalid.
+     *
+     * Successfully verified tokens are cached by SHA-256 digest until their exp claim, so repeated
+     * requests with the same token skip signature verification and claim extraction.
+     */
     public JwtUserDetails parseToken(String token) {
-        Claims claims = null;
+        if (token == null || token.isBlank()) {
+            return null;
+        }
 
-        boolean isUnsignedAllowed = isUnsignedAllowed();
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            return cached.details();
+        }
+
+        VerifiedToken verified = verify(token);
+        if (verified == null) {
+            return null;
+        }
+        verifiedTokens.put(digest, verified);
+        return verified.details();
+    }
+
+    private VerifiedToken verify(String token) {
+        Claims claims;
+
+        // Decide between unsigned and signed parsing from the header instead of trial and error
+        boolean unsignedToken = isUnsignedHeader(token);
+        if (unsignedToken && !unsignedAllowed) {
+            logger.debug("JWT token rejected: unsigned tokens are not allowed");
+            return null;
+        }
 
         try {
-            if (isUnsignedAllowed) {
+            if (unsignedToken) {
                 // Accept unsigned tokens (alg=none) by parsing without a signing key
                 // but still enforce expiration manually.
-                claims = Jwts.parserBuilder()
-                        .build()
-                        .parseClaimsJwt(token)
-                        .getBody();
+                claims = unsignedParser.parseClaimsJwt(token).getBody();
             } else {
                 // Standard signed JWT parsing
-                Jws<Claims> jwsClaims = Jwts.parserBuilder()
-                        .setSigningKey(secretKey)
-                        .build()
-                        .parseClaimsJws(token);
+                Jws<Claims> jwsClaims = signedParser.parseClaimsJws(token);
                 claims = jwsClaims.getBody();
             }
         } catch (Exception ex) {
-            logger.debug("JWT parsing failed (unsigned attempt): {} - {}", ex.getClass().getSimpleName(), ex.getMessage());
-            // If parsing as unsecured JWT fails in dev/local, fall back to signed parsing
-            if (isUnsignedAllowed) {
-                try {
-                    Jws<Claims> jwsClaims = Jwts.parserBuilder()
-                            .setSigningKey(secretKey)
-                            .build()
-                            .parseClaimsJws(token);
-                    claims = jwsClaims.getBody();
-                    logger.debug("JWT parsing succeeded with signed token fallback");
-                } catch (Exception signedEx) {
-                    logger.debug("JWT parsing failed (signed fallback): {} - {}", signedEx.getClass().getSimpleName(), signedEx.getMessage());
-                    return null;
-                }
-            } else {
-                return null;
-            }
+            logger.debug("JWT parsing failed ({}): {} - {}", unsignedToken ? "unsigned" : "signed",
+                    ex.getClass().getSimpleName(), ex.getMessage());
+            return null;
         }
 
         if (claims == null) {
@@ -106,8 +160,8 @@ public class JwtTokenProvider {
             logger.debug("JWT token rejected: missing expiration (exp) claim");
             return null;
         }
-        if (expiration.toInstant().isBefore(Instant.now())) {
-            // Token has expired
+        if (!expiration.toInstant().isAfter(Instant.now())) {
+            // Token has expired: it is not accepted on or after its exp time, as when it is cached
             logger.debug("JWT token rejected: token expired at {}, current time is {}", expiration, Instant.now());
             return null;
         }
@@ -154,7 +208,36 @@ public class JwtTokenProvider {
             username = email.split("@")[0];
         }
 
-        return new JwtUserDetails(username, email, tenantId, roles, permissions);
+        return new VerifiedToken(new JwtUserDetails(username, email, tenantId, roles, permissions),
+                expiration.getTime());
+    }
+
+    /**
+     * True if the token header declares alg "none". Malformed headers are treated as signed and
+     * left to the signed parser to reject.
+     */
+    private boolean isUnsignedHeader(String token) {
+        int headerEnd = token.indexOf('.');
+        if (headerEnd <= 0) {
+            return false;
+        }
+        try {
+            byte[] header = Base64.getUrlDecoder().decode(token.substring(0, headerEnd));
+            JsonNode alg = OBJECT_MAPPER.readTree(header).get("alg");
+            return alg != null && "none".equalsIgnoreCase(alg.asText());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is required on every Java platform
+            throw new IllegalStateException(e);
+        }
     }
 
     private boolean isUnsignedAllowed() {
@@ -174,6 +257,9 @@ public class JwtTokenProvider {
                 .anyMatch(p -> p.equalsIgnoreCase("dev") || p.equalsIgnoreCase("local") || p.equalsIgnoreCase("demo"));
     }
 
+    private record VerifiedToken(JwtUserDetails details, long expiresAt) {
+    }
+
     /**
      * Simple DTO representing the authenticated user as extracted from the JWT.
      */
@@ -0,0 +1,129 @@
+package com.performancemanagement.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Read replica, enabled by setting datasource.replica.url.
+ *
+ * Read-only transactions ({@code @Transactional(readOnly = true)}) run on a connection from the
+ * replica pool; all other work, including the migrations, statements outside a transaction and
+ * the reads of {@code @Cacheable} methods, runs on the primary pool. Both pools are Hikari pools configured like the single pool Spring
+ * Boot creates otherwise (spring.datasource.hikari.* and datasource.replica.hikari.*), and are
+ * registered as beans of their own so that their metrics and health are reported per pool.
+ */
+@Configuration
+@ConditionalOnProperty("datasource.replica.url")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${datasource.replica.url}") String url,
+                                              @Value("${datasource.replica.username:}") String username,
+                                              @Value("${datasource.replica.password:}") String password) {
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(StringUtils.hasText(username) ? username : properties.determineUsername())
+                .password(StringUtils.hasText(password) ? password : properties.determinePassword())
+                .build();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    /**
+     * The transaction manager takes the connection before the transaction is marked read-only, so
+     * the routing data source is only asked for a connection once the first statement runs.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        ReadOnlyRoutingDataSource routing = new ReadOnlyRoutingDataSource();
+        routing.setTargetDataSources(Map.of(false, primary, true, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * Hibernate otherwise keeps the connection of a session until the session closes, and the
+     * session of a REST request (open-in-view) spans several transactions; returning it after each
+     * transaction lets every transaction be routed on its own.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionsAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    /**
+     * The caches are evicted after a write commits. A cached method reading from a replica that has
+     * not applied the write yet would put the old rows back for the cache's time to live, so the
+     * transactions of cached methods read from the primary. The cached service methods are called
+     * from the controllers and resolvers, outside a transaction.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public Advisor cachedReadsOnPrimary() {
+        return new DefaultPointcutAdvisor(AnnotationMatchingPointcut.forMethodAnnotation(Cacheable.class),
+                (MethodInterceptor) ReadOnlyRoutingDataSource::onPrimary);
+    }
+
+    static class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+
+        private static final ThreadLocal<Boolean> primaryReads = new ThreadLocal<>();
+
+        static Object onPrimary(MethodInvocation invocation) throws Throwable {
+            if (primaryReads.get() != null) {
+                return invocation.proceed();
+            }
+            primaryReads.set(true);
+            try {
+                return invocation.proceed();
+            } finally {
+                primaryReads.remove();
+            }
+        }
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && primaryReads.get() == null;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.performancemanagement.config;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Identity of the current request: tenant FQDN, user id and email, and the roles of the token,
+ * resolved once by {@link JwtAuthenticationFilter}. Immutable and free of entities, so it can be
+ * shared with any thread; {@link TenantContext} and {@link UserContext} resolve the tenant and user
+ * entities from {@link IdentityCache} when they are needed.
+ *
+ * A context is bound to a thread for a scope ({@link #bind()}, closed with try-with-resources) and
+ * is not inherited: work handed to an executor carries the context of the submitting thread with
+ * {@link #wrap(Runnable)} or {@link #wrap(Callable)}, and background work that does not belong to a
+ * request binds one of its own, e.g. {@link #forTenant(String)}.
+ */
+public record RequestContext(String tenantId, Long userId, String userEmail, Set<String> roles) {
+
+    private static final ThreadLocal<RequestContext> CURRENT = new ThreadLocal<>();
+
+    public RequestContext {
+        roles = roles != null ? Set.copyOf(roles) : Set.of();
+    }
+
+    /**
+     * Context of work done for a tenant outside a request, without a user.
+     */
+    public static RequestContext forTenant(String tenantId) {
+        return new RequestContext(tenantId, null, null, Set.of());
+    }
+
+    /**
+     * The context bound to the current thread, or null.
+     */
+    public static RequestContext current() {
+        return CURRENT.get();
+    }
+
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+
+    /**
+     * Identifies the goals this request may see: results filtered by goal visibility can be shared
+     * by requests with the same fingerprint. Null without a tenant or user.
+     */
+    public String visibilityFingerprint() {
+        return tenantId != null && userId != null ? CacheKeys.forViewer(tenantId, userId) : null;
+    }
+
+    /**
+     * Bind this context to the current thread until the scope is closed, which restores the
+     * context bound before.
+     */
+    public Scope bind() {
+        return bind(this);
+    }
+
+    /**
+     * Bind the context, or no context when null, to the current thread until the scope is closed.
+     */
+    public static Scope bind(RequestContext context) {
+        RequestContext previous = CURRENT.get();
+        set(context);
+        return () -> set(previous);
+    }
+
+    /**
+     * The task, running with the context of the calling thread on whichever thread executes it.
+     */
+    public static Runnable wrap(Runnable task) {
+        RequestContext context = current();
+        return () -> {
+            try (Scope scope = bind(context)) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * The task, running with the context of the calling thread on whichever thread executes it.
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        RequestContext context = current();
+        return () -> {
+            try (Scope scope = bind(context)) {
+                return task.call();
+            }
+        };
+    }
+
+    private static void set(RequestContext context) {
+        if (context != null) {
+            CURRENT.set(context);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
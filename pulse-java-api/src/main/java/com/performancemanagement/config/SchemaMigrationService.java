@@ -0,0 +1,335 @@
+package com.performancemanagement.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned schema migrations: the SQL scripts in db/migration/&lt;sqlite|postgresql&gt;/ own the
+ * schema, and Hibernate only maps it (spring.jpa.hibernate.ddl-auto=none). The migrations run
+ * before the entity manager factory is created.
+ *
+ * Scripts are named V&lt;version&gt;__&lt;description&gt;.sql and applied in version order. Each script
+ * runs in one transaction together with its row in epm_schema_history, which records the CRC32
+ * checksum of the script; a script that was changed after it was applied fails startup. Scripts
+ * are written to be idempotent (IF NOT EXISTS and the like), so they also apply to databases
+ * created by an earlier release. SQLite lacks ALTER TABLE ... ADD COLUMN IF NOT EXISTS, so on
+ * SQLite the runner checks the table's columns for such statements before the script runs.
+ *
+ * schema.migrations.mode selects what happens on startup:
+ * - migrate: apply pending scripts. When nothing is pending this is a single read of the history,
+ *   so replicas that start after the schema is current do not lock or inspect anything. Otherwise
+ *   the runner takes the row in epm_schema_lock, so concurrent replicas apply each script once.
+ * - validate: check that every script is applied with the same checksum and fail otherwise,
+ *   without writing. For replicas when migrations are run by a single instance or a job.
+ * - none: do nothing.
+ */
+@Component
+public class SchemaMigrationService implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrationService.class);
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    // SQLite has no ADD COLUMN IF NOT EXISTS; see withMissingColumnsOnly
+    private static final Pattern ADD_COLUMN_IF_NOT_EXISTS =
+            Pattern.compile("^ALTER TABLE (\\w+) ADD COLUMN IF NOT EXISTS (\\w+)(.*)$", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+
+    private static final int LOCK_ID = 1;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${schema.migrations.mode:migrate}")
+    private String mode;
+
+    // How long to wait for another instance that holds the migration lock
+    @Value("${schema.migrations.lock-timeout:5m}")
+    private Duration lockTimeout;
+
+    // A lock older than this is left over from an instance that died while migrating
+    @Value("${schema.migrations.lock-stale-after:15m}")
+    private Duration lockStaleAfter;
+
+    @Value("${spring.jpa.hibernate.ddl-auto:none}")
+    private String ddlAuto;
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (mode.equals("none")) {
+            logger.info("Schema migrations disabled");
+            return;
+        }
+        if (!mode.equals("migrate") && !mode.equals("validate")) {
+            throw new IllegalStateException("Unknown schema.migrations.mode: " + mode);
+        }
+        if (ddlAuto.equals("create") || ddlAuto.equals("create-drop")) {
+            throw new IllegalStateException("spring.jpa.hibernate.ddl-auto=" + ddlAuto +
+                    " recreates the tables after the schema migrations; use none, or set schema.migrations.mode=none");
+        }
+        String dbUrl = environment.getProperty("spring.datasource.url", "");
+        String dialect = dbUrl.contains("sqlite") ? "sqlite" : dbUrl.contains("postgresql") ? "postgresql" : null;
+        if (dialect == null) {
+            logger.info("Schema migrations are only provided for SQLite and PostgreSQL");
+            return;
+        }
+
+        List<Migration> migrations = findMigrations(dialect);
+        if (mode.equals("validate")) {
+            validate(migrations);
+        } else {
+            migrate(migrations, dialect);
+        }
+    }
+
+    private void validate(List<Migration> migrations) {
+        Map<Integer, Integer> applied;
+        try {
+            applied = appliedChecksums();
+        } catch (DataAccessException e) {
+            throw new IllegalStateException("Schema is not migrated: epm_schema_history cannot be read", e);
+        }
+        List<Migration> pending = pending(migrations, applied);
+        if (!pending.isEmpty()) {
+            throw new IllegalStateException("Schema is missing migration V" + pending.get(0).version() +
+                    " (" + pending.size() + " pending); run with schema.migrations.mode=migrate");
+        }
+        logger.info("Schema validated at version {}", currentVersion(migrations, applied));
+    }
+
+    private void migrate(List<Migration> migrations, String dialect) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS epm_schema_history (" +
+                "version INTEGER NOT NULL PRIMARY KEY, " +
+                "description VARCHAR(255) NOT NULL, " +
+                "checksum INTEGER NOT NULL, " +
+                "applied_at TIMESTAMP NOT NULL, " +
+                "execution_ms BIGINT NOT NULL)");
+        Map<Integer, Integer> current = appliedChecksums();
+        if (pending(migrations, current).isEmpty()) {
+            logger.info("Schema is up to date at version {}", currentVersion(migrations, current));
+            return;
+        }
+
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS epm_schema_lock (" +
+                "id INTEGER NOT NULL PRIMARY KEY, " +
+                "locked_by VARCHAR(255) NOT NULL, " +
+                "locked_at TIMESTAMP NOT NULL)");
+        String owner = lockOwner();
+        acquireLock(owner);
+        try {
+            // Read again under the lock: another instance may have applied the scripts meanwhile
+            Map<Integer, Integer> applied = appliedChecksums();
+            TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            for (Migration migration : pending(migrations, applied)) {
+                logger.info("Applying schema migration V{}: {}", migration.version(), migration.description());
+                long start = System.currentTimeMillis();
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                            String sql = dialect.equals("sqlite") ? withMissingColumnsOnly(connection, migration.sql()) : migration.sql();
+                            ScriptUtils.executeSqlScript(connection, new ByteArrayResource(sql.getBytes(StandardCharsets.UTF_8)));
+                            return null;
+                        });
+                        jdbcTemplate.update("INSERT INTO epm_schema_history (version, description, checksum, applied_at, execution_ms) VALUES (?, ?, ?, ?, ?)",
+                                migration.version(), migration.description(), migration.checksum(),
+                                Timestamp.from(Instant.now()), System.currentTimeMillis() - start);
+                    });
+                } catch (RuntimeException e) {
+                    throw new IllegalStateException("Schema migration V" + migration.version() + " failed", e);
+                }
+                applied.put(migration.version(), migration.checksum());
+            }
+            logger.info("Schema migrated to version {}", currentVersion(migrations, applied));
+        } finally {
+            jdbcTemplate.update("DELETE FROM epm_schema_lock WHERE id = ? AND locked_by = ?", LOCK_ID, owner);
+        }
+    }
+
+    /**
+     * SQLite statements ALTER TABLE t ADD COLUMN IF NOT EXISTS c ..., written on one line, without
+     * IF NOT EXISTS when table t has no column c and left out otherwise.
+     */
+    private static String withMissingColumnsOnly(Connection connection, String sql) throws SQLException {
+        Matcher matcher = ADD_COLUMN_IF_NOT_EXISTS.matcher(sql);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String table = matcher.group(1);
+            String column = matcher.group(2);
+            String statement = hasColumn(connection, table, column)
+                    ? ""
+                    : "ALTER TABLE " + table + " ADD COLUMN " + column + matcher.group(3);
+            matcher.appendReplacement(result, Matcher.quoteReplacement(statement));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private static boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet columns = statement.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (columns.next()) {
+                if (columns.getString("name").equalsIgnoreCase(column)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The scripts not applied yet, in version order. Fails if an applied script has changed since.
+     */
+    private static List<Migration> pending(List<Migration> migrations, Map<Integer, Integer> applied) {
+        List<Migration> pending = new ArrayList<>();
+        for (Migration migration : migrations) {
+            Integer checksum = applied.get(migration.version());
+            if (checksum == null) {
+                pending.add(migration);
+            } else if (checksum != migration.checksum()) {
+                throw new IllegalStateException("Schema migration V" + migration.version() +
+                        " was changed after it was applied (checksum " + checksum + ", now " + migration.checksum() + ")");
+            }
+        }
+        return pending;
+    }
+
+    private static int currentVersion(List<Migration> migrations, Map<Integer, Integer> applied) {
+        int latest = migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version();
+        int version = applied.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+        if (version > latest) {
+            // Written by a newer release, for example while rolling back
+            logger.warn("Schema is at version {}, newer than the latest migration V{} of this release", version, latest);
+        }
+        return version;
+    }
+
+    private Map<Integer, Integer> appliedChecksums() {
+        Map<Integer, Integer> applied = new HashMap<>();
+        jdbcTemplate.query("SELECT version, checksum FROM epm_schema_history",
+                rs -> { applied.put(rs.getInt(1), rs.getInt(2)); });
+        return applied;
+    }
+
+    private void acquireLock(String owner) {
+        Instant deadline = Instant.now().plus(lockTimeout);
+        while (true) {
+            // ON CONFLICT DO NOTHING is supported by both SQLite and PostgreSQL
+            int inserted = jdbcTemplate.update("INSERT INTO epm_schema_lock (id, locked_by, locked_at) VALUES (?, ?, ?) ON CONFLICT DO NOTHING",
+                    LOCK_ID, owner, Timestamp.from(Instant.now()));
+            if (inserted > 0) {
+                return;
+            }
+            int removed = jdbcTemplate.update("DELETE FROM epm_schema_lock WHERE id = ? AND locked_at < ?",
+                    LOCK_ID, Timestamp.from(Instant.now().minus(lockStaleAfter)));
+            if (removed > 0) {
+                logger.warn("Removed a schema migration lock older than {}", lockStaleAfter);
+                continue;
+            }
+            if (Instant.now().isAfter(deadline)) {
+                String holder = jdbcTemplate.queryForList("SELECT locked_by FROM epm_schema_lock WHERE id = ?", String.class, LOCK_ID)
+                        .stream().findFirst().orElse("unknown");
+                throw new IllegalStateException("Timed out waiting for the schema migration lock held by " + holder);
+            }
+            logger.info("Waiting for the schema migration lock");
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the schema migration lock", e);
+            }
+        }
+    }
+
+    private static String lockOwner() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "unknown";
+        }
+        return host + ":" + UUID.randomUUID();
+    }
+
+    private static List<Migration> findMigrations(String dialect) throws IOException {
+        List<Migration> migrations = new ArrayList<>();
+        Resource[] scripts = new PathMatchingResourcePatternResolver().getResources("classpath:db/migration/" + dialect + "/V*__*.sql");
+        for (Resource script : scripts) {
+            Matcher matcher = SCRIPT_NAME.matcher(script.getFilename());
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Invalid schema migration file name: " + script.getFilename());
+            }
+            String sql;
+            try (InputStream in = script.getInputStream()) {
+                // Line endings normalized, so a checkout with CRLF has the same checksum
+                sql = new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(sql.getBytes(StandardCharsets.UTF_8));
+            migrations.add(new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '),
+                    (int) crc.getValue(), sql));
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version() == migrations.get(i - 1).version()) {
+                throw new IllegalStateException("Duplicate schema migration version V" + migrations.get(i).version());
+            }
+        }
+        return migrations;
+    }
+
+    private record Migration(int version, String description, int checksum, String sql) {
+    }
+
+    /**
+     * Makes the entity manager factory, and so Hibernate's schema handling and every repository,
+     * wait for the migrations.
+     */
+    @Component
+    static class EntityManagerFactoryDependency extends EntityManagerFactoryDependsOnPostProcessor {
+        EntityManagerFactoryDependency() {
+            super(SchemaMigrationService.class);
+        }
+    }
+}
@@ -2,23 +2,26 @@ package com.performancemanagement.config;
 
 import com.performancemanagement.model.Tenant;
 
+/**
+ * Tenant of the current {@link RequestContext}. The tenant entity is the detached snapshot held by
+ * {@link IdentityCache}, shared between requests and threads, and must be treated as read-only.
+ */
 public class TenantContext {
-    private static final ThreadLocal<Tenant> currentTenant = new ThreadLocal<>();
 
-    public static void setCurrentTenant(Tenant tenant) {
-        currentTenant.set(tenant);
+    private static volatile IdentityCache identityCache;
+
+    static void resolveWith(IdentityCache cache) {
+        identityCache = cache;
     }
 
     public static Tenant getCurrentTenant() {
-        return currentTenant.get();
+        String tenantId = getCurrentTenantId();
+        IdentityCache cache = identityCache;
+        return tenantId != null && cache != null ? cache.getTenant(tenantId).orElse(null) : null;
     }
 
     public static String getCurrentTenantId() {
-        Tenant tenant = currentTenant.get();
-        return tenant != null ? tenant.getFqdn() : null;
-    }
-
-    public static void clear() {
-        currentTenant.remove();
+        RequestContext context = RequestContext.current();
+        return context != null ? context.tenantId() : null;
     }
 }
@@ -1,7 +1,6 @@
 package com.performancemanagement.config;
 
 import com.performancemanagement.model.Tenant;
-import com.performancemanagement.repository.TenantRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -15,7 +14,7 @@ import java.util.Optional;
 public class TenantResolver {
 
     @Autowired
-    private TenantRepository tenantRepository;
+    private IdentityCache identityCache;
 
     public Optional<Tenant> resolveTenant(HttpServletRequest request) {
         // First, try to resolve using the FQDN from HTTP headers.
@@ -23,7 +22,8 @@ public class TenantResolver {
         if (StringUtils.hasText(fqdn)) {
             // Normalize to lower-case for consistent lookups
             String normalizedFqdn = fqdn.toLowerCase();
-            Optional<Tenant> tenantByFqdn = tenantRepository.findByFqdnAndActiveTrue(normalizedFqdn);
+            Optional<Tenant> tenantByFqdn = identityCache.getTenant(normalizedFqdn)
+                    .filter(tenant -> Boolean.TRUE.equals(tenant.getActive()));
             if (tenantByFqdn.isPresent()) {
                 return tenantByFqdn;
             }
@@ -34,7 +34,7 @@ public class TenantResolver {
         // X-Tenant-Id now accepts FQDN directly (e.g., "localhost" or "acme.example.com")
         String tenantIdHeader = request.getHeader("X-Tenant-Id");
         if (StringUtils.hasText(tenantIdHeader)) {
-            return tenantRepository.findByFqdn(tenantIdHeader.trim().toLowerCase());
+            return identityCache.getTenant(tenantIdHeader.trim().toLowerCase());
         }
 
         return Optional.empty();
@@ -0,0 +1,184 @@
+package com.performancemanagement.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Near cache: a bounded in-process Caffeine L1 in front of a Redis L2.
+ *
+ * Reads are served from L1 when possible and fall back to Redis, populating L1 on the way back.
+ * Writes go to both tiers. Evictions are applied to both tiers locally and then published through
+ * {@link TwoTierCacheManager} so every other replica drops the entry from its own L1.
+ *
+ * L1 keys are the string form of the cache key, which matches the keys built by {@link CacheKeys}
+ * and the key Redis stores. L1 values are serialized like the Redis values, and every read returns
+ * a new copy, so a caller that changes a cached object does not change it for other callers.
+ *
+ * Every invalidation of L1 (local, or received from another replica) advances a generation. A
+ * value read from Redis is only stored in L1 if no invalidation was applied while it was read, so
+ * an eviction that overtakes a slow read does not leave the old value in L1 until it expires.
+ */
+public class TwoTierCache implements org.springframework.cache.Cache {
+
+    private final String name;
+    private final Cache<String, byte[]> local;
+    private final RedisCache remote;
+    private final TwoTierCacheManager manager;
+    private final RedisSerializationContext.SerializationPair<Object> serialization;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    TwoTierCache(String name, Cache<String, byte[]> local, RedisCache remote, TwoTierCacheManager manager) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.manager = manager;
+        this.serialization = remote.getCacheConfiguration().getValueSerializationPair();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = String.valueOf(key);
+        Object value = getLocal(localKey);
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+        long generation = invalidations.get();
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            populate(localKey, wrapper.get(), generation);
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = String.valueOf(key);
+        Object value = getLocal(localKey);
+        if (value != null) {
+            return (T) value;
+        }
+        long generation = invalidations.get();
+        T loaded = remote.get(key, valueLoader);
+        if (loaded != null) {
+            populate(localKey, loaded, generation);
+        }
+        return loaded;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        if (value != null) {
+            local.put(String.valueOf(key), serialize(value));
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = String.valueOf(key);
+        remote.evict(key);
+        invalidateLocal(localKey);
+        manager.publishEvict(name, localKey);
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        invalidateLocalAll();
+        manager.publishClear(name);
+    }
+
+    /**
+     * Evict every entry whose key starts with the given prefix, in both tiers and on all replicas.
+     */
+    public void evictByPrefix(String prefix) {
+        evictByPrefix(remote, prefix);
+        invalidateLocalPrefix(prefix);
+        manager.publishEvictPrefix(name, prefix);
+    }
+
+    /**
+     * Drop a single key from L1 only. Used for invalidations received from other replicas.
+     */
+    void invalidateLocal(String key) {
+        invalidations.incrementAndGet();
+        local.invalidate(key);
+    }
+
+    void invalidateLocalPrefix(String prefix) {
+        invalidations.incrementAndGet();
+        local.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    void invalidateLocalAll() {
+        invalidations.incrementAndGet();
+        local.invalidateAll();
+    }
+
+    private Object getLocal(String key) {
+        byte[] value = local.getIfPresent(key);
+        return value != null ? serialization.read(ByteBuffer.wrap(value)) : null;
+    }
+
+    /**
+     * Store a value read from Redis in L1, unless L1 was invalidated since the read started: the
+     * value may be older than the invalidation. An invalidation applied while the value is being
+     * stored removes it again.
+     */
+    private void populate(String key, Object value, long generation) {
+        if (invalidations.get() != generation) {
+            return;
+        }
+        local.put(key, serialize(value));
+        if (invalidations.get() != generation) {
+            local.invalidate(key);
+        }
+    }
+
+    private byte[] serialize(Object value) {
+        return ByteUtils.getBytes(serialization.write(value));
+    }
+
+    /**
+     * Remove every Redis entry of the cache whose key starts with the given prefix.
+     */
+    public static void evictByPrefix(RedisCache cache, String prefix) {
+        String keyPrefix = cache.getCacheConfiguration().getKeyPrefixFor(cache.getName());
+        byte[] pattern = (escapeGlob(keyPrefix + prefix) + "*").getBytes(StandardCharsets.UTF_8);
+        cache.getNativeCache().clean(cache.getName(), pattern);
+    }
+
+    private static String escapeGlob(String value) {
+        return value.replaceAll("([\\\\*?\\[\\]^])", "\\\\$1");
+    }
+}
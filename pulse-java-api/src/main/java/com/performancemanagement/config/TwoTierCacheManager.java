@@ -0,0 +1,158 @@
+package com.performancemanagement.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.cache.RedisCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * CacheManager that puts a {@link TwoTierCache} (Caffeine L1 + Redis L2) in front of the configured
+ * near caches and hands out plain Redis caches for everything else.
+ *
+ * L1 invalidations are broadcast on a Redis pub/sub channel as "origin|type|cache|key" messages.
+ * Each replica applies evictions locally first and ignores its own messages. L1 entries also
+ * expire after a short TTL, which bounds staleness if a message is ever lost.
+ *
+ * Metrics are registered per cache and tier: L1 through Caffeine statistics and L2 through Redis
+ * cache statistics, both as the standard cache.* meters tagged with "cache" and "tier".
+ */
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoTierCacheManager.class);
+
+    private static final String SEPARATOR = "|";
+    private static final String EVICT = "evict";
+    private static final String EVICT_PREFIX = "prefix";
+    private static final String CLEAR = "clear";
+
+    private final RedisCacheManager redisCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> nearCacheNames;
+    private final long maximumSize;
+    private final Duration timeToLive;
+    private final String channel;
+
+    // Identifies this replica so it can skip its own invalidation messages
+    private final String origin = UUID.randomUUID().toString();
+
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(RedisCacheManager redisCacheManager, StringRedisTemplate redisTemplate,
+                               MeterRegistry meterRegistry, Set<String> nearCacheNames,
+                               long maximumSize, Duration timeToLive, String channel) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.nearCacheNames = nearCacheNames;
+        this.maximumSize = maximumSize;
+        this.timeToLive = timeToLive;
+        this.channel = channel;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return caches.keySet();
+    }
+
+    private Cache createCache(String name) {
+        RedisCache remote = (RedisCache) redisCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        new RedisCacheMetrics(remote, Tags.of("tier", "l2")).bindTo(meterRegistry);
+
+        if (!nearCacheNames.contains(name)) {
+            return remote;
+        }
+
+        com.github.benmanes.caffeine.cache.Cache<String, byte[]> local = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, name, Tags.of("tier", "l1"));
+        return new TwoTierCache(name, local, remote, this);
+    }
+
+    void publishEvict(String cacheName, String key) {
+        publish(EVICT, cacheName, key);
+    }
+
+    void publishEvictPrefix(String cacheName, String prefix) {
+        publish(EVICT_PREFIX, cacheName, prefix);
+    }
+
+    void publishClear(String cacheName) {
+        publish(CLEAR, cacheName, "");
+    }
+
+    private void publish(String type, String cacheName, String key) {
+        String message = String.join(SEPARATOR, origin, type, cacheName, key);
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (RuntimeException e) {
+            // Other replicas fall back to the L1 TTL for this entry
+            logger.warn("Failed to publish cache invalidation for cache {}: {}", cacheName, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        // The key is last and may itself contain the separator
+        String[] parts = body.split("\\" + SEPARATOR, 4);
+        if (parts.length != 4) {
+            logger.warn("Ignoring malformed cache invalidation message: {}", body);
+            return;
+        }
+        if (origin.equals(parts[0])) {
+            return;
+        }
+        if (!(caches.get(parts[2]) instanceof TwoTierCache cache)) {
+            return;
+        }
+
+        switch (parts[1]) {
+            case EVICT -> cache.invalidateLocal(parts[3]);
+            case EVICT_PREFIX -> cache.invalidateLocalPrefix(parts[3]);
+            case CLEAR -> cache.invalidateLocalAll();
+            default -> {
+                logger.warn("Unknown cache invalidation type {}, clearing L1 of cache {}", parts[1], parts[2]);
+                cache.invalidateLocalAll();
+            }
+        }
+        invalidationsReceived(parts[2]).increment();
+    }
+
+    private Counter invalidationsReceived(String cacheName) {
+        return Counter.builder("cache.l1.invalidations.received")
+                .description("L1 invalidations received from other replicas")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+    }
+}
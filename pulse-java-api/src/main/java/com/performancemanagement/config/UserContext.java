@@ -3,24 +3,25 @@ package com.performancemanagement.config;
 import com.performancemanagement.model.User;
 
 /**
- * Simple per-request holder for the current authenticated user, if any.
- * This is populated by {@link JwtAuthenticationFilter} based on the JWT token or X-User-Email header.
+ * Authenticated user of the current {@link RequestContext}, if any, as resolved by
+ * {@link JwtAuthenticationFilter} from the JWT token or X-User-Email header. The user entity is the
+ * detached snapshot held by {@link IdentityCache}, shared between requests and threads, and must be
+ * treated as read-only.
  */
 public class UserContext {
 
-    private static final ThreadLocal<User> currentUser = new ThreadLocal<>();
+    private static volatile IdentityCache identityCache;
 
-    public static void setCurrentUser(User user) {
-        currentUser.set(user);
+    static void resolveWith(IdentityCache cache) {
+        identityCache = cache;
     }
 
     public static User getCurrentUser() {
-        return currentUser.get();
-    }
-
-    public static void clear() {
-        currentUser.remove();
+        RequestContext context = RequestContext.current();
+        IdentityCache cache = identityCache;
+        if (context == null || context.tenantId() == null || context.userEmail() == null || cache == null) {
+            return null;
+        }
+        return cache.getUser(context.tenantId(), context.userEmail()).orElse(null);
     }
 }
-
-
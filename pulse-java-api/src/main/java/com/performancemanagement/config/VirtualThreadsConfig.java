@@ -0,0 +1,25 @@
+package com.performancemanagement.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Virtual threads, enabled by setting spring.threads.virtual.enabled=true.
+ *
+ * Spring Boot only uses virtual threads on a Java 21 or later runtime and otherwise silently keeps
+ * the Tomcat thread pool, which would leave an instance sized for virtual threads (a small
+ * server.tomcat.threads.max, a long connection timeout) running on platform threads. The
+ * application is compiled for Java 17, so the setting is checked against the runtime on startup.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    public VirtualThreadsConfig() {
+        int feature = Runtime.version().feature();
+        if (feature < 21) {
+            throw new IllegalStateException("spring.threads.virtual.enabled=true requires Java 21 or later, " +
+                    "but the application is running on Java " + feature);
+        }
+    }
+}
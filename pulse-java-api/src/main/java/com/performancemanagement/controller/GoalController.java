@@ -1,6 +1,8 @@
 package com.performancemanagement.controller;
 
+import com.performancemanagement.dto.ConnectionDTO;
 import com.performancemanagement.dto.GoalDTO;
+import com.performancemanagement.dto.GoalFilterDTO;
 import com.performancemanagement.service.GoalService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -43,6 +45,18 @@ public class GoalController {
         return new ResponseEntity<>(goals, HttpStatus.OK);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<ConnectionDTO<GoalDTO>> getGoalsPage(@RequestParam(required = false) Integer first,
+                                                              @RequestParam(required = false) String after,
+                                                              GoalFilterDTO filter) {
+        try {
+            ConnectionDTO<GoalDTO> page = goalService.getGoalsPage(filter, first, after);
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @GetMapping("/owner/{email}")
     public ResponseEntity<List<GoalDTO>> getGoalsByOwner(@PathVariable String email) {
         List<GoalDTO> goals = goalService.getGoalsByOwner(email);
@@ -0,0 +1,50 @@
+package com.performancemanagement.controller;
+
+import com.performancemanagement.config.TenantContext;
+import com.performancemanagement.dto.GoalRollupCheckDTO;
+import com.performancemanagement.service.AuthorizationService;
+import com.performancemanagement.service.GoalRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/goal-rollups")
+@CrossOrigin(origins = "*")
+public class GoalRollupController {
+
+    @Autowired
+    private GoalRollupService goalRollupService;
+
+    @Autowired
+    private AuthorizationService authorizationService;
+
+    /**
+     * Compare the KPI rollups stored on the goals of the current tenant with its KPIs.
+     */
+    @GetMapping("/check")
+    public ResponseEntity<GoalRollupCheckDTO> checkRollups() {
+        authorizationService.requireEpmAdmin();
+        String tenantId = TenantContext.getCurrentTenantId();
+        if (tenantId == null) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(goalRollupService.check(tenantId), HttpStatus.OK);
+    }
+
+    /**
+     * Recompute the KPI rollups of the current tenant and correct the goals that differ. Returns
+     * the check of the rebuilt rollups.
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<GoalRollupCheckDTO> rebuildRollups() {
+        authorizationService.requireEpmAdmin();
+        String tenantId = TenantContext.getCurrentTenantId();
+        if (tenantId == null) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+        goalRollupService.rebuildWithRetries(tenantId);
+        return new ResponseEntity<>(goalRollupService.check(tenantId), HttpStatus.OK);
+    }
+}
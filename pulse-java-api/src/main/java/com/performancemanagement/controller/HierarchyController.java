@@ -0,0 +1,52 @@
+package com.performancemanagement.controller;
+
+import com.performancemanagement.config.TenantContext;
+import com.performancemanagement.dto.HierarchyCheckDTO;
+import com.performancemanagement.service.AuthorizationService;
+import com.performancemanagement.service.OrgHierarchyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/hierarchy")
+@CrossOrigin(origins = "*")
+public class HierarchyController {
+
+    @Autowired
+    private OrgHierarchyService orgHierarchyService;
+
+    @Autowired
+    private AuthorizationService authorizationService;
+
+    /**
+     * Compare the department and management closure tables of the current tenant with the
+     * parent department and manager columns.
+     */
+    @GetMapping("/check")
+    public ResponseEntity<List<HierarchyCheckDTO>> checkHierarchy() {
+        authorizationService.requireEpmAdmin();
+        String tenantId = TenantContext.getCurrentTenantId();
+        if (tenantId == null) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(orgHierarchyService.check(tenantId), HttpStatus.OK);
+    }
+
+    /**
+     * Rebuild the closure tables of the current tenant from scratch. Returns the differences
+     * found before the rebuild.
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<List<HierarchyCheckDTO>> rebuildHierarchy() {
+        authorizationService.requireEpmAdmin();
+        String tenantId = TenantContext.getCurrentTenantId();
+        if (tenantId == null) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(orgHierarchyService.rebuild(tenantId), HttpStatus.OK);
+    }
+}
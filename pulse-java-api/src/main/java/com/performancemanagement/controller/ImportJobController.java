@@ -0,0 +1,64 @@
+package com.performancemanagement.controller;
+
+import com.performancemanagement.dto.ImportJobDTO;
+import com.performancemanagement.service.AuthorizationService;
+import com.performancemanagement.service.ImportJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/import-jobs")
+@CrossOrigin(origins = "*")
+public class ImportJobController {
+
+    @Autowired
+    private ImportJobService importJobService;
+
+    @Autowired
+    private AuthorizationService authorizationService;
+
+    /**
+     * Start an asynchronous user import from a CSV file sent as multipart field "file".
+     * Poll GET /import-jobs/{id} for progress.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportJobDTO> submitImportJob(@RequestParam("file") MultipartFile file) {
+        authorizationService.requireEpmAdmin();
+        try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            ImportJobDTO job = importJobService.submit(reader, file.getOriginalFilename());
+            return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+        } catch (RejectedExecutionException e) {
+            return new ResponseEntity<>(null, HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (IllegalArgumentException | IOException e) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJobDTO> getImportJob(@PathVariable Long id) {
+        authorizationService.requireEpmAdmin();
+        try {
+            ImportJobDTO job = importJobService.getJob(id);
+            return new ResponseEntity<>(job, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ImportJobDTO>> getImportJobs() {
+        authorizationService.requireEpmAdmin();
+        return new ResponseEntity<>(importJobService.getJobs(), HttpStatus.OK);
+    }
+}
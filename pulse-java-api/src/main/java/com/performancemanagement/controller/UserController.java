@@ -1,13 +1,21 @@
 package com.performancemanagement.controller;
 
+import com.performancemanagement.dto.BulkUploadDTO;
 import com.performancemanagement.dto.UserDTO;
 import com.performancemanagement.service.AuthorizationService;
+import com.performancemanagement.service.BulkUploadService;
 import com.performancemanagement.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -21,6 +29,9 @@ public class UserController {
     @Autowired
     private AuthorizationService authorizationService;
 
+    @Autowired
+    private BulkUploadService bulkUploadService;
+
     @PostMapping
     public ResponseEntity<UserDTO> createUser(@RequestBody UserDTO userDTO) {
         try {
@@ -32,6 +43,21 @@ public class UserController {
         }
     }
 
+    /**
+     * Bulk import users from a CSV file sent as multipart field "file". The file is streamed from
+     * the multipart upload and imported chunk by chunk.
+     */
+    @PostMapping(value = "/bulk-upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BulkUploadDTO.BulkUploadResult> bulkUploadUsers(@RequestParam("file") MultipartFile file) {
+        authorizationService.requireEpmAdmin();
+        try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            BulkUploadDTO.BulkUploadResult result = bulkUploadService.importUsers(reader, progress -> { });
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException | IOException e) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<UserDTO> getUserById(@PathVariable Long id) {
         try {
@@ -0,0 +1,55 @@
+package com.performancemanagement.controller;
+
+import com.performancemanagement.config.TenantContext;
+import com.performancemanagement.dto.VisibleGoalCheckDTO;
+import com.performancemanagement.service.AuthorizationService;
+import com.performancemanagement.service.GoalService;
+import com.performancemanagement.service.VisibleGoalService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/visible-goals")
+@CrossOrigin(origins = "*")
+public class VisibleGoalController {
+
+    @Autowired
+    private VisibleGoalService visibleGoalService;
+
+    @Autowired
+    private GoalService goalService;
+
+    @Autowired
+    private AuthorizationService authorizationService;
+
+    /**
+     * Compare the visible goal index of the current tenant with GoalService.canUserViewGoal for
+     * every user and goal.
+     */
+    @GetMapping("/check")
+    public ResponseEntity<VisibleGoalCheckDTO> checkVisibleGoals() {
+        authorizationService.requireEpmAdmin();
+        String tenantId = TenantContext.getCurrentTenantId();
+        if (tenantId == null) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(visibleGoalService.check(tenantId, goalService::canUserViewGoal), HttpStatus.OK);
+    }
+
+    /**
+     * Rebuild the visible goal index of the current tenant from scratch. Returns the check of the
+     * rebuilt index.
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<VisibleGoalCheckDTO> rebuildVisibleGoals() {
+        authorizationService.requireEpmAdmin();
+        String tenantId = TenantContext.getCurrentTenantId();
+        if (tenantId == null) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+        visibleGoalService.rebuild(tenantId);
+        return new ResponseEntity<>(visibleGoalService.check(tenantId, goalService::canUserViewGoal), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,29 @@
+package com.performancemanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated list in the Relay connection shape.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConnectionDTO<T> {
+    private List<EdgeDTO<T>> edges;
+    private PageInfoDTO pageInfo;
+
+    /**
+     * Convert the nodes of this page, keeping cursors and page info.
+     */
+    public <R> ConnectionDTO<R> map(Function<T, R> mapper) {
+        List<EdgeDTO<R>> mapped = edges.stream()
+                .map(edge -> new EdgeDTO<>(edge.getCursor(), mapper.apply(edge.getNode())))
+                .toList();
+        return new ConnectionDTO<>(mapped, pageInfo);
+    }
+}
@@ -0,0 +1,13 @@
+package com.performancemanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EdgeDTO<T> {
+    private String cursor;
+    private T node;
+}
@@ -0,0 +1,60 @@
+package com.performancemanagement.dto;
+
+import com.performancemanagement.model.Goal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GoalAnalyticsDTO {
+    // Set for department analytics, which cover the department and its sub-departments
+    private Long departmentId;
+    // Set for team analytics
+    private Long teamId;
+    // ISO date the overdue goals are counted against, kept as text for the JSON cache serializer
+    private String asOf;
+    // Goals owned by or assigned to a member, each counted once
+    private int goalCount;
+    private List<StatusCount> goalsByStatus;
+    private List<TerritoryCount> goalsByTerritory;
+    // Goals past their target completion date that are not achieved, archived or retired
+    private int overdueGoalCount;
+    private int kpiCount;
+    private int achievedKpiCount;
+    // Average completion percentage of the KPIs, null without KPIs
+    private Double averageKpiCompletion;
+    private List<CompletionBucket> kpiCompletionDistribution;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StatusCount {
+        private Goal.GoalStatus status;
+        private int count;
+        private int overdueCount;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TerritoryCount {
+        // Null for goals without a territory
+        private Long territoryId;
+        private String territoryName;
+        private int count;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CompletionBucket {
+        // Inclusive bounds of the KPI completion percentage
+        private int minPercentage;
+        private int maxPercentage;
+        private int count;
+    }
+}
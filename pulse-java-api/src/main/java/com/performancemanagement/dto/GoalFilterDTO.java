@@ -0,0 +1,20 @@
+package com.performancemanagement.dto;
+
+import com.performancemanagement.model.Goal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GoalFilterDTO {
+    private Goal.GoalStatus status;
+    private Long territoryId;
+    private String ownerEmail;
+    // Department of the goal owner
+    private Long departmentId;
+    // Inclusive creation date range, ISO yyyy-MM-dd
+    private String createdFrom;
+    private String createdTo;
+}
@@ -0,0 +1,16 @@
+package com.performancemanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GoalRollupCheckDTO {
+    private String tenantId;
+    private int goals;
+    // Goals whose stored KPI rollups differ from their KPIs
+    private int staleGoals;
+    private boolean consistent;
+}
@@ -0,0 +1,21 @@
+package com.performancemanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HierarchyCheckDTO {
+    // DEPARTMENT or MANAGER
+    private String hierarchy;
+    private String tenantId;
+    // Paths derived from the parent and manager columns
+    private int expectedPaths;
+    // Paths stored in the closure table
+    private int storedPaths;
+    private int missingPaths;
+    private int unexpectedPaths;
+    private boolean consistent;
+}
@@ -0,0 +1,30 @@
+package com.performancemanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobDTO {
+    private Long id;
+    private String status;
+    private String fileName;
+    private String createdBy;
+    private int rowsProcessed;
+    private int usersCreated;
+    private int usersUpdated;
+    private int departmentsCreated;
+    private int departmentsUpdated;
+    private List<String> errors;
+    // Rows per second between start and the last checkpoint (or completion)
+    private Double rowsPerSecond;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,16 @@
+package com.performancemanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageInfoDTO {
+    private boolean hasNextPage;
+    // True when the page was requested with an 'after' cursor
+    private boolean hasPreviousPage;
+    private String startCursor;
+    private String endCursor;
+}
@@ -0,0 +1,21 @@
+package com.performancemanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisibleGoalCheckDTO {
+    private String tenantId;
+    private int users;
+    private int goals;
+    // User and goal pairs for which GoalService.canUserViewGoal returns true
+    private int expectedPairs;
+    // Distinct user and goal pairs stored in the visible goal index
+    private int storedPairs;
+    private int missingPairs;
+    private int unexpectedPairs;
+    private boolean consistent;
+}
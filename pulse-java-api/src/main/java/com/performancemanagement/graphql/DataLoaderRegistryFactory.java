@@ -0,0 +1,241 @@
+package com.performancemanagement.graphql;
+
+import com.performancemanagement.model.Department;
+import com.performancemanagement.model.Goal;
+import com.performancemanagement.model.KPI;
+import com.performancemanagement.model.Team;
+import com.performancemanagement.model.Territory;
+import com.performancemanagement.model.User;
+import com.performancemanagement.repository.DepartmentRepository;
+import com.performancemanagement.repository.GoalRepository;
+import com.performancemanagement.repository.KPIRepository;
+import com.performancemanagement.repository.TeamRepository;
+import com.performancemanagement.repository.TerritoryRepository;
+import com.performancemanagement.repository.UserRepository;
+import com.performancemanagement.service.GoalNoteService;
+import graphql.schema.DataFetchingEnvironment;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderFactory;
+import org.dataloader.DataLoaderOptions;
+import org.dataloader.DataLoaderRegistry;
+import org.dataloader.MappedBatchLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Builds the per-request DataLoader registry used by the GraphQL field resolvers.
+ *
+ * Every loader is bound to the tenant of the request it was created for, so each batch is a
+ * single tenant-scoped query per field per level of the query. Batch sizes are recorded in the
+ * "graphql.dataloader.batch.size" distribution summary, tagged by loader name.
+ *
+ * Without a tenant the loaders resolve nothing: entity fields are null and collections empty,
+ * where the resolvers used to return the associations without a tenant check. Such batches are
+ * logged as warnings, since every authenticated request has a tenant.
+ */
+@Component
+public class DataLoaderRegistryFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataLoaderRegistryFactory.class);
+
+    // Entity by id
+    public static final String USER = "user";
+    public static final String GOAL = "goal";
+    public static final String DEPARTMENT = "department";
+    public static final String TEAM = "team";
+    public static final String TERRITORY = "territory";
+
+    // Collections by parent id
+    public static final String GOAL_KPIS = "goalKpis";
+    public static final String GOAL_NOTES = "goalNotes";
+    public static final String GOAL_ASSIGNED_USERS = "goalAssignedUsers";
+    public static final String GOAL_CHILD_GOALS = "goalChildGoals";
+    public static final String USER_EFFECTIVE_MANAGER = "userEffectiveManager";
+    public static final String USER_TEAM_MEMBERS = "userTeamMembers";
+    public static final String USER_ASSIGNED_GOALS = "userAssignedGoals";
+    public static final String USER_OWNED_GOALS = "userOwnedGoals";
+    public static final String DEPARTMENT_USERS = "departmentUsers";
+    public static final String DEPARTMENT_CHILD_DEPARTMENTS = "departmentChildDepartments";
+    public static final String DEPARTMENT_TEAMS = "departmentTeams";
+    public static final String TEAM_USERS = "teamUsers";
+
+    // Keeps IN lists well below the bind parameter limits of SQLite and PostgreSQL
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private static final DataLoaderOptions OPTIONS = DataLoaderOptions.newOptions().setMaxBatchSize(MAX_BATCH_SIZE);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private TerritoryRepository territoryRepository;
+
+    @Autowired
+    private KPIRepository kpiRepository;
+
+    @Autowired
+    private GoalNoteService goalNoteService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Create a fresh registry for one GraphQL request. Loaders cache results for the lifetime of
+     * the request only, so nothing is shared between users or tenants. Batches run on the
+     * executor of the request, so the batches of different fields are loaded at the same time.
+     */
+    public DataLoaderRegistry create(String tenantId, Executor executor) {
+        DataLoaderRegistry registry = new DataLoaderRegistry();
+
+        registry.register(USER, byId(USER, tenantId, executor,
+                ids -> userRepository.findByIdInAndTenantId(ids, tenantId), User::getId));
+        registry.register(GOAL, byId(GOAL, tenantId, executor,
+                ids -> goalRepository.findByIdInAndTenantId(ids, tenantId), Goal::getId));
+        registry.register(DEPARTMENT, byId(DEPARTMENT, tenantId, executor,
+                ids -> departmentRepository.findByIdInAndTenantId(ids, tenantId), Department::getId));
+        registry.register(TEAM, byId(TEAM, tenantId, executor,
+                ids -> teamRepository.findByIdInAndTenantId(ids, tenantId), Team::getId));
+        registry.register(TERRITORY, byId(TERRITORY, tenantId, executor,
+                ids -> territoryRepository.findByIdInAndTenantId(ids, tenantId), Territory::getId));
+
+        registry.register(GOAL_KPIS, byParentId(GOAL_KPIS, tenantId, executor,
+                ids -> kpiRepository.findByGoalIdInAndTenantId(ids, tenantId), (KPI kpi) -> kpi.getGoal().getId()));
+        registry.register(GOAL_CHILD_GOALS, byParentId(GOAL_CHILD_GOALS, tenantId, executor,
+                ids -> goalRepository.findByParentGoalIdInAndTenantId(ids, tenantId), (Goal goal) -> goal.getParentGoal().getId()));
+        registry.register(GOAL_ASSIGNED_USERS, byParentIdRows(GOAL_ASSIGNED_USERS, tenantId, executor,
+                ids -> goalRepository.findAssignedUsersByGoalIds(ids, tenantId)));
+        registry.register(GOAL_NOTES, mapped(GOAL_NOTES, tenantId, executor,
+                ids -> goalNoteService.getNotesByGoalIds(ids)));
+
+        registry.register(USER_EFFECTIVE_MANAGER, mapped(USER_EFFECTIVE_MANAGER, tenantId, executor,
+                ids -> findEffectiveManagers(ids, tenantId)));
+        registry.register(USER_TEAM_MEMBERS, byParentId(USER_TEAM_MEMBERS, tenantId, executor,
+                ids -> userRepository.findByManagerIdInAndTenantId(ids, tenantId), (User user) -> user.getManager().getId()));
+        registry.register(USER_ASSIGNED_GOALS, byParentIdRows(USER_ASSIGNED_GOALS, tenantId, executor,
+                ids -> goalRepository.findAssignedGoalsByUserIds(ids, tenantId)));
+        registry.register(USER_OWNED_GOALS, byParentId(USER_OWNED_GOALS, tenantId, executor,
+                ids -> goalRepository.findByOwnerIdInAndTenantId(ids, tenantId), (Goal goal) -> goal.getOwner().getId()));
+
+        registry.register(DEPARTMENT_USERS, byParentId(DEPARTMENT_USERS, tenantId, executor,
+                ids -> userRepository.findByDepartmentIdInAndTenantId(ids, tenantId), (User user) -> user.getDepartment().getId()));
+        registry.register(DEPARTMENT_CHILD_DEPARTMENTS, byParentId(DEPARTMENT_CHILD_DEPARTMENTS, tenantId, executor,
+                ids -> departmentRepository.findByParentDepartmentIdInAndTenantId(ids, tenantId), (Department dept) -> dept.getParentDepartment().getId()));
+        registry.register(DEPARTMENT_TEAMS, byParentId(DEPARTMENT_TEAMS, tenantId, executor,
+                ids -> teamRepository.findByDepartmentIdInAndTenantId(ids, tenantId), (Team team) -> team.getDepartment().getId()));
+        registry.register(TEAM_USERS, byParentId(TEAM_USERS, tenantId, executor,
+                ids -> userRepository.findByTeamIdInAndTenantId(ids, tenantId), (User user) -> user.getTeam().getId()));
+
+        return registry;
+    }
+
+    /**
+     * Load a single value by key through the named loader of the current request.
+     */
+    public static <V> CompletableFuture<V> load(DataFetchingEnvironment environment, String loaderName, Long key) {
+        if (key == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        DataLoader<Long, V> loader = environment.getDataLoader(loaderName);
+        return loader.load(key);
+    }
+
+    /**
+     * Load a collection by parent key through the named loader of the current request.
+     */
+    public static <V> CompletableFuture<List<V>> loadList(DataFetchingEnvironment environment, String loaderName, Long key) {
+        if (key == null) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        DataLoader<Long, List<V>> loader = environment.getDataLoader(loaderName);
+        return loader.load(key).thenApply(values -> values != null ? values : List.of());
+    }
+
+    /**
+     * Effective manager follows UserService.getEffectiveManager: team lead, then department manager.
+     */
+    private Map<Long, User> findEffectiveManagers(Set<Long> userIds, String tenantId) {
+        Map<Long, User> managers = new HashMap<>();
+        for (Object[] row : userRepository.findManagerCandidatesByUserIds(userIds, tenantId)) {
+            User manager = row[1] != null ? (User) row[1] : (User) row[2];
+            if (manager != null) {
+                managers.put((Long) row[0], manager);
+            }
+        }
+        return managers;
+    }
+
+    private <V> DataLoader<Long, V> byId(String name, String tenantId, Executor executor,
+                                         Function<Set<Long>, List<V>> query, Function<V, Long> idOf) {
+        return mapped(name, tenantId, executor, ids -> {
+            Map<Long, V> result = new HashMap<>();
+            query.apply(ids).forEach(value -> result.put(idOf.apply(value), value));
+            return result;
+        });
+    }
+
+    private <V> DataLoader<Long, List<V>> byParentId(String name, String tenantId, Executor executor,
+                                                     Function<Set<Long>, List<V>> query, Function<V, Long> parentIdOf) {
+        return mapped(name, tenantId, executor, ids -> {
+            Map<Long, List<V>> result = emptyLists(ids);
+            query.apply(ids).forEach(value -> result.get(parentIdOf.apply(value)).add(value));
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> DataLoader<Long, List<V>> byParentIdRows(String name, String tenantId, Executor executor,
+                                                         Function<Set<Long>, List<Object[]>> query) {
+        return mapped(name, tenantId, executor, ids -> {
+            Map<Long, List<V>> result = emptyLists(ids);
+            query.apply(ids).forEach(row -> result.get((Long) row[0]).add((V) row[1]));
+            return result;
+        });
+    }
+
+    private <V> DataLoader<Long, V> mapped(String name, String tenantId, Executor executor,
+                                           Function<Set<Long>, Map<Long, V>> loader) {
+        DistributionSummary batchSize = DistributionSummary.builder("graphql.dataloader.batch.size")
+                .description("Number of keys resolved per DataLoader batch")
+                .tag("loader", name)
+                .register(meterRegistry);
+
+        MappedBatchLoader<Long, V> batchLoader = keys -> {
+            batchSize.record(keys.size());
+            if (tenantId == null) {
+                // No tenant context - nothing can be resolved
+                logger.warn("GraphQL loader {} has no tenant context; {} keys resolved as empty", name, keys.size());
+                return CompletableFuture.completedFuture(Map.of());
+            }
+            return CompletableFuture.supplyAsync(() -> loader.apply(keys), executor);
+        };
+        return DataLoaderFactory.newMappedDataLoader(batchLoader, OPTIONS);
+    }
+
+    private static <V> Map<Long, List<V>> emptyLists(Set<Long> keys) {
+        Map<Long, List<V>> result = new HashMap<>();
+        keys.forEach(key -> result.put(key, new ArrayList<>()));
+        return result;
+    }
+}
@@ -0,0 +1,130 @@
+package com.performancemanagement.graphql;
+
+import com.performancemanagement.config.RequestContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared pool of graphql.execution.threads that resolves the root fields of queries and the
+ * DataLoader batches of nested fields, so that independent fields of one query are loaded at the
+ * same time.
+ *
+ * Every GraphQL request submits its work through its own {@link RequestExecutor}, which runs at
+ * most graphql.execution.max-concurrent-fields of the request's tasks at once and queues the rest.
+ * One query therefore holds at most that many database connections, and the pool as a whole at
+ * most one per thread. Tasks run with the {@link RequestContext} of the request.
+ *
+ * With virtual threads enabled (spring.threads.virtual.enabled), every task runs on a virtual
+ * thread of its own instead of the pool, and graphql.execution.threads does not apply; the limit
+ * per request still bounds the connections one query holds.
+ */
+@Component
+public class FieldExecutor {
+
+    @Value("${graphql.execution.threads:8}")
+    private int threads;
+
+    @Value("${graphql.execution.max-concurrent-fields:4}")
+    private int maxConcurrentFields;
+
+    @Autowired
+    private Environment environment;
+
+    private Executor executor;
+
+    @PostConstruct
+    void startExecutor() {
+        if (maxConcurrentFields < 1) {
+            throw new IllegalStateException("graphql.execution.max-concurrent-fields must be at least 1");
+        }
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor virtualThreads = new SimpleAsyncTaskExecutor("graphql-field-");
+            virtualThreads.setVirtualThreads(true);
+            executor = virtualThreads;
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "graphql-field-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        if (executor instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Executor for the fields of one GraphQL request.
+     */
+    public RequestExecutor forRequest() {
+        return new RequestExecutor();
+    }
+
+    /**
+     * Runs the tasks of one request on the shared pool, at most max-concurrent-fields at a time.
+     * The pool's queue is only fed by requests below their limit, so a large query cannot delay
+     * the fields of other requests by more than its share.
+     */
+    public final class RequestExecutor implements Executor {
+
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger running = new AtomicInteger();
+
+        private RequestExecutor() {
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            queue.add(RequestContext.wrap(task));
+            drain();
+        }
+
+        private void drain() {
+            while (!queue.isEmpty()) {
+                int current = running.get();
+                if (current >= maxConcurrentFields) {
+                    // A running task drains the queue again when it ends
+                    return;
+                }
+                if (!running.compareAndSet(current, current + 1)) {
+                    continue;
+                }
+                Runnable task = queue.poll();
+                if (task == null) {
+                    running.decrementAndGet();
+                    continue;
+                }
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        running.decrementAndGet();
+                        drain();
+                    }
+                });
+            }
+        }
+    }
+}
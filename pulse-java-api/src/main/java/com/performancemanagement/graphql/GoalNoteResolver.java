@@ -1,88 +1,35 @@
 package com.performancemanagement.graphql;
 
-import com.performancemanagement.config.TenantContext;
 import com.performancemanagement.model.Goal;
 import com.performancemanagement.model.GoalNote;
 import com.performancemanagement.model.User;
-import com.performancemanagement.repository.GoalNoteRepository;
 import graphql.kickstart.tools.GraphQLResolver;
-import jakarta.persistence.EntityManager;
-import org.hibernate.Hibernate;
-import org.springframework.beans.factory.annotation.Autowired;
+import graphql.schema.DataFetchingEnvironment;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
-@Component
-public class GoalNoteResolver implements GraphQLResolver<GoalNote> {
+import java.util.concurrent.CompletableFuture;
 
-    @Autowired
-    private EntityManager entityManager;
+import static com.performancemanagement.graphql.DataLoaderRegistryFactory.load;
 
-    private String getCurrentTenantId() {
-        return TenantContext.getCurrentTenantId();
-    }
+/**
+ * GoalNote field resolvers, batched through the per-request DataLoaders.
+ */
+@Component
+public class GoalNoteResolver implements GraphQLResolver<GoalNote> {
 
-    @Transactional(readOnly = true)
-    public Goal goal(GoalNote note) {
-        note = entityManager.merge(note);
-        String tenantId = getCurrentTenantId();
-        if (tenantId == null) {
-            Goal goal = note.getGoal();
-            if (goal != null) {
-                Hibernate.initialize(goal);
-                Hibernate.initialize(goal.getTenant());
-            }
-            return goal;
-        }
-        Goal goal = note.getGoal();
-        if (goal != null) {
-            Hibernate.initialize(goal);
-            Hibernate.initialize(goal.getTenant());
-            if (goal.getTenant().getFqdn().equals(tenantId)) {
-                return goal;
-            }
-        }
-        return null;
+    public CompletableFuture<Goal> goal(GoalNote note, DataFetchingEnvironment env) {
+        return load(env, DataLoaderRegistryFactory.GOAL, note.getGoal() != null ? note.getGoal().getId() : null);
     }
 
-    @Transactional(readOnly = true)
-    public User author(GoalNote note) {
-        note = entityManager.merge(note);
-        String tenantId = getCurrentTenantId();
-        if (tenantId == null) {
-            User author = note.getAuthor();
-            if (author != null) {
-                Hibernate.initialize(author);
-                Hibernate.initialize(author.getTenant());
-            }
-            return author;
-        }
-        User author = note.getAuthor();
-        if (author != null) {
-            Hibernate.initialize(author);
-            Hibernate.initialize(author.getTenant());
-            if (author.getTenant().getFqdn().equals(tenantId)) {
-                return author;
-            }
-        }
-        return null;
+    public CompletableFuture<User> author(GoalNote note, DataFetchingEnvironment env) {
+        return load(env, DataLoaderRegistryFactory.USER, note.getAuthor() != null ? note.getAuthor().getId() : null);
     }
 
-    @Transactional(readOnly = true)
     public String createdAt(GoalNote note) {
-        note = entityManager.merge(note);
-        if (note.getCreatedAt() != null) {
-            return note.getCreatedAt().toString();
-        }
-        return null;
+        return note.getCreatedAt() != null ? note.getCreatedAt().toString() : null;
     }
 
-    @Transactional(readOnly = true)
     public String updatedAt(GoalNote note) {
-        note = entityManager.merge(note);
-        if (note.getUpdatedAt() != null) {
-            return note.getUpdatedAt().toString();
-        }
-        return null;
+        return note.getUpdatedAt() != null ? note.getUpdatedAt().toString() : null;
     }
 }
@@ -1,180 +1,64 @@
 package com.performancemanagement.graphql;
 
-import com.performancemanagement.config.TenantContext;
 import com.performancemanagement.model.Goal;
 import com.performancemanagement.model.KPI;
 import com.performancemanagement.model.GoalNote;
 import com.performancemanagement.model.User;
 import com.performancemanagement.model.Territory;
-import com.performancemanagement.repository.KPIRepository;
-import com.performancemanagement.service.GoalNoteService;
+import com.performancemanagement.service.GoalRollupService;
 import graphql.kickstart.tools.GraphQLResolver;
-import jakarta.persistence.EntityManager;
-import org.hibernate.Hibernate;
-import org.springframework.beans.factory.annotation.Autowired;
+import graphql.schema.DataFetchingEnvironment;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import static com.performancemanagement.graphql.DataLoaderRegistryFactory.load;
+import static com.performancemanagement.graphql.DataLoaderRegistryFactory.loadList;
+
+/**
+ * Goal field resolvers. Related entities are resolved through the per-request DataLoaders so that
+ * a list of goals costs one tenant-scoped query per field instead of one per goal.
+ */
 @Component
 public class GoalResolver implements GraphQLResolver<Goal> {
 
-    @Autowired
-    private EntityManager entityManager;
-
-    @Autowired
-    private KPIRepository kpiRepository;
-
-    @Autowired
-    private GoalNoteService goalNoteService;
+    public CompletableFuture<User> owner(Goal goal, DataFetchingEnvironment env) {
+        return load(env, DataLoaderRegistryFactory.USER, goal.getOwner() != null ? goal.getOwner().getId() : null);
+    }
 
-    private String getCurrentTenantId() {
-        return TenantContext.getCurrentTenantId(); // Returns null if no tenant context - tenant validation is disabled
+    public CompletableFuture<Goal> parentGoal(Goal goal, DataFetchingEnvironment env) {
+        return load(env, DataLoaderRegistryFactory.GOAL, goal.getParentGoal() != null ? goal.getParentGoal().getId() : null);
     }
 
-    @Transactional(readOnly = true)
-    public User owner(Goal goal) {
-        // Re-attach the entity to the current session
-        goal = entityManager.merge(goal);
-        String tenantId = getCurrentTenantId();
-        if (tenantId == null) {
-            // Tenant validation disabled - return owner if available
-            User owner = goal.getOwner();
-            if (owner != null) {
-                Hibernate.initialize(owner);
-                Hibernate.initialize(owner.getTenant());
-            }
-            return owner;
-        }
-        User owner = goal.getOwner();
-        if (owner != null) {
-            Hibernate.initialize(owner);
-            Hibernate.initialize(owner.getTenant());
-            if (owner.getTenant().getFqdn().equals(tenantId)) {
-                return owner;
-            }
-        }
-        return null;
+    public CompletableFuture<List<Goal>> childGoals(Goal goal, DataFetchingEnvironment env) {
+        return loadList(env, DataLoaderRegistryFactory.GOAL_CHILD_GOALS, goal.getId());
     }
 
-    @Transactional(readOnly = true)
-    public Goal parentGoal(Goal goal) {
-        // Re-attach the entity to the current session
-        goal = entityManager.merge(goal);
-        String tenantId = getCurrentTenantId();
-        if (tenantId == null) {
-            // Tenant validation disabled - return parent if available
-            Goal parent = goal.getParentGoal();
-            if (parent != null) {
-                Hibernate.initialize(parent);
-                Hibernate.initialize(parent.getTenant());
-            }
-            return parent;
-        }
-        Goal parent = goal.getParentGoal();
-        if (parent != null) {
-            Hibernate.initialize(parent);
-            Hibernate.initialize(parent.getTenant());
-            if (parent.getTenant().getFqdn().equals(tenantId)) {
-                return parent;
-            }
-        }
-        return null;
+    public CompletableFuture<List<User>> assignedUsers(Goal goal, DataFetchingEnvironment env) {
+        return loadList(env, DataLoaderRegistryFactory.GOAL_ASSIGNED_USERS, goal.getId());
     }
 
-    @Transactional(readOnly = true)
-    public List<Goal> childGoals(Goal goal) {
-        // Re-attach the entity to the current session
-        goal = entityManager.merge(goal);
-        Hibernate.initialize(goal.getChildGoals());
-        String tenantId = getCurrentTenantId();
-        if (tenantId == null) {
-            // Tenant validation disabled - return all child goals
-            return goal.getChildGoals().stream()
-                    .peek(child -> {
-                        Hibernate.initialize(child);
-                        Hibernate.initialize(child.getTenant());
-                    })
-                    .toList();
-        }
-        return goal.getChildGoals().stream()
-                .peek(child -> {
-                    Hibernate.initialize(child);
-                    Hibernate.initialize(child.getTenant());
-                })
-                .filter(child -> child.getTenant().getFqdn().equals(tenantId))
-                .toList();
+    public CompletableFuture<List<KPI>> kpis(Goal goal, DataFetchingEnvironment env) {
+        return loadList(env, DataLoaderRegistryFactory.GOAL_KPIS, goal.getId());
     }
 
-    @Transactional(readOnly = true)
-    public List<User> assignedUsers(Goal goal) {
-        // Re-attach the entity to the current session
-        goal = entityManager.merge(goal);
-        Hibernate.initialize(goal.getAssignedUsers());
-        String tenantId = getCurrentTenantId();
-        if (tenantId == null) {
-            // Tenant validation disabled - return all assigned users
-            return goal.getAssignedUsers().stream()
-                    .peek(user -> {
-                        Hibernate.initialize(user);
-                        Hibernate.initialize(user.getTenant());
-                    })
-                    .toList();
-        }
-        return goal.getAssignedUsers().stream()
-                .peek(user -> {
-                    Hibernate.initialize(user);
-                    Hibernate.initialize(user.getTenant());
-                })
-                .filter(user -> user.getTenant().getFqdn().equals(tenantId))
-                .toList();
+    public CompletableFuture<List<GoalNote>> notes(Goal goal, DataFetchingEnvironment env) {
+        // Notes are filtered by GoalNoteService authorization rules
+        return loadList(env, DataLoaderRegistryFactory.GOAL_NOTES, goal.getId());
     }
 
-    @Transactional(readOnly = true)
-    public List<KPI> kpis(Goal goal) {
-        // Re-attach the entity to the current session
-        goal = entityManager.merge(goal);
-        String tenantId = getCurrentTenantId();
-        if (tenantId == null) {
-            // Tenant validation disabled - return all KPIs
-            Hibernate.initialize(goal.getKpis());
-            return goal.getKpis().stream()
-                    .peek(kpi -> {
-                        Hibernate.initialize(kpi);
-                        Hibernate.initialize(kpi.getTenant());
-                    })
-                    .toList();
-        }
-        // Use repository to get KPIs filtered by tenant
-        return kpiRepository.findByGoalIdAndTenantId(goal.getId(), tenantId);
+    public CompletableFuture<Territory> territory(Goal goal, DataFetchingEnvironment env) {
+        return load(env, DataLoaderRegistryFactory.TERRITORY, goal.getTerritory() != null ? goal.getTerritory().getId() : null);
     }
 
-    @Transactional(readOnly = true)
-    public List<GoalNote> notes(Goal goal) {
-        // Re-attach the entity to the current session
-        goal = entityManager.merge(goal);
-        // Use service to get notes with authorization filtering
-        return goalNoteService.getNotesByGoalId(goal.getId());
+    // KPI counts are read from the goal; the percentages are derived from the stored sums
+
+    public Double completionPercentage(Goal goal) {
+        return GoalRollupService.completionPercentage(goal.getKpiCompletionSum(), goal.getKpiCount());
     }
 
-    @Transactional(readOnly = true)
-    public Territory territory(Goal goal) {
-        // Re-attach the entity to the current session
-        goal = entityManager.merge(goal);
-        String tenantId = getCurrentTenantId();
-        Territory territory = goal.getTerritory();
-        if (territory != null) {
-            Hibernate.initialize(territory);
-            Hibernate.initialize(territory.getTenant());
-            if (tenantId == null) {
-                // Tenant validation disabled - return territory if available
-                return territory;
-            }
-            if (territory.getTenant().getFqdn().equals(tenantId)) {
-                return territory;
-            }
-        }
-        return null;
+    public Double subtreeCompletionPercentage(Goal goal) {
+        return GoalRollupService.completionPercentage(goal.getSubtreeKpiCompletionSum(), goal.getSubtreeKpiCount());
     }
 }
@@ -0,0 +1,55 @@
+package com.performancemanagement.graphql;
+
+import com.performancemanagement.config.TenantContext;
+import graphql.kickstart.execution.context.GraphQLKickstartContext;
+import graphql.kickstart.servlet.context.GraphQLServletContextBuilder;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.websocket.Session;
+import jakarta.websocket.server.HandshakeRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates the GraphQL context for each request, carrying a fresh DataLoader registry bound to
+ * the tenant resolved by JwtAuthenticationFilter, and the request's {@link FieldExecutor.RequestExecutor}.
+ */
+@Component
+public class GraphQLContextBuilder implements GraphQLServletContextBuilder {
+
+    @Autowired
+    private DataLoaderRegistryFactory dataLoaderRegistryFactory;
+
+    @Autowired
+    private FieldExecutor fieldExecutor;
+
+    @Override
+    public GraphQLKickstartContext build(HttpServletRequest request, HttpServletResponse response) {
+        Map<Object, Object> context = new HashMap<>();
+        context.put(HttpServletRequest.class, request);
+        context.put(HttpServletResponse.class, response);
+        return build(context);
+    }
+
+    @Override
+    public GraphQLKickstartContext build(Session session, HandshakeRequest handshakeRequest) {
+        Map<Object, Object> context = new HashMap<>();
+        context.put(Session.class, session);
+        context.put(HandshakeRequest.class, handshakeRequest);
+        return build(context);
+    }
+
+    @Override
+    public GraphQLKickstartContext build() {
+        return build(new HashMap<>());
+    }
+
+    private GraphQLKickstartContext build(Map<Object, Object> context) {
+        FieldExecutor.RequestExecutor executor = fieldExecutor.forRequest();
+        context.put(FieldExecutor.RequestExecutor.class, executor);
+        return GraphQLKickstartContext.of(dataLoaderRegistryFactory.create(TenantContext.getCurrentTenantId(), executor), context);
+    }
+}
@@ -1,47 +1,22 @@
 package com.performancemanagement.graphql;
 
-import com.performancemanagement.config.TenantContext;
 import com.performancemanagement.model.Goal;
 import com.performancemanagement.model.KPI;
 import graphql.kickstart.tools.GraphQLResolver;
-import jakarta.persistence.EntityManager;
-import org.hibernate.Hibernate;
-import org.springframework.beans.factory.annotation.Autowired;
+import graphql.schema.DataFetchingEnvironment;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
-@Component
-public class KPIResolver implements GraphQLResolver<KPI> {
+import java.util.concurrent.CompletableFuture;
 
-    @Autowired
-    private EntityManager entityManager;
+import static com.performancemanagement.graphql.DataLoaderRegistryFactory.load;
 
-    private String getCurrentTenantId() {
-        return TenantContext.getCurrentTenantId();
-    }
+/**
+ * KPI field resolvers, batched through the per-request DataLoaders.
+ */
+@Component
+public class KPIResolver implements GraphQLResolver<KPI> {
 
-    @Transactional(readOnly = true)
-    public Goal goal(KPI kpi) {
-        kpi = entityManager.merge(kpi);
-        String tenantId = getCurrentTenantId();
-        if (tenantId == null) {
-            Goal goal = kpi.getGoal();
-            if (goal != null) {
-                Hibernate.initialize(goal);
-                Hibernate.initialize(goal.getTenant());
-            }
-            return goal;
-        }
-        Goal goal = kpi.getGoal();
-        if (goal != null) {
-            Hibernate.initialize(goal);
-            Hibernate.initialize(goal.getTenant());
-            if (goal.getTenant().getFqdn().equals(tenantId)) {
-                return goal;
-            }
-        }
-        return null;
+    public CompletableFuture<Goal> goal(KPI kpi, DataFetchingEnvironment env) {
+        return load(env, DataLoaderRegistryFactory.GOAL, kpi.getGoal() != null ? kpi.getGoal().getId() : null);
     }
 }
-
-
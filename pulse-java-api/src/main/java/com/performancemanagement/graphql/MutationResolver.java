@@ -14,10 +14,12 @@ import com.performancemanagement.service.AuthorizationService;
 import com.performancemanagement.service.DepartmentService;
 import com.performancemanagement.service.GoalService;
 import com.performancemanagement.service.KPIService;
+import com.performancemanagement.service.OrgHierarchyService;
 import com.performancemanagement.service.GoalNoteService;
 import com.performancemanagement.service.TeamService;
 import com.performancemanagement.service.TerritoryService;
 import com.performancemanagement.service.UserService;
+import com.performancemanagement.service.VisibleGoalService;
 import com.performancemanagement.model.Territory;
 import com.performancemanagement.repository.TerritoryRepository;
 import com.performancemanagement.dto.TerritoryDTO;
@@ -26,6 +28,7 @@ import com.performancemanagement.model.GoalNote;
 import graphql.kickstart.tools.GraphQLMutationResolver;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -57,9 +60,18 @@ public class MutationResolver implements GraphQLMutationResolver {
     @Autowired
     private com.performancemanagement.service.BulkUploadService bulkUploadService;
 
+    @Autowired
+    private com.performancemanagement.service.ImportJobService importJobService;
+
     @Autowired
     private KPIService kpiService;
 
+    @Autowired
+    private OrgHierarchyService orgHierarchyService;
+
+    @Autowired
+    private VisibleGoalService visibleGoalService;
+
     @Autowired
     private KPIRepository kpiRepository;
 
@@ -120,6 +132,7 @@ public class MutationResolver implements GraphQLMutationResolver {
         }
     }
 
+    @Transactional
     public User setUserManager(Long userId, Long managerId) {
         String tenantId = com.performancemanagement.config.TenantContext.getCurrentTenantId();
         
@@ -131,6 +144,7 @@ public class MutationResolver implements GraphQLMutationResolver {
         
         User targetUser = userRepository.findByIdAndTenantId(userId, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        Long previousManagerId = targetUser.getManager() != null ? targetUser.getManager().getId() : null;
         
         // If setting a manager (not removing)
         if (managerId != null) {
@@ -152,6 +166,7 @@ public class MutationResolver implements GraphQLMutationResolver {
                 throw new IllegalStateException("User already has a manager. Only EPM_ADMIN can change existing manager relationships.");
             }
             
+            orgHierarchyService.requireNoManagementCycle(targetUser.getId(), manager.getId());
             targetUser.setManager(manager);
         } else {
             // Removing manager - only allowed if current user is the manager or EPM_ADMIN
@@ -167,6 +182,10 @@ public class MutationResolver implements GraphQLMutationResolver {
         }
         
         User savedUser = userRepository.save(targetUser);
+        if (!java.util.Objects.equals(previousManagerId, managerId)) {
+            orgHierarchyService.managerChanged(savedUser.getId(), managerId);
+            visibleGoalService.managerChanged(previousManagerId, managerId);
+        }
         return savedUser;
     }
 
@@ -238,6 +257,14 @@ public class MutationResolver implements GraphQLMutationResolver {
         return goalRepository.findByIdAndTenantId(goalDTO.getId(), tenantId).orElse(null);
     }
 
+    public Goal assignGoalToUsers(Long goalId, List<String> userEmails) {
+        return goalService.assignGoalToUsers(goalId, userEmails);
+    }
+
+    public List<Goal> transitionGoals(List<Long> goalIds, Goal.GoalStatus status) {
+        return goalService.transitionGoals(goalIds, status);
+    }
+
     public Goal unassignGoalFromUser(Long goalId, String userEmail) {
         var goalDTO = goalService.unassignGoalFromUser(goalId, userEmail);
         String tenantId = com.performancemanagement.config.TenantContext.getCurrentTenantId();
@@ -511,11 +538,21 @@ public class MutationResolver implements GraphQLMutationResolver {
     public com.performancemanagement.dto.BulkUploadDTO.BulkUploadResult bulkUploadUsers(String csvData) {
         authorizationService.requireEpmAdmin();
         
-        // Parse CSV
-        List<com.performancemanagement.dto.BulkUploadDTO.BulkUploadRow> rows = bulkUploadService.parseCSV(csvData);
-        
-        // Process bulk upload
-        return bulkUploadService.processBulkUpload(rows);
+        // Rows are parsed and written chunk by chunk
+        try {
+            return bulkUploadService.importUsers(new java.io.StringReader(csvData), progress -> { });
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    public com.performancemanagement.dto.ImportJobDTO startBulkUpload(String csvData) {
+        authorizationService.requireEpmAdmin();
+        try {
+            return importJobService.submit(new java.io.StringReader(csvData), null);
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
     }
 
     // Inner classes for GraphQL input types
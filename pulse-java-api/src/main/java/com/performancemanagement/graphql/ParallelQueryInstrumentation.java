@@ -0,0 +1,66 @@
+package com.performancemanagement.graphql;
+
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.language.OperationDefinition;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * Resolves the root fields of a query on the request's {@link FieldExecutor.RequestExecutor}
+ * instead of one after another on the request thread, so a query selecting goals, departments,
+ * territories and teams takes about as long as the slowest of them. Each root field keeps its own
+ * transaction.
+ *
+ * Nested fields are resolved through DataLoaders, whose batches run on the same executor. Mutation
+ * fields are not changed: they are executed in order, as the GraphQL specification requires.
+ *
+ * The open-in-view session of the request thread is not available on the executor, so entities
+ * returned by a root field are detached once its transaction ends. Root resolvers therefore read
+ * lazy associations only inside a transaction of their own (a {@code @Transactional} resolver or
+ * service method), and the field resolvers of the returned entities read nothing from a lazy
+ * association except its id, which Hibernate keeps in the proxy; everything else is loaded by a
+ * DataLoader in a transaction of its own.
+ */
+@Component
+public class ParallelQueryInstrumentation extends SimplePerformantInstrumentation {
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher, InstrumentationFieldFetchParameters parameters,
+                                                InstrumentationState state) {
+        Executor executor = parameters.getExecutionContext().getGraphQLContext().get(FieldExecutor.RequestExecutor.class);
+        if (executor == null
+                || parameters.isTrivialDataFetcher()
+                || parameters.getExecutionContext().getOperationDefinition().getOperation() != OperationDefinition.Operation.QUERY
+                || parameters.getExecutionStepInfo().getPath().getLevel() != 1) {
+            return dataFetcher;
+        }
+        return environment -> CompletableFuture.supplyAsync(() -> fetch(dataFetcher, environment), executor)
+                .thenCompose(ParallelQueryInstrumentation::completed);
+    }
+
+    private static Object fetch(DataFetcher<?> dataFetcher, DataFetchingEnvironment environment) {
+        try {
+            return dataFetcher.get(environment);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletionStage<Object> completed(Object value) {
+        // Resolvers that already return a future complete the field when it completes
+        return value instanceof CompletionStage<?> stage
+                ? (CompletionStage<Object>) stage
+                : CompletableFuture.completedFuture(value);
+    }
+}
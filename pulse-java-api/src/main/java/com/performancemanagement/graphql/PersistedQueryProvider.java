@@ -0,0 +1,208 @@
+package com.performancemanagement.graphql;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ErrorType;
+import graphql.ExecutionInput;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Parses and validates each distinct GraphQL document once: documents are kept, parsed and
+ * validated, in a cache of graphql.persisted-queries.cache-size entries keyed by the SHA-256 hash
+ * of their text, and later requests with the same document go straight to execution.
+ *
+ * Clients may send only the hash, as in Apollo's automatic persisted queries: a request whose
+ * extensions carry persistedQuery.sha256Hash and no query runs the registered document with that
+ * hash, or fails with PersistedQueryNotFound, after which the client repeats it with the query and
+ * the hash to register the document. Documents that fail to parse or validate are not registered.
+ * Registered documents are the documents of the manifest (graphql.persisted-queries.manifest) and,
+ * per instance, those registered by clients.
+ *
+ * With graphql.persisted-queries.allow-list=true only the documents of the manifest are executed,
+ * whether sent by hash or in full, and clients cannot register documents.
+ */
+@Component
+public class PersistedQueryProvider implements PreparsedDocumentProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistedQueryProvider.class);
+
+    private static final String PERSISTED_QUERY = "persistedQuery";
+    private static final String SHA256_HASH = "sha256Hash";
+
+    private final boolean allowList;
+    private final Map<String, String> manifest;
+    private final Cache<String, String> registered;
+    private final Cache<String, PreparsedDocumentEntry> documents;
+
+    public PersistedQueryProvider(@Value("${graphql.persisted-queries.cache-size:1000}") long cacheSize,
+                                  @Value("${graphql.persisted-queries.manifest:}") String manifestLocation,
+                                  @Value("${graphql.persisted-queries.allow-list:false}") boolean allowList,
+                                  ResourceLoader resourceLoader,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        if (allowList && manifestLocation.isBlank()) {
+            throw new IllegalStateException("graphql.persisted-queries.allow-list requires graphql.persisted-queries.manifest");
+        }
+        this.allowList = allowList;
+        this.manifest = manifestLocation.isBlank()
+                ? Map.of()
+                : loadManifest(resourceLoader.getResource(manifestLocation), objectMapper);
+        this.registered = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+        this.documents = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, documents, "graphqlDocuments");
+    }
+
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(
+            ExecutionInput executionInput, Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        return CompletableFuture.completedFuture(document(executionInput, parseAndValidateFunction));
+    }
+
+    /**
+     * @deprecated graphql-java calls {@link #getDocumentAsync}
+     */
+    @Deprecated
+    @Override
+    public PreparsedDocumentEntry getDocument(ExecutionInput executionInput,
+                                              Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        return document(executionInput, parseAndValidateFunction);
+    }
+
+    private PreparsedDocumentEntry document(ExecutionInput executionInput,
+                                            Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        String query = executionInput.getQuery();
+        boolean hasQuery = query != null && !query.isBlank();
+        String requestedHash = requestedHash(executionInput.getExtensions());
+
+        String hash;
+        ExecutionInput input = executionInput;
+        boolean register = false;
+        if (requestedHash == null) {
+            if (!hasQuery) {
+                return error("Query is missing");
+            }
+            hash = sha256(query);
+            if (allowList && !manifest.containsKey(hash)) {
+                return notAllowed();
+            }
+        } else if (hasQuery) {
+            hash = sha256(query);
+            if (!hash.equals(requestedHash)) {
+                return error("PersistedQueryIdInvalid", "PERSISTED_QUERY_ID_INVALID");
+            }
+            if (!manifest.containsKey(hash)) {
+                if (allowList) {
+                    return notAllowed();
+                }
+                register = true;
+            }
+        } else {
+            hash = requestedHash;
+            String document = registeredDocument(hash);
+            if (document == null) {
+                return allowList ? notAllowed() : error("PersistedQueryNotFound", "PERSISTED_QUERY_NOT_FOUND");
+            }
+            input = executionInput.transform(builder -> builder.query(document));
+        }
+
+        ExecutionInput documentInput = input;
+        PreparsedDocumentEntry entry = documents.get(hash, key -> parseAndValidateFunction.apply(documentInput));
+        if (register && !entry.hasErrors()) {
+            // Only documents that parse and validate can be run by their hash
+            registered.put(hash, query);
+        }
+        return entry;
+    }
+
+    private String registeredDocument(String hash) {
+        String document = manifest.get(hash);
+        return document != null ? document : registered.getIfPresent(hash);
+    }
+
+    private static String requestedHash(Map<String, Object> extensions) {
+        if (extensions != null && extensions.get(PERSISTED_QUERY) instanceof Map<?, ?> persistedQuery
+                && persistedQuery.get(SHA256_HASH) instanceof String hash) {
+            return hash.toLowerCase();
+        }
+        return null;
+    }
+
+    /**
+     * Read an Apollo persisted query manifest: {"operations": [{"id": sha256, "body": document}]}.
+     */
+    private static Map<String, String> loadManifest(Resource resource, ObjectMapper objectMapper) {
+        Map<String, String> documents = new HashMap<>();
+        try (InputStream in = resource.getInputStream()) {
+            for (JsonNode operation : objectMapper.readTree(in).path("operations")) {
+                String body = operation.path("body").asText();
+                String hash = sha256(body);
+                if (!hash.equals(operation.path("id").asText().toLowerCase())) {
+                    throw new IllegalStateException("Persisted query " + operation.path("id").asText()
+                            + " in " + resource + " does not match the SHA-256 hash of its body");
+                }
+                documents.put(hash, body);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read persisted queries from " + resource, e);
+        }
+        logger.info("Loaded {} persisted queries from {}", documents.size(), resource);
+        return Map.copyOf(documents);
+    }
+
+    private static String sha256(String document) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(document.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static PreparsedDocumentEntry notAllowed() {
+        return error("Only persisted queries are allowed", "PERSISTED_QUERY_NOT_ALLOWED");
+    }
+
+    private static PreparsedDocumentEntry error(String message) {
+        return new PreparsedDocumentEntry(GraphqlErrorBuilder.newError()
+                .message(message)
+                .errorType(ErrorType.ValidationError)
+                .build());
+    }
+
+    private static PreparsedDocumentEntry error(String message, String code) {
+        // Apollo clients recognize the errors by message or code
+        return new PreparsedDocumentEntry(GraphqlErrorBuilder.newError()
+                .message(message)
+                .errorType(ErrorType.ValidationError)
+                .extensions(Map.of("code", code))
+                .build());
+    }
+}
@@ -0,0 +1,57 @@
+package com.performancemanagement.graphql;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import graphql.kickstart.execution.GraphQLRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Reads GraphQL requests without a query, as sent with only a persisted query hash, as requests
+ * with an empty query: the servlet rejects requests without one before {@link PersistedQueryProvider}
+ * can look up the document by its hash.
+ */
+@Component
+public class PersistedQueryRequestModule extends SimpleModule {
+
+    public PersistedQueryRequestModule() {
+        super(PersistedQueryRequestModule.class.getSimpleName());
+        setDeserializerModifier(new BeanDeserializerModifier() {
+            @Override
+            public JsonDeserializer<?> modifyDeserializer(DeserializationConfig config, BeanDescription description,
+                                                          JsonDeserializer<?> deserializer) {
+                return description.getBeanClass() == GraphQLRequest.class
+                        ? new RequestDeserializer(deserializer)
+                        : deserializer;
+            }
+        });
+    }
+
+    private static final class RequestDeserializer extends DelegatingDeserializer {
+
+        private RequestDeserializer(JsonDeserializer<?> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        protected JsonDeserializer<?> newDelegatingInstance(JsonDeserializer<?> delegate) {
+            return new RequestDeserializer(delegate);
+        }
+
+        @Override
+        public Object deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            Object value = super.deserialize(parser, context);
+            if (value instanceof GraphQLRequest request && request.getQuery() == null) {
+                request.setQuery("");
+            }
+            return value;
+        }
+    }
+}
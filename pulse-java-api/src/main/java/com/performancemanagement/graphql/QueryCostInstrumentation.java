@@ -0,0 +1,271 @@
+package com.performancemanagement.graphql;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.performancemanagement.config.TenantContext;
+import com.performancemanagement.service.KeysetPagination;
+import graphql.ExecutionResult;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.normalized.ExecutableNormalizedField;
+import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLOutputType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLTypeUtil;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Estimates the cost of every GraphQL operation before it is executed, and rejects operations that
+ * are nested deeper than graphql.query.max-depth, cost more than graphql.query.max-cost, or do not
+ * fit in the remaining budget of their tenant.
+ *
+ * The cost of an operation is the number of objects it returns. Every object field costs one per
+ * parent object, and a list field multiplies by its expected size: its page size for paginated
+ * fields and connections ("first", defaulting and capped as in {@link KeysetPagination}), and
+ * graphql.query.list-size for other lists. Scalar and introspection fields are free.
+ *
+ * Each tenant has a budget of graphql.query.tenant-budget-per-minute cost units per instance,
+ * refilled continuously. An operation is charged its estimate up front; when it completes, the
+ * charge is corrected to the number of objects actually returned. Both are recorded in the
+ * "graphql.query.cost" distribution summary, tagged estimated or actual, and rejected operations
+ * in the "graphql.query.rejected" counter, tagged by reason.
+ */
+@Component
+public class QueryCostInstrumentation extends SimplePerformantInstrumentation {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryCostInstrumentation.class);
+
+    private static final String FIRST = "first";
+    private static final String INTROSPECTION_PREFIX = "__";
+
+    private final int maxDepth;
+    private final long maxCost;
+    private final int listSize;
+    private final long tenantBudgetPerMinute;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary estimatedCost;
+    private final DistributionSummary actualCost;
+    private final Cache<String, TenantBudget> budgets;
+
+    public QueryCostInstrumentation(@Value("${graphql.query.max-depth:10}") int maxDepth,
+                                    @Value("${graphql.query.max-cost:20000}") long maxCost,
+                                    @Value("${graphql.query.list-size:20}") int listSize,
+                                    @Value("${graphql.query.tenant-budget-per-minute:1000000}") long tenantBudgetPerMinute,
+                                    MeterRegistry meterRegistry) {
+        this.maxDepth = maxDepth;
+        this.maxCost = maxCost;
+        this.listSize = listSize;
+        this.tenantBudgetPerMinute = tenantBudgetPerMinute;
+        this.meterRegistry = meterRegistry;
+        this.estimatedCost = cost(meterRegistry, "estimated");
+        this.actualCost = cost(meterRegistry, "actual");
+        // Idle tenants are dropped; their budget is full again by then
+        this.budgets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(2))
+                .build();
+    }
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        return new CostState();
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                         InstrumentationState state) {
+        ExecutionContext executionContext = parameters.getExecutionContext();
+        Estimate estimate = new Estimate();
+        GraphQLSchema schema = executionContext.getGraphQLSchema();
+        for (ExecutableNormalizedField field : executionContext.getNormalizedQueryTree().get().getTopLevelFields()) {
+            estimate(field, schema, 1, null, estimate);
+        }
+
+        if (estimate.depth > maxDepth) {
+            throw reject("depth", "Query depth " + estimate.depth + " exceeds the maximum of " + maxDepth);
+        }
+        if (estimate.cost > maxCost) {
+            throw reject("cost", "Query cost " + estimate.cost + " exceeds the maximum of " + maxCost);
+        }
+
+        String tenantId = TenantContext.getCurrentTenantId();
+        TenantBudget budget = null;
+        if (tenantId != null && tenantBudgetPerMinute > 0) {
+            budget = budgets.get(tenantId, key -> new TenantBudget(tenantBudgetPerMinute));
+            long retryAfter = budget.charge(estimate.cost);
+            if (retryAfter > 0) {
+                throw reject("budget", "Query cost budget of the tenant is exhausted, retry in " + retryAfter + " seconds");
+            }
+        }
+
+        estimatedCost.record(estimate.cost);
+        CostState costState = (CostState) state;
+        costState.estimated = estimate.cost;
+        costState.budget = budget;
+        return super.beginExecuteOperation(parameters, state);
+    }
+
+    @Override
+    public CompletableFuture<ExecutionResult> instrumentExecutionResult(ExecutionResult executionResult,
+                                                                        InstrumentationExecutionParameters parameters,
+                                                                        InstrumentationState state) {
+        CostState costState = (CostState) state;
+        if (costState.estimated != null) {
+            long actual = objects(executionResult.getData());
+            actualCost.record(actual);
+            if (costState.budget != null) {
+                costState.budget.correct(actual - costState.estimated);
+            }
+            logger.debug("GraphQL operation {} cost: estimated {}, actual {}",
+                    parameters.getOperation(), costState.estimated, actual);
+        }
+        return CompletableFuture.completedFuture(executionResult);
+    }
+
+    private void estimate(ExecutableNormalizedField field, GraphQLSchema schema, long parentCount, Integer parentPageSize,
+                          Estimate estimate) {
+        if (field.getName().startsWith(INTROSPECTION_PREFIX)) {
+            return;
+        }
+        estimate.depth = Math.max(estimate.depth, field.getLevel());
+
+        GraphQLOutputType type = field.getType(schema);
+        if (!(GraphQLTypeUtil.unwrapAll(type) instanceof GraphQLObjectType)) {
+            // Scalars and enums are read from their object
+            return;
+        }
+        Integer pageSize = pageSize(field);
+        long count = parentCount;
+        if (GraphQLTypeUtil.isList(GraphQLTypeUtil.unwrapNonNull(type))) {
+            // The edges of a connection are a page of the connection field
+            long size = pageSize != null ? pageSize : parentPageSize != null ? parentPageSize : listSize;
+            count = saturatedMultiply(parentCount, size);
+        }
+        estimate.cost = saturatedAdd(estimate.cost, count);
+        for (ExecutableNormalizedField child : field.getChildren()) {
+            estimate(child, schema, count, pageSize, estimate);
+        }
+    }
+
+    private static Integer pageSize(ExecutableNormalizedField field) {
+        if (!field.getResolvedArguments().containsKey(FIRST)) {
+            return null;
+        }
+        Object first = field.getResolvedArguments().get(FIRST);
+        if (first == null) {
+            return KeysetPagination.DEFAULT_PAGE_SIZE;
+        }
+        // Negative sizes are rejected by the resolver
+        return Math.min(Math.max(((Number) first).intValue(), 0), KeysetPagination.MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Number of objects in a result, not counting the result itself and introspection fields.
+     */
+    private static long objects(Object data) {
+        long count = 0;
+        if (data instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!entry.getKey().toString().startsWith(INTROSPECTION_PREFIX)) {
+                    count += (entry.getValue() instanceof Map ? 1 : 0) + objects(entry.getValue());
+                }
+            }
+        } else if (data instanceof List<?> list) {
+            for (Object item : list) {
+                count += (item instanceof Map ? 1 : 0) + objects(item);
+            }
+        }
+        return count;
+    }
+
+    private AbortExecutionException reject(String reason, String message) {
+        meterRegistry.counter("graphql.query.rejected", "reason", reason).increment();
+        return new AbortExecutionException(message);
+    }
+
+    private static DistributionSummary cost(MeterRegistry meterRegistry, String type) {
+        return DistributionSummary.builder("graphql.query.cost")
+                .description("Number of objects returned by a GraphQL operation")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return ((a ^ sum) & (b ^ sum)) < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long saturatedMultiply(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long product = a * b;
+        return high != 0 || product < 0 ? Long.MAX_VALUE : product;
+    }
+
+    private static final class Estimate {
+        private int depth;
+        private long cost;
+    }
+
+    private static final class CostState implements InstrumentationState {
+        private Long estimated;
+        private TenantBudget budget;
+    }
+
+    /**
+     * Token bucket holding up to one minute of budget.
+     */
+    private static final class TenantBudget {
+
+        private final long capacity;
+        private double available;
+        private long refilledAt = System.nanoTime();
+
+        private TenantBudget(long capacity) {
+            this.capacity = capacity;
+            this.available = capacity;
+        }
+
+        /**
+         * Take the cost from the budget. Returns 0 when charged, or the number of seconds until the
+         * budget covers the cost.
+         */
+        private synchronized long charge(long cost) {
+            refill();
+            if (cost > available) {
+                return (long) Math.ceil((cost - available) * 60 / capacity);
+            }
+            available -= cost;
+            return 0;
+        }
+
+        /**
+         * Take or return the difference between the actual and the charged cost. The budget can go
+         * negative, and then admits nothing until it has been refilled.
+         */
+        private synchronized void correct(long difference) {
+            refill();
+            available = Math.min(capacity, available - difference);
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            available = Math.min(capacity, available + (now - refilledAt) / 60e9 * capacity);
+            refilledAt = now;
+        }
+    }
+}
@@ -2,8 +2,11 @@ package com.performancemanagement.graphql;
 
 import com.performancemanagement.config.TenantContext;
 import com.performancemanagement.config.UserContext;
+import com.performancemanagement.dto.ConnectionDTO;
 import com.performancemanagement.dto.DepartmentDTO;
+import com.performancemanagement.dto.GoalFilterDTO;
 import com.performancemanagement.dto.GoalDTO;
+import com.performancemanagement.dto.GoalAnalyticsDTO;
 import com.performancemanagement.model.Department;
 import com.performancemanagement.model.Goal;
 import com.performancemanagement.model.Tenant;
@@ -15,10 +18,15 @@ import com.performancemanagement.repository.TenantRepository;
 import com.performancemanagement.repository.UserRepository;
 import com.performancemanagement.service.AuthorizationService;
 import com.performancemanagement.service.DepartmentService;
+import com.performancemanagement.service.GoalAnalyticsService;
 import com.performancemanagement.service.GoalService;
+import com.performancemanagement.service.GoalVisibilityService;
 import com.performancemanagement.service.GoalNoteService;
 import com.performancemanagement.service.TeamService;
 import com.performancemanagement.service.TerritoryService;
+import com.performancemanagement.service.ImportJobService;
+import com.performancemanagement.service.KeysetPagination;
+import com.performancemanagement.dto.ImportJobDTO;
 import com.performancemanagement.dto.TerritoryDTO;
 import com.performancemanagement.model.Territory;
 import com.performancemanagement.repository.TerritoryRepository;
@@ -26,11 +34,11 @@ import com.performancemanagement.model.Team;
 import com.performancemanagement.model.GoalNote;
 import graphql.kickstart.tools.GraphQLQueryResolver;
 import jakarta.persistence.EntityManager;
-import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -55,6 +63,9 @@ public class QueryResolver implements GraphQLQueryResolver {
 
     @Autowired
     private GoalService goalService;
+
+    @Autowired
+    private GoalVisibilityService goalVisibilityService;
     
     @Autowired
     private AuthorizationService authorizationService;
@@ -74,6 +85,12 @@ public class QueryResolver implements GraphQLQueryResolver {
     @Autowired
     private TerritoryRepository territoryRepository;
 
+    @Autowired
+    private ImportJobService importJobService;
+
+    @Autowired
+    private GoalAnalyticsService goalAnalyticsService;
+
     @Autowired
     private EntityManager entityManager;
 
@@ -106,6 +123,18 @@ public class QueryResolver implements GraphQLQueryResolver {
         return userRepository.findAllByTenantId(tenantId);
     }
 
+    public ConnectionDTO<User> usersConnection(Integer first, String after) {
+        int pageSize = KeysetPagination.pageSize(first);
+        long afterId = KeysetPagination.afterId(after);
+        String tenantId = getCurrentTenantId();
+        if (tenantId == null) {
+            return KeysetPagination.toConnection(List.of(), pageSize, after, User::getId);
+        }
+        List<User> rows = userRepository.findPageByTenantId(tenantId, afterId, KeysetPagination.limit(pageSize));
+        return KeysetPagination.toConnection(rows, pageSize, after, User::getId);
+    }
+
+    @Transactional(readOnly = true)
     public List<User> teamMembers(Long managerId) {
         String tenantId = getCurrentTenantId();
         if (tenantId == null) {
@@ -127,7 +156,8 @@ public class QueryResolver implements GraphQLQueryResolver {
             return null; // Tenant validation disabled - return null if no tenant context
         }
         
-        Goal goal = goalRepository.findByIdAndTenantId(id, tenantId).orElse(null);
+        // Loads the owner and assignees with their departments and teams for the authorization check
+        Goal goal = goalRepository.findForRbacByIdAndTenantId(id, tenantId).orElse(null);
         if (goal == null) {
             return null;
         }
@@ -138,45 +168,11 @@ public class QueryResolver implements GraphQLQueryResolver {
             throw new IllegalStateException("You do not have permission to view this goal");
         }
         
-        // Re-attach the currentUser to the current session before accessing lazy relationships
-        currentUser = entityManager.merge(currentUser);
-        
-        // Check authorization using GoalService helper method
-        // We need to initialize lazy collections first
-        Hibernate.initialize(goal.getOwner());
-        Hibernate.initialize(goal.getAssignedUsers());
-        if (goal.getOwner() != null) {
-            Hibernate.initialize(goal.getOwner().getDepartment());
-            if (goal.getOwner().getDepartment() != null) {
-                // Initialize Department's manager since canUserViewGoal accesses it
-                Hibernate.initialize(goal.getOwner().getDepartment().getManager());
-            }
-            Hibernate.initialize(goal.getOwner().getTeam());
-        }
-        if (goal.getAssignedUsers() != null) {
-            goal.getAssignedUsers().forEach(user -> {
-                Hibernate.initialize(user.getDepartment());
-                if (user.getDepartment() != null) {
-                    // Initialize Department's manager since canUserViewGoal accesses it
-                    Hibernate.initialize(user.getDepartment().getManager());
-                }
-                Hibernate.initialize(user.getTeam());
-            });
-        }
-        if (currentUser.getDepartment() != null) {
-            Hibernate.initialize(currentUser.getDepartment());
-            // Initialize Department's manager if needed
-            if (currentUser.getDepartment().getManager() != null) {
-                Hibernate.initialize(currentUser.getDepartment().getManager());
-            }
-        }
-        if (currentUser.getTeam() != null) {
-            Hibernate.initialize(currentUser.getTeam());
-        }
-        
-        // Initialize territory to avoid LazyInitializationException
-        if (goal.getTerritory() != null) {
-            Hibernate.initialize(goal.getTerritory());
+        // Load a managed copy of the (detached, possibly cached) current user before accessing lazy
+        // relationships. merge() would copy the detached state back onto the managed entity.
+        currentUser = entityManager.find(User.class, currentUser.getId());
+        if (currentUser == null) {
+            throw new IllegalStateException("You do not have permission to view this goal");
         }
         
         // Use GoalService to check authorization
@@ -201,74 +197,8 @@ public class QueryResolver implements GraphQLQueryResolver {
             return List.of();
         }
         
-        // Re-attach the currentUser to the current session before accessing lazy relationships
-        final User mergedCurrentUser = entityManager.merge(currentUser);
-        
-        // Fetch all goals for the tenant
-        List<Goal> allGoals = goalRepository.findAllByTenantId(tenantId);
-        
-        // Initialize lazy collections before filtering
-        allGoals.forEach(goal -> {
-            Hibernate.initialize(goal.getAssignedUsers());
-            Hibernate.initialize(goal.getOwner());
-            if (goal.getOwner() != null) {
-                Hibernate.initialize(goal.getOwner().getDepartment());
-                if (goal.getOwner().getDepartment() != null) {
-                    // Initialize Department's manager since canUserViewGoal accesses it
-                    Hibernate.initialize(goal.getOwner().getDepartment().getManager());
-                }
-                Hibernate.initialize(goal.getOwner().getTeam());
-            }
-            if (goal.getAssignedUsers() != null) {
-                goal.getAssignedUsers().forEach(user -> {
-                    Hibernate.initialize(user.getDepartment());
-                    if (user.getDepartment() != null) {
-                        // Initialize Department's manager since canUserViewGoal accesses it
-                        Hibernate.initialize(user.getDepartment().getManager());
-                    }
-                    Hibernate.initialize(user.getTeam());
-                });
-            }
-            // Initialize territory to avoid LazyInitializationException
-            if (goal.getTerritory() != null) {
-                Hibernate.initialize(goal.getTerritory());
-            }
-        });
-        
-        // Initialize current user's relationships
-        if (mergedCurrentUser.getDepartment() != null) {
-            Hibernate.initialize(mergedCurrentUser.getDepartment());
-            // Initialize Department's manager if needed
-            if (mergedCurrentUser.getDepartment().getManager() != null) {
-                Hibernate.initialize(mergedCurrentUser.getDepartment().getManager());
-            }
-        }
-        if (mergedCurrentUser.getTeam() != null) {
-            Hibernate.initialize(mergedCurrentUser.getTeam());
-        }
-        
-        // Filter goals based on RBAC rules using GoalService helper
-        return allGoals.stream()
-                .filter(goal -> {
-                    // First check if user can view the goal based on RBAC rules
-                    if (!goalService.canUserViewGoal(mergedCurrentUser, goal)) {
-                        return false;
-                    }
-                    
-                    // Then apply confidential goal filtering: only show if user is owner or assigned
-                    if (goal.getConfidential() != null && goal.getConfidential()) {
-                        boolean isOwner = goal.getOwner() != null && 
-                                         goal.getOwner().getId().equals(mergedCurrentUser.getId());
-                        boolean isAssigned = goal.getAssignedUsers() != null && 
-                                           goal.getAssignedUsers().stream()
-                                                   .anyMatch(user -> user.getId().equals(mergedCurrentUser.getId()));
-                        return isOwner || isAssigned;
-                    }
-                    
-                    // Non-confidential goal that passed RBAC check
-                    return true;
-                })
-                .toList();
+        // RBAC and confidential filtering are evaluated in the database
+        return goalVisibilityService.findVisibleGoals(currentUser, tenantId, false);
     }
     
     public List<Goal> allGoalsForHR() {
@@ -299,56 +229,37 @@ public class QueryResolver implements GraphQLQueryResolver {
             return List.of(); // No user logged in, return empty list
         }
         
-        // Re-attach the currentUser to the current session before accessing lazy relationships
-        final User mergedCurrentUser = entityManager.merge(currentUser);
-        
-        // Fetch goals by owner
-        List<Goal> goals = goalRepository.findByOwnerEmailAndTenantId(email, tenantId);
-        
-        // Initialize lazy collections before filtering
-        goals.forEach(goal -> {
-            Hibernate.initialize(goal.getAssignedUsers());
-            Hibernate.initialize(goal.getOwner());
-            if (goal.getOwner() != null) {
-                Hibernate.initialize(goal.getOwner().getDepartment());
-                if (goal.getOwner().getDepartment() != null) {
-                    // Initialize Department's manager since canUserViewGoal accesses it
-                    Hibernate.initialize(goal.getOwner().getDepartment().getManager());
-                }
-                Hibernate.initialize(goal.getOwner().getTeam());
-            }
-            if (goal.getAssignedUsers() != null) {
-                goal.getAssignedUsers().forEach(user -> {
-                    Hibernate.initialize(user.getDepartment());
-                    if (user.getDepartment() != null) {
-                        // Initialize Department's manager since canUserViewGoal accesses it
-                        Hibernate.initialize(user.getDepartment().getManager());
-                    }
-                    Hibernate.initialize(user.getTeam());
-                });
-            }
-            // Initialize territory to avoid LazyInitializationException
-            if (goal.getTerritory() != null) {
-                Hibernate.initialize(goal.getTerritory());
-            }
-        });
-        
-        // Initialize current user's relationships
-        if (mergedCurrentUser.getDepartment() != null) {
-            Hibernate.initialize(mergedCurrentUser.getDepartment());
-            // Initialize Department's manager if needed
-            if (mergedCurrentUser.getDepartment().getManager() != null) {
-                Hibernate.initialize(mergedCurrentUser.getDepartment().getManager());
-            }
+        // Only the owner's goals the RBAC rules allow, filtered in the database
+        return goalRepository.findVisibleByOwnerEmailAndTenantId(email, tenantId, currentUser.getId());
+    }
+
+    @Transactional(readOnly = true)
+    public ConnectionDTO<Goal> goalsConnection(Integer first, String after, GoalFilterDTO filter) {
+        // Same visibility as goals(), evaluated per page in the database
+        return goalVisibilityService.findVisibleGoalsPage(UserContext.getCurrentUser(), getCurrentTenantId(), false,
+                filter, first, after);
+    }
+
+    @Transactional(readOnly = true)
+    public ConnectionDTO<Goal> goalsByOwnerConnection(String email, Integer first, String after, GoalFilterDTO filter) {
+        // Same visibility as goalsByOwner(), which includes confidential goals of managed users
+        GoalFilterDTO ownerFilter = filter != null ? filter : new GoalFilterDTO();
+        ownerFilter.setOwnerEmail(email);
+        return goalVisibilityService.findVisibleGoalsPage(UserContext.getCurrentUser(), getCurrentTenantId(), true,
+                ownerFilter, first, after);
+    }
+
+    public ConnectionDTO<Goal> allGoalsForHRConnection(Integer first, String after, GoalFilterDTO filter) {
+        String tenantId = getCurrentTenantId();
+        if (tenantId == null) {
+            return KeysetPagination.toConnection(List.of(), KeysetPagination.pageSize(first), after, Goal::getId);
         }
-        if (mergedCurrentUser.getTeam() != null) {
-            Hibernate.initialize(mergedCurrentUser.getTeam());
+        
+        if (!authorizationService.isHrAdmin()) {
+            throw new IllegalStateException("HR_ADMIN role required to access all goals");
         }
         
-        // Filter goals based on RBAC rules - only return goals the user can view
-        return goals.stream()
-                .filter(goal -> goalService.canUserViewGoal(mergedCurrentUser, goal))
-                .toList();
+        return goalVisibilityService.findGoalsPage(tenantId, filter, first, after);
     }
 
     // Department queries
@@ -368,6 +279,17 @@ public class QueryResolver implements GraphQLQueryResolver {
         return departmentRepository.findAllByTenantId(tenantId);
     }
 
+    public ConnectionDTO<Department> departmentsConnection(Integer first, String after) {
+        int pageSize = KeysetPagination.pageSize(first);
+        long afterId = KeysetPagination.afterId(after);
+        String tenantId = getCurrentTenantId();
+        if (tenantId == null) {
+            return KeysetPagination.toConnection(List.of(), pageSize, after, Department::getId);
+        }
+        List<Department> rows = departmentRepository.findPageByTenantId(tenantId, afterId, KeysetPagination.limit(pageSize));
+        return KeysetPagination.toConnection(rows, pageSize, after, Department::getId);
+    }
+
     public List<Department> rootDepartments() {
         String tenantId = getCurrentTenantId();
         if (tenantId == null) {
@@ -387,20 +309,25 @@ public class QueryResolver implements GraphQLQueryResolver {
 
     public List<Goal> goalsPendingApproval(Long departmentId) {
         List<GoalDTO> dtos = goalService.getGoalsPendingApprovalForDepartment(departmentId);
-        String tenantId = getCurrentTenantId();
-        return dtos.stream()
-                .map(dto -> goalRepository.findByIdAndTenantId(dto.getId(), tenantId).orElse(null))
-                .filter(g -> g != null)
-                .collect(Collectors.toList());
+        // The DTOs are ordered by ID, as are the goals loaded for them
+        return goalVisibilityService.loadGoals(dtos.stream().map(GoalDTO::getId).toList(), getCurrentTenantId());
     }
 
     public List<Goal> departmentMembersGoals(Long departmentId) {
         List<GoalDTO> dtos = goalService.getDepartmentMembersGoals(departmentId);
-        String tenantId = getCurrentTenantId();
-        return dtos.stream()
-                .map(dto -> goalRepository.findByIdAndTenantId(dto.getId(), tenantId).orElse(null))
-                .filter(g -> g != null)
-                .collect(Collectors.toList());
+        // The DTOs are ordered by ID, as are the goals loaded for them
+        return goalVisibilityService.loadGoals(dtos.stream().map(GoalDTO::getId).toList(), getCurrentTenantId());
+    }
+
+    // Goal analytics queries. Access is checked before the cached analytics are read.
+    public GoalAnalyticsDTO departmentAnalytics(Long departmentId) {
+        goalAnalyticsService.requireDepartmentAccess(departmentId);
+        return goalAnalyticsService.getDepartmentAnalytics(departmentId, LocalDate.now());
+    }
+
+    public GoalAnalyticsDTO teamAnalytics(Long teamId) {
+        goalAnalyticsService.requireTeamAccess(teamId);
+        return goalAnalyticsService.getTeamAnalytics(teamId, LocalDate.now());
     }
 
     // Goal note queries
@@ -425,6 +352,17 @@ public class QueryResolver implements GraphQLQueryResolver {
         return teamRepository.findByTenantId(tenantId);
     }
 
+    public ConnectionDTO<Team> teamsConnection(Integer first, String after) {
+        int pageSize = KeysetPagination.pageSize(first);
+        long afterId = KeysetPagination.afterId(after);
+        String tenantId = getCurrentTenantId();
+        if (tenantId == null) {
+            return KeysetPagination.toConnection(List.of(), pageSize, after, Team::getId);
+        }
+        List<Team> rows = teamRepository.findPageByTenantId(tenantId, afterId, KeysetPagination.limit(pageSize));
+        return KeysetPagination.toConnection(rows, pageSize, after, Team::getId);
+    }
+
     public List<Team> teamsByDepartment(Long departmentId) {
         String tenantId = getCurrentTenantId();
         if (tenantId == null) {
@@ -455,4 +393,19 @@ public class QueryResolver implements GraphQLQueryResolver {
         // Return all tenants (admin operation - not filtered by tenant context)
         return tenantRepository.findAll();
     }
+
+    // Import job queries
+    public ImportJobDTO importJob(Long id) {
+        authorizationService.requireEpmAdmin();
+        try {
+            return importJobService.getJob(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public List<ImportJobDTO> importJobs() {
+        authorizationService.requireEpmAdmin();
+        return importJobService.getJobs();
+    }
 }
@@ -12,14 +12,28 @@ import java.util.Set;
 
 @Entity
 @Table(name = "epm_departments")
+// Fetch plan for DepartmentService.convertToDTO apart from the child department tree
+@NamedEntityGraph(name = Department.GRAPH_DTO,
+    attributeNodes = {
+        @NamedAttributeNode("tenant"),
+        @NamedAttributeNode("manager"),
+        @NamedAttributeNode("managerAssistant"),
+        @NamedAttributeNode("coOwner"),
+        @NamedAttributeNode("parentDepartment"),
+        @NamedAttributeNode(value = "users", subgraph = "tenantUser")
+    },
+    subgraphs = @NamedSubgraph(name = "tenantUser", attributeNodes = @NamedAttributeNode("tenant")))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode(exclude = {"manager", "managerAssistant", "coOwner", "parentDepartment", "childDepartments", "users", "teams"})
 public class Department {
 
+    public static final String GRAPH_DTO = "Department.dto";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "epm_departments_id_seq")
+    @SequenceGenerator(name = "epm_departments_id_seq", sequenceName = "epm_departments_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDate;
 import java.util.HashSet;
@@ -12,14 +13,63 @@ import java.util.Set;
 
 @Entity
 @Table(name = "epm_goals")
+// Fetch plans for the goal access patterns, used by the GoalRepository methods that load goals for them
+@NamedEntityGraph(name = Goal.GRAPH_RBAC,
+    // Everything GoalService.canUserViewGoal reads
+    attributeNodes = {
+        @NamedAttributeNode(value = "owner", subgraph = "orgUser"),
+        @NamedAttributeNode(value = "assignedUsers", subgraph = "orgUser")
+    },
+    subgraphs = {
+        @NamedSubgraph(name = "orgUser", attributeNodes = {
+            @NamedAttributeNode(value = "department", subgraph = "managedDepartment"),
+            @NamedAttributeNode(value = "team", subgraph = "ledTeam")
+        }),
+        @NamedSubgraph(name = "managedDepartment", attributeNodes = @NamedAttributeNode("manager")),
+        @NamedSubgraph(name = "ledTeam", attributeNodes = @NamedAttributeNode("teamLead"))
+    })
+@NamedEntityGraph(name = Goal.GRAPH_DTO,
+    // Everything GoalService.convertToDTO reads apart from the child goal tree, and the HR listing mask check
+    attributeNodes = {
+        @NamedAttributeNode("tenant"),
+        @NamedAttributeNode("owner"),
+        @NamedAttributeNode("parentGoal"),
+        @NamedAttributeNode("territory"),
+        @NamedAttributeNode(value = "assignedUsers", subgraph = "tenantUser")
+    },
+    subgraphs = @NamedSubgraph(name = "tenantUser", attributeNodes = @NamedAttributeNode("tenant")))
+@NamedEntityGraph(name = Goal.GRAPH_DETAIL,
+    // Single goal view: RBAC check followed by DTO conversion
+    attributeNodes = {
+        @NamedAttributeNode("tenant"),
+        @NamedAttributeNode(value = "owner", subgraph = "orgUser"),
+        @NamedAttributeNode("parentGoal"),
+        @NamedAttributeNode("territory"),
+        @NamedAttributeNode(value = "assignedUsers", subgraph = "orgUser")
+    },
+    subgraphs = {
+        @NamedSubgraph(name = "orgUser", attributeNodes = {
+            @NamedAttributeNode("tenant"),
+            @NamedAttributeNode(value = "department", subgraph = "managedDepartment"),
+            @NamedAttributeNode(value = "team", subgraph = "ledTeam")
+        }),
+        @NamedSubgraph(name = "managedDepartment", attributeNodes = @NamedAttributeNode("manager")),
+        @NamedSubgraph(name = "ledTeam", attributeNodes = @NamedAttributeNode("teamLead"))
+    })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@EqualsAndHashCode(exclude = {"owner", "parentGoal", "childGoals", "assignedUsers", "kpis", "territory"})
+@EqualsAndHashCode(exclude = {"owner", "parentGoal", "childGoals", "assignedUsers", "kpis", "territory",
+    "kpiCount", "achievedKpiCount", "kpiCompletionSum", "subtreeKpiCount", "subtreeAchievedKpiCount", "subtreeKpiCompletionSum"})
 public class Goal {
 
+    public static final String GRAPH_RBAC = "Goal.rbac";
+    public static final String GRAPH_DTO = "Goal.dto";
+    public static final String GRAPH_DETAIL = "Goal.detail";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "epm_goals_id_seq")
+    @SequenceGenerator(name = "epm_goals_id_seq", sequenceName = "epm_goals_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -80,6 +130,35 @@ public class Goal {
     @OneToMany(mappedBy = "goal", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<KPI> kpis = new HashSet<>();
 
+    // KPI progress of this goal and of the subtree rooted at it (this goal and all descendant
+    // goals), so rollups are read without loading KPIs or children. The completion sums add up KPI
+    // completion percentages, so every KPI weighs the same. The columns are only written by
+    // GoalRollupService, with increments in SQL, never when the entity is saved.
+
+    @ColumnDefault("0")
+    @Column(name = "kpi_count", nullable = false, insertable = false, updatable = false)
+    private Integer kpiCount = 0;
+
+    @ColumnDefault("0")
+    @Column(name = "achieved_kpi_count", nullable = false, insertable = false, updatable = false)
+    private Integer achievedKpiCount = 0;
+
+    @ColumnDefault("0")
+    @Column(name = "kpi_completion_sum", nullable = false, insertable = false, updatable = false)
+    private Long kpiCompletionSum = 0L;
+
+    @ColumnDefault("0")
+    @Column(name = "subtree_kpi_count", nullable = false, insertable = false, updatable = false)
+    private Integer subtreeKpiCount = 0;
+
+    @ColumnDefault("0")
+    @Column(name = "subtree_achieved_kpi_count", nullable = false, insertable = false, updatable = false)
+    private Integer subtreeAchievedKpiCount = 0;
+
+    @ColumnDefault("0")
+    @Column(name = "subtree_kpi_completion_sum", nullable = false, insertable = false, updatable = false)
+    private Long subtreeKpiCompletionSum = 0L;
+
     public enum GoalStatus {
         DRAFT,
         PENDING_APPROVAL,
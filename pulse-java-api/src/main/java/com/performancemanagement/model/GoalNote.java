@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 public class GoalNote {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "epm_goal_notes_id_seq")
+    @SequenceGenerator(name = "epm_goal_notes_id_seq", sequenceName = "epm_goal_notes_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
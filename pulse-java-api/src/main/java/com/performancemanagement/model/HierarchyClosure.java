@@ -0,0 +1,54 @@
+package com.performancemanagement.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Closure table of the department tree (Department.parentDepartment) and the management chain
+ * (User.manager). There is one row for every strict ancestor of a node, with depth 1 for the
+ * direct parent or manager, so subtree and ancestor checks are a single indexed lookup.
+ *
+ * Rows are maintained by {@link com.performancemanagement.service.OrgHierarchyService} and can be
+ * rebuilt from the parent columns at any time.
+ */
+@Entity
+@Table(name = "epm_hierarchy_closure")
+@IdClass(HierarchyClosure.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HierarchyClosure {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "hierarchy", nullable = false, length = 20)
+    private Hierarchy hierarchy;
+
+    @Id
+    @Column(name = "ancestor_id", nullable = false)
+    private Long ancestorId;
+
+    @Id
+    @Column(name = "descendant_id", nullable = false)
+    private Long descendantId;
+
+    @Column(name = "depth", nullable = false)
+    private int depth;
+
+    public enum Hierarchy {
+        DEPARTMENT, MANAGER
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Hierarchy hierarchy;
+        private Long ancestorId;
+        private Long descendantId;
+    }
+}
@@ -0,0 +1,92 @@
+package com.performancemanagement.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Asynchronous bulk user import. The uploaded CSV is stored as {@link ImportJobPart}s and the
+ * counters below are the checkpoint committed together with each imported chunk.
+ */
+@Entity
+@Table(name = "epm_import_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(exclude = {"tenant"})
+public class ImportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "epm_import_jobs_id_seq")
+    @SequenceGenerator(name = "epm_import_jobs_id_seq", sequenceName = "epm_import_jobs_id_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "tenant_id", nullable = false)
+    private Tenant tenant;
+
+    @Column(name = "created_by")
+    private String createdBy;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ImportJobStatus status = ImportJobStatus.PENDING;
+
+    @Column(name = "rows_processed", nullable = false)
+    private int rowsProcessed;
+
+    @Column(name = "users_created", nullable = false)
+    private int usersCreated;
+
+    @Column(name = "users_updated", nullable = false)
+    private int usersUpdated;
+
+    @Column(name = "departments_created", nullable = false)
+    private int departmentsCreated;
+
+    @Column(name = "departments_updated", nullable = false)
+    private int departmentsUpdated;
+
+    // Error messages, one per line
+    @Column(name = "errors", columnDefinition = "TEXT")
+    private String errors;
+
+    // Instance currently processing the job and the last time it reported being alive
+    @Column(name = "owner")
+    private String owner;
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    public enum ImportJobStatus {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,37 @@
+package com.performancemanagement.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * A consecutive slice of the CSV uploaded for an {@link ImportJob}. Parts are read back in
+ * part number order, one at a time, and deleted when the job finishes.
+ */
+@Entity
+@Table(name = "epm_import_job_parts", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"job_id", "part_number"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(exclude = {"job"})
+public class ImportJobPart {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "epm_import_job_parts_id_seq")
+    @SequenceGenerator(name = "epm_import_job_parts_id_seq", sequenceName = "epm_import_job_parts_id_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "job_id", nullable = false)
+    private ImportJob job;
+
+    @Column(name = "part_number", nullable = false)
+    private int partNumber;
+
+    @Column(name = "content", nullable = false, columnDefinition = "TEXT")
+    private String content;
+}
@@ -17,7 +17,8 @@ import java.time.LocalDate;
 public class KPI {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "epm_kpis_id_seq")
+    @SequenceGenerator(name = "epm_kpis_id_seq", sequenceName = "epm_kpis_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
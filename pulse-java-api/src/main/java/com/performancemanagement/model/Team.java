@@ -13,14 +13,24 @@ import java.util.Set;
 @Table(name = "epm_teams", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"tenant_id", "department_id", "name"})
 })
+// Fetch plan for TeamService.convertToDTO
+@NamedEntityGraph(name = Team.GRAPH_DTO,
+    attributeNodes = {
+        @NamedAttributeNode("department"),
+        @NamedAttributeNode("teamLead"),
+        @NamedAttributeNode("users")
+    })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode(exclude = {"tenant", "department", "teamLead", "users"})
 public class Team {
 
+    public static final String GRAPH_DTO = "Team.dto";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "epm_teams_id_seq")
+    @SequenceGenerator(name = "epm_teams_id_seq", sequenceName = "epm_teams_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 public class Territory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "epm_territories_id_seq")
+    @SequenceGenerator(name = "epm_territories_id_seq", sequenceName = "epm_territories_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -13,14 +13,27 @@ import java.util.Set;
 @Table(name = "epm_users", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"tenant_id", "email"})
 })
+// Fetch plan for UserService.convertToDTO, including the effective manager lookup
+@NamedEntityGraph(name = User.GRAPH_DTO,
+    attributeNodes = {
+        @NamedAttributeNode(value = "department", subgraph = "managedDepartment"),
+        @NamedAttributeNode(value = "team", subgraph = "ledTeam")
+    },
+    subgraphs = {
+        @NamedSubgraph(name = "managedDepartment", attributeNodes = @NamedAttributeNode("manager")),
+        @NamedSubgraph(name = "ledTeam", attributeNodes = @NamedAttributeNode("teamLead"))
+    })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@EqualsAndHashCode(exclude = {"department", "team", "manager", "teamMembers", "assignedGoals", "ownedGoals", "managedDepartments", "coOwnedDepartments"})
+@EqualsAndHashCode(exclude = {"tenant", "department", "team", "manager", "teamMembers", "assignedGoals", "ownedGoals", "managedDepartments", "coOwnedDepartments"})
 public class User {
 
+    public static final String GRAPH_DTO = "User.dto";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "epm_users_id_seq")
+    @SequenceGenerator(name = "epm_users_id_seq", sequenceName = "epm_users_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
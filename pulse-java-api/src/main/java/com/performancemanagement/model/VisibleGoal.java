@@ -0,0 +1,58 @@
+package com.performancemanagement.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Precomputed goal visibility: one row for every reason a user can see a goal under the rules of
+ * {@link com.performancemanagement.service.GoalService#canUserViewGoal}, so listing a user's goals
+ * is a lookup on user_id instead of a join over owners, assignees, departments and teams.
+ *
+ * Confidential goals are indexed like any other goal. Readers that hide them filter on the reason,
+ * since owners and assignees always see their confidential goals.
+ *
+ * Rows are maintained by {@link com.performancemanagement.service.VisibleGoalService} and can be
+ * rebuilt from the goals and the organization at any time.
+ */
+@Entity
+@Table(name = "epm_visible_goals")
+@IdClass(VisibleGoal.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisibleGoal {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Id
+    @Column(name = "goal_id", nullable = false)
+    private Long goalId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reason", nullable = false, length = 20)
+    private Reason reason;
+
+    public enum Reason {
+        // The user owns the goal or is assigned to it
+        OWNER, ASSIGNEE,
+        // The user manages the department or leads the team of the goal's owner or an assignee,
+        // and the owner is not the user's own manager
+        DEPARTMENT_MANAGER, TEAM_LEAD
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private Long goalId;
+        private Reason reason;
+    }
+}
@@ -1,11 +1,14 @@
 package com.performancemanagement.repository;
 
 import com.performancemanagement.model.Department;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,9 +40,32 @@ public interface DepartmentRepository extends JpaRepository<Department, Long> {
     @Query("SELECT d FROM Department d WHERE d.tenant.fqdn = :tenantId")
     List<Department> findAllByTenantId(@Param("tenantId") String tenantId);
     
+    @EntityGraph(Department.GRAPH_DTO)
+    @Query("SELECT d FROM Department d WHERE d.tenant.fqdn = :tenantId")
+    List<Department> findForDtoByTenantId(@Param("tenantId") String tenantId);
+    
+    // Keyset page ordered by ID; the page size comes from the Pageable
+    @Query("SELECT d FROM Department d WHERE d.tenant.fqdn = :tenantId AND d.id > :afterId ORDER BY d.id")
+    List<Department> findPageByTenantId(@Param("tenantId") String tenantId, @Param("afterId") long afterId, Pageable pageable);
+    
     @Query("SELECT d FROM Department d WHERE d.name = :name AND d.tenant.fqdn = :tenantId")
     Optional<Department> findByNameAndTenantId(@Param("name") String name, @Param("tenantId") String tenantId);
     
+    @Query("SELECT d FROM Department d WHERE d.name IN :names AND d.tenant.fqdn = :tenantId")
+    List<Department> findByNameInAndTenantId(@Param("names") Collection<String> names, @Param("tenantId") String tenantId);
+    
+    @Query("SELECT d FROM Department d WHERE d.id IN :ids AND d.tenant.fqdn = :tenantId")
+    List<Department> findByIdInAndTenantId(@Param("ids") Collection<Long> ids, @Param("tenantId") String tenantId);
+    
+    @Query("SELECT d FROM Department d WHERE d.parentDepartment.id IN :parentIds AND d.tenant.fqdn = :tenantId")
+    List<Department> findByParentDepartmentIdInAndTenantId(@Param("parentIds") Collection<Long> parentIds, @Param("tenantId") String tenantId);
+    
+    /**
+     * Returns [departmentId, parentDepartmentId] rows, parentDepartmentId null for root departments.
+     */
+    @Query("SELECT d.id, p.id FROM Department d LEFT JOIN d.parentDepartment p WHERE d.tenant.fqdn = :tenantId")
+    List<Object[]> findParentLinksByTenantId(@Param("tenantId") String tenantId);
+    
     // Legacy methods for backward compatibility - will be filtered by service layer
     List<Department> findByParentDepartmentId(Long parentDepartmentId);
     List<Department> findByParentDepartmentIsNull();
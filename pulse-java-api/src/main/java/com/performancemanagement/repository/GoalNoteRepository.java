@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +18,7 @@ public interface GoalNoteRepository extends JpaRepository<GoalNote, Long> {
     
     @Query("SELECT n FROM GoalNote n WHERE n.id = :id AND n.goal.tenant.fqdn = :tenantId")
     Optional<GoalNote> findByIdAndTenantId(@Param("id") Long id, @Param("tenantId") String tenantId);
+    
+    @Query("SELECT n FROM GoalNote n JOIN n.goal g WHERE g.id IN :goalIds AND g.tenant.fqdn = :tenantId ORDER BY n.createdAt DESC")
+    List<GoalNote> findByGoalIdInAndTenantId(@Param("goalIds") Collection<Long> goalIds, @Param("tenantId") String tenantId);
 }
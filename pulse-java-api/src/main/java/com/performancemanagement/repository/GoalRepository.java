@@ -1,15 +1,52 @@
 package com.performancemanagement.repository;
 
 import com.performancemanagement.model.Goal;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface GoalRepository extends JpaRepository<Goal, Long> {
+    // Keyset page predicate shared by the paginated goal queries: seek past the last seen ID and
+    // apply the optional filters. A null filter parameter matches every goal.
+    String GOAL_PAGE_FILTER =
+           "g.tenant.fqdn = :tenantId AND g.id > :afterId " +
+           "AND (:status IS NULL OR g.status = :status) " +
+           "AND (:territoryId IS NULL OR g.territory.id = :territoryId) " +
+           "AND (:ownerEmail IS NULL OR g.owner.email = :ownerEmail) " +
+           "AND (:departmentId IS NULL OR g.owner.department.id = :departmentId) " +
+           "AND (:createdFrom IS NULL OR g.creationDate >= :createdFrom) " +
+           "AND (:createdTo IS NULL OR g.creationDate <= :createdTo) ";
+
+    // Analytics scopes: the goals owned by or assigned to a member of the given departments, or
+    // of the given team
+    String DEPARTMENTS_MEMBER_GOAL_IDS =
+           "SELECT s.id FROM Goal s LEFT JOIN s.assignedUsers au " +
+           "WHERE s.owner.department.id IN :departmentIds OR au.department.id IN :departmentIds";
+    String TEAM_MEMBER_GOAL_IDS =
+           "SELECT s.id FROM Goal s LEFT JOIN s.assignedUsers au " +
+           "WHERE s.owner.team.id = :teamId OR au.team.id = :teamId";
+
+    // 1 for a goal past its target completion date that is not achieved, archived or retired
+    String OVERDUE_AS_OF =
+           "CASE WHEN g.targetCompletionDate < :asOf AND g.status NOT IN (" +
+           "com.performancemanagement.model.Goal$GoalStatus.ACHIEVED, com.performancemanagement.model.Goal$GoalStatus.ARCHIVED, " +
+           "com.performancemanagement.model.Goal$GoalStatus.RETIRED) THEN 1 ELSE 0 END";
+
     @Query("SELECT g FROM Goal g WHERE g.owner.email = :email AND g.tenant.fqdn = :tenantId")
     List<Goal> findByOwnerEmailAndTenantId(@Param("email") String email, @Param("tenantId") String tenantId);
     
@@ -25,6 +62,190 @@ public interface GoalRepository extends JpaRepository<Goal, Long> {
     @Query("SELECT g FROM Goal g WHERE g.tenant.fqdn = :tenantId")
     List<Goal> findAllByTenantId(@Param("tenantId") String tenantId);
     
+    /**
+     * Returns [id, parentGoalId, depth] rows for the descendants of the given root goals, down to
+     * maxDepth levels below a root. A root found under another root is returned but not descended
+     * into again, so each goal is returned once, with its depth below the nearest root. Children in
+     * another tenant are skipped.
+     */
+    @Query(value = "WITH RECURSIVE subtree(id, parent_id, depth) AS (" +
+           "SELECT c.id, c.parent_goal_id, 1 FROM epm_goals c " +
+           "WHERE c.parent_goal_id IN (:rootIds) AND c.tenant_id = :tenantId " +
+           "UNION ALL " +
+           "SELECT c.id, c.parent_goal_id, s.depth + 1 FROM epm_goals c JOIN subtree s ON c.parent_goal_id = s.id " +
+           "WHERE s.depth < :maxDepth AND s.id NOT IN (:rootIds) AND c.tenant_id = :tenantId) " +
+           "SELECT id, parent_id, depth FROM subtree", nativeQuery = true)
+    List<Object[]> findSubtreeRows(@Param("rootIds") java.util.Collection<Long> rootIds,
+                                   @Param("tenantId") String tenantId,
+                                   @Param("maxDepth") int maxDepth);
+    
+    /**
+     * IDs of the owners and assignees of a goal, its ancestors and its descendants, and of their
+     * department managers and team leads (see CacheEvictionService.goalViewerIds). Goal chains that
+     * run into a cycle stop at the first repeated goal.
+     */
+    @Query(value = "WITH RECURSIVE ancestors(id) AS (" +
+           "SELECT CAST(:goalId AS BIGINT) " +
+           "UNION " +
+           "SELECT g.parent_goal_id FROM epm_goals g JOIN ancestors a ON g.id = a.id WHERE g.parent_goal_id IS NOT NULL), " +
+           "descendants(id) AS (" +
+           "SELECT CAST(:goalId AS BIGINT) " +
+           "UNION " +
+           "SELECT g.id FROM epm_goals g JOIN descendants d ON g.parent_goal_id = d.id), " +
+           "members(user_id) AS (" +
+           "SELECT g.owner_id FROM epm_goals g " +
+           "WHERE g.tenant_id = :tenantId AND (g.id IN (SELECT id FROM ancestors) OR g.id IN (SELECT id FROM descendants)) " +
+           "UNION " +
+           "SELECT ga.user_id FROM epm_goal_assignments ga JOIN epm_goals g ON g.id = ga.goal_id " +
+           "WHERE g.tenant_id = :tenantId AND (g.id IN (SELECT id FROM ancestors) OR g.id IN (SELECT id FROM descendants))) " +
+           "SELECT m.user_id FROM members m " +
+           "UNION " +
+           "SELECT d.manager_id FROM members m JOIN epm_users u ON u.id = m.user_id " +
+           "JOIN epm_departments d ON d.id = u.department_id WHERE d.manager_id IS NOT NULL " +
+           "UNION " +
+           "SELECT t.team_lead_id FROM members m JOIN epm_users u ON u.id = m.user_id " +
+           "JOIN epm_teams t ON t.id = u.team_id", nativeQuery = true)
+    List<Number> findGoalViewerIds(@Param("goalId") Long goalId, @Param("tenantId") String tenantId);
+
+    // KPI rollups (see GoalRollupService). Changes are applied as increments so concurrent
+    // changes below a common ancestor add up.
+    
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE epm_goals SET kpi_count = kpi_count + :kpis, achieved_kpi_count = achieved_kpi_count + :achieved, " +
+           "kpi_completion_sum = kpi_completion_sum + :completionSum WHERE id = :goalId", nativeQuery = true)
+    int addKpiProgress(@Param("goalId") Long goalId, @Param("kpis") int kpis,
+                       @Param("achieved") int achieved, @Param("completionSum") long completionSum);
+    
+    /**
+     * Add to the subtree totals of a goal and all its ancestors. A parent chain that runs into a
+     * cycle stops at the first repeated goal.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "WITH RECURSIVE chain(id) AS (" +
+           "SELECT CAST(:goalId AS BIGINT) " +
+           "UNION " +
+           "SELECT g.parent_goal_id FROM epm_goals g JOIN chain c ON g.id = c.id WHERE g.parent_goal_id IS NOT NULL) " +
+           "UPDATE epm_goals SET subtree_kpi_count = subtree_kpi_count + :kpis, " +
+           "subtree_achieved_kpi_count = subtree_achieved_kpi_count + :achieved, " +
+           "subtree_kpi_completion_sum = subtree_kpi_completion_sum + :completionSum " +
+           "WHERE id IN (SELECT id FROM chain)", nativeQuery = true)
+    int addSubtreeKpiProgress(@Param("goalId") Long goalId, @Param("kpis") int kpis,
+                              @Param("achieved") int achieved, @Param("completionSum") long completionSum);
+    
+    /**
+     * Lock the tenant's goals, so that no rollup increment runs until the transaction ends. Fails
+     * at once instead of waiting when another transaction holds one of them (NOWAIT on PostgreSQL):
+     * increments lock a goal and then its ancestors, so waiting could deadlock with them.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "0"))
+    @Query("SELECT g.id FROM Goal g WHERE g.tenant.fqdn = :tenantId")
+    List<Long> lockIdsByTenantId(@Param("tenantId") String tenantId);
+    
+    /**
+     * Recompute the rollups of the tenant's goals from its KPIs and write those that differ.
+     * Subtree totals include every goal reached through the parent chain, which stops at the
+     * first repeated goal of a cycle.
+     *
+     * @return the number of goals corrected
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "WITH RECURSIVE ancestors(goal_id, ancestor_id) AS (" +
+           "SELECT id, id FROM epm_goals WHERE tenant_id = :tenantId " +
+           "UNION " +
+           "SELECT a.goal_id, g.parent_goal_id FROM ancestors a JOIN epm_goals g ON g.id = a.ancestor_id " +
+           "WHERE g.parent_goal_id IS NOT NULL), " +
+           "own(goal_id, kpis, achieved, completion_sum) AS (" +
+           "SELECT k.goal_id, COUNT(*), SUM(CASE WHEN k.status = 'ACHIEVED' THEN 1 ELSE 0 END), SUM(k.completion_percentage) " +
+           "FROM epm_kpis k JOIN epm_goals g ON g.id = k.goal_id WHERE g.tenant_id = :tenantId GROUP BY k.goal_id), " +
+           "subtree(goal_id, kpis, achieved, completion_sum) AS (" +
+           "SELECT a.ancestor_id, SUM(o.kpis), SUM(o.achieved), SUM(o.completion_sum) " +
+           "FROM ancestors a JOIN own o ON o.goal_id = a.goal_id GROUP BY a.ancestor_id), " +
+           "totals(goal_id, kpis, achieved, completion_sum, subtree_kpis, subtree_achieved, subtree_completion_sum) AS (" +
+           "SELECT g.id, COALESCE(o.kpis, 0), COALESCE(o.achieved, 0), COALESCE(o.completion_sum, 0), " +
+           "COALESCE(s.kpis, 0), COALESCE(s.achieved, 0), COALESCE(s.completion_sum, 0) " +
+           "FROM epm_goals g LEFT JOIN own o ON o.goal_id = g.id LEFT JOIN subtree s ON s.goal_id = g.id " +
+           "WHERE g.tenant_id = :tenantId) " +
+           "UPDATE epm_goals SET kpi_count = t.kpis, achieved_kpi_count = t.achieved, kpi_completion_sum = t.completion_sum, " +
+           "subtree_kpi_count = t.subtree_kpis, subtree_achieved_kpi_count = t.subtree_achieved, " +
+           "subtree_kpi_completion_sum = t.subtree_completion_sum " +
+           "FROM totals t WHERE epm_goals.id = t.goal_id " +
+           "AND (epm_goals.kpi_count <> t.kpis OR epm_goals.achieved_kpi_count <> t.achieved " +
+           "OR epm_goals.kpi_completion_sum <> t.completion_sum OR epm_goals.subtree_kpi_count <> t.subtree_kpis " +
+           "OR epm_goals.subtree_achieved_kpi_count <> t.subtree_achieved " +
+           "OR epm_goals.subtree_kpi_completion_sum <> t.subtree_completion_sum)", nativeQuery = true)
+    int recomputeKpiRollups(@Param("tenantId") String tenantId);
+    
+    /**
+     * Returns [id, parentGoalId, kpiCount, achievedKpiCount, kpiCompletionSum, subtreeKpiCount,
+     * subtreeAchievedKpiCount, subtreeKpiCompletionSum] rows for the tenant's goals.
+     */
+    @Query("SELECT g.id, g.parentGoal.id, g.kpiCount, g.achievedKpiCount, g.kpiCompletionSum, " +
+           "g.subtreeKpiCount, g.subtreeAchievedKpiCount, g.subtreeKpiCompletionSum " +
+           "FROM Goal g WHERE g.tenant.fqdn = :tenantId")
+    List<Object[]> findRollupRowsByTenantId(@Param("tenantId") String tenantId);
+    
+    // Fetch-plan variants: each loads the goals together with what its use case reads (see the graphs on Goal)
+    
+    @EntityGraph(Goal.GRAPH_RBAC)
+    @Query("SELECT g FROM Goal g WHERE g.id = :id AND g.tenant.fqdn = :tenantId")
+    java.util.Optional<Goal> findForRbacByIdAndTenantId(@Param("id") Long id, @Param("tenantId") String tenantId);
+    
+    @EntityGraph(Goal.GRAPH_RBAC)
+    @Query("SELECT g FROM Goal g WHERE g.id IN :ids AND g.tenant.fqdn = :tenantId ORDER BY g.id")
+    List<Goal> findForRbacByIdInAndTenantId(@Param("ids") java.util.Collection<Long> ids, @Param("tenantId") String tenantId);
+    
+    @EntityGraph(Goal.GRAPH_DETAIL)
+    @Query("SELECT g FROM Goal g WHERE g.id = :id AND g.tenant.fqdn = :tenantId")
+    java.util.Optional<Goal> findForDetailByIdAndTenantId(@Param("id") Long id, @Param("tenantId") String tenantId);
+    
+    @EntityGraph(Goal.GRAPH_DTO)
+    @Query("SELECT g FROM Goal g WHERE g.id IN :ids AND g.tenant.fqdn = :tenantId ORDER BY g.id")
+    List<Goal> findForDtoByIdInAndTenantId(@Param("ids") java.util.Collection<Long> ids, @Param("tenantId") String tenantId);
+    
+    @EntityGraph(Goal.GRAPH_DTO)
+    @Query("SELECT g FROM Goal g WHERE g.owner.email = :email AND g.tenant.fqdn = :tenantId ORDER BY g.id")
+    List<Goal> findForDtoByOwnerEmailAndTenantId(@Param("email") String email, @Param("tenantId") String tenantId);
+
+    // An owner's goals visible to a user, confidential goals included, filtered by the visible goal
+    // index (see findVisiblePageByTenantId)
+    String VISIBLE_GOALS_OF_OWNER =
+           "SELECT g FROM Goal g WHERE g.owner.email = :email AND g.tenant.fqdn = :tenantId " +
+           "AND EXISTS (SELECT v.goalId FROM VisibleGoal v WHERE v.userId = :userId AND v.goalId = g.id) ORDER BY g.id";
+
+    @Query(VISIBLE_GOALS_OF_OWNER)
+    List<Goal> findVisibleByOwnerEmailAndTenantId(@Param("email") String email, @Param("tenantId") String tenantId,
+                                                  @Param("userId") Long userId);
+
+    @EntityGraph(Goal.GRAPH_DTO)
+    @Query(VISIBLE_GOALS_OF_OWNER)
+    List<Goal> findVisibleForDtoByOwnerEmailAndTenantId(@Param("email") String email, @Param("tenantId") String tenantId,
+                                                        @Param("userId") Long userId);
+    
+    // HR listing
+    @EntityGraph(Goal.GRAPH_DTO)
+    @Query("SELECT g FROM Goal g WHERE g.tenant.fqdn = :tenantId ORDER BY g.id")
+    List<Goal> findForDtoByTenantId(@Param("tenantId") String tenantId);
+    
+    // Approval queue: pending goals assigned to a member of the department
+    @EntityGraph(Goal.GRAPH_DTO)
+    @Query("SELECT g FROM Goal g WHERE g.tenant.fqdn = :tenantId " +
+           "AND g.status = com.performancemanagement.model.Goal$GoalStatus.PENDING_APPROVAL " +
+           "AND EXISTS (SELECT au.id FROM Goal ga JOIN ga.assignedUsers au WHERE ga = g AND au.department.id = :departmentId) " +
+           "ORDER BY g.id")
+    List<Goal> findPendingApprovalForDtoByDepartmentId(@Param("departmentId") Long departmentId, @Param("tenantId") String tenantId);
+    
+    // Department members' goals: owned by or assigned to a member of the department
+    @EntityGraph(Goal.GRAPH_DTO)
+    @Query("SELECT g FROM Goal g WHERE g.tenant.fqdn = :tenantId " +
+           "AND (g.owner.department.id = :departmentId " +
+           "  OR EXISTS (SELECT au.id FROM Goal ga JOIN ga.assignedUsers au WHERE ga = g AND au.department.id = :departmentId)) " +
+           "ORDER BY g.id")
+    List<Goal> findDepartmentMembersGoalsForDto(@Param("departmentId") Long departmentId, @Param("tenantId") String tenantId);
+    
     @Query("SELECT DISTINCT g FROM Goal g " +
            "LEFT JOIN g.assignedUsers au " +
            "WHERE g.tenant.fqdn = :tenantId " +
@@ -44,6 +265,50 @@ public interface GoalRepository extends JpaRepository<Goal, Long> {
            "AND (g.owner.id = :userId OR au.id = :userId)")
     List<Goal> findGoalsForUser(@Param("tenantId") String tenantId, @Param("userId") Long userId);
     
+    @Query("SELECT g FROM Goal g WHERE g.id IN :ids AND g.tenant.fqdn = :tenantId ORDER BY g.id")
+    List<Goal> findByIdInAndTenantId(@Param("ids") java.util.Collection<Long> ids, @Param("tenantId") String tenantId);
+
+    @Query("SELECT g FROM Goal g WHERE g.parentGoal.id IN :parentGoalIds AND g.tenant.fqdn = :tenantId")
+    List<Goal> findByParentGoalIdInAndTenantId(@Param("parentGoalIds") java.util.Collection<Long> parentGoalIds, @Param("tenantId") String tenantId);
+
+    @Query("SELECT g FROM Goal g WHERE g.owner.id IN :ownerIds AND g.tenant.fqdn = :tenantId")
+    List<Goal> findByOwnerIdInAndTenantId(@Param("ownerIds") java.util.Collection<Long> ownerIds, @Param("tenantId") String tenantId);
+
+    /**
+     * Returns [parentGoalId, childGoalId] rows for the children of the given goals that have one
+     * of the statuses.
+     */
+    @Query("SELECT g.parentGoal.id, g.id FROM Goal g " +
+           "WHERE g.parentGoal.id IN :parentGoalIds AND g.tenant.fqdn = :tenantId AND g.status IN :statuses")
+    List<Object[]> findChildGoalIdsByStatus(@Param("parentGoalIds") Collection<Long> parentGoalIds,
+                                            @Param("tenantId") String tenantId,
+                                            @Param("statuses") Collection<Goal.GoalStatus> statuses);
+
+    /**
+     * Returns [goalId, assigned user] rows for the given goals.
+     */
+    @Query("SELECT g.id, au FROM Goal g JOIN g.assignedUsers au " +
+           "WHERE g.id IN :goalIds AND g.tenant.fqdn = :tenantId AND au.tenant.fqdn = :tenantId")
+    List<Object[]> findAssignedUsersByGoalIds(@Param("goalIds") java.util.Collection<Long> goalIds, @Param("tenantId") String tenantId);
+
+    /**
+     * Returns [userId, assigned goal] rows for the given users.
+     */
+    @Query("SELECT au.id, g FROM Goal g JOIN g.assignedUsers au " +
+           "WHERE au.id IN :userIds AND g.tenant.fqdn = :tenantId")
+    List<Object[]> findAssignedGoalsByUserIds(@Param("userIds") java.util.Collection<Long> userIds, @Param("tenantId") String tenantId);
+
+    /**
+     * IDs among the given goals that the user owns or is assigned to.
+     */
+    @Query("SELECT DISTINCT g.id FROM Goal g " +
+           "LEFT JOIN g.assignedUsers au " +
+           "WHERE g.id IN :goalIds AND g.tenant.fqdn = :tenantId " +
+           "AND (g.owner.id = :userId OR au.id = :userId)")
+    List<Long> findOwnedOrAssignedGoalIdsIn(@Param("goalIds") java.util.Collection<Long> goalIds,
+                                            @Param("tenantId") String tenantId,
+                                            @Param("userId") Long userId);
+
     @Query("SELECT g FROM Goal g WHERE g.territory = :territory AND g.tenant.fqdn = :tenantId")
     List<Goal> findByTerritoryAndTenantId(@Param("territory") com.performancemanagement.model.Territory territory, @Param("tenantId") String tenantId);
     
@@ -51,4 +316,65 @@ public interface GoalRepository extends JpaRepository<Goal, Long> {
     List<Goal> findByOwnerEmail(String email);
     List<Goal> findByParentGoalId(Long parentGoalId);
     List<Goal> findByParentGoalIsNull();
+
+    /**
+     * One keyset page of the tenant's goals, ordered by ID. The page size comes from the Pageable.
+     */
+    @Query("SELECT g FROM Goal g WHERE " + GOAL_PAGE_FILTER + "ORDER BY g.id")
+    List<Goal> findPageByTenantId(@Param("tenantId") String tenantId,
+                                  @Param("afterId") long afterId,
+                                  @Param("status") Goal.GoalStatus status,
+                                  @Param("territoryId") Long territoryId,
+                                  @Param("ownerEmail") String ownerEmail,
+                                  @Param("departmentId") Long departmentId,
+                                  @Param("createdFrom") LocalDate createdFrom,
+                                  @Param("createdTo") LocalDate createdTo,
+                                  Pageable pageable);
+
+    /**
+     * One keyset page of the goals visible to a user, ordered by ID, read from the visible goal
+     * index (see VisibleGoalRepository.findGoalIds) so only the requested page is loaded.
+     */
+    @Query("SELECT g FROM Goal g WHERE " + GOAL_PAGE_FILTER +
+           "AND EXISTS (SELECT v.goalId FROM VisibleGoal v WHERE v.userId = :userId AND v.goalId = g.id " +
+           "  AND (:includeConfidential = true OR g.confidential = false " +
+           "    OR v.reason IN (com.performancemanagement.model.VisibleGoal$Reason.OWNER, com.performancemanagement.model.VisibleGoal$Reason.ASSIGNEE))) " +
+           "ORDER BY g.id")
+    List<Goal> findVisiblePageByTenantId(@Param("tenantId") String tenantId,
+                                         @Param("userId") Long userId,
+                                         @Param("includeConfidential") boolean includeConfidential,
+                                         @Param("afterId") long afterId,
+                                         @Param("status") Goal.GoalStatus status,
+                                         @Param("territoryId") Long territoryId,
+                                         @Param("ownerEmail") String ownerEmail,
+                                         @Param("departmentId") Long departmentId,
+                                         @Param("createdFrom") LocalDate createdFrom,
+                                         @Param("createdTo") LocalDate createdTo,
+                                         Pageable pageable);
+
+    // Analytics aggregates. Status rows are returned as [status, goal count, overdue goal count],
+    // territory rows as [territoryId, territoryName, goal count]; goals without a territory are
+    // counted in a row with a null territory.
+
+    @Query("SELECT g.status, COUNT(g), SUM(" + OVERDUE_AS_OF + ") FROM Goal g " +
+           "WHERE g.tenant.fqdn = :tenantId AND g.id IN (" + DEPARTMENTS_MEMBER_GOAL_IDS + ") GROUP BY g.status")
+    List<Object[]> countByStatusForDepartments(@Param("departmentIds") Collection<Long> departmentIds,
+                                               @Param("tenantId") String tenantId,
+                                               @Param("asOf") LocalDate asOf);
+
+    @Query("SELECT g.status, COUNT(g), SUM(" + OVERDUE_AS_OF + ") FROM Goal g " +
+           "WHERE g.tenant.fqdn = :tenantId AND g.id IN (" + TEAM_MEMBER_GOAL_IDS + ") GROUP BY g.status")
+    List<Object[]> countByStatusForTeam(@Param("teamId") Long teamId,
+                                        @Param("tenantId") String tenantId,
+                                        @Param("asOf") LocalDate asOf);
+
+    @Query("SELECT t.id, t.name, COUNT(g) FROM Goal g LEFT JOIN g.territory t " +
+           "WHERE g.tenant.fqdn = :tenantId AND g.id IN (" + DEPARTMENTS_MEMBER_GOAL_IDS + ") GROUP BY t.id, t.name")
+    List<Object[]> countByTerritoryForDepartments(@Param("departmentIds") Collection<Long> departmentIds,
+                                                  @Param("tenantId") String tenantId);
+
+    @Query("SELECT t.id, t.name, COUNT(g) FROM Goal g LEFT JOIN g.territory t " +
+           "WHERE g.tenant.fqdn = :tenantId AND g.id IN (" + TEAM_MEMBER_GOAL_IDS + ") GROUP BY t.id, t.name")
+    List<Object[]> countByTerritoryForTeam(@Param("teamId") Long teamId,
+                                           @Param("tenantId") String tenantId);
 }
@@ -0,0 +1,94 @@
+package com.performancemanagement.repository;
+
+import com.performancemanagement.model.HierarchyClosure;
+import com.performancemanagement.model.HierarchyClosure.Hierarchy;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface HierarchyClosureRepository extends JpaRepository<HierarchyClosure, HierarchyClosure.Key> {
+    // Rows are returned as [ancestorId or descendantId, depth]
+    @Query("SELECT c.ancestorId, c.depth FROM HierarchyClosure c WHERE c.hierarchy = :hierarchy AND c.descendantId = :nodeId")
+    List<Object[]> findAncestors(@Param("hierarchy") Hierarchy hierarchy, @Param("nodeId") Long nodeId);
+
+    // Rows are returned as [descendantId, ancestorId, depth]
+    // Only reads committed paths, so it does not need to flush the persistence context first
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("SELECT c.descendantId, c.ancestorId, c.depth FROM HierarchyClosure c WHERE c.hierarchy = :hierarchy AND c.descendantId IN :nodeIds")
+    List<Object[]> findAncestorsOfNodes(@Param("hierarchy") Hierarchy hierarchy, @Param("nodeIds") Collection<Long> nodeIds);
+
+    @Query("SELECT c.descendantId, c.depth FROM HierarchyClosure c WHERE c.hierarchy = :hierarchy AND c.ancestorId = :nodeId")
+    List<Object[]> findDescendants(@Param("hierarchy") Hierarchy hierarchy, @Param("nodeId") Long nodeId);
+
+    @Query("SELECT COUNT(c) > 0 FROM HierarchyClosure c WHERE c.hierarchy = :hierarchy AND c.ancestorId = :ancestorId AND c.descendantId = :descendantId")
+    boolean existsPath(@Param("hierarchy") Hierarchy hierarchy, @Param("ancestorId") Long ancestorId, @Param("descendantId") Long descendantId);
+
+    // Paths from the ancestors of a node into the subtree rooted at the node (including the node)
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM HierarchyClosure c WHERE c.hierarchy = :hierarchy " +
+           "AND c.ancestorId IN (SELECT a.ancestorId FROM HierarchyClosure a WHERE a.hierarchy = :hierarchy AND a.descendantId = :nodeId) " +
+           "AND (c.descendantId = :nodeId OR c.descendantId IN (SELECT s.descendantId FROM HierarchyClosure s WHERE s.hierarchy = :hierarchy AND s.ancestorId = :nodeId))")
+    int deletePathsIntoSubtree(@Param("hierarchy") Hierarchy hierarchy, @Param("nodeId") Long nodeId);
+
+    // Every path that ends in the subtree rooted at a node (including the node)
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM HierarchyClosure c WHERE c.hierarchy = :hierarchy " +
+           "AND (c.descendantId = :nodeId OR c.descendantId IN (SELECT s.descendantId FROM HierarchyClosure s WHERE s.hierarchy = :hierarchy AND s.ancestorId = :nodeId))")
+    int deleteSubtree(@Param("hierarchy") Hierarchy hierarchy, @Param("nodeId") Long nodeId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM HierarchyClosure c WHERE c.hierarchy = com.performancemanagement.model.HierarchyClosure$Hierarchy.MANAGER " +
+           "AND (c.ancestorId NOT IN (SELECT u.id FROM User u) OR c.descendantId NOT IN (SELECT u.id FROM User u))")
+    int deleteOrphanedManagerPaths();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM HierarchyClosure c WHERE c.hierarchy = com.performancemanagement.model.HierarchyClosure$Hierarchy.DEPARTMENT " +
+           "AND (c.ancestorId NOT IN (SELECT d.id FROM Department d) OR c.descendantId NOT IN (SELECT d.id FROM Department d))")
+    int deleteOrphanedDepartmentPaths();
+
+    @Query("SELECT c.ancestorId, c.descendantId, c.depth FROM HierarchyClosure c WHERE c.hierarchy = com.performancemanagement.model.HierarchyClosure$Hierarchy.DEPARTMENT " +
+           "AND c.descendantId IN (SELECT d.id FROM Department d WHERE d.tenant.fqdn = :tenantId)")
+    List<Object[]> findDepartmentPathsByTenantId(@Param("tenantId") String tenantId);
+
+    @Query("SELECT c.ancestorId, c.descendantId, c.depth FROM HierarchyClosure c WHERE c.hierarchy = com.performancemanagement.model.HierarchyClosure$Hierarchy.MANAGER " +
+           "AND c.descendantId IN (SELECT u.id FROM User u WHERE u.tenant.fqdn = :tenantId)")
+    List<Object[]> findManagerPathsByTenantId(@Param("tenantId") String tenantId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM HierarchyClosure c WHERE c.hierarchy = com.performancemanagement.model.HierarchyClosure$Hierarchy.DEPARTMENT " +
+           "AND c.descendantId IN (SELECT d.id FROM Department d WHERE d.tenant.fqdn = :tenantId)")
+    int deleteDepartmentPathsByTenantId(@Param("tenantId") String tenantId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM HierarchyClosure c WHERE c.hierarchy = com.performancemanagement.model.HierarchyClosure$Hierarchy.MANAGER " +
+           "AND c.descendantId IN (SELECT u.id FROM User u WHERE u.tenant.fqdn = :tenantId)")
+    int deleteManagerPathsByTenantId(@Param("tenantId") String tenantId);
+
+    // Whether the user manages, directly or indirectly, a member of the department or one of its sub-departments
+    @Query("SELECT COUNT(c) > 0 FROM HierarchyClosure c WHERE c.hierarchy = com.performancemanagement.model.HierarchyClosure$Hierarchy.MANAGER " +
+           "AND c.ancestorId = :userId AND c.descendantId IN (SELECT u.id FROM User u WHERE u.department.id = :departmentId " +
+           "OR u.department.id IN (SELECT d.descendantId FROM HierarchyClosure d WHERE d.hierarchy = com.performancemanagement.model.HierarchyClosure$Hierarchy.DEPARTMENT AND d.ancestorId = :departmentId))")
+    boolean managesDepartmentSubtreeMember(@Param("userId") Long userId, @Param("departmentId") Long departmentId);
+
+    // Whether the user manages the department or one of its ancestor departments
+    @Query("SELECT COUNT(d) > 0 FROM Department d WHERE d.manager.id = :userId " +
+           "AND (d.id = :departmentId OR d.id IN (SELECT c.ancestorId FROM HierarchyClosure c " +
+           "  WHERE c.hierarchy = com.performancemanagement.model.HierarchyClosure$Hierarchy.DEPARTMENT AND c.descendantId = :departmentId))")
+    boolean managesDepartmentOrAncestor(@Param("userId") Long userId, @Param("departmentId") Long departmentId);
+}
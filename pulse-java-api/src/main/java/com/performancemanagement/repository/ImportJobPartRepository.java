@@ -0,0 +1,22 @@
+package com.performancemanagement.repository;
+
+import com.performancemanagement.model.ImportJobPart;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface ImportJobPartRepository extends JpaRepository<ImportJobPart, Long> {
+    @Query("SELECT p.content FROM ImportJobPart p WHERE p.job.id = :jobId AND p.partNumber = :partNumber")
+    Optional<String> findContentByJobIdAndPartNumber(@Param("jobId") Long jobId, @Param("partNumber") int partNumber);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ImportJobPart p WHERE p.job.id = :jobId")
+    int deleteByJobId(@Param("jobId") Long jobId);
+}
@@ -0,0 +1,70 @@
+package com.performancemanagement.repository;
+
+import com.performancemanagement.model.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+    @Query("SELECT j FROM ImportJob j WHERE j.id = :id AND j.tenant.fqdn = :tenantId")
+    Optional<ImportJob> findByIdAndTenantId(@Param("id") Long id, @Param("tenantId") String tenantId);
+    
+    @Query("SELECT j FROM ImportJob j WHERE j.tenant.fqdn = :tenantId ORDER BY j.createdAt DESC")
+    List<ImportJob> findAllByTenantId(@Param("tenantId") String tenantId);
+    
+    @Query("SELECT j FROM ImportJob j JOIN FETCH j.tenant WHERE j.id = :id")
+    Optional<ImportJob> findByIdWithTenant(@Param("id") Long id);
+    
+    /**
+     * Unfinished jobs whose owner has not sent a heartbeat since the given time.
+     */
+    @Query("SELECT j.id FROM ImportJob j WHERE j.status IN :statuses AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)")
+    List<Long> findStaleJobIds(@Param("statuses") Collection<ImportJob.ImportJobStatus> statuses, @Param("staleBefore") LocalDateTime staleBefore);
+    
+    /**
+     * Take over a stale job. Returns 1 when this owner won the job.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.owner = :owner, j.heartbeatAt = :now WHERE j.id = :id AND j.status IN :statuses " +
+           "AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)")
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("statuses") Collection<ImportJob.ImportJobStatus> statuses,
+              @Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+    
+    /**
+     * Refresh the heartbeat of the owner's jobs that have not reported since refreshBefore.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.heartbeatAt = :now WHERE j.owner = :owner AND j.status IN :statuses " +
+           "AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :refreshBefore)")
+    int heartbeat(@Param("owner") String owner, @Param("statuses") Collection<ImportJob.ImportJobStatus> statuses,
+                  @Param("refreshBefore") LocalDateTime refreshBefore, @Param("now") LocalDateTime now);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.heartbeatAt = NULL WHERE j.id = :id AND j.owner = :owner")
+    int release(@Param("id") Long id, @Param("owner") String owner);
+    
+    /**
+     * Record the checkpoint after a chunk. Returns 0 when the job is no longer owned by the caller.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImportJob j SET j.rowsProcessed = :rowsProcessed, j.usersCreated = :usersCreated, j.usersUpdated = :usersUpdated, " +
+           "j.departmentsCreated = :departmentsCreated, j.departmentsUpdated = :departmentsUpdated, j.errors = :errors, " +
+           "j.heartbeatAt = :now, j.updatedAt = :now WHERE j.id = :id AND j.owner = :owner")
+    int checkpoint(@Param("id") Long id, @Param("owner") String owner, @Param("rowsProcessed") int rowsProcessed,
+                   @Param("usersCreated") int usersCreated, @Param("usersUpdated") int usersUpdated,
+                   @Param("departmentsCreated") int departmentsCreated, @Param("departmentsUpdated") int departmentsUpdated,
+                   @Param("errors") String errors, @Param("now") LocalDateTime now);
+}
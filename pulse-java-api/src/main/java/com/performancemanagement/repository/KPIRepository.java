@@ -6,17 +6,53 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface KPIRepository extends JpaRepository<KPI, Long> {
+    // Analytics totals of a set of KPIs: [kpi count, achieved kpi count, completion percentage sum,
+    // then the KPI counts with a completion percentage of 0, 1-24, 25-49, 50-74, 75-99 and 100].
+    // The sums are null when there are no KPIs.
+    String COMPLETION_TOTALS =
+           "SELECT COUNT(k), " +
+           "SUM(CASE WHEN k.status = com.performancemanagement.model.KPI$KPIStatus.ACHIEVED THEN 1 ELSE 0 END), " +
+           "SUM(k.completionPercentage), " +
+           "SUM(CASE WHEN k.completionPercentage <= 0 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN k.completionPercentage BETWEEN 1 AND 24 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN k.completionPercentage BETWEEN 25 AND 49 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN k.completionPercentage BETWEEN 50 AND 74 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN k.completionPercentage BETWEEN 75 AND 99 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN k.completionPercentage >= 100 THEN 1 ELSE 0 END) " +
+           "FROM KPI k WHERE k.tenant.fqdn = :tenantId ";
     
     @Query("SELECT k FROM KPI k JOIN k.goal g WHERE g.id = :goalId AND g.tenant.fqdn = :tenantId")
     List<KPI> findByGoalIdAndTenantId(@Param("goalId") Long goalId, @Param("tenantId") String tenantId);
     
     @Query("SELECT k FROM KPI k WHERE k.id = :id AND k.goal.tenant.fqdn = :tenantId")
     Optional<KPI> findByIdAndTenantId(@Param("id") Long id, @Param("tenantId") String tenantId);
-}
+    
+    @Query("SELECT k FROM KPI k JOIN k.goal g WHERE g.id IN :goalIds AND g.tenant.fqdn = :tenantId")
+    List<KPI> findByGoalIdInAndTenantId(@Param("goalIds") Collection<Long> goalIds, @Param("tenantId") String tenantId);
 
+    /**
+     * Returns [goalId, kpi count, achieved kpi count, completion percentage sum] rows for the
+     * tenant's goals that have KPIs.
+     */
+    @Query("SELECT k.goal.id, COUNT(k), " +
+           "SUM(CASE WHEN k.status = com.performancemanagement.model.KPI$KPIStatus.ACHIEVED THEN 1 ELSE 0 END), " +
+           "SUM(k.completionPercentage) " +
+           "FROM KPI k WHERE k.goal.tenant.fqdn = :tenantId GROUP BY k.goal.id")
+    List<Object[]> findProgressTotalsByTenantId(@Param("tenantId") String tenantId);
 
+    // A single row of COMPLETION_TOTALS
+    @Query(COMPLETION_TOTALS + "AND k.goal.id IN (" + GoalRepository.DEPARTMENTS_MEMBER_GOAL_IDS + ")")
+    List<Object[]> findCompletionTotalsForDepartments(@Param("departmentIds") Collection<Long> departmentIds,
+                                                      @Param("tenantId") String tenantId);
+
+    // A single row of COMPLETION_TOTALS
+    @Query(COMPLETION_TOTALS + "AND k.goal.id IN (" + GoalRepository.TEAM_MEMBER_GOAL_IDS + ")")
+    List<Object[]> findCompletionTotalsForTeam(@Param("teamId") Long teamId,
+                                               @Param("tenantId") String tenantId);
+}
@@ -1,11 +1,14 @@
 package com.performancemanagement.repository;
 
 import com.performancemanagement.model.Team;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +23,14 @@ public interface TeamRepository extends JpaRepository<Team, Long> {
     @Query("SELECT t FROM Team t WHERE t.tenant.fqdn = :tenantId")
     List<Team> findByTenantId(@Param("tenantId") String tenantId);
     
+    @EntityGraph(Team.GRAPH_DTO)
+    @Query("SELECT t FROM Team t WHERE t.tenant.fqdn = :tenantId")
+    List<Team> findForDtoByTenantId(@Param("tenantId") String tenantId);
+    
+    // Keyset page ordered by ID; the page size comes from the Pageable
+    @Query("SELECT t FROM Team t WHERE t.tenant.fqdn = :tenantId AND t.id > :afterId ORDER BY t.id")
+    List<Team> findPageByTenantId(@Param("tenantId") String tenantId, @Param("afterId") long afterId, Pageable pageable);
+    
     @Query("SELECT t FROM Team t WHERE t.id = :id AND t.tenant.fqdn = :tenantId")
     Optional<Team> findByIdAndTenantId(@Param("id") Long id, @Param("tenantId") String tenantId);
     
@@ -29,5 +40,10 @@ public interface TeamRepository extends JpaRepository<Team, Long> {
         @Param("departmentId") Long departmentId, 
         @Param("tenantId") String tenantId
     );
+    
+    @Query("SELECT t FROM Team t WHERE t.id IN :ids AND t.tenant.fqdn = :tenantId")
+    List<Team> findByIdInAndTenantId(@Param("ids") Collection<Long> ids, @Param("tenantId") String tenantId);
+    
+    @Query("SELECT t FROM Team t WHERE t.department.id IN :departmentIds AND t.tenant.fqdn = :tenantId")
+    List<Team> findByDepartmentIdInAndTenantId(@Param("departmentIds") Collection<Long> departmentIds, @Param("tenantId") String tenantId);
 }
-
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,5 +20,7 @@ public interface TerritoryRepository extends JpaRepository<Territory, Long> {
     
     @Query("SELECT t FROM Territory t WHERE t.id = :id AND t.tenant.fqdn = :tenantId")
     Optional<Territory> findByIdAndTenantId(@Param("id") Long id, @Param("tenantId") String tenantId);
+    
+    @Query("SELECT t FROM Territory t WHERE t.id IN :ids AND t.tenant.fqdn = :tenantId")
+    List<Territory> findByIdInAndTenantId(@Param("ids") Collection<Long> ids, @Param("tenantId") String tenantId);
 }
-
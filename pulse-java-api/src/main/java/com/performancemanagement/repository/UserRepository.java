@@ -1,11 +1,14 @@
 package com.performancemanagement.repository;
 
 import com.performancemanagement.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,9 +23,66 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE u.tenant.fqdn = :tenantId")
     List<User> findAllByTenantId(@Param("tenantId") String tenantId);
     
+    @EntityGraph(User.GRAPH_DTO)
+    @Query("SELECT u FROM User u WHERE u.tenant.fqdn = :tenantId")
+    List<User> findForDtoByTenantId(@Param("tenantId") String tenantId);
+    
+    // Keyset page ordered by ID; the page size comes from the Pageable
+    @Query("SELECT u FROM User u WHERE u.tenant.fqdn = :tenantId AND u.id > :afterId ORDER BY u.id")
+    List<User> findPageByTenantId(@Param("tenantId") String tenantId, @Param("afterId") long afterId, Pageable pageable);
+    
     @Query("SELECT u FROM User u WHERE u.id = :id AND u.tenant.fqdn = :tenantId")
     Optional<User> findByIdAndTenantId(@Param("id") Long id, @Param("tenantId") String tenantId);
     
+    @Query("SELECT u FROM User u WHERE u.id IN :ids AND u.tenant.fqdn = :tenantId")
+    List<User> findByIdInAndTenantId(@Param("ids") Collection<Long> ids, @Param("tenantId") String tenantId);
+    
+    @Query("SELECT u FROM User u WHERE u.email IN :emails AND u.tenant.fqdn = :tenantId")
+    List<User> findByEmailInAndTenantId(@Param("emails") Collection<String> emails, @Param("tenantId") String tenantId);
+    
+    @Query("SELECT u FROM User u WHERE u.department.id IN :departmentIds AND u.tenant.fqdn = :tenantId")
+    List<User> findByDepartmentIdInAndTenantId(@Param("departmentIds") Collection<Long> departmentIds, @Param("tenantId") String tenantId);
+    
+    @Query("SELECT u FROM User u WHERE u.team.id IN :teamIds AND u.tenant.fqdn = :tenantId")
+    List<User> findByTeamIdInAndTenantId(@Param("teamIds") Collection<Long> teamIds, @Param("tenantId") String tenantId);
+    
+    @Query("SELECT u FROM User u WHERE u.manager.id IN :managerIds AND u.tenant.fqdn = :tenantId")
+    List<User> findByManagerIdInAndTenantId(@Param("managerIds") Collection<Long> managerIds, @Param("tenantId") String tenantId);
+    
+    /**
+     * Returns [userId, team lead, department manager] rows used to compute effective managers in bulk.
+     */
+    @Query("SELECT u.id, lead, mgr FROM User u " +
+           "LEFT JOIN u.team t LEFT JOIN t.teamLead lead " +
+           "LEFT JOIN u.department d LEFT JOIN d.manager mgr " +
+           "WHERE u.id IN :ids AND u.tenant.fqdn = :tenantId")
+    List<Object[]> findManagerCandidatesByUserIds(@Param("ids") Collection<Long> ids, @Param("tenantId") String tenantId);
+    
+    /**
+     * Returns [userId, email, departmentId, department manager ID, manager assistant ID, team lead ID]
+     * rows, the relations goal assignment is checked against, for the users with the given emails.
+     */
+    @Query("SELECT u.id, u.email, d.id, mgr.id, asst.id, lead.id FROM User u " +
+           "LEFT JOIN u.department d LEFT JOIN d.manager mgr LEFT JOIN d.managerAssistant asst " +
+           "LEFT JOIN u.team t LEFT JOIN t.teamLead lead " +
+           "WHERE u.email IN :emails AND u.tenant.fqdn = :tenantId")
+    List<Object[]> findAssigneeRelationsByEmails(@Param("emails") Collection<String> emails, @Param("tenantId") String tenantId);
+    
+    /**
+     * Users that do not manage, directly or indirectly, any member of the department or its sub-departments.
+     */
+    @Query("SELECT u FROM User u WHERE u.tenant.fqdn = :tenantId AND u.id NOT IN (" +
+           "SELECT c.ancestorId FROM HierarchyClosure c WHERE c.hierarchy = com.performancemanagement.model.HierarchyClosure$Hierarchy.MANAGER " +
+           "AND c.descendantId IN (SELECT m.id FROM User m WHERE m.department.id = :departmentId " +
+           "OR m.department.id IN (SELECT d.descendantId FROM HierarchyClosure d WHERE d.hierarchy = com.performancemanagement.model.HierarchyClosure$Hierarchy.DEPARTMENT AND d.ancestorId = :departmentId)))")
+    List<User> findEligibleDepartmentManagers(@Param("departmentId") Long departmentId, @Param("tenantId") String tenantId);
+    
+    /**
+     * Returns [userId, managerId] rows, managerId null for users without a manager.
+     */
+    @Query("SELECT u.id, m.id FROM User u LEFT JOIN u.manager m WHERE u.tenant.fqdn = :tenantId")
+    List<Object[]> findManagerLinksByTenantId(@Param("tenantId") String tenantId);
+    
     // Legacy methods for backward compatibility - will be filtered by service layer
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
@@ -0,0 +1,102 @@
+package com.performancemanagement.repository;
+
+import com.performancemanagement.model.VisibleGoal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface VisibleGoalRepository extends JpaRepository<VisibleGoal, VisibleGoal.Key> {
+    /**
+     * IDs of the tenant's goals visible to the user. Confidential goals are only returned to their
+     * owner and assignees unless includeConfidential is true.
+     */
+    @Query("SELECT DISTINCT v.goalId FROM VisibleGoal v JOIN Goal g ON g.id = v.goalId " +
+           "WHERE v.userId = :userId AND g.tenant.fqdn = :tenantId " +
+           "AND (:includeConfidential = true OR g.confidential = false " +
+           "  OR v.reason IN (com.performancemanagement.model.VisibleGoal$Reason.OWNER, com.performancemanagement.model.VisibleGoal$Reason.ASSIGNEE))")
+    List<Long> findGoalIds(@Param("userId") Long userId,
+                           @Param("tenantId") String tenantId,
+                           @Param("includeConfidential") boolean includeConfidential);
+
+    // Rows are returned as [userId, goalId]
+    @Query("SELECT v.userId, v.goalId FROM VisibleGoal v WHERE v.goalId IN :goalIds")
+    List<Object[]> findEntriesByGoalIds(@Param("goalIds") Collection<Long> goalIds);
+
+    @Query("SELECT COUNT(v) > 0 FROM VisibleGoal v WHERE v.goalId IN (SELECT g.id FROM Goal g WHERE g.tenant.fqdn = :tenantId)")
+    boolean existsByTenantId(@Param("tenantId") String tenantId);
+
+    // Entries derived from the goals and the organization, one query per reason.
+    // Rows are returned as [userId, goalId].
+
+    @Query("SELECT g.owner.id, g.id FROM Goal g WHERE g.id IN :goalIds AND g.owner IS NOT NULL")
+    List<Object[]> deriveOwnerEntries(@Param("goalIds") Collection<Long> goalIds);
+
+    @Query("SELECT au.id, g.id FROM Goal g JOIN g.assignedUsers au WHERE g.id IN :goalIds")
+    List<Object[]> deriveAssigneeEntries(@Param("goalIds") Collection<Long> goalIds);
+
+    @Query("SELECT d.manager.id, g.id FROM Goal g JOIN g.owner o JOIN o.department d JOIN d.manager m " +
+           "WHERE g.id IN :goalIds AND (m.manager IS NULL OR m.manager.id <> o.id)")
+    List<Object[]> deriveOwnerDepartmentManagerEntries(@Param("goalIds") Collection<Long> goalIds);
+
+    @Query("SELECT DISTINCT d.manager.id, g.id FROM Goal g JOIN g.owner o JOIN g.assignedUsers au JOIN au.department d JOIN d.manager m " +
+           "WHERE g.id IN :goalIds AND (m.manager IS NULL OR m.manager.id <> o.id)")
+    List<Object[]> deriveAssigneeDepartmentManagerEntries(@Param("goalIds") Collection<Long> goalIds);
+
+    @Query("SELECT t.teamLead.id, g.id FROM Goal g JOIN g.owner o JOIN o.team t JOIN t.teamLead l " +
+           "WHERE g.id IN :goalIds AND (l.manager IS NULL OR l.manager.id <> o.id)")
+    List<Object[]> deriveOwnerTeamLeadEntries(@Param("goalIds") Collection<Long> goalIds);
+
+    @Query("SELECT DISTINCT t.teamLead.id, g.id FROM Goal g JOIN g.owner o JOIN g.assignedUsers au JOIN au.team t JOIN t.teamLead l " +
+           "WHERE g.id IN :goalIds AND (l.manager IS NULL OR l.manager.id <> o.id)")
+    List<Object[]> deriveAssigneeTeamLeadEntries(@Param("goalIds") Collection<Long> goalIds);
+
+    // Goals whose entries depend on a set of users, a department or a team: the goals owned by
+    // or assigned to them
+
+    @Query("SELECT DISTINCT g.id FROM Goal g LEFT JOIN g.assignedUsers au WHERE g.owner.id IN :userIds OR au.id IN :userIds")
+    List<Long> findGoalIdsOfUsers(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT DISTINCT g.id FROM Goal g LEFT JOIN g.assignedUsers au WHERE g.owner.department.id = :departmentId OR au.department.id = :departmentId")
+    List<Long> findGoalIdsOfDepartment(@Param("departmentId") Long departmentId);
+
+    // Members of the department and of its sub-departments
+    @Query("SELECT DISTINCT g.id FROM Goal g LEFT JOIN g.assignedUsers au " +
+           "WHERE g.owner.department.id = :departmentId OR au.department.id = :departmentId " +
+           "OR g.owner.department.id IN (SELECT c.descendantId FROM HierarchyClosure c " +
+           "  WHERE c.hierarchy = com.performancemanagement.model.HierarchyClosure$Hierarchy.DEPARTMENT AND c.ancestorId = :departmentId) " +
+           "OR au.department.id IN (SELECT c.descendantId FROM HierarchyClosure c " +
+           "  WHERE c.hierarchy = com.performancemanagement.model.HierarchyClosure$Hierarchy.DEPARTMENT AND c.ancestorId = :departmentId)")
+    List<Long> findGoalIdsOfDepartmentSubtree(@Param("departmentId") Long departmentId);
+
+    @Query("SELECT DISTINCT g.id FROM Goal g LEFT JOIN g.assignedUsers au WHERE g.owner.team.id = :teamId OR au.team.id = :teamId")
+    List<Long> findGoalIdsOfTeam(@Param("teamId") Long teamId);
+
+    // The user and their direct and indirect reports
+    @Query("SELECT DISTINCT g.id FROM Goal g LEFT JOIN g.assignedUsers au " +
+           "WHERE g.owner.id = :userId OR au.id = :userId " +
+           "OR g.owner.id IN (SELECT c.descendantId FROM HierarchyClosure c " +
+           "  WHERE c.hierarchy = com.performancemanagement.model.HierarchyClosure$Hierarchy.MANAGER AND c.ancestorId = :userId) " +
+           "OR au.id IN (SELECT c.descendantId FROM HierarchyClosure c " +
+           "  WHERE c.hierarchy = com.performancemanagement.model.HierarchyClosure$Hierarchy.MANAGER AND c.ancestorId = :userId)")
+    List<Long> findGoalIdsOfManagerSubtree(@Param("userId") Long userId);
+
+    @Query("SELECT g.id FROM Goal g WHERE g.tenant.fqdn = :tenantId ORDER BY g.id")
+    List<Long> findGoalIdsByTenantId(@Param("tenantId") String tenantId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM VisibleGoal v WHERE v.goalId IN :goalIds")
+    int deleteByGoalIds(@Param("goalIds") Collection<Long> goalIds);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM VisibleGoal v WHERE v.goalId NOT IN (SELECT g.id FROM Goal g) OR v.userId NOT IN (SELECT u.id FROM User u)")
+    int deleteOrphanedEntries();
+}
@@ -1,23 +1,20 @@
 package com.performancemanagement.service;
 
+import com.performancemanagement.config.RequestContext;
 import com.performancemanagement.config.UserContext;
 import com.performancemanagement.model.Department;
 import com.performancemanagement.model.User;
 import com.performancemanagement.repository.DepartmentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
-import java.util.Collection;
 import java.util.Objects;
 
 /**
  * Simple role-based authorization checks for the application.
  *
- * Currently, authorization is based on the per-request {@link UserContext},
- * which is populated by {@link com.performancemanagement.config.JwtAuthenticationFilter} based on the JWT token or X-User-Email header.
+ * Currently, authorization is based on the per-request {@link RequestContext} and {@link UserContext},
+ * which are populated by {@link com.performancemanagement.config.JwtAuthenticationFilter} based on the JWT token or X-User-Email header.
  */
 @Service
 public class AuthorizationService {
@@ -26,24 +23,16 @@ public class AuthorizationService {
     private DepartmentRepository departmentRepository;
 
     /**
-     * Check if the current authentication has the specified role authority.
-     * Checks Spring Security authorities first (from JWT), then falls back to User entity role.
+     * Check if the current request has the specified role.
+     * Checks the roles of the request context first (from JWT), then falls back to User entity role.
      * @param roleName The role name to check (e.g., "EPM_ADMIN", "HR_ADMIN")
      * @return true if the user has the role, false otherwise
      */
     private boolean hasRole(String roleName) {
-        // First, check Spring Security authorities (from JWT token)
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null) {
-            Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
-            if (authorities != null) {
-                String roleAuthority = "ROLE_" + roleName;
-                boolean hasAuthority = authorities.stream()
-                        .anyMatch(auth -> auth.getAuthority().equals(roleAuthority));
-                if (hasAuthority) {
-                    return true;
-                }
-            }
+        // First, check the roles of the JWT token
+        RequestContext context = RequestContext.current();
+        if (context != null && context.hasRole(roleName)) {
+            return true;
         }
         
         // Fallback: check User entity role (for backward compatibility)
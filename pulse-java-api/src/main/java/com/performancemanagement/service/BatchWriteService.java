@@ -0,0 +1,65 @@
+package com.performancemanagement.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+/**
+ * Multi-row writes sent to the database as JDBC batches.
+ *
+ * Entities get their IDs from pooled sequences, so persisting them runs no SQL: Hibernate sends
+ * the inserts at the next flush, ordered by table, in batches of hibernate.jdbc.batch_size. On
+ * SQLite the IDs are assigned by the insert and entities with generated IDs are written one by
+ * one. Rows of join tables, which have no entity, are inserted with JdbcTemplate batches on the
+ * connection of the current transaction.
+ */
+@Service
+@Transactional
+public class BatchWriteService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    /**
+     * Persist and flush the entities, then detach them, for rows that are later changed with bulk
+     * statements, which do not update the persistence context.
+     */
+    public void insertDetached(Collection<?> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        entities.forEach(entityManager::persist);
+        entityManager.flush();
+        entities.forEach(entityManager::detach);
+    }
+
+    /**
+     * Assign a goal to users, skipping users it is already assigned to. The goal and users must
+     * exist; pending changes are flushed first. A loaded {@code Goal.assignedUsers} collection is
+     * not updated.
+     */
+    public void insertGoalAssignments(Long goalId, Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO epm_goal_assignments (goal_id, user_id) VALUES (?, ?) ON CONFLICT DO NOTHING",
+                userIds, batchSize, (statement, userId) -> {
+                    statement.setLong(1, goalId);
+                    statement.setLong(2, userId);
+                });
+    }
+}
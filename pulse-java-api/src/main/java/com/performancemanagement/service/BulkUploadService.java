@@ -3,23 +3,50 @@ package com.performancemanagement.service;
 import com.performancemanagement.config.TenantContext;
 import com.performancemanagement.dto.BulkUploadDTO;
 import com.performancemanagement.model.Department;
+import com.performancemanagement.model.Tenant;
 import com.performancemanagement.model.User;
 import com.performancemanagement.repository.DepartmentRepository;
 import com.performancemanagement.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
+/**
+ * Bulk user import from CSV.
+ *
+ * Rows are streamed from the input and written in chunks of bulk-upload.chunk-size rows, each in
+ * its own transaction. Existing users and departments referenced by a chunk are prefetched with
+ * one query each, new users are saved together at the end of the chunk, and the persistence
+ * context is cleared after every commit. Memory use is therefore bounded by the chunk size, the
+ * number of distinct department names and bulk-upload.max-errors, not by the size of the file.
+ *
+ * A chunk that fails is rolled back and reported as a single error; chunks committed before it
+ * are kept.
+ */
 @Service
 @Transactional
 public class BulkUploadService {
@@ -32,23 +59,109 @@ public class BulkUploadService {
     @Autowired
     private DepartmentRepository departmentRepository;
 
+    @Autowired
+    private CacheEvictionService cacheEvictionService;
+
+    @Autowired
+    private OrgHierarchyService orgHierarchyService;
+
+    @Autowired
+    private VisibleGoalService visibleGoalService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${bulk-upload.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${bulk-upload.max-errors:1000}")
+    private int maxErrors;
+
+    @Value("${bulk-upload.chunk-attempts:3}")
+    private int chunkAttempts;
+
+    @Value("${bulk-upload.max-record-length:65536}")
+    private int maxRecordLength;
+
+    /**
+     * Source of rows to import; returns null when there are no more rows.
+     */
+    @FunctionalInterface
+    private interface RowSource {
+        BulkUploadDTO.BulkUploadRow next() throws IOException;
+    }
 
     /**
      * Parse CSV data and return list of rows
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<BulkUploadDTO.BulkUploadRow> parseCSV(String csvData) {
         List<BulkUploadDTO.BulkUploadRow> rows = new ArrayList<>();
-        String[] lines = csvData.split("\n");
-        
-        if (lines.length < 2) {
+        try {
+            RowSource source = csvRows(new CsvReader(new StringReader(csvData), maxRecordLength));
+            BulkUploadDTO.BulkUploadRow row;
+            while ((row = source.next()) != null) {
+                rows.add(row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    /**
+     * Stream CSV data from the reader and import it chunk by chunk. The progress callback receives
+     * the running totals after every chunk.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkUploadDTO.BulkUploadResult importUsers(Reader csvData, Consumer<BulkUploadDTO.BulkUploadResult> progress) throws IOException {
+        return importUsers(csvData, null, progress);
+    }
+
+    /**
+     * Resume an import from a checkpoint: the first checkpoint.totalRows rows are skipped and the
+     * totals continue from the checkpoint. The progress callback runs in the transaction that
+     * commits the chunk (or, for a chunk that failed, in a transaction of its own), so state it
+     * records is committed together with the chunk. It may throw {@link ImportAbortedException}
+     * to stop the import and roll the chunk back.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkUploadDTO.BulkUploadResult importUsers(Reader csvData, BulkUploadDTO.BulkUploadResult checkpoint,
+                                                      Consumer<BulkUploadDTO.BulkUploadResult> progress) throws IOException {
+        try (CsvReader reader = new CsvReader(csvData, maxRecordLength)) {
+            return importRows(csvRows(reader), checkpoint, progress);
+        }
+    }
+
+    /**
+     * Process bulk upload: create or update users, managers, and departments
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkUploadDTO.BulkUploadResult processBulkUpload(List<BulkUploadDTO.BulkUploadRow> rows) {
+        Iterator<BulkUploadDTO.BulkUploadRow> iterator = rows.iterator();
+        try {
+            return importRows(() -> iterator.hasNext() ? iterator.next() : null, null, result -> { });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Map CSV records to rows using the header record. Rows without an email are skipped.
+     */
+    private RowSource csvRows(CsvReader reader) throws IOException {
+        List<String> headers = reader.readRecord();
+        if (headers == null) {
             throw new IllegalArgumentException("CSV must have at least a header row and one data row");
         }
 
         // Parse header
-        String[] headers = parseCSVLine(lines[0]);
         Map<String, Integer> headerMap = new HashMap<>();
-        for (int i = 0; i < headers.length; i++) {
-            headerMap.put(headers[i].trim().toLowerCase(), i);
+        for (int i = 0; i < headers.size(); i++) {
+            headerMap.put(headers.get(i).trim().toLowerCase(), i);
         }
 
         // Validate required columns
@@ -56,215 +169,356 @@ public class BulkUploadService {
             throw new IllegalArgumentException("CSV must contain an 'email' column");
         }
 
-        // Parse data rows
-        for (int i = 1; i < lines.length; i++) {
-            String line = lines[i].trim();
-            if (line.isEmpty()) {
-                continue;
-            }
+        RowSource source = () -> {
+            List<String> values;
+            while ((values = reader.readRecord()) != null) {
+                BulkUploadDTO.BulkUploadRow row = new BulkUploadDTO.BulkUploadRow();
+                row.setEmail(column(values, headerMap, "email"));
+                row.setFirstName(column(values, headerMap, "firstname"));
+                row.setLastName(column(values, headerMap, "lastname"));
+                row.setTitle(column(values, headerMap, "title"));
+                row.setManagerEmail(column(values, headerMap, "manageremail"));
+                row.setDepartmentName(column(values, headerMap, "departmentname"));
+                row.setRole(column(values, headerMap, "role"));
 
-            String[] values = parseCSVLine(line);
-            BulkUploadDTO.BulkUploadRow row = new BulkUploadDTO.BulkUploadRow();
-            
-            int emailIndex = headerMap.get("email");
-            if (emailIndex < values.length) {
-                row.setEmail(values[emailIndex].trim());
+                if (row.getEmail() != null && !row.getEmail().isEmpty()) {
+                    return row;
+                }
             }
+            return null;
+        };
 
-            if (headerMap.containsKey("firstname") && headerMap.get("firstname") < values.length) {
-                row.setFirstName(values[headerMap.get("firstname")].trim());
-            }
-            if (headerMap.containsKey("lastname") && headerMap.get("lastname") < values.length) {
-                row.setLastName(values[headerMap.get("lastname")].trim());
-            }
-            if (headerMap.containsKey("title") && headerMap.get("title") < values.length) {
-                row.setTitle(values[headerMap.get("title")].trim());
-            }
-            if (headerMap.containsKey("manageremail") && headerMap.get("manageremail") < values.length) {
-                row.setManagerEmail(values[headerMap.get("manageremail")].trim());
-            }
-            if (headerMap.containsKey("departmentname") && headerMap.get("departmentname") < values.length) {
-                row.setDepartmentName(values[headerMap.get("departmentname")].trim());
-            }
-            if (headerMap.containsKey("role") && headerMap.get("role") < values.length) {
-                row.setRole(values[headerMap.get("role")].trim());
-            }
+        BulkUploadDTO.BulkUploadRow first = source.next();
+        if (first == null) {
+            throw new IllegalArgumentException("CSV must have at least a header row and one data row");
+        }
+        return new RowSource() {
+            private BulkUploadDTO.BulkUploadRow pending = first;
 
-            if (row.getEmail() != null && !row.getEmail().isEmpty()) {
-                rows.add(row);
+            @Override
+            public BulkUploadDTO.BulkUploadRow next() throws IOException {
+                if (pending != null) {
+                    BulkUploadDTO.BulkUploadRow row = pending;
+                    pending = null;
+                    return row;
+                }
+                return source.next();
             }
-        }
+        };
+    }
 
-        return rows;
+    private static String column(List<String> values, Map<String, Integer> headerMap, String name) {
+        Integer index = headerMap.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        return values.get(index).trim();
     }
 
-    private String[] parseCSVLine(String line) {
-        List<String> fields = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder currentField = new StringBuilder();
-
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == ',' && !inQuotes) {
-                fields.add(currentField.toString());
-                currentField = new StringBuilder();
-            } else {
-                currentField.append(c);
+    private BulkUploadDTO.BulkUploadResult importRows(RowSource source, BulkUploadDTO.BulkUploadResult checkpoint,
+                                                      Consumer<BulkUploadDTO.BulkUploadResult> progress) throws IOException {
+        String tenantId = TenantContext.getCurrentTenantId();
+        if (tenantId == null) {
+            throw new IllegalStateException("Tenant context required for bulk upload");
+        }
+
+        ImportState state = new ImportState(tenantId, TenantContext.getCurrentTenant());
+        BulkUploadDTO.BulkUploadRow row;
+        if (checkpoint != null) {
+            state.result = state.plus(checkpoint, checkpoint.getTotalRows());
+            // Skip committed rows, remembering their departments so they are not counted again
+            for (int i = 0; i < checkpoint.getTotalRows() && (row = source.next()) != null; i++) {
+                if (!isBlank(row.getDepartmentName())) {
+                    state.seenDepartments.add(row.getDepartmentName().trim());
+                }
+            }
+        }
+
+        List<BulkUploadDTO.BulkUploadRow> chunk = new ArrayList<>(chunkSize);
+        while ((row = source.next()) != null) {
+            chunk.add(row);
+            if (chunk.size() >= chunkSize) {
+                writeChunk(chunk, state, progress);
+                chunk.clear();
             }
         }
-        fields.add(currentField.toString());
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, state, progress);
+        }
 
-        return fields.toArray(new String[0]);
+        if (state.result.getErrors().size() >= maxErrors) {
+            state.result.getErrors().add("Error limit of " + maxErrors + " reached, further errors are not shown");
+        }
+        logger.info("Bulk upload for tenant {} finished: {} rows, {} users created, {} users updated",
+                tenantId, state.result.getTotalRows(), state.result.getUsersCreated(), state.result.getUsersUpdated());
+        return state.result;
     }
 
     /**
-     * Process bulk upload: create or update users, managers, and departments
+     * Write one chunk in its own transaction and advance the running totals.
      */
-    @CacheEvict(value = {"users", "user", "userByEmail", "departments", "department", "rootDepartments"}, allEntries = true)
-    public BulkUploadDTO.BulkUploadResult processBulkUpload(List<BulkUploadDTO.BulkUploadRow> rows) {
-        String tenantId = TenantContext.getCurrentTenantId();
-        if (tenantId == null) {
-            throw new IllegalStateException("Tenant context required for bulk upload");
+    private void writeChunk(List<BulkUploadDTO.BulkUploadRow> rows, ImportState state,
+                            Consumer<BulkUploadDTO.BulkUploadResult> progress) {
+        int firstRow = state.result.getTotalRows() + 1;
+        int lastRow = firstRow + rows.size() - 1;
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Set<String> chunkDepartments = new HashSet<>();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    state.result = transactionTemplate.execute(status -> {
+                        BulkUploadDTO.BulkUploadResult chunkResult = newResult();
+                        chunkDepartments.clear();
+                        processChunk(rows, state, chunkResult, chunkDepartments);
+                        cacheEvictionService.evictOrganization();
+                        BulkUploadDTO.BulkUploadResult totals = state.plus(chunkResult, rows.size());
+                        progress.accept(totals);
+                        return totals;
+                    });
+                    break;
+                } catch (TransientDataAccessException e) {
+                    // Lock conflicts with concurrent writers; the chunk was rolled back and can be retried
+                    if (attempt >= chunkAttempts) {
+                        throw e;
+                    }
+                    logger.debug("Retrying bulk upload rows {}-{} after {}", firstRow, lastRow, e.getMessage());
+                    entityManager.clear();
+                }
+            }
+            state.seenDepartments.addAll(chunkDepartments);
+        } catch (ImportAbortedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            logger.error("Error importing bulk upload rows " + firstRow + "-" + lastRow, e);
+            entityManager.clear();
+            BulkUploadDTO.BulkUploadResult chunkResult = newResult();
+            chunkResult.getErrors().add("Error importing rows " + firstRow + "-" + lastRow + ": " + e.getMessage());
+            BulkUploadDTO.BulkUploadResult totals = state.plus(chunkResult, rows.size());
+            transactionTemplate.executeWithoutResult(status -> progress.accept(totals));
+            state.result = totals;
+        } finally {
+            // Detach everything loaded for this chunk so the persistence context does not grow
+            entityManager.clear();
         }
+        logger.debug("Bulk upload for tenant {}: {} rows processed", state.tenantId, state.result.getTotalRows());
+    }
 
-        BulkUploadDTO.BulkUploadResult result = new BulkUploadDTO.BulkUploadResult();
-        result.setTotalRows(rows.size());
-        result.setUsersCreated(0);
-        result.setUsersUpdated(0);
-        result.setDepartmentsCreated(0);
-        result.setDepartmentsUpdated(0);
-        result.setErrors(new ArrayList<>());
+    private void processChunk(List<BulkUploadDTO.BulkUploadRow> rows, ImportState state,
+                              BulkUploadDTO.BulkUploadResult result, Set<String> chunkDepartments) {
+        // Prefetch every user and department the chunk refers to
+        Set<String> emails = new HashSet<>();
+        Set<String> departmentNames = new LinkedHashSet<>();
+        for (BulkUploadDTO.BulkUploadRow row : rows) {
+            if (!isBlank(row.getEmail())) {
+                emails.add(row.getEmail().trim().toLowerCase());
+            }
+            if (!isBlank(row.getManagerEmail())) {
+                emails.add(row.getManagerEmail().trim().toLowerCase());
+            }
+            if (!isBlank(row.getDepartmentName())) {
+                departmentNames.add(row.getDepartmentName().trim());
+            }
+        }
 
+        Map<String, User> userMap = new HashMap<>();
+        if (!emails.isEmpty()) {
+            userRepository.findByEmailInAndTenantId(emails, state.tenantId)
+                    .forEach(user -> userMap.put(user.getEmail(), user));
+        }
         // First pass: Create/update departments
         Map<String, Department> departmentMap = new HashMap<>();
-        for (BulkUploadDTO.BulkUploadRow row : rows) {
-            if (row.getDepartmentName() != null && !row.getDepartmentName().trim().isEmpty()) {
-                String deptName = row.getDepartmentName().trim();
-                if (!departmentMap.containsKey(deptName)) {
-                    try {
-                        Optional<Department> existingDept = departmentRepository.findByNameAndTenantId(deptName, tenantId);
-                        if (existingDept.isPresent()) {
-                            departmentMap.put(deptName, existingDept.get());
-                            result.setDepartmentsUpdated(result.getDepartmentsUpdated() + 1);
-                        } else {
-                            // Create new department - owner will be set in second pass after users are created
-                            Department newDept = new Department();
-                            newDept.setTenant(TenantContext.getCurrentTenant());
-                            newDept.setName(deptName);
-                            newDept.setSmallDescription("Department: " + deptName);
-                            newDept.setCreationDate(LocalDate.now());
-                            newDept.setStatus(Department.DepartmentStatus.ACTIVE);
-                            
-                            // We need an owner - will set it in second pass after users are created
-                            // For now, create without owner - we'll update it
-                            Department saved = departmentRepository.save(newDept);
-                            departmentMap.put(deptName, saved);
-                            result.setDepartmentsCreated(result.getDepartmentsCreated() + 1);
-                        }
-                    } catch (Exception e) {
-                        result.getErrors().add("Error processing department '" + deptName + "': " + e.getMessage());
-                        logger.error("Error processing department: " + deptName, e);
-                    }
+        if (!departmentNames.isEmpty()) {
+            departmentRepository.findByNameInAndTenantId(departmentNames, state.tenantId)
+                    .forEach(department -> departmentMap.putIfAbsent(department.getName(), department));
+        }
+        List<Department> newDepartments = new ArrayList<>();
+        for (String deptName : departmentNames) {
+            if (departmentMap.containsKey(deptName)) {
+                if (!state.seenDepartments.contains(deptName)) {
+                    result.setDepartmentsUpdated(result.getDepartmentsUpdated() + 1);
                 }
+            } else {
+                // Owner is set below from the first user assigned to the department
+                Department newDept = new Department();
+                newDept.setTenant(state.tenant);
+                newDept.setName(deptName);
+                newDept.setSmallDescription("Department: " + deptName);
+                newDept.setCreationDate(LocalDate.now());
+                newDept.setStatus(Department.DepartmentStatus.ACTIVE);
+                newDepartments.add(newDept);
+                departmentMap.put(deptName, newDept);
+                result.setDepartmentsCreated(result.getDepartmentsCreated() + 1);
             }
+            chunkDepartments.add(deptName);
         }
+        departmentRepository.saveAll(newDepartments);
 
         // Second pass: Create/update users and assign managers/departments
-        Map<String, User> userMap = new HashMap<>();
+        List<User> newUsers = new ArrayList<>();
+        List<ManagerAssignment> managerAssignments = new ArrayList<>();
+        // Existing users and departments whose goals need their visible goal entries refreshed
+        Set<Long> visibilityUserIds = new HashSet<>();
+        Set<Long> visibilityDepartmentIds = new HashSet<>();
         for (BulkUploadDTO.BulkUploadRow row : rows) {
-            if (row.getEmail() == null || row.getEmail().trim().isEmpty()) {
+            if (isBlank(row.getEmail())) {
                 result.getErrors().add("Skipping row with empty email");
                 continue;
             }
 
-            try {
-                String email = row.getEmail().trim().toLowerCase();
-                Optional<User> existingUserOpt = userRepository.findByEmailAndTenantId(email, tenantId);
+            String email = row.getEmail().trim().toLowerCase();
+            User user = userMap.get(email);
+            boolean created = user == null;
 
-                User user;
+            if (user != null) {
+                // Update existing user
+                if (!isBlank(row.getFirstName())) {
+                    user.setFirstName(row.getFirstName().trim());
+                }
+                if (!isBlank(row.getLastName())) {
+                    user.setLastName(row.getLastName().trim());
+                }
+                if (!isBlank(row.getTitle())) {
+                    user.setTitle(row.getTitle().trim());
+                }
+                if (!isBlank(row.getRole())) {
+                    user.setRole(parseRole(row.getRole()));
+                }
+                result.setUsersUpdated(result.getUsersUpdated() + 1);
+            } else {
+                // Create new user
+                user = new User();
+                user.setTenant(state.tenant);
+                user.setEmail(email);
+                user.setFirstName(row.getFirstName() != null ? row.getFirstName().trim() : "");
+                user.setLastName(row.getLastName() != null ? row.getLastName().trim() : "");
+                user.setTitle(row.getTitle() != null ? row.getTitle().trim() : null);
+                user.setRole(parseRole(row.getRole()));
+                newUsers.add(user);
+                result.setUsersCreated(result.getUsersCreated() + 1);
+            }
 
-                if (existingUserOpt.isPresent()) {
-                    // Update existing user
-                    user = existingUserOpt.get();
-                    if (row.getFirstName() != null && !row.getFirstName().trim().isEmpty()) {
-                        user.setFirstName(row.getFirstName().trim());
-                    }
-                    if (row.getLastName() != null && !row.getLastName().trim().isEmpty()) {
-                        user.setLastName(row.getLastName().trim());
-                    }
-                    if (row.getTitle() != null && !row.getTitle().trim().isEmpty()) {
-                        user.setTitle(row.getTitle().trim());
-                    }
-                    if (row.getRole() != null && !row.getRole().trim().isEmpty()) {
-                        if ("EPM_ADMIN".equalsIgnoreCase(row.getRole().trim())) {
-                            user.setRole(User.Role.EPM_ADMIN);
-                        } else {
-                            user.setRole(User.Role.USER);
-                        }
+            // Assign manager if specified: an existing user or one earlier in the upload
+            if (!isBlank(row.getManagerEmail())) {
+                String managerEmail = row.getManagerEmail().trim().toLowerCase();
+                User manager = userMap.get(managerEmail);
+                if (manager != null) {
+                    // Managers of existing users are changed below, once a cycle has been ruled out
+                    if (created) {
+                        user.setManager(manager);
                     }
-                    result.setUsersUpdated(result.getUsersUpdated() + 1);
+                    managerAssignments.add(new ManagerAssignment(user, manager, created));
                 } else {
-                    // Create new user
-                    user = new User();
-                    user.setTenant(TenantContext.getCurrentTenant());
-                    user.setEmail(email);
-                    user.setFirstName(row.getFirstName() != null ? row.getFirstName().trim() : "");
-                    user.setLastName(row.getLastName() != null ? row.getLastName().trim() : "");
-                    user.setTitle(row.getTitle() != null ? row.getTitle().trim() : null);
-                    
-                    if (row.getRole() != null && "EPM_ADMIN".equalsIgnoreCase(row.getRole().trim())) {
-                        user.setRole(User.Role.EPM_ADMIN);
-                    } else {
-                        user.setRole(User.Role.USER);
-                    }
-                    
-                    result.setUsersCreated(result.getUsersCreated() + 1);
+                    result.getErrors().add("Manager with email '" + managerEmail + "' not found for user '" + email + "'");
                 }
+            }
 
-                // Assign manager if specified
-                if (row.getManagerEmail() != null && !row.getManagerEmail().trim().isEmpty()) {
-                    String managerEmail = row.getManagerEmail().trim().toLowerCase();
-                    // Check if manager is in the same batch (userMap) or already exists
-                    User manager = userMap.get(managerEmail);
-                    if (manager == null) {
-                        Optional<User> existingManager = userRepository.findByEmailAndTenantId(managerEmail, tenantId);
-                        if (existingManager.isPresent()) {
-                            manager = existingManager.get();
-                        } else {
-                            result.getErrors().add("Manager with email '" + managerEmail + "' not found for user '" + email + "'");
-                        }
-                    }
-                    if (manager != null) {
-                        user.setManager(manager);
-                    }
+            // Assign department if specified
+            if (!isBlank(row.getDepartmentName())) {
+                Department department = departmentMap.get(row.getDepartmentName().trim());
+                if (user.getId() != null && user.getDepartment() != department) {
+                    visibilityUserIds.add(user.getId());
+                }
+                user.setDepartment(department);
+                // If department doesn't have a manager yet, set this user as manager
+                if (department.getManager() == null) {
+                    department.setManager(user);
+                    visibilityDepartmentIds.add(department.getId());
                 }
+            }
+            userMap.put(email, user);
+        }
 
-                // Assign department if specified
-                if (row.getDepartmentName() != null && !row.getDepartmentName().trim().isEmpty()) {
-                    String deptName = row.getDepartmentName().trim();
-                    Department department = departmentMap.get(deptName);
-                    if (department != null) {
-                        user.setDepartment(department);
-                        // If department doesn't have a manager yet, set this user as manager
-                        if (department.getManager() == null) {
-                            department.setManager(user);
-                            departmentRepository.save(department);
-                        }
+        // Inserts and the updates of managed users and departments are flushed together on commit
+        userRepository.saveAll(newUsers);
+
+        // Management paths are updated in row order, now that new users have their ids
+        OrgHierarchyService.ManagerUpdates managerUpdates = orgHierarchyService.managerUpdates();
+        managerUpdates.prefetch(managerAssignments.stream().map(assignment -> assignment.manager().getId()).toList());
+        for (ManagerAssignment assignment : managerAssignments) {
+            User user = assignment.user();
+            User manager = assignment.manager();
+            if (assignment.created()) {
+                managerUpdates.addUser(user.getId(), manager.getId());
+            } else if (user.getManager() == null || !user.getManager().getId().equals(manager.getId())) {
+                if (managerUpdates.moveUser(user.getId(), manager.getId())) {
+                    if (user.getManager() != null) {
+                        visibilityUserIds.add(user.getManager().getId());
                     }
+                    visibilityUserIds.add(manager.getId());
+                    user.setManager(manager);
+                } else {
+                    result.getErrors().add("Manager with email '" + manager.getEmail() + "' of user '" + user.getEmail()
+                            + "' would create a circular management relationship");
                 }
+            }
+        }
 
-                user = userRepository.save(user);
-                userMap.put(email, user);
+        visibilityDepartmentIds.forEach(visibleGoalService::refreshGoalsOfDepartment);
+        visibleGoalService.refreshGoalsOfUsers(visibilityUserIds);
+    }
 
-            } catch (Exception e) {
-                result.getErrors().add("Error processing user '" + row.getEmail() + "': " + e.getMessage());
-                logger.error("Error processing user: " + row.getEmail(), e);
-            }
+    private record ManagerAssignment(User user, User manager, boolean created) {
+    }
+
+    private static User.Role parseRole(String role) {
+        if (role != null && "EPM_ADMIN".equalsIgnoreCase(role.trim())) {
+            return User.Role.EPM_ADMIN;
         }
+        return User.Role.USER;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
 
+    private static BulkUploadDTO.BulkUploadResult newResult() {
+        BulkUploadDTO.BulkUploadResult result = new BulkUploadDTO.BulkUploadResult();
+        result.setErrors(new ArrayList<>());
         return result;
     }
-}
 
+    /**
+     * State kept across the chunks of one upload.
+     */
+    private class ImportState {
+        private final String tenantId;
+        private final Tenant tenant;
+        private BulkUploadDTO.BulkUploadResult result = newResult();
+        // Department names already counted as created or updated
+        private final Set<String> seenDepartments = new HashSet<>();
+
+        ImportState(String tenantId, Tenant tenant) {
+            this.tenantId = tenantId;
+            this.tenant = tenant;
+        }
+
+        /**
+         * Totals after adding the given chunk result, without changing this state.
+         */
+        BulkUploadDTO.BulkUploadResult plus(BulkUploadDTO.BulkUploadResult chunk, int rows) {
+            BulkUploadDTO.BulkUploadResult totals = newResult();
+            totals.setTotalRows(result.getTotalRows() + rows);
+            totals.setUsersCreated(result.getUsersCreated() + chunk.getUsersCreated());
+            totals.setUsersUpdated(result.getUsersUpdated() + chunk.getUsersUpdated());
+            totals.setDepartmentsCreated(result.getDepartmentsCreated() + chunk.getDepartmentsCreated());
+            totals.setDepartmentsUpdated(result.getDepartmentsUpdated() + chunk.getDepartmentsUpdated());
+            totals.getErrors().addAll(result.getErrors());
+            for (String error : chunk.getErrors()) {
+                if (totals.getErrors().size() >= maxErrors) {
+                    break;
+                }
+                totals.getErrors().add(error);
+            }
+            return totals;
+        }
+    }
+
+    /**
+     * Thrown from a progress callback to stop an import. The chunk being written is rolled back.
+     */
+    public static class ImportAbortedException extends RuntimeException {
+        public ImportAbortedException(String message) {
+            super(message);
+        }
+    }
+}
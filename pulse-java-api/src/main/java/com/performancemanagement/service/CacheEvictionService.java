@@ -0,0 +1,201 @@
+package com.performancemanagement.service;
+
+import com.performancemanagement.config.CacheKeys;
+import com.performancemanagement.config.IdentityCache;
+import com.performancemanagement.config.TenantContext;
+import com.performancemanagement.config.TwoTierCache;
+import com.performancemanagement.model.Goal;
+import com.performancemanagement.repository.GoalRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Targeted cache eviction for the tenant-scoped keys built by {@link CacheKeys}.
+ *
+ * Evictions are deferred until the surrounding transaction commits, so a concurrent reader can
+ * not re-populate an entry with data that is about to change. Outside a transaction they run
+ * immediately. When caching is disabled (local profile) only the in-process identity cache is
+ * evicted.
+ */
+@Service
+public class CacheEvictionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheEvictionService.class);
+
+    /**
+     * Caches whose entries embed users, departments or teams. Changes to the organization structure
+     * can also change goal visibility and the members analytics are computed over, so "goals" and
+     * the analytics caches are part of this set.
+     */
+    private static final String[] ORGANIZATION_CACHES = {
+            "users", "user", "teamMembers", "teams", "teamsByDepartment", "team",
+            "department", "rootDepartments", "goals", "departmentAnalytics", "teamAnalytics"
+    };
+
+    /**
+     * Caches of aggregates over the goals and KPIs of a department subtree or a team. An entry
+     * depends on every goal of its members, so they are evicted tenant-wide.
+     */
+    private static final String[] ANALYTICS_CACHES = {"departmentAnalytics", "teamAnalytics"};
+
+    /**
+     * Caches of goal data: the per-viewer goal lists and the analytics.
+     */
+    private static final String[] GOAL_CACHES = {"goals", "departmentAnalytics", "teamAnalytics"};
+
+    @Autowired(required = false)
+    private CacheManager cacheManager;
+
+    @Autowired
+    private IdentityCache identityCache;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    /**
+     * Evict a single entry of the current tenant.
+     */
+    public void evict(String cacheName, Object id) {
+        String tenantId = TenantContext.getCurrentTenantId();
+        if (cacheManager == null || tenantId == null || id == null) {
+            return;
+        }
+        String key = CacheKeys.forTenant(tenantId, id);
+        afterCommit(() -> {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.evict(key);
+            }
+        });
+    }
+
+    /**
+     * Evict every entry of the current tenant from the given caches. Other tenants are untouched.
+     */
+    public void evictTenant(String... cacheNames) {
+        String tenantId = TenantContext.getCurrentTenantId();
+        if (cacheManager == null || tenantId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            for (String cacheName : cacheNames) {
+                Cache cache = cacheManager.getCache(cacheName);
+                if (cache != null) {
+                    evictByPrefix(cache, CacheKeys.tenantPrefix(tenantId));
+                }
+            }
+        });
+    }
+
+    /**
+     * Evict all cached data of the current tenant that depends on users, departments or teams,
+     * including the users cached by {@link IdentityCache} for request authentication.
+     */
+    public void evictOrganization() {
+        String tenantId = TenantContext.getCurrentTenantId();
+        if (tenantId != null) {
+            afterCommit(() -> identityCache.evictUsers(tenantId));
+        }
+        evictTenant(ORGANIZATION_CACHES);
+    }
+
+    /**
+     * Evict the goal analytics of the current tenant, after a goal or KPI write.
+     */
+    public void evictGoalAnalytics() {
+        evictTenant(ANALYTICS_CACHES);
+    }
+
+    /**
+     * Evict the goal lists of every viewer and the goal analytics of the current tenant, after a
+     * bulk goal write: one eviction by prefix instead of resolving the viewers of each goal.
+     */
+    public void evictGoals() {
+        evictTenant(GOAL_CACHES);
+    }
+
+    /**
+     * Evict the per-viewer "goals" entries of the given users in the current tenant.
+     */
+    public void evictGoalViewers(Collection<Long> userIds) {
+        String tenantId = TenantContext.getCurrentTenantId();
+        if (cacheManager == null || tenantId == null || userIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new HashSet<>(userIds);
+        afterCommit(() -> {
+            Cache cache = cacheManager.getCache("goals");
+            if (cache != null) {
+                ids.forEach(userId -> cache.evict(CacheKeys.forViewer(tenantId, userId)));
+            }
+        });
+    }
+
+    /**
+     * Evict the per-viewer "goals" entries of every user who can see the goal or a goal whose
+     * cached representation embeds it.
+     */
+    public void evictGoalViewers(Goal goal) {
+        evictGoalViewers(goalViewerIds(goal));
+    }
+
+    /**
+     * IDs of users whose cached goal list may contain the goal: the owners and assignees of the
+     * goal and their department managers and team leads. Goal DTOs embed their child goals, so
+     * viewers of every ancestor are included, as are viewers of every descendant (which are
+     * removed together with the goal on delete). Resolved with one recursive query.
+     *
+     * Call this before a mutation that changes ownership, assignees or the parent goal, and again
+     * after it, so both the old and the new audience are evicted.
+     */
+    public Set<Long> goalViewerIds(Goal goal) {
+        Set<Long> viewerIds = new HashSet<>();
+        String tenantId = TenantContext.getCurrentTenantId();
+        if (cacheManager == null || tenantId == null || goal == null || goal.getId() == null) {
+            return viewerIds;
+        }
+        // Pending changes to the goal are flushed before the native query runs
+        for (Number viewerId : goalRepository.findGoalViewerIds(goal.getId(), tenantId)) {
+            viewerIds.add(viewerId.longValue());
+        }
+        return viewerIds;
+    }
+
+    private void evictByPrefix(Cache cache, String prefix) {
+        if (cache instanceof TwoTierCache twoTierCache) {
+            twoTierCache.evictByPrefix(prefix);
+        } else if (cache instanceof RedisCache redisCache) {
+            TwoTierCache.evictByPrefix(redisCache, prefix);
+        } else if (cache.getNativeCache() instanceof ConcurrentMap<?, ?> map) {
+            map.keySet().removeIf(key -> key instanceof String s && s.startsWith(prefix));
+        } else {
+            logger.debug("Cache {} does not support prefix eviction, clearing it", cache.getName());
+            cache.clear();
+        }
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.performancemanagement.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental RFC 4180 CSV reader. Records are read one at a time from the underlying reader,
+ * so memory use is bounded by the longest record rather than by the size of the input.
+ *
+ * Supports quoted fields containing commas, line breaks and doubled quotes, CRLF or LF record
+ * separators and a leading UTF-8 byte order mark.
+ */
+public class CsvReader implements Closeable {
+
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final int maxRecordLength;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean started;
+    private long recordNumber;
+
+    /**
+     * @param maxRecordLength upper bound on the characters of a single record, which protects
+     *                        against unterminated quotes swallowing the rest of the input
+     */
+    public CsvReader(Reader reader, int maxRecordLength) {
+        this.reader = reader;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * Read the next record, or return null at the end of the input. An empty line is returned as
+     * a record with a single empty field.
+     */
+    public List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        if (!started) {
+            started = true;
+            if (c == BYTE_ORDER_MARK) {
+                c = read();
+                if (c == -1) {
+                    return null;
+                }
+            }
+        }
+        recordNumber++;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int length = 0;
+        boolean quoted = false;
+
+        while (true) {
+            if (++length > maxRecordLength) {
+                throw new IllegalArgumentException("CSV record " + recordNumber + " exceeds " + maxRecordLength + " characters");
+            }
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("CSV record " + recordNumber + " has an unterminated quoted field");
+                }
+                if (c == QUOTE) {
+                    int next = peek();
+                    if (next == QUOTE) {
+                        read();
+                        field.append(QUOTE);
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == -1 || c == '\n') {
+                break;
+            } else if (c == '\r') {
+                if (peek() == '\n') {
+                    read();
+                }
+                break;
+            } else if (c == SEPARATOR) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == QUOTE && field.isEmpty()) {
+                quoted = true;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Number of records read so far, including the header.
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+}
@@ -9,15 +9,13 @@ import com.performancemanagement.model.User;
 import com.performancemanagement.repository.DepartmentRepository;
 import com.performancemanagement.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,8 +25,20 @@ public class DepartmentService {
     @Autowired
     private DepartmentRepository departmentRepository;
 
+    @Autowired
+    private CacheEvictionService cacheEvictionService;
+
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private OrgHierarchyService orgHierarchyService;
+
+    @Autowired
+    private VisibleGoalService visibleGoalService;
+
+    @Autowired
+    private GoalRollupService goalRollupService;
     
     private String getCurrentTenantId() {
         return TenantContext.getCurrentTenantId(); // Returns null if no tenant context - tenant validation is disabled
@@ -42,9 +52,9 @@ public class DepartmentService {
         return tenantId;
     }
 
-    @CacheEvict(value = {"departments", "department", "rootDepartments"}, allEntries = true)
     public DepartmentDTO createDepartment(DepartmentDTO departmentDTO) {
         String tenantId = requireTenantId(); // Mutations require tenant
+        cacheEvictionService.evictOrganization();
         
         Department department = new Department();
         department.setTenant(TenantContext.getCurrentTenant());
@@ -90,14 +100,19 @@ public class DepartmentService {
         }
 
         Department savedDepartment = departmentRepository.save(department);
+        if (savedDepartment.getParentDepartment() != null) {
+            orgHierarchyService.departmentParentChanged(savedDepartment.getId(), savedDepartment.getParentDepartment().getId());
+        }
         return convertToDTO(savedDepartment);
     }
 
     public DepartmentDTO updateDepartment(Long id, DepartmentDTO departmentDTO) {
         String tenantId = requireTenantId(); // Mutations require tenant
+        cacheEvictionService.evictOrganization();
         
         Department department = departmentRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("Department not found"));
+        Long previousParentId = department.getParentDepartment() != null ? department.getParentDepartment().getId() : null;
 
         department.setName(departmentDTO.getName());
         department.setSmallDescription(departmentDTO.getSmallDescription());
@@ -141,10 +156,14 @@ public class DepartmentService {
         }
 
         Department savedDepartment = departmentRepository.save(department);
+        if (!Objects.equals(previousParentId, departmentDTO.getParentDepartmentId())) {
+            orgHierarchyService.departmentParentChanged(savedDepartment.getId(), departmentDTO.getParentDepartmentId());
+        }
         return convertToDTO(savedDepartment);
     }
 
-    @Cacheable(value = "department", key = "#id")
+    @Cacheable(value = "department", key = "@cacheKeys.tenant(#id)", condition = "@cacheKeys.hasTenant()")
+    @Transactional(readOnly = true)
     public DepartmentDTO getDepartmentById(Long id) {
         String tenantId = getCurrentTenantId();
         if (tenantId == null) {
@@ -155,17 +174,19 @@ public class DepartmentService {
         return convertToDTO(department);
     }
 
+    @Transactional(readOnly = true)
     public List<DepartmentDTO> getAllDepartments() {
         String tenantId = getCurrentTenantId();
         if (tenantId == null) {
             return List.of(); // Tenant validation disabled - return empty list
         }
-        return departmentRepository.findAllByTenantId(tenantId).stream()
+        return departmentRepository.findForDtoByTenantId(tenantId).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
-    @Cacheable(value = "rootDepartments")
+    @Cacheable(value = "rootDepartments", key = "@cacheKeys.tenant()", condition = "@cacheKeys.hasTenant()")
+    @Transactional(readOnly = true)
     public List<DepartmentDTO> getRootDepartments() {
         String tenantId = getCurrentTenantId();
         if (tenantId == null) {
@@ -178,6 +199,7 @@ public class DepartmentService {
 
     public DepartmentDTO assignUserToDepartment(Long departmentId, String userEmail) {
         String tenantId = requireTenantId(); // Mutations require tenant
+        cacheEvictionService.evictOrganization();
         
         Department department = departmentRepository.findByIdAndTenantId(departmentId, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("Department not found"));
@@ -187,18 +209,27 @@ public class DepartmentService {
 
         user.setDepartment(department);
         userRepository.save(user);
+        visibleGoalService.refreshGoalsOfUsers(List.of(user.getId()));
         
         return convertToDTO(department);
     }
 
-    @CacheEvict(value = {"departments", "department", "rootDepartments"}, allEntries = true)
     public void deleteDepartment(Long id) {
         String tenantId = requireTenantId(); // Mutations require tenant
+        cacheEvictionService.evictOrganization();
         Department department = departmentRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("Department not found"));
+        // Members of the department and its sub-departments are deleted with it
+        List<Long> affectedGoalIds = visibleGoalService.goalIdsOfDepartmentSubtree(id);
         departmentRepository.delete(department);
+        // The deleted goals may have had parents owned outside the department
+        goalRollupService.cascadedGoalsDeleted();
+        orgHierarchyService.departmentDeleted(id);
+        visibleGoalService.refreshGoals(affectedGoalIds);
+        visibleGoalService.deleteOrphanedEntries();
     }
 
+    @Transactional(readOnly = true)
     public List<DepartmentDTO> getDepartmentsManagedByMe() {
         User currentUser = UserContext.getCurrentUser();
         if (currentUser == null) {
@@ -213,6 +244,7 @@ public class DepartmentService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<DepartmentDTO> getDepartmentsWhereAssistant() {
         User currentUser = UserContext.getCurrentUser();
         if (currentUser == null) {
@@ -227,6 +259,7 @@ public class DepartmentService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<UserDTO> getDepartmentMembers(Long departmentId) {
         String tenantId = requireTenantId();
         Department department = departmentRepository.findByIdAndTenantId(departmentId, tenantId)
@@ -246,17 +279,14 @@ public class DepartmentService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<UserDTO> getEligibleManagersForDepartment(Long departmentId) {
         String tenantId = requireTenantId();
-        Department department = departmentRepository.findByIdAndTenantId(departmentId, tenantId)
+        departmentRepository.findByIdAndTenantId(departmentId, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("Department not found"));
         
-        // Get all users in the tenant
-        List<User> allUsers = userRepository.findAllByTenantId(tenantId);
-        
-        // Filter to only include users that would not create circular relationships
-        return allUsers.stream()
-                .filter(user -> !hasCircularManagementRelationship(user, department))
+        // Users that would not create circular relationships, filtered in one query
+        return userRepository.findEligibleDepartmentManagers(departmentId, tenantId).stream()
                 .map(user -> {
                     UserDTO dto = new UserDTO();
                     dto.setId(user.getId());
@@ -269,9 +299,9 @@ public class DepartmentService {
                 .collect(Collectors.toList());
     }
 
-    @CacheEvict(value = {"departments", "department", "rootDepartments"}, allEntries = true)
     public DepartmentDTO assignManagerAssistant(Long departmentId, String assistantEmail) {
         String tenantId = requireTenantId();
+        cacheEvictionService.evictOrganization();
         Department department = departmentRepository.findByIdAndTenantId(departmentId, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("Department not found"));
         
@@ -283,9 +313,9 @@ public class DepartmentService {
         return convertToDTO(savedDepartment);
     }
 
-    @CacheEvict(value = {"departments", "department", "rootDepartments"}, allEntries = true)
     public DepartmentDTO setDepartmentManager(Long departmentId, String managerEmail) {
         String tenantId = requireTenantId();
+        cacheEvictionService.evictOrganization();
         Department department = departmentRepository.findByIdAndTenantId(departmentId, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("Department not found"));
         
@@ -303,59 +333,17 @@ public class DepartmentService {
         
         department.setManager(manager);
         Department savedDepartment = departmentRepository.save(department);
+        visibleGoalService.refreshGoalsOfDepartment(savedDepartment.getId());
         return convertToDTO(savedDepartment);
     }
     
-    /**
-     * Recursively collects all users in a department and its sub-departments.
-     */
-    private Set<User> getAllUsersInDepartment(Department department) {
-        Set<User> allUsers = new HashSet<>();
-        
-        // Add direct members of the department
-        if (department.getUsers() != null) {
-            allUsers.addAll(department.getUsers());
-        }
-        
-        // Recursively add users from child departments
-        if (department.getChildDepartments() != null) {
-            for (Department childDepartment : department.getChildDepartments()) {
-                allUsers.addAll(getAllUsersInDepartment(childDepartment));
-            }
-        }
-        
-        return allUsers;
-    }
-    
     /**
      * Checks if setting a user as manager of a department would create a circular management relationship.
      * A circular relationship occurs if any user in the department (including sub-departments) 
-     * manages the potential manager (directly or indirectly).
+     * is managed by the potential manager (directly or indirectly).
      */
     private boolean hasCircularManagementRelationship(User potentialManager, Department department) {
-        Set<User> allDepartmentUsers = getAllUsersInDepartment(department);
-        
-        // For each user in the department, check if they manage the potential manager
-        for (User departmentUser : allDepartmentUsers) {
-            User currentUser = departmentUser;
-            Set<User> visited = new HashSet<>(); // Prevent infinite loops in case of circular manager chains
-            
-            // Traverse manager chain upward
-            while (currentUser != null && currentUser.getManager() != null) {
-                if (visited.contains(currentUser)) {
-                    break; // Circular manager chain detected, but not our concern here
-                }
-                visited.add(currentUser);
-                
-                // Check if this user's manager is the potential manager
-                if (currentUser.getManager().getId().equals(potentialManager.getId())) {
-                    return true; // Circular relationship detected: potentialManager manages departmentUser
-                }
-                currentUser = currentUser.getManager();
-            }
-        }
-        
-        return false; // No circular relationship
+        return orgHierarchyService.managesDepartmentMember(potentialManager.getId(), department.getId());
     }
     
     /**
@@ -364,35 +352,13 @@ public class DepartmentService {
      * if the parent department is a descendant of the department.
      */
     private boolean hasCircularParentRelationship(Department department, Department potentialParent) {
-        // Cannot be its own parent
-        if (department.getId() != null && department.getId().equals(potentialParent.getId())) {
-            return true;
-        }
-        
-        // Check if potential parent is a descendant of the department
-        // Traverse up the parent chain from potentialParent to see if we reach department
-        Department current = potentialParent;
-        Set<Long> visited = new HashSet<>(); // Prevent infinite loops
-        
-        while (current != null && current.getParentDepartment() != null) {
-            if (visited.contains(current.getId())) {
-                break; // Circular parent chain detected
-            }
-            visited.add(current.getId());
-            
-            // Check if this parent is the department we're trying to set as child
-            if (department.getId() != null && current.getParentDepartment().getId().equals(department.getId())) {
-                return true; // Circular relationship: department would be parent of its own ancestor
-            }
-            current = current.getParentDepartment();
-        }
-        
-        return false; // No circular relationship
+        // A new department has no descendants yet
+        return department.getId() != null && orgHierarchyService.isDepartmentInSubtree(department.getId(), potentialParent.getId());
     }
 
-    @CacheEvict(value = {"departments", "department", "rootDepartments"}, allEntries = true)
     public DepartmentDTO moveUserToDepartment(Long userId, Long newDepartmentId) {
         String tenantId = requireTenantId();
+        cacheEvictionService.evictOrganization();
         
         User user = userRepository.findByIdAndTenantId(userId, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
@@ -402,13 +368,14 @@ public class DepartmentService {
         
         user.setDepartment(newDepartment);
         userRepository.save(user);
+        visibleGoalService.refreshGoalsOfUsers(List.of(user.getId()));
         
         return convertToDTO(newDepartment);
     }
 
-    @CacheEvict(value = {"departments", "department", "rootDepartments"}, allEntries = true)
     public DepartmentDTO removeUserFromDepartment(Long userId, Long departmentId) {
         String tenantId = requireTenantId();
+        cacheEvictionService.evictOrganization();
         
         User user = userRepository.findByIdAndTenantId(userId, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
@@ -422,6 +389,7 @@ public class DepartmentService {
         
         user.setDepartment(null);
         userRepository.save(user);
+        visibleGoalService.refreshGoalsOfUsers(List.of(user.getId()));
         
         return convertToDTO(department);
     }
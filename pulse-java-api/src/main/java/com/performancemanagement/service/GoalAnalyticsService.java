@@ -0,0 +1,173 @@
+package com.performancemanagement.service;
+
+import com.performancemanagement.config.TenantContext;
+import com.performancemanagement.config.UserContext;
+import com.performancemanagement.dto.GoalAnalyticsDTO;
+import com.performancemanagement.model.Department;
+import com.performancemanagement.model.Goal;
+import com.performancemanagement.model.Team;
+import com.performancemanagement.model.User;
+import com.performancemanagement.repository.DepartmentRepository;
+import com.performancemanagement.repository.GoalRepository;
+import com.performancemanagement.repository.KPIRepository;
+import com.performancemanagement.repository.TeamRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Goal and KPI statistics of a department subtree or a team, computed with grouped aggregates in
+ * the database. A department or team covers the goals owned by or assigned to its members, and a
+ * department includes the members of its sub-departments.
+ *
+ * Results are cached per tenant, department or team and day, and evicted from the tenant on goal,
+ * KPI and organization writes. Access is checked by the require* methods, which callers run before
+ * reading, since a cached result is returned without entering the method.
+ */
+@Service
+@Transactional(readOnly = true)
+public class GoalAnalyticsService {
+
+    // Inclusive completion percentage bounds of the KPI distribution, in the order of the bucket
+    // counts returned by KPIRepository.COMPLETION_TOTALS
+    private static final int[][] COMPLETION_BUCKETS = {{0, 0}, {1, 24}, {25, 49}, {50, 74}, {75, 99}, {100, 100}};
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private KPIRepository kpiRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private OrgHierarchyService orgHierarchyService;
+
+    @Autowired
+    private AuthorizationService authorizationService;
+
+    /**
+     * Ensure the current user may view the analytics of a department: EPM and HR admins, and the
+     * managers of the department or of a department above it.
+     */
+    public void requireDepartmentAccess(Long departmentId) {
+        Department department = departmentRepository.findByIdAndTenantId(departmentId, requireTenantId())
+                .orElseThrow(() -> new IllegalArgumentException("Department not found"));
+        if (!isAdmin() && !orgHierarchyService.managesDepartmentOrAncestor(requireCurrentUser().getId(), department.getId())) {
+            throw new IllegalStateException("Only managers of the department or of a parent department can view its analytics");
+        }
+    }
+
+    /**
+     * Ensure the current user may view the analytics of a team: EPM and HR admins, the team lead,
+     * and the managers of the team's department or of a department above it.
+     */
+    public void requireTeamAccess(Long teamId) {
+        Team team = teamRepository.findByIdAndTenantId(teamId, requireTenantId())
+                .orElseThrow(() -> new IllegalArgumentException("Team not found"));
+        if (isAdmin()) {
+            return;
+        }
+        User currentUser = requireCurrentUser();
+        boolean isTeamLead = team.getTeamLead() != null && Objects.equals(team.getTeamLead().getId(), currentUser.getId());
+        if (!isTeamLead && !orgHierarchyService.managesDepartmentOrAncestor(currentUser.getId(), team.getDepartment().getId())) {
+            throw new IllegalStateException("Only the team lead and managers of the team's department can view its analytics");
+        }
+    }
+
+    @Cacheable(value = "departmentAnalytics", key = "@cacheKeys.tenant(#departmentId + ':' + #asOf)", condition = "@cacheKeys.hasTenant()")
+    public GoalAnalyticsDTO getDepartmentAnalytics(Long departmentId, LocalDate asOf) {
+        String tenantId = requireTenantId();
+        List<Long> departmentIds = orgHierarchyService.departmentSubtreeIds(departmentId);
+        return toDTO(departmentId, null, asOf,
+                goalRepository.countByStatusForDepartments(departmentIds, tenantId, asOf),
+                goalRepository.countByTerritoryForDepartments(departmentIds, tenantId),
+                kpiRepository.findCompletionTotalsForDepartments(departmentIds, tenantId).get(0));
+    }
+
+    @Cacheable(value = "teamAnalytics", key = "@cacheKeys.tenant(#teamId + ':' + #asOf)", condition = "@cacheKeys.hasTenant()")
+    public GoalAnalyticsDTO getTeamAnalytics(Long teamId, LocalDate asOf) {
+        String tenantId = requireTenantId();
+        return toDTO(null, teamId, asOf,
+                goalRepository.countByStatusForTeam(teamId, tenantId, asOf),
+                goalRepository.countByTerritoryForTeam(teamId, tenantId),
+                kpiRepository.findCompletionTotalsForTeam(teamId, tenantId).get(0));
+    }
+
+    private static GoalAnalyticsDTO toDTO(Long departmentId, Long teamId, LocalDate asOf,
+                                          List<Object[]> statusRows, List<Object[]> territoryRows, Object[] kpiTotals) {
+        GoalAnalyticsDTO dto = new GoalAnalyticsDTO();
+        dto.setDepartmentId(departmentId);
+        dto.setTeamId(teamId);
+        dto.setAsOf(asOf.toString());
+
+        List<GoalAnalyticsDTO.StatusCount> byStatus = new ArrayList<>();
+        for (Object[] row : statusRows) {
+            byStatus.add(new GoalAnalyticsDTO.StatusCount((Goal.GoalStatus) row[0], intValue(row[1]), intValue(row[2])));
+        }
+        byStatus.sort(Comparator.comparing(GoalAnalyticsDTO.StatusCount::getStatus));
+        dto.setGoalsByStatus(byStatus);
+        dto.setGoalCount(byStatus.stream().mapToInt(GoalAnalyticsDTO.StatusCount::getCount).sum());
+        dto.setOverdueGoalCount(byStatus.stream().mapToInt(GoalAnalyticsDTO.StatusCount::getOverdueCount).sum());
+
+        List<GoalAnalyticsDTO.TerritoryCount> byTerritory = new ArrayList<>();
+        for (Object[] row : territoryRows) {
+            byTerritory.add(new GoalAnalyticsDTO.TerritoryCount((Long) row[0], (String) row[1], intValue(row[2])));
+        }
+        // Goals without a territory last
+        byTerritory.sort(Comparator.comparing(GoalAnalyticsDTO.TerritoryCount::getTerritoryId,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        dto.setGoalsByTerritory(byTerritory);
+
+        int kpiCount = intValue(kpiTotals[0]);
+        dto.setKpiCount(kpiCount);
+        dto.setAchievedKpiCount(intValue(kpiTotals[1]));
+        dto.setAverageKpiCompletion(GoalRollupService.completionPercentage(longValue(kpiTotals[2]), kpiCount));
+        List<GoalAnalyticsDTO.CompletionBucket> distribution = new ArrayList<>();
+        for (int i = 0; i < COMPLETION_BUCKETS.length; i++) {
+            distribution.add(new GoalAnalyticsDTO.CompletionBucket(COMPLETION_BUCKETS[i][0], COMPLETION_BUCKETS[i][1], intValue(kpiTotals[3 + i])));
+        }
+        dto.setKpiCompletionDistribution(distribution);
+        return dto;
+    }
+
+    // Aggregates are null over no rows, and their numeric type depends on the database
+    private static int intValue(Object value) {
+        return value != null ? ((Number) value).intValue() : 0;
+    }
+
+    private static long longValue(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    private boolean isAdmin() {
+        return authorizationService.isEpmAdmin() || authorizationService.isHrAdmin();
+    }
+
+    private static User requireCurrentUser() {
+        User currentUser = UserContext.getCurrentUser();
+        if (currentUser == null) {
+            throw new IllegalStateException("User not authenticated");
+        }
+        return currentUser;
+    }
+
+    private static String requireTenantId() {
+        String tenantId = TenantContext.getCurrentTenantId();
+        if (tenantId == null) {
+            throw new IllegalStateException("Tenant context required for this operation");
+        }
+        return tenantId;
+    }
+}
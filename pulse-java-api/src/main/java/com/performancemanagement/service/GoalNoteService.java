@@ -12,7 +12,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Service
@@ -161,4 +165,31 @@ public class GoalNoteService {
 
         return goalNoteRepository.findByGoalIdAndTenantId(goalId, tenantId);
     }
+
+    /**
+     * Get notes for several goals at once, with the same authorization filtering as
+     * {@link #getNotesByGoalId(Long)}. Goals the user cannot view map to an empty list.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, List<GoalNote>> getNotesByGoalIds(Collection<Long> goalIds) {
+        Map<Long, List<GoalNote>> notesByGoal = new HashMap<>();
+        goalIds.forEach(goalId -> notesByGoal.put(goalId, new ArrayList<>()));
+
+        String tenantId = getCurrentTenantId();
+        User currentUser = UserContext.getCurrentUser();
+        if (tenantId == null || currentUser == null || goalIds.isEmpty()) {
+            return notesByGoal;
+        }
+
+        Collection<Long> viewableGoalIds = authorizationService.isHrAdmin()
+                ? goalIds
+                : goalRepository.findOwnedOrAssignedGoalIdsIn(goalIds, tenantId, currentUser.getId());
+        if (viewableGoalIds.isEmpty()) {
+            return notesByGoal;
+        }
+
+        goalNoteRepository.findByGoalIdInAndTenantId(viewableGoalIds, tenantId)
+                .forEach(note -> notesByGoal.get(note.getGoal().getId()).add(note));
+        return notesByGoal;
+    }
 }
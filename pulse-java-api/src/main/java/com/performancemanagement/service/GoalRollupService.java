@@ -0,0 +1,315 @@
+package com.performancemanagement.service;
+
+import com.performancemanagement.dto.GoalRollupCheckDTO;
+import com.performancemanagement.model.Goal;
+import com.performancemanagement.model.KPI;
+import com.performancemanagement.model.Tenant;
+import com.performancemanagement.repository.GoalRepository;
+import com.performancemanagement.repository.KPIRepository;
+import com.performancemanagement.repository.TenantRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Maintains the KPI progress aggregates stored on {@link Goal}: the KPI count, achieved KPI count
+ * and completion percentage sum of each goal, and the same totals over the subtree rooted at it.
+ *
+ * Call the kpi* and goal* methods when a KPI is created, updated or deleted and when a goal is
+ * moved or deleted, in the same transaction. Each change is added to the goal and its ancestors
+ * with two statements, whatever the size of the goal's subtree, and reading a rollup is reading
+ * a goal. The goals already loaded into the persistence context are updated in memory as well.
+ *
+ * {@link #check} compares the aggregates with the KPIs and {@link #rebuild} corrects those that
+ * differ (GET /admin/goal-rollups/check and POST /admin/goal-rollups/rebuild). With
+ * goals.rollup.check-on-startup every tenant is rebuilt on startup.
+ */
+@Service
+@Transactional
+public class GoalRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GoalRollupService.class);
+
+    private static final int REBUILD_ATTEMPTS = 10;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private KPIRepository kpiRepository;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${goals.rollup.check-on-startup:false}")
+    private boolean checkOnStartup;
+
+    /**
+     * Completion percentage for a completion sum over a number of KPIs, or null without KPIs.
+     */
+    public static Double completionPercentage(long completionSum, int kpiCount) {
+        return kpiCount == 0 ? null : (double) completionSum / kpiCount;
+    }
+
+    /**
+     * The contribution of a single KPI. Capture it before updating a KPI and pass it to
+     * {@link #kpiUpdated}.
+     */
+    public static Progress progressOf(KPI kpi) {
+        return new Progress(1, kpi.getStatus() == KPI.KPIStatus.ACHIEVED ? 1 : 0, kpi.getCompletionPercentage());
+    }
+
+    public void kpiAdded(KPI kpi) {
+        kpisAdded(kpi.getGoal(), List.of(kpi));
+    }
+
+    public void kpisAdded(Goal goal, Collection<KPI> kpis) {
+        apply(goal, kpis.stream().map(GoalRollupService::progressOf).reduce(Progress.NONE, Progress::plus));
+    }
+
+    public void kpiUpdated(KPI kpi, Progress before) {
+        apply(kpi.getGoal(), progressOf(kpi).minus(before));
+    }
+
+    public void kpiRemoved(KPI kpi) {
+        apply(kpi.getGoal(), Progress.NONE.minus(progressOf(kpi)));
+    }
+
+    /**
+     * Move the subtree totals of a goal from its previous parent's ancestors to its new parent's.
+     * Call after setting the new parent.
+     */
+    public void goalMoved(Goal goal, Long previousParentId) {
+        Long parentId = goal.getParentGoal() != null ? goal.getParentGoal().getId() : null;
+        if (Objects.equals(previousParentId, parentId)) {
+            return;
+        }
+        Progress subtree = subtreeProgress(goal);
+        if (previousParentId != null) {
+            addToSubtrees(entityManager.getReference(Goal.class, previousParentId), Progress.NONE.minus(subtree));
+        }
+        if (parentId != null) {
+            addToSubtrees(goal.getParentGoal(), subtree);
+        }
+    }
+
+    /**
+     * Remove the subtree totals of a goal from its ancestors. Call before deleting the goal; its
+     * descendants are deleted with it.
+     */
+    public void goalDeleted(Goal goal) {
+        if (goal.getParentGoal() != null) {
+            addToSubtrees(goal.getParentGoal(), Progress.NONE.minus(subtreeProgress(goal)));
+        }
+    }
+
+    /**
+     * Remove the subtree totals of the goals deleted by a cascade, from a deleted user or department,
+     * from the ancestors that remain. Call right after the delete, before the session is flushed:
+     * the deleted goals are found in the persistence context.
+     */
+    public void cascadedGoalsDeleted() {
+        List<Goal> deleted = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry : entityManager.unwrap(SessionImplementor.class)
+                .getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Goal goal && entry.getValue().getStatus() == Status.DELETED) {
+                deleted.add(goal);
+            }
+        }
+        Set<Long> deletedIds = new HashSet<>();
+        deleted.forEach(goal -> deletedIds.add(goal.getId()));
+        // Descendants of a deleted goal are deleted with it and are part of its subtree totals
+        for (Goal goal : deleted) {
+            if (goal.getParentGoal() != null && !deletedIds.contains(goal.getParentGoal().getId())) {
+                goalDeleted(goal);
+            }
+        }
+    }
+
+    /**
+     * Compare the aggregates of a tenant with its KPIs.
+     */
+    @Transactional(readOnly = true)
+    public GoalRollupCheckDTO check(String tenantId) {
+        Map<Long, Progress> own = new HashMap<>();
+        for (Object[] row : kpiRepository.findProgressTotalsByTenantId(tenantId)) {
+            own.put((Long) row[0], new Progress(((Number) row[1]).intValue(), ((Number) row[2]).intValue(), ((Number) row[3]).longValue()));
+        }
+
+        List<Object[]> rows = goalRepository.findRollupRowsByTenantId(tenantId);
+        Map<Long, Long> parents = new HashMap<>();
+        for (Object[] row : rows) {
+            parents.put((Long) row[0], (Long) row[1]);
+        }
+        // Add each goal's own totals to itself and its ancestors; a parent chain that runs into a
+        // cycle stops at the first repeated goal
+        Map<Long, Progress> subtree = new HashMap<>();
+        own.forEach((goalId, progress) -> {
+            Set<Long> visited = new HashSet<>();
+            for (Long id = goalId; id != null && parents.containsKey(id) && visited.add(id); id = parents.get(id)) {
+                subtree.merge(id, progress, Progress::plus);
+            }
+        });
+
+        int stale = 0;
+        for (Object[] row : rows) {
+            Long goalId = (Long) row[0];
+            Progress storedOwn = new Progress((Integer) row[2], (Integer) row[3], (Long) row[4]);
+            Progress storedSubtree = new Progress((Integer) row[5], (Integer) row[6], (Long) row[7]);
+            if (!storedOwn.equals(own.getOrDefault(goalId, Progress.NONE))
+                    || !storedSubtree.equals(subtree.getOrDefault(goalId, Progress.NONE))) {
+                stale++;
+            }
+        }
+        return new GoalRollupCheckDTO(tenantId, rows.size(), stale, stale == 0);
+    }
+
+    /**
+     * Recompute the aggregates of a tenant from its KPIs and correct the goals where they differ.
+     * The tenant's goals are locked first, so KPI changes made meanwhile wait and are added to
+     * the recomputed values instead of being overwritten; the recomputation is a single statement.
+     * Goals already loaded into the persistence context are not updated.
+     *
+     * Fails with a {@link TransientDataAccessException} when a KPI change holds one of the goals;
+     * see {@link #rebuildWithRetries}.
+     *
+     * @return the number of goals corrected
+     */
+    public int rebuild(String tenantId) {
+        entityManager.flush();
+        goalRepository.lockIdsByTenantId(tenantId);
+        int corrected = goalRepository.recomputeKpiRollups(tenantId);
+        if (corrected > 0) {
+            logger.info("Corrected KPI rollups of {} goals for tenant {}", corrected, tenantId);
+        }
+        return corrected;
+    }
+
+    /**
+     * {@link #rebuild} in a transaction of its own, retried while KPI changes hold the tenant's goals.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int rebuildWithRetries(String tenantId) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> rebuild(tenantId));
+            } catch (TransientDataAccessException e) {
+                if (attempt >= REBUILD_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("Retrying KPI rollup rebuild for tenant {} after {}", tenantId, e.getMessage());
+                entityManager.clear();
+                try {
+                    Thread.sleep(attempt * 100L);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Check every tenant once the application has started and correct the goals that differ,
+     * when goals.rollup.check-on-startup is set.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(2)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void checkOnStartup() {
+        if (!checkOnStartup) {
+            return;
+        }
+        for (Tenant tenant : tenantRepository.findAll()) {
+            rebuildWithRetries(tenant.getFqdn());
+        }
+    }
+
+    private void apply(Goal goal, Progress delta) {
+        if (delta.equals(Progress.NONE)) {
+            return;
+        }
+        goalRepository.addKpiProgress(goal.getId(), delta.kpis(), delta.achieved(), delta.completionSum());
+        setOwn(goal, ownProgress(goal).plus(delta));
+        addToSubtrees(goal, delta);
+    }
+
+    /**
+     * Add to the subtree totals of a goal and its ancestors, in the database and on the loaded
+     * goals of the chain.
+     */
+    private void addToSubtrees(Goal goal, Progress delta) {
+        goalRepository.addSubtreeKpiProgress(goal.getId(), delta.kpis(), delta.achieved(), delta.completionSum());
+        Set<Long> visited = new HashSet<>();
+        for (Goal g = goal; g != null && Hibernate.isInitialized(g) && visited.add(g.getId()); g = g.getParentGoal()) {
+            setSubtree(g, subtreeProgress(g).plus(delta));
+        }
+    }
+
+    private static Progress ownProgress(Goal goal) {
+        return new Progress(goal.getKpiCount(), goal.getAchievedKpiCount(), goal.getKpiCompletionSum());
+    }
+
+    private static Progress subtreeProgress(Goal goal) {
+        return new Progress(goal.getSubtreeKpiCount(), goal.getSubtreeAchievedKpiCount(), goal.getSubtreeKpiCompletionSum());
+    }
+
+    private static void setOwn(Goal goal, Progress progress) {
+        goal.setKpiCount(progress.kpis());
+        goal.setAchievedKpiCount(progress.achieved());
+        goal.setKpiCompletionSum(progress.completionSum());
+    }
+
+    private static void setSubtree(Goal goal, Progress progress) {
+        goal.setSubtreeKpiCount(progress.kpis());
+        goal.setSubtreeAchievedKpiCount(progress.achieved());
+        goal.setSubtreeKpiCompletionSum(progress.completionSum());
+    }
+
+    /**
+     * KPI count, achieved KPI count and completion percentage sum, or a change of them.
+     */
+    public record Progress(int kpis, int achieved, long completionSum) {
+        static final Progress NONE = new Progress(0, 0, 0);
+
+        Progress plus(Progress other) {
+            return new Progress(kpis + other.kpis, achieved + other.achieved, completionSum + other.completionSum);
+        }
+
+        Progress minus(Progress other) {
+            return new Progress(kpis - other.kpis, achieved - other.achieved, completionSum - other.completionSum);
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.performancemanagement.service;
 
 import com.performancemanagement.config.TenantContext;
 import com.performancemanagement.config.UserContext;
+import com.performancemanagement.dto.ConnectionDTO;
 import com.performancemanagement.dto.GoalDTO;
+import com.performancemanagement.dto.GoalFilterDTO;
 import com.performancemanagement.dto.KPIDTO;
 import com.performancemanagement.model.Department;
 import com.performancemanagement.model.Goal;
@@ -15,21 +17,57 @@ import com.performancemanagement.repository.GoalRepository;
 import com.performancemanagement.repository.TerritoryRepository;
 import com.performancemanagement.repository.UserRepository;
 import com.performancemanagement.repository.KPIRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class GoalService {
 
+    // Root goals per recursive subtree query, well below the bind parameter limits
+    private static final int TREE_CHUNK_SIZE = 500;
+
+    // Emails or goal IDs per query of the bulk mutations, well below the bind parameter limits
+    private static final int BULK_CHUNK_SIZE = 500;
+
+    // Emails or goal IDs listed in the error message of a rejected bulk mutation
+    private static final int BULK_ERROR_SAMPLE_SIZE = 20;
+
+    private static final Set<Goal.GoalStatus> PUBLISHED_OR_APPROVED = EnumSet.of(Goal.GoalStatus.PUBLISHED, Goal.GoalStatus.APPROVED);
+    private static final Set<Goal.GoalStatus> RESTRICTED_AFTER_PUBLISHING =
+            EnumSet.of(Goal.GoalStatus.DRAFT, Goal.GoalStatus.ARCHIVED, Goal.GoalStatus.RETIRED);
+
+    private static final String ASSIGNMENT_RULES = "Goals can only be assigned to: " +
+            "1. The goal owner, " +
+            "2. Members of the goal owner's department, or " +
+            "3. Members of a team where the goal owner is the team lead. ";
+
+    @Value("${goals.tree.max-depth:50}")
+    private int treeMaxDepth;
+
+    @Value("${goals.bulk.max-size:1000}")
+    private int bulkMaxSize;
+
     @Autowired
     private GoalRepository goalRepository;
 
@@ -47,6 +85,24 @@ public class GoalService {
 
     @Autowired
     private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private GoalVisibilityService goalVisibilityService;
+
+    @Autowired
+    private CacheEvictionService cacheEvictionService;
+
+    @Autowired
+    private VisibleGoalService visibleGoalService;
+
+    @Autowired
+    private GoalRollupService goalRollupService;
+
+    @Autowired
+    private BatchWriteService batchWriteService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
     
     private String getCurrentTenantId() {
         return TenantContext.getCurrentTenantId(); // Returns null if no tenant context - tenant validation is disabled
@@ -140,7 +196,6 @@ public class GoalService {
         return false;
     }
 
-    @CacheEvict(value = {"goals", "goal", "goalsByOwner"}, allEntries = true)
     public GoalDTO createGoal(GoalDTO goalDTO) {
         String tenantId = requireTenantId(); // Mutations require tenant
         
@@ -179,6 +234,7 @@ public class GoalService {
         
         // Create KPIs if provided
         if (goalDTO.getKpis() != null && !goalDTO.getKpis().isEmpty()) {
+            List<KPI> kpis = new ArrayList<>();
             for (KPIDTO kpiDTO : goalDTO.getKpis()) {
                 KPI kpi = new KPI();
                 kpi.setTenant(savedGoal.getTenant());
@@ -190,14 +246,18 @@ public class GoalService {
                 if (kpi.getCompletionPercentage() == 100) {
                     kpi.setStatus(KPI.KPIStatus.ACHIEVED);
                 }
-                kpiRepository.save(kpi);
+                kpis.add(kpi);
             }
+            kpiRepository.saveAll(kpis);
+            goalRollupService.kpisAdded(savedGoal, kpis);
         }
         
+        visibleGoalService.refreshGoals(List.of(savedGoal.getId()));
+        cacheEvictionService.evictGoalViewers(savedGoal);
+        cacheEvictionService.evictGoalAnalytics();
         return convertToDTO(savedGoal);
     }
 
-    @CacheEvict(value = {"goals", "goal", "goalsByOwner"}, allEntries = true)
     public GoalDTO updateGoal(Long id, GoalDTO goalDTO) {
         String tenantId = requireTenantId(); // Mutations require tenant
         
@@ -208,6 +268,9 @@ public class GoalService {
             throw new IllegalStateException("Cannot update a locked goal. Only the owner can unlock it.");
         }
 
+        // The parent goal may change, so evict viewers of the old and the new goal tree
+        Set<Long> affectedViewers = cacheEvictionService.goalViewerIds(goal);
+
         // Business rule: A goal in PUBLISHED or APPROVED state cannot be moved to DRAFT, ARCHIVED, or RETIRED
         // if it has child goals which are in PUBLISHED or APPROVED state
         if (goalDTO.getStatus() != null && goalDTO.getStatus() != goal.getStatus()) {
@@ -262,25 +325,37 @@ public class GoalService {
             goal.setConfidential(goalDTO.getConfidential());
         }
 
+        Long previousParentId = goal.getParentGoal() != null ? goal.getParentGoal().getId() : null;
         if (goalDTO.getParentGoalId() != null) {
             Goal parent = goalRepository.findByIdAndTenantId(goalDTO.getParentGoalId(), tenantId)
                     .orElseThrow(() -> new IllegalArgumentException("Parent goal not found"));
+            // A goal cannot be its own parent or ancestor; the KPI rollups and the cascading
+            // delete of child goals rely on the goals forming trees
+            if (isSelfOrAncestor(goal, parent)) {
+                throw new IllegalStateException("Cannot set parent goal. A goal cannot be its own parent or ancestor.");
+            }
             goal.setParentGoal(parent);
         } else {
             goal.setParentGoal(null);
         }
 
         Goal savedGoal = goalRepository.save(goal);
+        goalRollupService.goalMoved(savedGoal, previousParentId);
+        affectedViewers.addAll(cacheEvictionService.goalViewerIds(savedGoal));
+        cacheEvictionService.evictGoalViewers(affectedViewers);
+        cacheEvictionService.evictGoalAnalytics();
         return convertToDTO(savedGoal);
     }
 
+    @Transactional(readOnly = true)
     public GoalDTO getGoalById(Long id) {
         String tenantId = getCurrentTenantId();
         if (tenantId == null) {
             return null; // Tenant validation disabled
         }
         
-        Goal goal = goalRepository.findByIdAndTenantId(id, tenantId)
+        // Loads what the authorization check and the DTO conversion read in one query
+        Goal goal = goalRepository.findForDetailByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("Goal not found"));
         
         // Get current logged-in user
@@ -289,34 +364,6 @@ public class GoalService {
             throw new IllegalStateException("You do not have permission to view this goal");
         }
         
-        // Ensure lazy-loaded relationships are accessible within transaction
-        if (goal.getOwner() != null) {
-            goal.getOwner().getId();
-            if (goal.getOwner().getDepartment() != null) {
-                goal.getOwner().getDepartment().getId();
-            }
-            if (goal.getOwner().getTeam() != null) {
-                goal.getOwner().getTeam().getId();
-            }
-        }
-        if (goal.getAssignedUsers() != null) {
-            goal.getAssignedUsers().forEach(user -> {
-                user.getId();
-                if (user.getDepartment() != null) {
-                    user.getDepartment().getId();
-                }
-                if (user.getTeam() != null) {
-                    user.getTeam().getId();
-                }
-            });
-        }
-        if (currentUser.getDepartment() != null) {
-            currentUser.getDepartment().getId();
-        }
-        if (currentUser.getTeam() != null) {
-            currentUser.getTeam().getId();
-        }
-        
         // Check authorization
         if (!canUserViewGoal(currentUser, goal)) {
             throw new IllegalStateException("You do not have permission to view this goal");
@@ -325,7 +372,8 @@ public class GoalService {
         return convertToDTO(goal);
     }
 
-    @Cacheable(value = "goals")
+    @Cacheable(value = "goals", key = "@cacheKeys.viewer()", condition = "@cacheKeys.hasViewer()")
+    @Transactional(readOnly = true)
     public List<GoalDTO> getAllGoals() {
         String tenantId = getCurrentTenantId();
         if (tenantId == null) {
@@ -339,67 +387,28 @@ public class GoalService {
             return List.of();
         }
         
-        // Fetch all goals for the tenant
-        List<Goal> allGoals = goalRepository.findAllByTenantId(tenantId);
-        
-        // Ensure lazy-loaded relationships are accessible within transaction
-        // Access relationships to trigger lazy loading
-        allGoals.forEach(goal -> {
-            if (goal.getOwner() != null) {
-                goal.getOwner().getId(); // Access to trigger loading
-                if (goal.getOwner().getDepartment() != null) {
-                    goal.getOwner().getDepartment().getId();
-                }
-                if (goal.getOwner().getTeam() != null) {
-                    goal.getOwner().getTeam().getId();
-                }
-            }
-            if (goal.getAssignedUsers() != null) {
-                goal.getAssignedUsers().forEach(user -> {
-                    user.getId();
-                    if (user.getDepartment() != null) {
-                        user.getDepartment().getId();
-                    }
-                    if (user.getTeam() != null) {
-                        user.getTeam().getId();
-                    }
-                });
-            }
-        });
+        // Resolve visible goals in the database; confidential goals only through ownership or assignment
+        Set<Long> visibleIds = goalVisibilityService.findVisibleGoalIds(currentUser, tenantId, false);
+        return convertToDTOs(goalVisibilityService.loadGoalsForConversion(visibleIds, tenantId));
+    }
+    
+    @Transactional(readOnly = true)
+    public ConnectionDTO<GoalDTO> getGoalsPage(GoalFilterDTO filter, Integer first, String after) {
+        String tenantId = getCurrentTenantId();
+        User currentUser = UserContext.getCurrentUser();
         
-        // Ensure current user's relationships are accessible
-        if (currentUser.getDepartment() != null) {
-            currentUser.getDepartment().getId();
-        }
-        if (currentUser.getTeam() != null) {
-            currentUser.getTeam().getId();
-        }
+        // Same visibility as getAllGoals, but only one keyset page is loaded and converted
+        ConnectionDTO<Goal> page = goalVisibilityService.findVisibleGoalsPage(currentUser, tenantId, false, filter, first, after);
         
-        // Filter goals based on RBAC rules using canUserViewGoal
-        return allGoals.stream()
-                .filter(goal -> {
-                    // First check if user can view the goal based on RBAC rules
-                    if (!canUserViewGoal(currentUser, goal)) {
-                        return false;
-                    }
-                    
-                    // Then apply confidential goal filtering: only show if user is owner or assigned
-                    if (goal.getConfidential() != null && goal.getConfidential()) {
-                        boolean isOwner = goal.getOwner() != null && 
-                                         Objects.equals(goal.getOwner().getId(), currentUser.getId());
-                        boolean isAssigned = goal.getAssignedUsers() != null && 
-                                           goal.getAssignedUsers().stream()
-                                                   .anyMatch(user -> Objects.equals(user.getId(), currentUser.getId()));
-                        return isOwner || isAssigned;
-                    }
-                    
-                    // Non-confidential goal that passed RBAC check
-                    return true;
-                })
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        // The page query cannot fetch collections (the limit would be applied in memory), so the
+        // conversion graph is loaded for the goals of the page afterwards
+        List<Long> pageIds = page.getEdges().stream().map(edge -> edge.getNode().getId()).toList();
+        Map<Long, GoalDTO> converted = convertToDTOs(goalVisibilityService.loadGoalsForConversion(pageIds, tenantId)).stream()
+                .collect(Collectors.toMap(GoalDTO::getId, Function.identity()));
+        return page.map(goal -> converted.get(goal.getId()));
     }
     
+    @Transactional(readOnly = true)
     public List<GoalDTO> getAllGoalsForHR() {
         String tenantId = getCurrentTenantId();
         if (tenantId == null) {
@@ -413,12 +422,14 @@ public class GoalService {
         }
         
         // Get all goals for the tenant
-        List<Goal> allGoals = goalRepository.findAllByTenantId(tenantId);
+        List<Goal> allGoals = goalRepository.findForDtoByTenantId(tenantId);
         
         // For HR admins, return all goals but mask confidential details for goals they can't access
+        Map<Long, GoalDTO> converted = convertToDTOs(allGoals).stream()
+                .collect(Collectors.toMap(GoalDTO::getId, Function.identity()));
         return allGoals.stream()
                 .map(goal -> {
-                    GoalDTO dto = convertToDTO(goal);
+                    GoalDTO dto = converted.get(goal.getId());
                     
                     // If goal is confidential and user is not owner or assigned, mask the details
                     if (goal.getConfidential() != null && goal.getConfidential()) {
@@ -427,6 +438,10 @@ public class GoalService {
                                 .anyMatch(user -> user.getId().equals(currentUser.getId()));
                         
                         if (!isOwner && !isAssigned) {
+                            // Mask a copy: the converted DTO is shared with the child list of the parent goal
+                            GoalDTO masked = convertNode(goal);
+                            masked.setChildGoals(dto.getChildGoals());
+                            dto = masked;
                             // Mask confidential details
                             dto.setShortDescription("Confidential Goal");
                             dto.setLongDescription("This goal is confidential and you do not have access to view its details.");
@@ -438,6 +453,7 @@ public class GoalService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<GoalDTO> getGoalsByOwner(String email) {
         String tenantId = getCurrentTenantId();
         if (tenantId == null) {
@@ -450,46 +466,8 @@ public class GoalService {
             return List.of(); // No user logged in, return empty list
         }
         
-        // Fetch goals by owner
-        List<Goal> goals = goalRepository.findByOwnerEmailAndTenantId(email, tenantId);
-        
-        // Ensure lazy-loaded relationships are accessible within transaction
-        goals.forEach(goal -> {
-            if (goal.getOwner() != null) {
-                goal.getOwner().getId();
-                if (goal.getOwner().getDepartment() != null) {
-                    goal.getOwner().getDepartment().getId();
-                }
-                if (goal.getOwner().getTeam() != null) {
-                    goal.getOwner().getTeam().getId();
-                }
-            }
-            if (goal.getAssignedUsers() != null) {
-                goal.getAssignedUsers().forEach(user -> {
-                    user.getId();
-                    if (user.getDepartment() != null) {
-                        user.getDepartment().getId();
-                    }
-                    if (user.getTeam() != null) {
-                        user.getTeam().getId();
-                    }
-                });
-            }
-        });
-        
-        // Ensure current user's relationships are accessible
-        if (currentUser.getDepartment() != null) {
-            currentUser.getDepartment().getId();
-        }
-        if (currentUser.getTeam() != null) {
-            currentUser.getTeam().getId();
-        }
-        
-        // Filter goals based on RBAC rules - only return goals the user can view
-        return goals.stream()
-                .filter(goal -> canUserViewGoal(currentUser, goal))
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        // Only the owner's goals the RBAC rules allow, filtered in the database
+        return convertToDTOs(goalRepository.findVisibleForDtoByOwnerEmailAndTenantId(email, tenantId, currentUser.getId()));
     }
 
     public GoalDTO assignGoalToUser(Long goalId, String userEmail) {
@@ -512,65 +490,14 @@ public class GoalService {
         // 2. A member of the goal owner's department
         // 3. A member of a team where the goal owner is the team lead
         User goalOwner = goal.getOwner();
-        boolean isOwner = Objects.equals(user.getId(), goalOwner.getId());
-        boolean isInOwnerDepartment = false;
-        boolean isTeamMemberOfOwner = false;
-        
-        if (!isOwner && goalOwner.getDepartment() != null) {
-            Department ownerDepartment = goalOwner.getDepartment();
-            if (user.getDepartment() != null) {
-                isInOwnerDepartment = Objects.equals(user.getDepartment().getId(), ownerDepartment.getId());
-            }
-        }
-        
-        // Check if goal owner is team lead of user's team
-        if (!isOwner && user.getTeam() != null && user.getTeam().getTeamLead() != null) {
-            isTeamMemberOfOwner = Objects.equals(user.getTeam().getTeamLead().getId(), goalOwner.getId());
-        }
-        
-        if (!isOwner && !isInOwnerDepartment && !isTeamMemberOfOwner) {
-            throw new IllegalStateException(
-                "Goals can only be assigned to: " +
-                "1. The goal owner, " +
-                "2. Members of the goal owner's department, or " +
-                "3. Members of a team where the goal owner is the team lead. " +
-                "The user you are trying to assign does not meet any of these criteria."
-            );
+        AssigneeRelations relations = AssigneeRelations.of(user);
+        if (!relations.assignableBy(goalOwner)) {
+            throw new IllegalStateException(ASSIGNMENT_RULES +
+                "The user you are trying to assign does not meet any of these criteria.");
         }
 
-        // Check if approval is needed
-        // Approval is NOT needed if:
-        // 1. Goal owner is the user being assigned (self-assignment)
-        // 2. Goal owner is department manager or assistant
-        // 3. Goal owner is team lead of user's team
-        boolean needsApproval = true;
-        
-        if (isOwner) {
-            // Self-assignment doesn't need approval
-            needsApproval = false;
-        } else {
-            // Check if goal owner is department manager or assistant
-            Department userDepartment = user.getDepartment();
-            if (userDepartment != null) {
-                User departmentManager = userDepartment.getManager();
-                User managerAssistant = userDepartment.getManagerAssistant();
-                
-                boolean isManagerOrAssistant = (departmentManager != null && Objects.equals(departmentManager.getId(), goalOwner.getId())) ||
-                                              (managerAssistant != null && Objects.equals(managerAssistant.getId(), goalOwner.getId()));
-                
-                if (isManagerOrAssistant) {
-                    needsApproval = false;
-                }
-            }
-            
-            // Check if goal owner is team lead
-            if (needsApproval && isTeamMemberOfOwner) {
-                needsApproval = false;
-            }
-        }
-        
         // If approval is needed, set status to PENDING_APPROVAL
-        if (needsApproval) {
+        if (relations.needsApprovalFrom(goalOwner)) {
             goal.setStatus(Goal.GoalStatus.PENDING_APPROVAL);
         }
 
@@ -579,6 +506,9 @@ public class GoalService {
         
         goal.getAssignedUsers().add(user);
         Goal savedGoal = goalRepository.save(goal);
+        visibleGoalService.refreshGoals(List.of(savedGoal.getId()));
+        cacheEvictionService.evictGoalViewers(savedGoal);
+        cacheEvictionService.evictGoalAnalytics();
         return convertToDTO(savedGoal);
     }
 
@@ -595,11 +525,145 @@ public class GoalService {
         User user = userRepository.findByEmailAndTenantId(userEmail, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
+        // Evict before removing so the unassigned user and their managers are included
+        cacheEvictionService.evictGoalViewers(goal);
+        cacheEvictionService.evictGoalAnalytics();
         goal.getAssignedUsers().remove(user);
         Goal savedGoal = goalRepository.save(goal);
+        visibleGoalService.refreshGoals(List.of(savedGoal.getId()));
         return convertToDTO(savedGoal);
     }
 
+    /**
+     * Assign a goal to many users with the rules of {@link #assignGoalToUser}. The relations of the
+     * users are read with one query per chunk of emails and the assignments are inserted in JDBC
+     * batches. Nothing is assigned if a user is unknown or may not be assigned; users already
+     * assigned stay assigned. The goal goes to PENDING_APPROVAL if any assignment needs approval.
+     *
+     * @return the goal entity, reloaded after the insert, so the caller reads only the fields it needs
+     */
+    public Goal assignGoalToUsers(Long goalId, Collection<String> userEmails) {
+        String tenantId = requireTenantId(); // Mutations require tenant
+        List<String> emails = new ArrayList<>(new LinkedHashSet<>(userEmails));
+        requireBulkSize(emails.size());
+
+        Goal goal = goalRepository.findByIdAndTenantId(goalId, tenantId)
+                .orElseThrow(() -> new IllegalArgumentException("Goal not found"));
+
+        if (goal.getLocked()) {
+            throw new IllegalStateException("Cannot assign users to a locked goal");
+        }
+
+        Map<String, AssigneeRelations> relationsByEmail = new HashMap<>();
+        for (int from = 0; from < emails.size(); from += BULK_CHUNK_SIZE) {
+            List<String> chunk = emails.subList(from, Math.min(from + BULK_CHUNK_SIZE, emails.size()));
+            for (Object[] row : userRepository.findAssigneeRelationsByEmails(chunk, tenantId)) {
+                relationsByEmail.put((String) row[1], AssigneeRelations.of(row));
+            }
+        }
+        List<String> unknownEmails = emails.stream().filter(email -> !relationsByEmail.containsKey(email)).toList();
+        if (!unknownEmails.isEmpty()) {
+            throw new IllegalArgumentException("User not found: " + sample(unknownEmails));
+        }
+
+        User goalOwner = goal.getOwner();
+        List<String> rejectedEmails = emails.stream()
+                .filter(email -> !relationsByEmail.get(email).assignableBy(goalOwner))
+                .toList();
+        if (!rejectedEmails.isEmpty()) {
+            throw new IllegalStateException(ASSIGNMENT_RULES +
+                "These users do not meet any of these criteria: " + sample(rejectedEmails));
+        }
+
+        if (relationsByEmail.values().stream().anyMatch(relations -> relations.needsApprovalFrom(goalOwner))) {
+            goal.setStatus(Goal.GoalStatus.PENDING_APPROVAL);
+        }
+        goal.setAssignedDate(LocalDate.now());
+
+        batchWriteService.insertGoalAssignments(goal.getId(),
+                relationsByEmail.values().stream().map(AssigneeRelations::userId).toList());
+        // The rows bypass the session, so a loaded assignedUsers collection does not have them
+        entityManager.refresh(goal);
+        visibleGoalService.refreshGoals(List.of(goal.getId()));
+        cacheEvictionService.evictGoals();
+        return goal;
+    }
+
+    /**
+     * Set the status of many goals with the checks {@link #updateGoal} makes on a status change:
+     * locked goals cannot change, and a PUBLISHED or APPROVED goal cannot move to DRAFT, ARCHIVED or
+     * RETIRED while it has a PUBLISHED or APPROVED child goal. Children that are in the same call
+     * take the new status too, so they do not count. Nothing is changed if any goal is rejected.
+     *
+     * @return the goal entities, ordered by ID
+     */
+    public List<Goal> transitionGoals(Collection<Long> goalIds, Goal.GoalStatus status) {
+        String tenantId = requireTenantId(); // Mutations require tenant
+        if (status == null) {
+            throw new IllegalArgumentException("Status is required");
+        }
+        List<Long> ids = new ArrayList<>(new TreeSet<>(goalIds));
+        requireBulkSize(ids.size());
+
+        List<Goal> goals = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            goals.addAll(goalRepository.findByIdInAndTenantId(ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size())), tenantId));
+        }
+        if (goals.size() < ids.size()) {
+            Set<Long> foundIds = goals.stream().map(Goal::getId).collect(Collectors.toSet());
+            throw new IllegalArgumentException("Goal not found: " +
+                sample(ids.stream().filter(id -> !foundIds.contains(id)).toList()));
+        }
+
+        List<Long> lockedIds = goals.stream().filter(Goal::getLocked).map(Goal::getId).toList();
+        if (!lockedIds.isEmpty()) {
+            throw new IllegalStateException("Cannot update a locked goal. Only the owner can unlock it. Locked goals: " + sample(lockedIds));
+        }
+
+        // Business rule of updateGoal, checked for all goals with one query per chunk
+        if (RESTRICTED_AFTER_PUBLISHING.contains(status)) {
+            List<Long> publishedIds = goals.stream()
+                    .filter(goal -> PUBLISHED_OR_APPROVED.contains(goal.getStatus()))
+                    .map(Goal::getId)
+                    .toList();
+            Set<Long> transitioning = new HashSet<>(ids);
+            Set<Long> blockedIds = new TreeSet<>();
+            for (int from = 0; from < publishedIds.size(); from += BULK_CHUNK_SIZE) {
+                List<Long> chunk = publishedIds.subList(from, Math.min(from + BULK_CHUNK_SIZE, publishedIds.size()));
+                for (Object[] row : goalRepository.findChildGoalIdsByStatus(chunk, tenantId, PUBLISHED_OR_APPROVED)) {
+                    if (!transitioning.contains((Long) row[1])) {
+                        blockedIds.add((Long) row[0]);
+                    }
+                }
+            }
+            if (!blockedIds.isEmpty()) {
+                throw new IllegalStateException(
+                    "Cannot change goal status to " + status + ". These goals have child goals that are in " +
+                    "PUBLISHED or APPROVED state: " + sample(blockedIds) + ". Please change the status of child goals first."
+                );
+            }
+        }
+
+        // Written as batched updates at the flush
+        goals.forEach(goal -> goal.setStatus(status));
+        cacheEvictionService.evictGoals();
+        return goals;
+    }
+
+    private void requireBulkSize(int size) {
+        if (size == 0 || size > bulkMaxSize) {
+            throw new IllegalArgumentException("Between 1 and " + bulkMaxSize + " items are allowed per call");
+        }
+    }
+
+    /**
+     * The first values of a list for an error message.
+     */
+    private static String sample(Collection<?> values) {
+        String listed = values.stream().limit(BULK_ERROR_SAMPLE_SIZE).map(String::valueOf).collect(Collectors.joining(", "));
+        return values.size() > BULK_ERROR_SAMPLE_SIZE ? listed + " and " + (values.size() - BULK_ERROR_SAMPLE_SIZE) + " more" : listed;
+    }
+
     public GoalDTO lockGoal(Long goalId) {
         String tenantId = requireTenantId(); // Mutations require tenant
         
@@ -608,6 +672,7 @@ public class GoalService {
         
         goal.setLocked(true);
         Goal savedGoal = goalRepository.save(goal);
+        cacheEvictionService.evictGoalViewers(savedGoal);
         return convertToDTO(savedGoal);
     }
 
@@ -623,18 +688,131 @@ public class GoalService {
         
         goal.setLocked(false);
         Goal savedGoal = goalRepository.save(goal);
+        cacheEvictionService.evictGoalViewers(savedGoal);
         return convertToDTO(savedGoal);
     }
 
-    @CacheEvict(value = {"goals", "goal", "goalsByOwner"}, allEntries = true)
     public void deleteGoal(Long id) {
         String tenantId = requireTenantId(); // Mutations require tenant
         Goal goal = goalRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("Goal not found"));
+        cacheEvictionService.evictGoalViewers(goal);
+        cacheEvictionService.evictGoalAnalytics();
+        goalRollupService.goalDeleted(goal);
         goalRepository.delete(goal);
+        // Child goals are deleted with the goal
+        visibleGoalService.deleteOrphanedEntries();
+    }
+
+    /**
+     * The relations of a user that goal assignment depends on. A goal can be assigned to its owner,
+     * to members of the owner's department and to members of a team the owner leads. Approval is
+     * needed unless the owner assigns themselves, manages or assists the user's department, or
+     * leads the user's team.
+     */
+    private record AssigneeRelations(Long userId, Long departmentId, Long departmentManagerId,
+                                     Long managerAssistantId, Long teamLeadId) {
+
+        static AssigneeRelations of(User user) {
+            Department department = user.getDepartment();
+            Team team = user.getTeam();
+            return new AssigneeRelations(user.getId(),
+                    department != null ? department.getId() : null,
+                    department != null && department.getManager() != null ? department.getManager().getId() : null,
+                    department != null && department.getManagerAssistant() != null ? department.getManagerAssistant().getId() : null,
+                    team != null && team.getTeamLead() != null ? team.getTeamLead().getId() : null);
+        }
+
+        // A row of UserRepository.findAssigneeRelationsByEmails
+        static AssigneeRelations of(Object[] row) {
+            return new AssigneeRelations((Long) row[0], (Long) row[2], (Long) row[3], (Long) row[4], (Long) row[5]);
+        }
+
+        boolean assignableBy(User owner) {
+            Department ownerDepartment = owner.getDepartment();
+            return Objects.equals(userId, owner.getId())
+                    || (ownerDepartment != null && Objects.equals(departmentId, ownerDepartment.getId()))
+                    || Objects.equals(teamLeadId, owner.getId());
+        }
+
+        boolean needsApprovalFrom(User owner) {
+            return !Objects.equals(userId, owner.getId())
+                    && !Objects.equals(departmentManagerId, owner.getId())
+                    && !Objects.equals(managerAssistantId, owner.getId())
+                    && !Objects.equals(teamLeadId, owner.getId());
+        }
+    }
+
+    /**
+     * Whether the goal is the descendant itself or one of its ancestors.
+     */
+    private static boolean isSelfOrAncestor(Goal goal, Goal descendant) {
+        Set<Long> visited = new HashSet<>();
+        for (Goal g = descendant; g != null && visited.add(g.getId()); g = g.getParentGoal()) {
+            if (g.getId().equals(goal.getId())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private GoalDTO convertToDTO(Goal goal) {
+        return convertToDTOs(List.of(goal)).get(0);
+    }
+
+    /**
+     * Convert goals to DTOs including their child goal trees, in the order given.
+     *
+     * The descendants of all goals are found with one recursive query per chunk of goals and loaded
+     * in bulk, then the trees are assembled in memory. Each goal is converted once per call: a goal
+     * that is also a child of another converted goal shares its DTO (and subtree) with that parent.
+     * Trees are cut off goals.tree.max-depth levels below the nearest goal passed in.
+     */
+    private List<GoalDTO> convertToDTOs(List<Goal> goals) {
+        if (goals.isEmpty()) {
+            return List.of();
+        }
+        String tenantId = goals.get(0).getTenant().getFqdn();
+
+        Map<Long, GoalDTO> converted = new HashMap<>();
+        for (Goal goal : goals) {
+            converted.computeIfAbsent(goal.getId(), id -> convertNode(goal));
+        }
+
+        // Child IDs by parent ID for every descendant within the depth limit
+        Map<Long, Set<Long>> childIds = new HashMap<>();
+        List<Long> rootIds = new ArrayList<>(converted.keySet());
+        for (int from = 0; from < rootIds.size() && treeMaxDepth > 0; from += TREE_CHUNK_SIZE) {
+            List<Long> chunk = rootIds.subList(from, Math.min(from + TREE_CHUNK_SIZE, rootIds.size()));
+            for (Object[] row : goalRepository.findSubtreeRows(chunk, tenantId, treeMaxDepth)) {
+                long id = ((Number) row[0]).longValue();
+                long parentId = ((Number) row[1]).longValue();
+                childIds.computeIfAbsent(parentId, key -> new TreeSet<>()).add(id);
+            }
+        }
+
+        Set<Long> descendantIds = new HashSet<>();
+        childIds.values().forEach(descendantIds::addAll);
+        descendantIds.removeAll(converted.keySet());
+        for (Goal descendant : goalVisibilityService.loadGoalsForConversion(descendantIds, tenantId)) {
+            converted.put(descendant.getId(), convertNode(descendant));
+        }
+
+        childIds.forEach((parentId, ids) -> {
+            GoalDTO parent = converted.get(parentId);
+            if (parent != null) {
+                parent.setChildGoals(ids.stream()
+                        .map(converted::get)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList()));
+            }
+        });
+
+        return goals.stream().map(goal -> converted.get(goal.getId())).collect(Collectors.toList());
+    }
+
+    // Converts a single goal without its child goals
+    private GoalDTO convertNode(Goal goal) {
         GoalDTO dto = new GoalDTO();
         dto.setId(goal.getId());
         dto.setShortDescription(goal.getShortDescription());
@@ -651,13 +829,6 @@ public class GoalService {
         
         String tenantId = goal.getTenant().getFqdn();
         
-        if (goal.getChildGoals() != null && !goal.getChildGoals().isEmpty()) {
-            dto.setChildGoals(goal.getChildGoals().stream()
-                    .filter(child -> child.getTenant().getFqdn().equals(tenantId))
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList()));
-        }
-        
         if (goal.getAssignedUsers() != null && !goal.getAssignedUsers().isEmpty()) {
             dto.setAssignedUserEmails(goal.getAssignedUsers().stream()
                     .filter(user -> user.getTenant().getFqdn().equals(tenantId))
@@ -677,7 +848,6 @@ public class GoalService {
         return dto;
     }
     
-    @CacheEvict(value = {"goals", "goal", "goalsByOwner"}, allEntries = true)
     public GoalDTO updateTargetCompletionDate(Long goalId, LocalDate targetCompletionDate) {
         String tenantId = requireTenantId();
         
@@ -686,10 +856,11 @@ public class GoalService {
         
         goal.setTargetCompletionDate(targetCompletionDate);
         Goal savedGoal = goalRepository.save(goal);
+        cacheEvictionService.evictGoalViewers(savedGoal);
+        cacheEvictionService.evictGoalAnalytics();
         return convertToDTO(savedGoal);
     }
 
-    @CacheEvict(value = {"goals", "goal", "goalsByOwner"}, allEntries = true)
     public GoalDTO approveGoal(Long goalId) {
         String tenantId = requireTenantId();
         
@@ -724,9 +895,12 @@ public class GoalService {
         
         goal.setStatus(Goal.GoalStatus.APPROVED);
         Goal savedGoal = goalRepository.save(goal);
+        cacheEvictionService.evictGoalViewers(savedGoal);
+        cacheEvictionService.evictGoalAnalytics();
         return convertToDTO(savedGoal);
     }
 
+    @Transactional(readOnly = true)
     public List<GoalDTO> getGoalsPendingApprovalForDepartment(Long departmentId) {
         String tenantId = requireTenantId();
         if (tenantId == null) {
@@ -749,16 +923,11 @@ public class GoalService {
             throw new IllegalStateException("Only the department manager can view pending approval goals");
         }
         
-        return goalRepository.findAllByTenantId(tenantId).stream()
-                .filter(goal -> goal.getStatus() == Goal.GoalStatus.PENDING_APPROVAL)
-                .filter(goal -> goal.getAssignedUsers() != null &&
-                        goal.getAssignedUsers().stream()
-                                .anyMatch(user -> user.getDepartment() != null && 
-                                        Objects.equals(user.getDepartment().getId(), departmentId)))
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        // Pending goals assigned to a member of the department, filtered in the database
+        return convertToDTOs(goalRepository.findPendingApprovalForDtoByDepartmentId(departmentId, tenantId));
     }
 
+    @Transactional(readOnly = true)
     public List<GoalDTO> getDepartmentMembersGoals(Long departmentId) {
         String tenantId = requireTenantId();
         if (tenantId == null) {
@@ -781,22 +950,7 @@ public class GoalService {
             throw new IllegalStateException("Only the department manager can view department members' goals");
         }
         
-        return goalRepository.findAllByTenantId(tenantId).stream()
-                .filter(goal -> {
-                    // Check if goal owner is in the department
-                    boolean ownerInDepartment = goal.getOwner() != null && 
-                                              goal.getOwner().getDepartment() != null &&
-                                              Objects.equals(goal.getOwner().getDepartment().getId(), departmentId);
-                    
-                    // Check if any assigned user is in the department
-                    boolean assignedUserInDepartment = goal.getAssignedUsers() != null &&
-                                                      goal.getAssignedUsers().stream()
-                                                              .anyMatch(user -> user.getDepartment() != null && 
-                                                                      Objects.equals(user.getDepartment().getId(), departmentId));
-                    
-                    return ownerInDepartment || assignedUserInDepartment;
-                })
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        // Goals owned by or assigned to a member of the department, filtered in the database
+        return convertToDTOs(goalRepository.findDepartmentMembersGoalsForDto(departmentId, tenantId));
     }
 }
@@ -0,0 +1,128 @@
+package com.performancemanagement.service;
+
+import com.performancemanagement.dto.ConnectionDTO;
+import com.performancemanagement.dto.GoalFilterDTO;
+import com.performancemanagement.model.Goal;
+import com.performancemanagement.model.User;
+import com.performancemanagement.repository.GoalRepository;
+import com.performancemanagement.repository.VisibleGoalRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Resolves which goals a user can see from the visible goal index (see {@link VisibleGoalService})
+ * instead of loading every tenant goal and running {@link GoalService#canUserViewGoal} in memory.
+ *
+ * The index follows the rules of canUserViewGoal:
+ * 1. User owns the goal or is assigned to it (always visible, confidential or not)
+ * 2. User is department manager of goal owner's or assigned user's department
+ * 3. User is team lead of goal owner's or assigned user's team
+ * 4. Goals owned by the user's manager are excluded from rules 2 and 3
+ * Confidential goals are only visible through rule 1 unless includeConfidential is set.
+ */
+@Service
+@Transactional(readOnly = true)
+public class GoalVisibilityService {
+
+    // Keeps IN lists well below the bind parameter limits of SQLite and PostgreSQL
+    private static final int LOAD_CHUNK_SIZE = 500;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private VisibleGoalRepository visibleGoalRepository;
+
+    /**
+     * Return the IDs of all goals in the tenant visible to the given user, in ascending order.
+     */
+    public Set<Long> findVisibleGoalIds(User viewer, String tenantId, boolean includeConfidential) {
+        if (viewer == null || viewer.getId() == null || tenantId == null) {
+            return new TreeSet<>();
+        }
+        return new TreeSet<>(visibleGoalRepository.findGoalIds(viewer.getId(), tenantId, includeConfidential));
+    }
+
+    /**
+     * Return the goals visible to the given user, ordered by ID.
+     */
+    public List<Goal> findVisibleGoals(User viewer, String tenantId, boolean includeConfidential) {
+        return loadGoals(findVisibleGoalIds(viewer, tenantId, includeConfidential), tenantId);
+    }
+
+    /**
+     * Load goals by ID in chunks, preserving ascending ID order.
+     */
+    public List<Goal> loadGoals(Collection<Long> goalIds, String tenantId) {
+        return loadInChunks(goalIds, chunk -> goalRepository.findByIdInAndTenantId(chunk, tenantId));
+    }
+
+    /**
+     * Like {@link #loadGoals}, but fetches what GoalService.convertToDTO reads along with the goals.
+     */
+    public List<Goal> loadGoalsForConversion(Collection<Long> goalIds, String tenantId) {
+        return loadInChunks(goalIds, chunk -> goalRepository.findForDtoByIdInAndTenantId(chunk, tenantId));
+    }
+
+    private List<Goal> loadInChunks(Collection<Long> goalIds, Function<List<Long>, List<Goal>> loader) {
+        List<Goal> goals = new ArrayList<>(goalIds.size());
+        List<Long> ids = new ArrayList<>(new TreeSet<>(goalIds));
+        for (int from = 0; from < ids.size(); from += LOAD_CHUNK_SIZE) {
+            goals.addAll(loader.apply(ids.subList(from, Math.min(from + LOAD_CHUNK_SIZE, ids.size()))));
+        }
+        return goals;
+    }
+
+    /**
+     * Return one keyset page of the goals visible to the given user, ordered by ID.
+     */
+    public ConnectionDTO<Goal> findVisibleGoalsPage(User viewer, String tenantId, boolean includeConfidential,
+                                                    GoalFilterDTO filter, Integer first, String after) {
+        int pageSize = KeysetPagination.pageSize(first);
+        long afterId = KeysetPagination.afterId(after);
+        if (viewer == null || viewer.getId() == null || tenantId == null) {
+            return KeysetPagination.toConnection(List.of(), pageSize, after, Goal::getId);
+        }
+
+        GoalFilterDTO f = filter != null ? filter : new GoalFilterDTO();
+        List<Goal> rows = goalRepository.findVisiblePageByTenantId(tenantId, viewer.getId(), includeConfidential,
+                afterId, f.getStatus(), f.getTerritoryId(), f.getOwnerEmail(), f.getDepartmentId(),
+                parseDate(f.getCreatedFrom()), parseDate(f.getCreatedTo()), KeysetPagination.limit(pageSize));
+        return KeysetPagination.toConnection(rows, pageSize, after, Goal::getId);
+    }
+
+    /**
+     * Return one keyset page of all goals in the tenant, ordered by ID. Callers are responsible
+     * for checking that the user may list every goal (HR view).
+     */
+    public ConnectionDTO<Goal> findGoalsPage(String tenantId, GoalFilterDTO filter, Integer first, String after) {
+        int pageSize = KeysetPagination.pageSize(first);
+        long afterId = KeysetPagination.afterId(after);
+        GoalFilterDTO f = filter != null ? filter : new GoalFilterDTO();
+        List<Goal> rows = goalRepository.findPageByTenantId(tenantId, afterId, f.getStatus(), f.getTerritoryId(),
+                f.getOwnerEmail(), f.getDepartmentId(), parseDate(f.getCreatedFrom()), parseDate(f.getCreatedTo()),
+                KeysetPagination.limit(pageSize));
+        return KeysetPagination.toConnection(rows, pageSize, after, Goal::getId);
+    }
+
+    private LocalDate parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+    }
+}
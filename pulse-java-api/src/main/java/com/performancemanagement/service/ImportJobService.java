@@ -0,0 +1,427 @@
+package com.performancemanagement.service;
+
+import com.performancemanagement.config.RequestContext;
+import com.performancemanagement.config.TenantContext;
+import com.performancemanagement.config.UserContext;
+import com.performancemanagement.dto.BulkUploadDTO;
+import com.performancemanagement.dto.ImportJobDTO;
+import com.performancemanagement.model.ImportJob;
+import com.performancemanagement.model.ImportJobPart;
+import com.performancemanagement.model.Tenant;
+import com.performancemanagement.model.User;
+import com.performancemanagement.repository.ImportJobPartRepository;
+import com.performancemanagement.repository.ImportJobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Asynchronous bulk user imports.
+ *
+ * Submitting stores the CSV in the database as {@link ImportJobPart}s and queues the job on a
+ * bounded executor, so the request returns right away. Workers run the import through
+ * {@link BulkUploadService} and record a checkpoint (rows processed, counters and errors) in the
+ * same transaction as each chunk.
+ *
+ * Every instance refreshes a heartbeat on the jobs it owns. Unfinished jobs whose heartbeat is
+ * older than bulk-upload.jobs.stale-after, for example because their pod was restarted, are
+ * claimed by another instance and resumed from the last committed chunk. A worker that loses
+ * ownership of its job stops at the next chunk.
+ */
+@Service
+@Transactional
+public class ImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobService.class);
+
+    private static final List<ImportJob.ImportJobStatus> UNFINISHED =
+            List.of(ImportJob.ImportJobStatus.PENDING, ImportJob.ImportJobStatus.RUNNING);
+    private static final String ERROR_SEPARATOR = "\n";
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private ImportJobPartRepository importJobPartRepository;
+
+    @Autowired
+    private BulkUploadService bulkUploadService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${bulk-upload.jobs.threads:2}")
+    private int threads;
+
+    @Value("${bulk-upload.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${bulk-upload.jobs.part-size:1048576}")
+    private int partSize;
+
+    @Value("${bulk-upload.jobs.stale-after:2m}")
+    private Duration staleAfter;
+
+    // Identifies this instance as the owner of the jobs it runs
+    private final String owner = UUID.randomUUID().toString();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void startExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "import-job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        // Interrupted jobs stay unfinished and are resumed by another instance
+        executor.shutdownNow();
+    }
+
+    /**
+     * Store the CSV and queue its import. Returns the pending job without waiting for it.
+     *
+     * @throws RejectedExecutionException when the job queue is full
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ImportJobDTO submit(Reader csvData, String fileName) throws IOException {
+        Tenant tenant = TenantContext.getCurrentTenant();
+        if (tenant == null) {
+            throw new IllegalStateException("Tenant context required for this operation");
+        }
+        User currentUser = UserContext.getCurrentUser();
+
+        ImportJob job = new ImportJob();
+        job.setTenant(tenant);
+        job.setCreatedBy(currentUser != null ? currentUser.getEmail() : null);
+        job.setFileName(fileName);
+        job.setStatus(ImportJob.ImportJobStatus.PENDING);
+        job.setOwner(owner);
+        job.setHeartbeatAt(LocalDateTime.now());
+        job = importJobRepository.save(job);
+
+        try {
+            storeParts(job, csvData);
+        } catch (IOException | RuntimeException e) {
+            deleteJob(job.getId());
+            throw e;
+        }
+        if (!enqueue(job.getId())) {
+            deleteJob(job.getId());
+            throw new RejectedExecutionException("Too many import jobs are queued, try again later");
+        }
+        logger.info("Queued import job {} for tenant {}", job.getId(), tenant.getFqdn());
+        return convertToDTO(job);
+    }
+
+    @Transactional(readOnly = true)
+    public ImportJobDTO getJob(Long id) {
+        String tenantId = TenantContext.getCurrentTenantId();
+        if (tenantId == null) {
+            throw new IllegalStateException("Tenant context required for this operation");
+        }
+        ImportJob job = importJobRepository.findByIdAndTenantId(id, tenantId)
+                .orElseThrow(() -> new IllegalArgumentException("Import job not found"));
+        return convertToDTO(job);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ImportJobDTO> getJobs() {
+        String tenantId = TenantContext.getCurrentTenantId();
+        if (tenantId == null) {
+            return List.of();
+        }
+        return importJobRepository.findAllByTenantId(tenantId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Refresh the heartbeat of the jobs owned by this instance and take over stale jobs.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${bulk-upload.jobs.heartbeat-interval:PT30S}",
+               initialDelayString = "${bulk-upload.jobs.heartbeat-interval:PT30S}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void maintainJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minus(staleAfter);
+        // Running jobs refresh their heartbeat with every checkpoint, so only idle ones are touched here
+        importJobRepository.heartbeat(owner, UNFINISHED, now.minus(staleAfter.dividedBy(2)), now);
+
+        for (Long jobId : importJobRepository.findStaleJobIds(UNFINISHED, staleBefore)) {
+            if (importJobRepository.claim(jobId, owner, UNFINISHED, staleBefore, now) == 1) {
+                logger.info("Resuming import job {}", jobId);
+                if (!enqueue(jobId)) {
+                    importJobRepository.release(jobId, owner);
+                }
+            }
+        }
+    }
+
+    private boolean enqueue(Long jobId) {
+        try {
+            executor.execute(() -> run(jobId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Run or resume a job on a worker thread.
+     */
+    private void run(Long jobId) {
+        ImportJob job = importJobRepository.findByIdWithTenant(jobId).orElse(null);
+        if (job == null || !UNFINISHED.contains(job.getStatus()) || !owner.equals(job.getOwner())) {
+            return;
+        }
+
+        RequestContext.Scope scope = RequestContext.forTenant(job.getTenant().getFqdn()).bind();
+        try {
+            markRunning(jobId);
+            BulkUploadDTO.BulkUploadResult result;
+            try (Reader reader = new PartReader(jobId)) {
+                result = bulkUploadService.importUsers(reader, checkpointOf(job), totals -> checkpoint(jobId, totals));
+            }
+            finish(jobId, ImportJob.ImportJobStatus.COMPLETED, result, null);
+            logger.info("Import job {} completed: {} rows", jobId, result.getTotalRows());
+        } catch (BulkUploadService.ImportAbortedException e) {
+            logger.info("Import job {} stopped: {}", jobId, e.getMessage());
+        } catch (Exception e) {
+            if (executor.isShutdown()) {
+                logger.info("Import job {} interrupted by shutdown, it will be resumed", jobId);
+            } else {
+                logger.error("Import job " + jobId + " failed", e);
+                finish(jobId, ImportJob.ImportJobStatus.FAILED, null, e.getMessage());
+            }
+        } finally {
+            scope.close();
+        }
+    }
+
+    private void markRunning(Long jobId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            ImportJob job = importJobRepository.findById(jobId).orElse(null);
+            if (job == null || !owner.equals(job.getOwner())) {
+                throw new BulkUploadService.ImportAbortedException("Import job " + jobId + " is owned by another instance");
+            }
+            LocalDateTime now = LocalDateTime.now();
+            job.setStatus(ImportJob.ImportJobStatus.RUNNING);
+            if (job.getStartedAt() == null) {
+                job.setStartedAt(now);
+            }
+            job.setUpdatedAt(now);
+        });
+    }
+
+    /**
+     * Called by the import in the transaction that commits each chunk.
+     */
+    private void checkpoint(Long jobId, BulkUploadDTO.BulkUploadResult totals) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new BulkUploadService.ImportAbortedException("Import job " + jobId + " was interrupted");
+        }
+        int updated = importJobRepository.checkpoint(jobId, owner, totals.getTotalRows(),
+                totals.getUsersCreated(), totals.getUsersUpdated(),
+                totals.getDepartmentsCreated(), totals.getDepartmentsUpdated(),
+                joinErrors(totals.getErrors()), LocalDateTime.now());
+        if (updated == 0) {
+            throw new BulkUploadService.ImportAbortedException("Import job " + jobId + " is owned by another instance");
+        }
+    }
+
+    private void finish(Long jobId, ImportJob.ImportJobStatus status, BulkUploadDTO.BulkUploadResult result, String failure) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            ImportJob job = importJobRepository.findById(jobId).orElse(null);
+            if (job == null || !owner.equals(job.getOwner())) {
+                return;
+            }
+            List<String> errors = splitErrors(job.getErrors());
+            if (result != null) {
+                job.setRowsProcessed(result.getTotalRows());
+                job.setUsersCreated(result.getUsersCreated());
+                job.setUsersUpdated(result.getUsersUpdated());
+                job.setDepartmentsCreated(result.getDepartmentsCreated());
+                job.setDepartmentsUpdated(result.getDepartmentsUpdated());
+                errors = result.getErrors();
+            }
+            if (failure != null) {
+                errors = new ArrayList<>(errors);
+                errors.add("Import failed: " + failure);
+            }
+            LocalDateTime now = LocalDateTime.now();
+            job.setErrors(joinErrors(errors));
+            job.setStatus(status);
+            job.setUpdatedAt(now);
+            job.setCompletedAt(now);
+        });
+        importJobPartRepository.deleteByJobId(jobId);
+    }
+
+    private void deleteJob(Long jobId) {
+        importJobPartRepository.deleteByJobId(jobId);
+        importJobRepository.deleteById(jobId);
+    }
+
+    /**
+     * Split the CSV into parts of at most bulk-upload.jobs.part-size characters.
+     */
+    private void storeParts(ImportJob job, Reader csvData) throws IOException {
+        char[] buffer = new char[partSize];
+        int partNumber = 0;
+        int length;
+        while ((length = fill(csvData, buffer)) > 0) {
+            ImportJobPart part = new ImportJobPart();
+            part.setJob(job);
+            part.setPartNumber(partNumber++);
+            part.setContent(new String(buffer, 0, length));
+            importJobPartRepository.save(part);
+            // Parts can be large; do not keep them in the persistence context
+            entityManager.detach(part);
+        }
+    }
+
+    private static int fill(Reader reader, char[] buffer) throws IOException {
+        int length = 0;
+        while (length < buffer.length) {
+            int read = reader.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+
+    private static BulkUploadDTO.BulkUploadResult checkpointOf(ImportJob job) {
+        return new BulkUploadDTO.BulkUploadResult(job.getRowsProcessed(), job.getUsersCreated(), job.getUsersUpdated(),
+                job.getDepartmentsCreated(), job.getDepartmentsUpdated(), splitErrors(job.getErrors()));
+    }
+
+    private static String joinErrors(List<String> errors) {
+        if (errors == null || errors.isEmpty()) {
+            return null;
+        }
+        return errors.stream()
+                .map(error -> error.replace('\r', ' ').replace('\n', ' '))
+                .collect(Collectors.joining(ERROR_SEPARATOR));
+    }
+
+    private static List<String> splitErrors(String errors) {
+        if (errors == null || errors.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(errors.split(ERROR_SEPARATOR)));
+    }
+
+    private ImportJobDTO convertToDTO(ImportJob job) {
+        ImportJobDTO dto = new ImportJobDTO();
+        dto.setId(job.getId());
+        dto.setStatus(job.getStatus().name());
+        dto.setFileName(job.getFileName());
+        dto.setCreatedBy(job.getCreatedBy());
+        dto.setRowsProcessed(job.getRowsProcessed());
+        dto.setUsersCreated(job.getUsersCreated());
+        dto.setUsersUpdated(job.getUsersUpdated());
+        dto.setDepartmentsCreated(job.getDepartmentsCreated());
+        dto.setDepartmentsUpdated(job.getDepartmentsUpdated());
+        dto.setErrors(splitErrors(job.getErrors()));
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setUpdatedAt(job.getUpdatedAt());
+        dto.setCompletedAt(job.getCompletedAt());
+
+        LocalDateTime end = job.getCompletedAt() != null ? job.getCompletedAt() : job.getUpdatedAt();
+        if (job.getStartedAt() != null && end != null) {
+            long millis = Duration.between(job.getStartedAt(), end).toMillis();
+            if (millis > 0) {
+                dto.setRowsPerSecond(job.getRowsProcessed() * 1000.0 / millis);
+            }
+        }
+        return dto;
+    }
+
+    /**
+     * Reads the stored parts of a job in order, loading one part at a time.
+     */
+    private class PartReader extends Reader {
+        private final Long jobId;
+        private int nextPart;
+        private String current = "";
+        private int position;
+        private boolean finished;
+
+        PartReader(Long jobId) {
+            this.jobId = jobId;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            while (position == current.length()) {
+                if (finished) {
+                    return -1;
+                }
+                String content = importJobPartRepository.findContentByJobIdAndPartNumber(jobId, nextPart++).orElse(null);
+                if (content == null) {
+                    finished = true;
+                    return -1;
+                }
+                current = content;
+                position = 0;
+            }
+            int count = Math.min(length, current.length() - position);
+            current.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+            current = "";
+            position = 0;
+            finished = true;
+        }
+    }
+}
@@ -24,6 +24,12 @@ public class KPIService {
     @Autowired
     private GoalRepository goalRepository;
 
+    @Autowired
+    private GoalRollupService goalRollupService;
+
+    @Autowired
+    private CacheEvictionService cacheEvictionService;
+
     private String requireTenantId() {
         String tenantId = TenantContext.getCurrentTenantId();
         if (tenantId == null) {
@@ -57,6 +63,8 @@ public class KPIService {
         }
         
         KPI saved = kpiRepository.save(kpi);
+        goalRollupService.kpiAdded(saved);
+        cacheEvictionService.evictGoalAnalytics();
         return convertToDTO(saved);
     }
 
@@ -65,6 +73,7 @@ public class KPIService {
         
         KPI kpi = kpiRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("KPI not found"));
+        GoalRollupService.Progress before = GoalRollupService.progressOf(kpi);
         
         if (kpiDTO.getDescription() != null) {
             kpi.setDescription(kpiDTO.getDescription());
@@ -93,6 +102,8 @@ public class KPIService {
         }
         
         KPI saved = kpiRepository.save(kpi);
+        goalRollupService.kpiUpdated(saved, before);
+        cacheEvictionService.evictGoalAnalytics();
         return convertToDTO(saved);
     }
 
@@ -100,9 +111,12 @@ public class KPIService {
         String tenantId = requireTenantId();
         KPI kpi = kpiRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("KPI not found"));
+        goalRollupService.kpiRemoved(kpi);
         kpiRepository.delete(kpi);
+        cacheEvictionService.evictGoalAnalytics();
     }
 
+    @Transactional(readOnly = true)
     public List<KPIDTO> getKPIsByGoalId(Long goalId) {
         String tenantId = TenantContext.getCurrentTenantId();
         if (tenantId == null) {
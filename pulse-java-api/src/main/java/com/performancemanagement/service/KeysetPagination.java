@@ -0,0 +1,86 @@
+package com.performancemanagement.service;
+
+import com.performancemanagement.dto.ConnectionDTO;
+import com.performancemanagement.dto.EdgeDTO;
+import com.performancemanagement.dto.PageInfoDTO;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Helpers for keyset (seek) pagination on entity IDs. A page is read with "id > afterId ORDER BY id"
+ * and one extra row, so the cost of a page does not depend on how far into the list it is.
+ *
+ * Cursors are opaque to clients; they currently encode the ID of the last row of a page.
+ */
+public final class KeysetPagination {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final String CURSOR_PREFIX = "id:";
+
+    private KeysetPagination() {
+    }
+
+    /**
+     * Resolve the requested page size, falling back to the default and capping at the maximum.
+     */
+    public static int pageSize(Integer first) {
+        if (first == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (first < 0) {
+            throw new IllegalArgumentException("first must not be negative");
+        }
+        return Math.min(first, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Request one row more than the page size so the query also tells whether there is a next page.
+     */
+    public static Pageable limit(int pageSize) {
+        return PageRequest.of(0, pageSize + 1);
+    }
+
+    /**
+     * Decode an 'after' cursor into the ID to seek past. A missing cursor starts at the beginning.
+     */
+    public static long afterId(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(CURSOR_PREFIX)) {
+                return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+            }
+        } catch (IllegalArgumentException e) {
+            // Falls through to the error below (NumberFormatException is an IllegalArgumentException)
+        }
+        throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+
+    public static String cursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Build a connection from rows fetched with {@link #limit(int)}.
+     */
+    public static <T> ConnectionDTO<T> toConnection(List<T> rows, int pageSize, String after, Function<T, Long> idOf) {
+        boolean hasNextPage = rows.size() > pageSize;
+        List<EdgeDTO<T>> edges = rows.subList(0, Math.min(rows.size(), pageSize)).stream()
+                .map(row -> new EdgeDTO<>(cursor(idOf.apply(row)), row))
+                .toList();
+        String startCursor = edges.isEmpty() ? null : edges.get(0).getCursor();
+        String endCursor = edges.isEmpty() ? null : edges.get(edges.size() - 1).getCursor();
+        boolean hasPreviousPage = after != null && !after.isBlank();
+        return new ConnectionDTO<>(edges, new PageInfoDTO(hasNextPage, hasPreviousPage, startCursor, endCursor));
+    }
+}
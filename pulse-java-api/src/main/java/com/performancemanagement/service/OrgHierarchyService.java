@@ -0,0 +1,354 @@
+package com.performancemanagement.service;
+
+import com.performancemanagement.dto.HierarchyCheckDTO;
+import com.performancemanagement.model.HierarchyClosure;
+import com.performancemanagement.model.HierarchyClosure.Hierarchy;
+import com.performancemanagement.model.Tenant;
+import com.performancemanagement.repository.DepartmentRepository;
+import com.performancemanagement.repository.HierarchyClosureRepository;
+import com.performancemanagement.repository.TenantRepository;
+import com.performancemanagement.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains the {@link HierarchyClosure} table for the department tree and the management chain.
+ *
+ * Call the *Changed and *Deleted methods after changing a parent department or manager in the
+ * same transaction. Moving a node deletes the paths from its old ancestors into its subtree and
+ * inserts the cross product of the new ancestors and the subtree, so the cost is proportional to
+ * the number of paths that change rather than to the size of the tenant.
+ *
+ * The table is checked against the parent columns on startup and rebuilt for tenants where it
+ * differs, which also fills it for data created before it existed.
+ */
+@Service
+@Transactional
+public class OrgHierarchyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrgHierarchyService.class);
+
+    // Paths persisted between flushes while rebuilding a tenant
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private HierarchyClosureRepository hierarchyClosureRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    @Autowired
+    private BatchWriteService batchWriteService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${hierarchy.closure.check-on-startup:true}")
+    private boolean checkOnStartup;
+
+    /**
+     * Whether the department is the root department or one of its sub-departments.
+     */
+    public boolean isDepartmentInSubtree(Long rootId, Long departmentId) {
+        return rootId.equals(departmentId) || hierarchyClosureRepository.existsPath(Hierarchy.DEPARTMENT, rootId, departmentId);
+    }
+
+    /**
+     * Whether the user is the root user or reports to them, directly or indirectly.
+     */
+    public boolean isUserInSubtree(Long rootId, Long userId) {
+        return rootId.equals(userId) || hierarchyClosureRepository.existsPath(Hierarchy.MANAGER, rootId, userId);
+    }
+
+    /**
+     * Whether the user manages, directly or indirectly, a member of the department or one of its
+     * sub-departments.
+     */
+    public boolean managesDepartmentMember(Long userId, Long departmentId) {
+        return hierarchyClosureRepository.managesDepartmentSubtreeMember(userId, departmentId);
+    }
+
+    /**
+     * Whether the user manages the department or one of the departments above it.
+     */
+    public boolean managesDepartmentOrAncestor(Long userId, Long departmentId) {
+        return hierarchyClosureRepository.managesDepartmentOrAncestor(userId, departmentId);
+    }
+
+    /**
+     * The department and its direct and indirect sub-departments.
+     */
+    public List<Long> departmentSubtreeIds(Long departmentId) {
+        List<Long> ids = new ArrayList<>();
+        ids.add(departmentId);
+        hierarchyClosureRepository.findDescendants(Hierarchy.DEPARTMENT, departmentId).forEach(row -> ids.add((Long) row[0]));
+        return ids;
+    }
+
+    /**
+     * Reject a manager that is the user or one of the user's direct or indirect reports.
+     */
+    public void requireNoManagementCycle(Long userId, Long managerId) {
+        if (userId != null && managerId != null && isUserInSubtree(userId, managerId)) {
+            throw new IllegalStateException(
+                "Cannot set manager. This would create a circular management relationship. " +
+                "A user cannot be managed by themselves or by one of their reports."
+            );
+        }
+    }
+
+    public void departmentParentChanged(Long departmentId, Long parentId) {
+        move(Hierarchy.DEPARTMENT, departmentId, parentId);
+    }
+
+    public void managerChanged(Long userId, Long managerId) {
+        move(Hierarchy.MANAGER, userId, managerId);
+    }
+
+    /**
+     * Remove the paths of a deleted department. Sub-departments and their members are deleted with
+     * it, so the paths of every user that no longer exists are removed as well.
+     */
+    public void departmentDeleted(Long departmentId) {
+        entityManager.flush();
+        hierarchyClosureRepository.deleteSubtree(Hierarchy.DEPARTMENT, departmentId);
+        hierarchyClosureRepository.deleteOrphanedManagerPaths();
+    }
+
+    /**
+     * Remove the paths of a user about to be deleted together with their reports.
+     */
+    public void userDeleted(Long userId) {
+        hierarchyClosureRepository.deleteSubtree(Hierarchy.MANAGER, userId);
+    }
+
+    /**
+     * Start a batch of manager changes applied in order, see {@link ManagerUpdates}.
+     */
+    public ManagerUpdates managerUpdates() {
+        return new ManagerUpdates();
+    }
+
+    /**
+     * Compare the stored paths of a tenant with the paths derived from the parent columns.
+     */
+    @Transactional(readOnly = true)
+    public List<HierarchyCheckDTO> check(String tenantId) {
+        return List.of(
+                compare(Hierarchy.DEPARTMENT, tenantId, expectedPaths(departmentRepository.findParentLinksByTenantId(tenantId)),
+                        hierarchyClosureRepository.findDepartmentPathsByTenantId(tenantId)),
+                compare(Hierarchy.MANAGER, tenantId, expectedPaths(userRepository.findManagerLinksByTenantId(tenantId)),
+                        hierarchyClosureRepository.findManagerPathsByTenantId(tenantId)));
+    }
+
+    /**
+     * Rebuild the paths of a tenant from the parent columns.
+     *
+     * @return the differences found before the rebuild
+     */
+    public List<HierarchyCheckDTO> rebuild(String tenantId) {
+        List<HierarchyCheckDTO> before = check(tenantId);
+        entityManager.flush();
+        hierarchyClosureRepository.deleteDepartmentPathsByTenantId(tenantId);
+        hierarchyClosureRepository.deleteManagerPathsByTenantId(tenantId);
+        hierarchyClosureRepository.deleteOrphanedDepartmentPaths();
+        hierarchyClosureRepository.deleteOrphanedManagerPaths();
+
+        List<HierarchyClosure> batch = new ArrayList<>();
+        for (PathKey path : expectedPaths(departmentRepository.findParentLinksByTenantId(tenantId))) {
+            batch.add(new HierarchyClosure(Hierarchy.DEPARTMENT, path.ancestorId(), path.descendantId(), path.depth()));
+            if (batch.size() == REBUILD_BATCH_SIZE) {
+                insert(batch);
+            }
+        }
+        for (PathKey path : expectedPaths(userRepository.findManagerLinksByTenantId(tenantId))) {
+            batch.add(new HierarchyClosure(Hierarchy.MANAGER, path.ancestorId(), path.descendantId(), path.depth()));
+            if (batch.size() == REBUILD_BATCH_SIZE) {
+                insert(batch);
+            }
+        }
+        insert(batch);
+        logger.info("Rebuilt hierarchy closure for tenant {}", tenantId);
+        return before;
+    }
+
+    /**
+     * Check every tenant once the application has started and rebuild the ones that differ.
+     * Runs before interrupted import jobs are resumed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void checkOnStartup() {
+        if (!checkOnStartup) {
+            return;
+        }
+        for (Tenant tenant : tenantRepository.findAll()) {
+            String tenantId = tenant.getFqdn();
+            List<HierarchyCheckDTO> results = check(tenantId);
+            if (results.stream().allMatch(HierarchyCheckDTO::isConsistent)) {
+                continue;
+            }
+            for (HierarchyCheckDTO result : results) {
+                if (!result.isConsistent()) {
+                    logger.warn("Hierarchy closure {} of tenant {} differs: {} missing, {} unexpected paths",
+                            result.getHierarchy(), tenantId, result.getMissingPaths(), result.getUnexpectedPaths());
+                }
+            }
+            rebuild(tenantId);
+        }
+    }
+
+    private void move(Hierarchy hierarchy, Long nodeId, Long parentId) {
+        hierarchyClosureRepository.deletePathsIntoSubtree(hierarchy, nodeId);
+        if (parentId == null) {
+            return;
+        }
+        List<Object[]> ancestors = new ArrayList<>(hierarchyClosureRepository.findAncestors(hierarchy, parentId));
+        ancestors.add(new Object[]{parentId, 0});
+        List<Object[]> subtree = new ArrayList<>(hierarchyClosureRepository.findDescendants(hierarchy, nodeId));
+        subtree.add(new Object[]{nodeId, 0});
+
+        List<HierarchyClosure> paths = new ArrayList<>(ancestors.size() * subtree.size());
+        for (Object[] ancestor : ancestors) {
+            for (Object[] descendant : subtree) {
+                int depth = ((Number) ancestor[1]).intValue() + ((Number) descendant[1]).intValue() + 1;
+                paths.add(new HierarchyClosure(hierarchy, (Long) ancestor[0], (Long) descendant[0], depth));
+            }
+        }
+        insert(paths);
+    }
+
+    /**
+     * Insert the paths and empty the list. Paths are changed with bulk deletes, so none may stay
+     * managed.
+     */
+    private void insert(List<HierarchyClosure> paths) {
+        batchWriteService.insertDetached(paths);
+        paths.clear();
+    }
+
+    /**
+     * Paths implied by [nodeId, parentId] rows. Each node's parent chain is followed upwards and a
+     * chain that runs into a cycle stops at the first repeated node.
+     */
+    private static Set<PathKey> expectedPaths(List<Object[]> links) {
+        Map<Long, Long> parents = new HashMap<>();
+        for (Object[] link : links) {
+            parents.put((Long) link[0], (Long) link[1]);
+        }
+        Set<PathKey> paths = new HashSet<>();
+        for (Long nodeId : parents.keySet()) {
+            Set<Long> visited = new HashSet<>();
+            visited.add(nodeId);
+            Long ancestorId = parents.get(nodeId);
+            int depth = 1;
+            while (ancestorId != null && visited.add(ancestorId)) {
+                paths.add(new PathKey(ancestorId, nodeId, depth++));
+                ancestorId = parents.get(ancestorId);
+            }
+        }
+        return paths;
+    }
+
+    private static HierarchyCheckDTO compare(Hierarchy hierarchy, String tenantId, Set<PathKey> expected, List<Object[]> storedRows) {
+        Set<PathKey> stored = new HashSet<>();
+        for (Object[] row : storedRows) {
+            stored.add(new PathKey((Long) row[0], (Long) row[1], ((Number) row[2]).intValue()));
+        }
+        int missing = (int) expected.stream().filter(path -> !stored.contains(path)).count();
+        int unexpected = (int) stored.stream().filter(path -> !expected.contains(path)).count();
+        return new HierarchyCheckDTO(hierarchy.name(), tenantId, expected.size(), stored.size(),
+                missing, unexpected, missing == 0 && unexpected == 0);
+    }
+
+    private record PathKey(Long ancestorId, Long descendantId, int depth) {
+    }
+
+    /**
+     * Manager changes applied one after another within a transaction, as done by bulk imports.
+     * The ancestors of managers are kept in memory, so adding the reports of a manager costs at
+     * most one query for the manager, and none after {@link #prefetch}. Paths of added users are
+     * written when the transaction is flushed and stay managed until the persistence context is
+     * cleared.
+     */
+    public class ManagerUpdates {
+
+        private final Map<Long, List<Object[]>> ancestorsByUser = new HashMap<>();
+        private final List<HierarchyClosure> persisted = new ArrayList<>();
+
+        /**
+         * Load the ancestors of the given managers with one query, before their reports are added.
+         */
+        public void prefetch(Collection<Long> managerIds) {
+            List<Long> ids = managerIds.stream().filter(id -> !ancestorsByUser.containsKey(id)).distinct().toList();
+            if (ids.isEmpty()) {
+                return;
+            }
+            ids.forEach(id -> ancestorsByUser.put(id, new ArrayList<>()));
+            for (Object[] row : hierarchyClosureRepository.findAncestorsOfNodes(Hierarchy.MANAGER, ids)) {
+                ancestorsByUser.get((Long) row[0]).add(new Object[]{row[1], row[2]});
+            }
+        }
+
+        /**
+         * Add the paths of a user created in this transaction, who has no reports yet.
+         */
+        public void addUser(Long userId, Long managerId) {
+            List<Object[]> managerAncestors = ancestorsByUser.computeIfAbsent(managerId,
+                    id -> hierarchyClosureRepository.findAncestors(Hierarchy.MANAGER, id));
+            List<Object[]> ancestors = new ArrayList<>(managerAncestors.size() + 1);
+            ancestors.add(new Object[]{managerId, 1});
+            for (Object[] ancestor : managerAncestors) {
+                ancestors.add(new Object[]{ancestor[0], ((Number) ancestor[1]).intValue() + 1});
+            }
+            for (Object[] ancestor : ancestors) {
+                HierarchyClosure path = new HierarchyClosure(Hierarchy.MANAGER, (Long) ancestor[0], userId, (Integer) ancestor[1]);
+                entityManager.persist(path);
+                persisted.add(path);
+            }
+            ancestorsByUser.put(userId, ancestors);
+        }
+
+        /**
+         * Change the manager of an existing user.
+         *
+         * @return false, without changing anything, if the manager is the user or one of their reports
+         */
+        public boolean moveUser(Long userId, Long managerId) {
+            // Moves use bulk deletes, so the paths added so far must be written and detached first
+            entityManager.flush();
+            persisted.forEach(entityManager::detach);
+            persisted.clear();
+            if (managerId != null && isUserInSubtree(userId, managerId)) {
+                return false;
+            }
+            // The reports of the user may have cached ancestors
+            ancestorsByUser.clear();
+            managerChanged(userId, managerId);
+            return true;
+        }
+    }
+}
@@ -9,7 +9,6 @@ import com.performancemanagement.repository.DepartmentRepository;
 import com.performancemanagement.repository.TeamRepository;
 import com.performancemanagement.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,12 +23,18 @@ public class TeamService {
     @Autowired
     private TeamRepository teamRepository;
 
+    @Autowired
+    private CacheEvictionService cacheEvictionService;
+
     @Autowired
     private DepartmentRepository departmentRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private VisibleGoalService visibleGoalService;
+
     private String getCurrentTenantId() {
         return TenantContext.getCurrentTenantId();
     }
@@ -42,9 +47,9 @@ public class TeamService {
         return tenantId;
     }
 
-    @CacheEvict(value = {"teams", "team"}, allEntries = true)
     public TeamDTO createTeam(TeamDTO teamDTO) {
         String tenantId = requireTenantId();
+        cacheEvictionService.evictOrganization();
 
         // Validate department exists
         Department department = departmentRepository.findByIdAndTenantId(teamDTO.getDepartmentId(), tenantId)
@@ -75,9 +80,9 @@ public class TeamService {
         return convertToDTO(savedTeam);
     }
 
-    @CacheEvict(value = {"teams", "team"}, allEntries = true)
     public TeamDTO updateTeam(Long id, TeamDTO teamDTO) {
         String tenantId = requireTenantId();
+        cacheEvictionService.evictOrganization();
 
         Team team = teamRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("Team not found"));
@@ -115,24 +120,30 @@ public class TeamService {
         }
 
         Team savedTeam = teamRepository.save(team);
+        visibleGoalService.refreshGoalsOfTeam(savedTeam.getId());
         return convertToDTO(savedTeam);
     }
 
-    @CacheEvict(value = {"teams", "team"}, allEntries = true)
     public void deleteTeam(Long id) {
         String tenantId = requireTenantId();
+        cacheEvictionService.evictOrganization();
 
         Team team = teamRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("Team not found"));
 
+        List<Long> affectedGoalIds = visibleGoalService.goalIdsOfUsers(team.getUsers().stream().map(User::getId).toList());
+
         // Unassign all users from the team
         team.getUsers().forEach(user -> user.setTeam(null));
         userRepository.saveAll(team.getUsers());
 
         teamRepository.delete(team);
+        visibleGoalService.refreshGoals(affectedGoalIds);
+        visibleGoalService.deleteOrphanedEntries();
     }
 
-    @Cacheable(value = "team", key = "#id")
+    @Cacheable(value = "team", key = "@cacheKeys.tenant(#id)", condition = "@cacheKeys.hasTenant()")
+    @Transactional(readOnly = true)
     public TeamDTO getTeamById(Long id) {
         String tenantId = getCurrentTenantId();
         if (tenantId == null) {
@@ -143,7 +154,8 @@ public class TeamService {
         return convertToDTO(team);
     }
 
-    @Cacheable(value = "teams")
+    @Cacheable(value = "teamsByDepartment", key = "@cacheKeys.tenant(#departmentId)", condition = "@cacheKeys.hasTenant()")
+    @Transactional(readOnly = true)
     public List<TeamDTO> getTeamsByDepartment(Long departmentId) {
         String tenantId = getCurrentTenantId();
         if (tenantId == null) {
@@ -154,20 +166,21 @@ public class TeamService {
                 .collect(Collectors.toList());
     }
 
-    @Cacheable(value = "teams")
+    @Cacheable(value = "teams", key = "@cacheKeys.tenant()", condition = "@cacheKeys.hasTenant()")
+    @Transactional(readOnly = true)
     public List<TeamDTO> getAllTeams() {
         String tenantId = getCurrentTenantId();
         if (tenantId == null) {
             return List.of();
         }
-        return teamRepository.findByTenantId(tenantId).stream()
+        return teamRepository.findForDtoByTenantId(tenantId).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
-    @CacheEvict(value = {"teams", "team", "users"}, allEntries = true)
     public TeamDTO assignUserToTeam(Long teamId, String userEmail) {
         String tenantId = requireTenantId();
+        cacheEvictionService.evictOrganization();
 
         Team team = teamRepository.findByIdAndTenantId(teamId, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("Team not found"));
@@ -187,13 +200,14 @@ public class TeamService {
 
         user.setTeam(team);
         userRepository.save(user);
+        visibleGoalService.refreshGoalsOfUsers(List.of(user.getId()));
 
         return convertToDTO(team);
     }
 
-    @CacheEvict(value = {"teams", "team", "users"}, allEntries = true)
     public TeamDTO removeUserFromTeam(Long teamId, String userEmail) {
         String tenantId = requireTenantId();
+        cacheEvictionService.evictOrganization();
 
         Team team = teamRepository.findByIdAndTenantId(teamId, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("Team not found"));
@@ -207,6 +221,7 @@ public class TeamService {
 
         user.setTeam(null);
         userRepository.save(user);
+        visibleGoalService.refreshGoalsOfUsers(List.of(user.getId()));
 
         return convertToDTO(team);
     }
@@ -7,7 +7,6 @@ import com.performancemanagement.model.Territory;
 import com.performancemanagement.repository.GoalRepository;
 import com.performancemanagement.repository.TerritoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,6 +25,9 @@ public class TerritoryService {
     @Autowired
     private GoalRepository goalRepository;
 
+    @Autowired
+    private CacheEvictionService cacheEvictionService;
+
     private String requireTenantId() {
         String tenantId = TenantContext.getCurrentTenantId();
         if (tenantId == null) {
@@ -50,10 +52,12 @@ public class TerritoryService {
         territory.setTenant(TenantContext.getCurrentTenant());
         territory.setName("Global");
         territory.setDescription("Global territory for all goals");
+        cacheEvictionService.evictTenant("territories");
         return territoryRepository.save(territory);
     }
 
-    @Cacheable(value = "territories")
+    @Cacheable(value = "territories", key = "@cacheKeys.tenant()", condition = "@cacheKeys.hasTenant()")
+    @Transactional(readOnly = true)
     public List<TerritoryDTO> getAllTerritories() {
         String tenantId = requireTenantId();
         
@@ -63,6 +67,7 @@ public class TerritoryService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public TerritoryDTO getTerritoryById(Long id) {
         String tenantId = requireTenantId();
         
@@ -71,9 +76,9 @@ public class TerritoryService {
         return convertToDTO(territory);
     }
 
-    @CacheEvict(value = "territories", allEntries = true)
     public TerritoryDTO createTerritory(TerritoryDTO territoryDTO) {
         String tenantId = requireTenantId();
+        cacheEvictionService.evictTenant("territories");
         
         // Check if territory with same name already exists
         Optional<Territory> existing = territoryRepository.findByNameAndTenantId(territoryDTO.getName(), tenantId);
@@ -90,9 +95,10 @@ public class TerritoryService {
         return convertToDTO(saved);
     }
 
-    @CacheEvict(value = "territories", allEntries = true)
     public TerritoryDTO updateTerritory(Long id, TerritoryDTO territoryDTO) {
         String tenantId = requireTenantId();
+        cacheEvictionService.evictTenant("territories", "goals");
+        cacheEvictionService.evictGoalAnalytics();
         
         Territory territory = territoryRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("Territory not found"));
@@ -117,9 +123,10 @@ public class TerritoryService {
         return convertToDTO(saved);
     }
 
-    @CacheEvict(value = {"territories", "goals", "goal", "goalsByOwner"}, allEntries = true)
     public void deleteTerritory(Long id) {
         String tenantId = requireTenantId();
+        cacheEvictionService.evictTenant("territories", "goals");
+        cacheEvictionService.evictGoalAnalytics();
         
         Territory territory = territoryRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("Territory not found"));
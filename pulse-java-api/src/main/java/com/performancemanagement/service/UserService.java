@@ -5,12 +5,12 @@ import com.performancemanagement.dto.UserDTO;
 import com.performancemanagement.model.User;
 import com.performancemanagement.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,6 +19,18 @@ public class UserService {
 
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private CacheEvictionService cacheEvictionService;
+
+    @Autowired
+    private OrgHierarchyService orgHierarchyService;
+
+    @Autowired
+    private VisibleGoalService visibleGoalService;
+
+    @Autowired
+    private GoalRollupService goalRollupService;
     
     private String getCurrentTenantId() {
         return TenantContext.getCurrentTenantId(); // Returns null if no tenant context - tenant validation is disabled
@@ -34,6 +46,7 @@ public class UserService {
 
     public UserDTO createUser(UserDTO userDTO) {
         String tenantId = requireTenantId(); // Mutations require tenant
+        cacheEvictionService.evictOrganization();
         
         if (userRepository.existsByEmailAndTenantId(userDTO.getEmail(), tenantId)) {
             throw new IllegalArgumentException("User with email " + userDTO.getEmail() + " already exists");
@@ -60,15 +73,19 @@ public class UserService {
         }
 
         User savedUser = userRepository.save(user);
+        if (savedUser.getManager() != null) {
+            orgHierarchyService.managerChanged(savedUser.getId(), savedUser.getManager().getId());
+        }
         return convertToDTO(savedUser);
     }
 
-    @CacheEvict(value = {"users", "user", "userByEmail"}, allEntries = true)
     public UserDTO updateUser(Long id, UserDTO userDTO) {
         String tenantId = requireTenantId(); // Mutations require tenant
+        cacheEvictionService.evictOrganization();
         
         User user = userRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        Long previousManagerId = user.getManager() != null ? user.getManager().getId() : null;
 
         user.setFirstName(userDTO.getFirstName());
         user.setLastName(userDTO.getLastName());
@@ -86,16 +103,22 @@ public class UserService {
         if (userDTO.getManagerId() != null) {
             User manager = userRepository.findByIdAndTenantId(userDTO.getManagerId(), tenantId)
                     .orElseThrow(() -> new IllegalArgumentException("Manager not found"));
+            orgHierarchyService.requireNoManagementCycle(user.getId(), manager.getId());
             user.setManager(manager);
         } else {
             user.setManager(null);
         }
 
         User savedUser = userRepository.save(user);
+        if (!Objects.equals(previousManagerId, userDTO.getManagerId())) {
+            orgHierarchyService.managerChanged(savedUser.getId(), userDTO.getManagerId());
+            visibleGoalService.managerChanged(previousManagerId, userDTO.getManagerId());
+        }
         return convertToDTO(savedUser);
     }
 
-    @Cacheable(value = "user", key = "#id")
+    @Cacheable(value = "user", key = "@cacheKeys.tenant(#id)", condition = "@cacheKeys.hasTenant()")
+    @Transactional(readOnly = true)
     public UserDTO getUserById(Long id) {
         String tenantId = getCurrentTenantId();
         if (tenantId == null) {
@@ -106,6 +129,7 @@ public class UserService {
         return convertToDTO(user);
     }
 
+    @Transactional(readOnly = true)
     public UserDTO getUserByEmail(String email) {
         String tenantId = getCurrentTenantId();
         if (tenantId == null) {
@@ -116,25 +140,35 @@ public class UserService {
         return convertToDTO(user);
     }
 
-    @Cacheable(value = "users")
+    @Cacheable(value = "users", key = "@cacheKeys.tenant()", condition = "@cacheKeys.hasTenant()")
+    @Transactional(readOnly = true)
     public List<UserDTO> getAllUsers() {
         String tenantId = getCurrentTenantId();
         if (tenantId == null) {
             return List.of(); // Tenant validation disabled - return empty list
         }
-        return userRepository.findAllByTenantId(tenantId).stream()
+        return userRepository.findForDtoByTenantId(tenantId).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
     public void deleteUser(Long id) {
         String tenantId = requireTenantId(); // Mutations require tenant
+        cacheEvictionService.evictOrganization();
         User user = userRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        // Reports are deleted together with the user
+        List<Long> affectedGoalIds = visibleGoalService.goalIdsOfManagerSubtree(user.getId());
+        orgHierarchyService.userDeleted(user.getId());
         userRepository.delete(user);
+        // The deleted goals may have had parents owned by other users
+        goalRollupService.cascadedGoalsDeleted();
+        visibleGoalService.refreshGoals(affectedGoalIds);
+        visibleGoalService.deleteOrphanedEntries();
     }
 
-    @Cacheable(value = "teamMembers", key = "#managerId")
+    @Cacheable(value = "teamMembers", key = "@cacheKeys.tenant(#managerId)", condition = "@cacheKeys.hasTenant()")
+    @Transactional(readOnly = true)
     public List<UserDTO> getTeamMembers(Long managerId) {
         String tenantId = getCurrentTenantId();
         if (tenantId == null) {
@@ -0,0 +1,244 @@
+package com.performancemanagement.service;
+
+import com.performancemanagement.dto.VisibleGoalCheckDTO;
+import com.performancemanagement.model.Goal;
+import com.performancemanagement.model.Tenant;
+import com.performancemanagement.model.User;
+import com.performancemanagement.model.VisibleGoal;
+import com.performancemanagement.model.VisibleGoal.Reason;
+import com.performancemanagement.repository.GoalRepository;
+import com.performancemanagement.repository.TenantRepository;
+import com.performancemanagement.repository.UserRepository;
+import com.performancemanagement.repository.VisibleGoalRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiPredicate;
+import java.util.stream.Stream;
+
+/**
+ * Maintains the {@link VisibleGoal} index.
+ *
+ * The entries of a goal depend on its owner and assignees, their departments and teams, the
+ * managers and team leads of those, and the managers of the managers and team leads. Call the
+ * refresh* methods after changing any of these in the same transaction: the entries of the
+ * affected goals are deleted and derived again from the current state, so the cost is
+ * proportional to the number of goals touched rather than to the size of the tenant.
+ *
+ * The index is built on startup for tenants that have goals but no entries, which also fills it
+ * for data created before it existed.
+ */
+@Service
+@Transactional
+public class VisibleGoalService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VisibleGoalService.class);
+
+    // Goals per derivation query, well below the bind parameter limits
+    private static final int REFRESH_CHUNK_SIZE = 500;
+
+    @Autowired
+    private VisibleGoalRepository visibleGoalRepository;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    @Autowired
+    private BatchWriteService batchWriteService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${visible-goals.build-on-startup:true}")
+    private boolean buildOnStartup;
+
+    /**
+     * Derive the entries of the given goals again. Goals that no longer exist lose their entries.
+     */
+    public void refreshGoals(Collection<Long> goalIds) {
+        if (goalIds.isEmpty()) {
+            return;
+        }
+        // The derivation queries read the pending changes of the caller
+        entityManager.flush();
+        List<Long> ids = new ArrayList<>(new TreeSet<>(goalIds));
+        for (int from = 0; from < ids.size(); from += REFRESH_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + REFRESH_CHUNK_SIZE, ids.size()));
+            visibleGoalRepository.deleteByGoalIds(chunk);
+            // Entries are removed with bulk deletes, so none may stay managed
+            batchWriteService.insertDetached(derive(chunk));
+        }
+    }
+
+    /**
+     * Refresh the goals owned by or assigned to the users, after a change to their department,
+     * team or reports.
+     */
+    public void refreshGoalsOfUsers(Collection<Long> userIds) {
+        if (!userIds.isEmpty()) {
+            refreshGoals(goalIdsOfUsers(userIds));
+        }
+    }
+
+    /**
+     * Refresh the goals of the department's members, after a change of department manager.
+     */
+    public void refreshGoalsOfDepartment(Long departmentId) {
+        refreshGoals(visibleGoalRepository.findGoalIdsOfDepartment(departmentId));
+    }
+
+    /**
+     * Refresh the goals of the team's members, after a change of team lead.
+     */
+    public void refreshGoalsOfTeam(Long teamId) {
+        refreshGoals(visibleGoalRepository.findGoalIdsOfTeam(teamId));
+    }
+
+    /**
+     * Refresh the goals of a user's previous and new manager, after the user's manager changed:
+     * the goals of a user's own manager are only visible to the user as owner or assignee.
+     */
+    public void managerChanged(Long previousManagerId, Long managerId) {
+        refreshGoalsOfUsers(Stream.of(previousManagerId, managerId).filter(Objects::nonNull).toList());
+    }
+
+    public List<Long> goalIdsOfUsers(Collection<Long> userIds) {
+        return visibleGoalRepository.findGoalIdsOfUsers(userIds);
+    }
+
+    /**
+     * Goals of the members of a department and its sub-departments. Collect them before deleting
+     * the department, and refresh them afterwards.
+     */
+    public List<Long> goalIdsOfDepartmentSubtree(Long departmentId) {
+        return visibleGoalRepository.findGoalIdsOfDepartmentSubtree(departmentId);
+    }
+
+    /**
+     * Goals of a user and their direct and indirect reports. Collect them before deleting the
+     * user, and refresh them afterwards.
+     */
+    public List<Long> goalIdsOfManagerSubtree(Long userId) {
+        return visibleGoalRepository.findGoalIdsOfManagerSubtree(userId);
+    }
+
+    /**
+     * Remove the entries of goals and users that no longer exist, after deletes that cascade to
+     * goals or users.
+     */
+    public void deleteOrphanedEntries() {
+        entityManager.flush();
+        visibleGoalRepository.deleteOrphanedEntries();
+    }
+
+    /**
+     * Rebuild the entries of a tenant's goals from scratch.
+     *
+     * @return the number of goals indexed
+     */
+    public int rebuild(String tenantId) {
+        entityManager.flush();
+        visibleGoalRepository.deleteOrphanedEntries();
+        List<Long> goalIds = visibleGoalRepository.findGoalIdsByTenantId(tenantId);
+        refreshGoals(goalIds);
+        logger.info("Rebuilt visible goal index for tenant {}: {} goals", tenantId, goalIds.size());
+        return goalIds.size();
+    }
+
+    /**
+     * Compare the index of a tenant with a visibility rule evaluated for every user and goal of
+     * the tenant, normally {@link GoalService#canUserViewGoal}. Confidential goals count as
+     * visible, like the rule does. The cost grows with users times goals, so this is meant for
+     * verification on demand.
+     */
+    @Transactional(readOnly = true)
+    public VisibleGoalCheckDTO check(String tenantId, BiPredicate<User, Goal> canView) {
+        List<User> users = userRepository.findAllByTenantId(tenantId);
+        List<Long> goalIds = visibleGoalRepository.findGoalIdsByTenantId(tenantId);
+        int expected = 0;
+        int stored = 0;
+        int missing = 0;
+        int unexpected = 0;
+        for (int from = 0; from < goalIds.size(); from += REFRESH_CHUNK_SIZE) {
+            List<Long> chunk = goalIds.subList(from, Math.min(from + REFRESH_CHUNK_SIZE, goalIds.size()));
+            Set<Pair> storedPairs = new HashSet<>();
+            for (Object[] row : visibleGoalRepository.findEntriesByGoalIds(chunk)) {
+                storedPairs.add(new Pair((Long) row[0], (Long) row[1]));
+            }
+            Set<Pair> expectedPairs = new HashSet<>();
+            for (Goal goal : goalRepository.findForRbacByIdInAndTenantId(chunk, tenantId)) {
+                for (User user : users) {
+                    if (canView.test(user, goal)) {
+                        expectedPairs.add(new Pair(user.getId(), goal.getId()));
+                    }
+                }
+            }
+            expected += expectedPairs.size();
+            stored += storedPairs.size();
+            missing += (int) expectedPairs.stream().filter(pair -> !storedPairs.contains(pair)).count();
+            unexpected += (int) storedPairs.stream().filter(pair -> !expectedPairs.contains(pair)).count();
+        }
+        return new VisibleGoalCheckDTO(tenantId, users.size(), goalIds.size(), expected, stored,
+                missing, unexpected, missing == 0 && unexpected == 0);
+    }
+
+    /**
+     * Build the index of tenants that have none yet once the application has started. Runs after
+     * the hierarchy closure check and before interrupted import jobs are resumed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void buildOnStartup() {
+        if (!buildOnStartup) {
+            return;
+        }
+        for (Tenant tenant : tenantRepository.findAll()) {
+            if (!visibleGoalRepository.existsByTenantId(tenant.getFqdn())) {
+                rebuild(tenant.getFqdn());
+            }
+        }
+    }
+
+    private Set<VisibleGoal> derive(List<Long> goalIds) {
+        Set<VisibleGoal> entries = new LinkedHashSet<>();
+        addEntries(entries, Reason.OWNER, visibleGoalRepository.deriveOwnerEntries(goalIds));
+        addEntries(entries, Reason.ASSIGNEE, visibleGoalRepository.deriveAssigneeEntries(goalIds));
+        addEntries(entries, Reason.DEPARTMENT_MANAGER, visibleGoalRepository.deriveOwnerDepartmentManagerEntries(goalIds));
+        addEntries(entries, Reason.DEPARTMENT_MANAGER, visibleGoalRepository.deriveAssigneeDepartmentManagerEntries(goalIds));
+        addEntries(entries, Reason.TEAM_LEAD, visibleGoalRepository.deriveOwnerTeamLeadEntries(goalIds));
+        addEntries(entries, Reason.TEAM_LEAD, visibleGoalRepository.deriveAssigneeTeamLeadEntries(goalIds));
+        return entries;
+    }
+
+    private static void addEntries(Set<VisibleGoal> entries, Reason reason, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            entries.add(new VisibleGoal((Long) row[0], (Long) row[1], reason));
+        }
+    }
+
+    private record Pair(Long userId, Long goalId) {
+    }
+}
@@ -0,0 +1,194 @@
+-- Baseline schema: the tables of the entities as of the first versioned migration.
+--
+-- Every statement is idempotent, so the script also applies to databases created earlier by
+-- Hibernate's ddl-auto=update. Foreign keys keep Hibernate's generated names and are added in
+-- DO blocks that skip an existing constraint. Indexes are in V2.
+
+-- Replaced by epm_schema_history, which also records the script checksums
+DROP TABLE IF EXISTS epm_schema_migrations;
+
+CREATE TABLE IF NOT EXISTS epm_departments (
+    id bigserial not null,
+    creation_date date not null,
+    co_owner_id bigint,
+    manager_assistant_id bigint,
+    manager_id bigint,
+    parent_department_id bigint,
+    small_description varchar(500) not null,
+    name varchar(255) not null,
+    status varchar(255) not null check (status in ('ACTIVE','DEPRECATED','RETIRED')),
+    tenant_id varchar(255) not null,
+    primary key (id)
+);
+
+CREATE TABLE IF NOT EXISTS epm_goal_assignments (
+    goal_id bigint not null,
+    user_id bigint not null,
+    primary key (goal_id, user_id)
+);
+
+CREATE TABLE IF NOT EXISTS epm_goal_notes (
+    id bigserial not null,
+    author_id bigint not null,
+    created_at timestamp(6) not null,
+    goal_id bigint not null,
+    updated_at timestamp(6) not null,
+    content TEXT not null,
+    tenant_id varchar(255) not null,
+    primary key (id)
+);
+
+CREATE TABLE IF NOT EXISTS epm_goals (
+    id bigserial not null,
+    achieved_kpi_count integer default 0 not null,
+    assigned_date date,
+    completion_date date,
+    confidential boolean not null,
+    creation_date date not null,
+    kpi_count integer default 0 not null,
+    locked boolean not null,
+    subtree_achieved_kpi_count integer default 0 not null,
+    subtree_kpi_count integer default 0 not null,
+    target_completion_date date,
+    kpi_completion_sum bigint default 0 not null,
+    owner_id bigint not null,
+    parent_goal_id bigint,
+    subtree_kpi_completion_sum bigint default 0 not null,
+    territory_id bigint,
+    short_description varchar(500) not null,
+    long_description TEXT not null,
+    status varchar(255) not null check (status in ('DRAFT','PENDING_APPROVAL','APPROVED','PUBLISHED','ACHIEVED','ARCHIVED','RETIRED')),
+    tenant_id varchar(255) not null,
+    primary key (id)
+);
+
+CREATE TABLE IF NOT EXISTS epm_hierarchy_closure (
+    depth integer not null,
+    ancestor_id bigint not null,
+    descendant_id bigint not null,
+    hierarchy varchar(20) not null check (hierarchy in ('DEPARTMENT','MANAGER')),
+    primary key (ancestor_id, descendant_id, hierarchy)
+);
+
+CREATE TABLE IF NOT EXISTS epm_import_job_parts (
+    id bigserial not null,
+    part_number integer not null,
+    job_id bigint not null,
+    content TEXT not null,
+    primary key (id),
+    unique (job_id, part_number)
+);
+
+CREATE TABLE IF NOT EXISTS epm_import_jobs (
+    id bigserial not null,
+    departments_created integer not null,
+    departments_updated integer not null,
+    rows_processed integer not null,
+    users_created integer not null,
+    users_updated integer not null,
+    completed_at timestamp(6),
+    created_at timestamp(6) not null,
+    heartbeat_at timestamp(6),
+    started_at timestamp(6),
+    updated_at timestamp(6),
+    created_by varchar(255),
+    errors TEXT,
+    file_name varchar(255),
+    owner varchar(255),
+    status varchar(255) not null check (status in ('PENDING','RUNNING','COMPLETED','FAILED')),
+    tenant_id varchar(255) not null,
+    primary key (id)
+);
+
+CREATE TABLE IF NOT EXISTS epm_kpis (
+    id bigserial not null,
+    completion_percentage integer not null,
+    due_date date not null,
+    goal_id bigint not null,
+    description varchar(1000) not null,
+    status varchar(255) not null check (status in ('NOT_STARTED','IN_PROGRESS','ACHIEVED','NOT_ACHIEVED','COMPLETED')),
+    tenant_id varchar(255) not null,
+    primary key (id)
+);
+
+CREATE TABLE IF NOT EXISTS epm_teams (
+    id bigserial not null,
+    department_id bigint not null,
+    team_lead_id bigint not null,
+    description varchar(1000),
+    name varchar(255) not null,
+    tenant_id varchar(255) not null,
+    primary key (id),
+    unique (tenant_id, department_id, name)
+);
+
+CREATE TABLE IF NOT EXISTS epm_tenants (
+    active boolean not null,
+    fqdn varchar(255) not null,
+    name varchar(255) not null,
+    primary key (fqdn)
+);
+
+CREATE TABLE IF NOT EXISTS epm_territories (
+    id bigserial not null,
+    created_at timestamp(6) not null,
+    updated_at timestamp(6),
+    description TEXT,
+    name varchar(255) not null,
+    tenant_id varchar(255) not null,
+    primary key (id),
+    unique (tenant_id, name)
+);
+
+CREATE TABLE IF NOT EXISTS epm_users (
+    id bigserial not null,
+    department_id bigint,
+    manager_id bigint,
+    team_id bigint,
+    email varchar(255) not null,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    role varchar(255) check (role in ('EPM_ADMIN','HR_ADMIN','USER','MANAGER_ASSISTANT')),
+    tenant_id varchar(255) not null,
+    title varchar(255),
+    primary key (id),
+    unique (tenant_id, email)
+);
+
+CREATE TABLE IF NOT EXISTS epm_visible_goals (
+    goal_id bigint not null,
+    user_id bigint not null,
+    reason varchar(20) not null check (reason in ('OWNER','ASSIGNEE','DEPARTMENT_MANAGER','TEAM_LEAD')),
+    primary key (goal_id, user_id, reason)
+);
+
+-- Databases created before goals could be locked
+ALTER TABLE epm_goals ADD COLUMN IF NOT EXISTS locked boolean not null default false;
+
+-- Foreign keys
+DO 'BEGIN ALTER TABLE epm_departments ADD CONSTRAINT FKbn199oogncjlhylu0eq8i4c4s FOREIGN KEY (co_owner_id) REFERENCES epm_users; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_departments ADD CONSTRAINT FKls5ipv8n66o1gysbs40akf4nf FOREIGN KEY (manager_id) REFERENCES epm_users; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_departments ADD CONSTRAINT FKnrkh9m1s0c73qns59luxp5d69 FOREIGN KEY (manager_assistant_id) REFERENCES epm_users; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_departments ADD CONSTRAINT FKt85p5ci45af8jx64rq2d55mec FOREIGN KEY (parent_department_id) REFERENCES epm_departments; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_departments ADD CONSTRAINT FKfwa9kbs3oy4vo1gvccd3t2j9p FOREIGN KEY (tenant_id) REFERENCES epm_tenants; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_goal_assignments ADD CONSTRAINT FK6dyfiwwmj3phltptv3ld34wsi FOREIGN KEY (user_id) REFERENCES epm_users; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_goal_assignments ADD CONSTRAINT FKa0vmb1i6g4ndf61ldd0lkb4r8 FOREIGN KEY (goal_id) REFERENCES epm_goals; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_goal_notes ADD CONSTRAINT FKq58e88gho0p6y2bjcqa5altgo FOREIGN KEY (author_id) REFERENCES epm_users; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_goal_notes ADD CONSTRAINT FK3yyc7nrwhpv5jqgpdfpx9t7sl FOREIGN KEY (goal_id) REFERENCES epm_goals; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_goal_notes ADD CONSTRAINT FK3ei0465fmuo4dgpqatonum1jh FOREIGN KEY (tenant_id) REFERENCES epm_tenants; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_goals ADD CONSTRAINT FKh9po2w8ny2q9igsn93xc67t4s FOREIGN KEY (owner_id) REFERENCES epm_users; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_goals ADD CONSTRAINT FKs8temsn764t0e5d3wk9lem48b FOREIGN KEY (parent_goal_id) REFERENCES epm_goals; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_goals ADD CONSTRAINT FKuws8rrrunxa13o61bopfxejb FOREIGN KEY (tenant_id) REFERENCES epm_tenants; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_goals ADD CONSTRAINT FKa0pciwi8yiylc0an7tl6fbp0m FOREIGN KEY (territory_id) REFERENCES epm_territories; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_import_job_parts ADD CONSTRAINT FK1165qbloyb21o3ncop34r50gi FOREIGN KEY (job_id) REFERENCES epm_import_jobs; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_import_jobs ADD CONSTRAINT FKrs3lms7ww4ok626bl7x8qmrb4 FOREIGN KEY (tenant_id) REFERENCES epm_tenants; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_kpis ADD CONSTRAINT FKqiwmdoidahkkgvru0x3smaqxx FOREIGN KEY (goal_id) REFERENCES epm_goals; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_kpis ADD CONSTRAINT FKakogc4uwsijpkgiwu8xbahed9 FOREIGN KEY (tenant_id) REFERENCES epm_tenants; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_teams ADD CONSTRAINT FKini9ayfk2u3u7dbpbyrajbmdd FOREIGN KEY (department_id) REFERENCES epm_departments; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_teams ADD CONSTRAINT FKrfeio7chnxlwde0ad0pmlapoc FOREIGN KEY (team_lead_id) REFERENCES epm_users; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_teams ADD CONSTRAINT FK6ji38hh2yxg4lq57wvd8kooa6 FOREIGN KEY (tenant_id) REFERENCES epm_tenants; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_territories ADD CONSTRAINT FK3mj1uxg1yohr1u4p7e7k0ra7m FOREIGN KEY (tenant_id) REFERENCES epm_tenants; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_users ADD CONSTRAINT FK2e4abotmtrip801ak4iyrca7f FOREIGN KEY (department_id) REFERENCES epm_departments; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_users ADD CONSTRAINT FKaayau0p9tqrylssurj1xtaxyh FOREIGN KEY (manager_id) REFERENCES epm_users; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_users ADD CONSTRAINT FKas0t8wnlpkkhfuydoyuftxjaf FOREIGN KEY (team_id) REFERENCES epm_teams; EXCEPTION WHEN duplicate_object THEN NULL; END';
+DO 'BEGIN ALTER TABLE epm_users ADD CONSTRAINT FKad687t51sd04k3lpt942gj5aj FOREIGN KEY (tenant_id) REFERENCES epm_tenants; EXCEPTION WHEN duplicate_object THEN NULL; END';
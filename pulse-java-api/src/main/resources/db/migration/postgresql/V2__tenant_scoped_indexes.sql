@@ -0,0 +1,58 @@
+-- Indexes for the tenant-scoped access paths of the repositories.
+--
+-- Queries filter on tenant_id together with an ID, a foreign key or a name. Lookups by ID use the
+-- primary key and check the tenant on the row; the indexes below cover the other columns, ending
+-- in id where results are ordered or paged by ID. The unique constraints on (tenant_id, email),
+-- (tenant_id, department_id, name) and (tenant_id, name), and on import job parts, are created
+-- with the tables in V1 and already have indexes.
+
+-- Users: tenant listings and keyset pages, and members of a department, team or manager
+CREATE INDEX IF NOT EXISTS idx_users_tenant ON epm_users (tenant_id, id);
+CREATE INDEX IF NOT EXISTS idx_users_department ON epm_users (department_id, id);
+CREATE INDEX IF NOT EXISTS idx_users_team ON epm_users (team_id, id);
+CREATE INDEX IF NOT EXISTS idx_users_manager ON epm_users (manager_id, id);
+
+-- Departments: listings and pages, lookups by name, children of a department, and departments
+-- managed or assisted by a user
+CREATE INDEX IF NOT EXISTS idx_departments_tenant ON epm_departments (tenant_id, id);
+CREATE INDEX IF NOT EXISTS idx_departments_tenant_name ON epm_departments (tenant_id, name);
+CREATE INDEX IF NOT EXISTS idx_departments_parent ON epm_departments (parent_department_id, id);
+CREATE INDEX IF NOT EXISTS idx_departments_manager ON epm_departments (manager_id);
+CREATE INDEX IF NOT EXISTS idx_departments_manager_assistant ON epm_departments (manager_assistant_id);
+
+-- Teams: listings and pages, teams of a department and teams led by a user
+CREATE INDEX IF NOT EXISTS idx_teams_tenant ON epm_teams (tenant_id, id);
+CREATE INDEX IF NOT EXISTS idx_teams_department ON epm_teams (department_id, id);
+CREATE INDEX IF NOT EXISTS idx_teams_lead ON epm_teams (team_lead_id);
+
+-- Goals: tenant listings and pages, the status filter, goals of an owner or territory, and child
+-- goals of a goal (also used by the recursive subtree and ancestor queries)
+CREATE INDEX IF NOT EXISTS idx_goals_tenant_id ON epm_goals (tenant_id, id);
+CREATE INDEX IF NOT EXISTS idx_goals_tenant_status ON epm_goals (tenant_id, status, id);
+CREATE INDEX IF NOT EXISTS idx_goals_owner ON epm_goals (owner_id, id);
+CREATE INDEX IF NOT EXISTS idx_goals_territory ON epm_goals (territory_id, id);
+CREATE INDEX IF NOT EXISTS idx_goals_parent ON epm_goals (parent_goal_id, id);
+
+-- Goal assignments in both directions: the primary key (goal_id, user_id) serves the assignees
+-- of a goal, this index the goals assigned to a user
+CREATE INDEX IF NOT EXISTS idx_goal_assignments_user ON epm_goal_assignments (user_id, goal_id);
+
+-- KPIs of a goal, and of a tenant's goals for the rollups and analytics
+CREATE INDEX IF NOT EXISTS idx_kpis_goal ON epm_kpis (goal_id, id);
+CREATE INDEX IF NOT EXISTS idx_kpis_tenant_goal ON epm_kpis (tenant_id, goal_id);
+
+-- Notes of a goal, newest first
+CREATE INDEX IF NOT EXISTS idx_goal_notes_goal ON epm_goal_notes (goal_id, created_at);
+
+-- Import jobs of a tenant, newest first, and stale running jobs
+CREATE INDEX IF NOT EXISTS idx_import_jobs_tenant ON epm_import_jobs (tenant_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_import_jobs_status ON epm_import_jobs (status, heartbeat_at);
+
+-- Hierarchy closure: the primary key (ancestor_id, descendant_id, hierarchy) serves lookups by
+-- ancestor, this index lookups by descendant
+CREATE INDEX IF NOT EXISTS idx_hierarchy_closure_descendant ON epm_hierarchy_closure (hierarchy, descendant_id);
+
+-- Visible goal index: the primary key starts with goal_id, so the goals visible to a user need
+-- their own index
+CREATE INDEX IF NOT EXISTS idx_visible_goals_user ON epm_visible_goals (user_id, goal_id);
+CREATE INDEX IF NOT EXISTS idx_visible_goals_goal ON epm_visible_goals (goal_id);
@@ -0,0 +1,18 @@
+-- Pooled ID allocation: the entities take their IDs from the bigserial sequences of V1 in blocks
+-- of 50 (allocationSize), so Hibernate assigns IDs before the insert and can batch inserts.
+--
+-- A sequence value V reserves the IDs V-49 to V, and the next value follows the highest ID in use.
+-- The column defaults keep working: a row inserted through the default still takes a sequence
+-- value, which is never inside a block handed out to the application, so instances running the
+-- previous version can insert during a rolling upgrade. Hibernate checks at startup that each
+-- increment matches the allocation size.
+
+ALTER SEQUENCE IF EXISTS epm_departments_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS epm_goal_notes_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS epm_goals_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS epm_import_job_parts_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS epm_import_jobs_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS epm_kpis_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS epm_teams_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS epm_territories_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS epm_users_id_seq INCREMENT BY 50;
@@ -0,0 +1,158 @@
+-- Baseline schema: the tables of the entities as of the first versioned migration.
+--
+-- Every statement is idempotent, so the script also applies to databases created earlier by
+-- Hibernate's ddl-auto=update. Unique constraints and indexes are in V2.
+
+-- Replaced by epm_schema_history, which also records the script checksums
+DROP TABLE IF EXISTS epm_schema_migrations;
+
+CREATE TABLE IF NOT EXISTS epm_departments (
+    id integer,
+    creation_date date not null,
+    co_owner_id bigint,
+    manager_assistant_id bigint,
+    manager_id bigint,
+    parent_department_id bigint,
+    small_description varchar(500) not null,
+    name varchar(255) not null,
+    status varchar(255) not null check (status in ('ACTIVE','DEPRECATED','RETIRED')),
+    tenant_id varchar(255) not null,
+    primary key (id)
+);
+
+CREATE TABLE IF NOT EXISTS epm_goal_assignments (
+    goal_id bigint not null,
+    user_id bigint not null,
+    primary key (goal_id, user_id)
+);
+
+CREATE TABLE IF NOT EXISTS epm_goal_notes (
+    id integer,
+    author_id bigint not null,
+    created_at timestamp not null,
+    goal_id bigint not null,
+    updated_at timestamp not null,
+    content TEXT not null,
+    tenant_id varchar(255) not null,
+    primary key (id)
+);
+
+CREATE TABLE IF NOT EXISTS epm_goals (
+    id integer,
+    achieved_kpi_count integer default 0 not null,
+    assigned_date date,
+    completion_date date,
+    confidential boolean not null,
+    creation_date date not null,
+    kpi_count integer default 0 not null,
+    locked boolean not null,
+    subtree_achieved_kpi_count integer default 0 not null,
+    subtree_kpi_count integer default 0 not null,
+    target_completion_date date,
+    kpi_completion_sum bigint default 0 not null,
+    owner_id bigint not null,
+    parent_goal_id bigint,
+    subtree_kpi_completion_sum bigint default 0 not null,
+    territory_id bigint,
+    short_description varchar(500) not null,
+    long_description TEXT not null,
+    status varchar(255) not null check (status in ('DRAFT','PENDING_APPROVAL','APPROVED','PUBLISHED','ACHIEVED','ARCHIVED','RETIRED')),
+    tenant_id varchar(255) not null,
+    primary key (id)
+);
+
+CREATE TABLE IF NOT EXISTS epm_hierarchy_closure (
+    depth integer not null,
+    ancestor_id bigint not null,
+    descendant_id bigint not null,
+    hierarchy varchar(20) not null check (hierarchy in ('DEPARTMENT','MANAGER')),
+    primary key (ancestor_id, descendant_id, hierarchy)
+);
+
+CREATE TABLE IF NOT EXISTS epm_import_job_parts (
+    id integer,
+    part_number integer not null,
+    job_id bigint not null,
+    content TEXT not null,
+    primary key (id)
+);
+
+CREATE TABLE IF NOT EXISTS epm_import_jobs (
+    id integer,
+    departments_created integer not null,
+    departments_updated integer not null,
+    rows_processed integer not null,
+    users_created integer not null,
+    users_updated integer not null,
+    completed_at timestamp,
+    created_at timestamp not null,
+    heartbeat_at timestamp,
+    started_at timestamp,
+    updated_at timestamp,
+    created_by varchar(255),
+    errors TEXT,
+    file_name varchar(255),
+    owner varchar(255),
+    status varchar(255) not null check (status in ('PENDING','RUNNING','COMPLETED','FAILED')),
+    tenant_id varchar(255) not null,
+    primary key (id)
+);
+
+CREATE TABLE IF NOT EXISTS epm_kpis (
+    id integer,
+    completion_percentage integer not null,
+    due_date date not null,
+    goal_id bigint not null,
+    description varchar(1000) not null,
+    status varchar(255) not null check (status in ('NOT_STARTED','IN_PROGRESS','ACHIEVED','NOT_ACHIEVED','COMPLETED')),
+    tenant_id varchar(255) not null,
+    primary key (id)
+);
+
+CREATE TABLE IF NOT EXISTS epm_teams (
+    id integer,
+    department_id bigint not null,
+    team_lead_id bigint not null,
+    description varchar(1000),
+    name varchar(255) not null,
+    tenant_id varchar(255) not null,
+    primary key (id)
+);
+
+CREATE TABLE IF NOT EXISTS epm_tenants (
+    active boolean not null,
+    fqdn varchar(255) not null,
+    name varchar(255) not null,
+    primary key (fqdn)
+);
+
+CREATE TABLE IF NOT EXISTS epm_territories (
+    id integer,
+    created_at timestamp not null,
+    updated_at timestamp,
+    description TEXT,
+    name varchar(255) not null,
+    tenant_id varchar(255) not null,
+    primary key (id)
+);
+
+CREATE TABLE IF NOT EXISTS epm_users (
+    id integer,
+    department_id bigint,
+    manager_id bigint,
+    team_id bigint,
+    email varchar(255) not null,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    role varchar(255) check (role in ('EPM_ADMIN','HR_ADMIN','USER','MANAGER_ASSISTANT')),
+    tenant_id varchar(255) not null,
+    title varchar(255),
+    primary key (id)
+);
+
+CREATE TABLE IF NOT EXISTS epm_visible_goals (
+    goal_id bigint not null,
+    user_id bigint not null,
+    reason varchar(20) not null check (reason in ('OWNER','ASSIGNEE','DEPARTMENT_MANAGER','TEAM_LEAD')),
+    primary key (goal_id, user_id, reason)
+);
@@ -0,0 +1,38 @@
+-- KPI rollup columns of epm_goals (see GoalRollupService), for databases whose epm_goals table was
+-- created before them, by Hibernate's ddl-auto=update: V1 does not change existing tables.
+-- SQLite has no ADD COLUMN IF NOT EXISTS: SchemaMigrationService runs these statements without
+-- IF NOT EXISTS when the column is missing and skips them otherwise.
+
+ALTER TABLE epm_goals ADD COLUMN IF NOT EXISTS kpi_count integer default 0 not null;
+ALTER TABLE epm_goals ADD COLUMN IF NOT EXISTS achieved_kpi_count integer default 0 not null;
+ALTER TABLE epm_goals ADD COLUMN IF NOT EXISTS kpi_completion_sum bigint default 0 not null;
+ALTER TABLE epm_goals ADD COLUMN IF NOT EXISTS subtree_kpi_count integer default 0 not null;
+ALTER TABLE epm_goals ADD COLUMN IF NOT EXISTS subtree_achieved_kpi_count integer default 0 not null;
+ALTER TABLE epm_goals ADD COLUMN IF NOT EXISTS subtree_kpi_completion_sum bigint default 0 not null;
+
+-- Fill the rollups from the KPIs, as GoalRepository.recomputeKpiRollups does for one tenant.
+-- Only goals that differ are written, so this leaves a database with current rollups unchanged.
+WITH RECURSIVE ancestors(goal_id, ancestor_id) AS (
+    SELECT id, id FROM epm_goals
+    UNION
+    SELECT a.goal_id, g.parent_goal_id FROM ancestors a JOIN epm_goals g ON g.id = a.ancestor_id
+    WHERE g.parent_goal_id IS NOT NULL),
+own(goal_id, kpis, achieved, completion_sum) AS (
+    SELECT goal_id, COUNT(*), SUM(CASE WHEN status = 'ACHIEVED' THEN 1 ELSE 0 END), SUM(completion_percentage)
+    FROM epm_kpis GROUP BY goal_id),
+subtree(goal_id, kpis, achieved, completion_sum) AS (
+    SELECT a.ancestor_id, SUM(o.kpis), SUM(o.achieved), SUM(o.completion_sum)
+    FROM ancestors a JOIN own o ON o.goal_id = a.goal_id GROUP BY a.ancestor_id),
+totals(goal_id, kpis, achieved, completion_sum, subtree_kpis, subtree_achieved, subtree_completion_sum) AS (
+    SELECT g.id, COALESCE(o.kpis, 0), COALESCE(o.achieved, 0), COALESCE(o.completion_sum, 0),
+           COALESCE(s.kpis, 0), COALESCE(s.achieved, 0), COALESCE(s.completion_sum, 0)
+    FROM epm_goals g LEFT JOIN own o ON o.goal_id = g.id LEFT JOIN subtree s ON s.goal_id = g.id)
+UPDATE epm_goals SET kpi_count = t.kpis, achieved_kpi_count = t.achieved, kpi_completion_sum = t.completion_sum,
+    subtree_kpi_count = t.subtree_kpis, subtree_achieved_kpi_count = t.subtree_achieved,
+    subtree_kpi_completion_sum = t.subtree_completion_sum
+FROM totals t
+WHERE epm_goals.id = t.goal_id
+  AND (epm_goals.kpi_count <> t.kpis OR epm_goals.achieved_kpi_count <> t.achieved
+    OR epm_goals.kpi_completion_sum <> t.completion_sum OR epm_goals.subtree_kpi_count <> t.subtree_kpis
+    OR epm_goals.subtree_achieved_kpi_count <> t.subtree_achieved
+    OR epm_goals.subtree_kpi_completion_sum <> t.subtree_completion_sum);
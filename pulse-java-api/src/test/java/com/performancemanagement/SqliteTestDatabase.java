@@ -0,0 +1,34 @@
+package com.performancemanagement;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Points a test's application context at a new SQLite database in a temporary directory, created
+ * by the schema migrations on startup like any other database.
+ */
+public final class SqliteTestDatabase {
+
+    private SqliteTestDatabase() {
+    }
+
+    public static void register(DynamicPropertyRegistry registry) {
+        Path database = newDatabase();
+        registry.add("spring.datasource.url",
+                () -> "jdbc:sqlite:" + database + "?journal_mode=WAL&synchronous=NORMAL&busy_timeout=5000");
+    }
+
+    public static Path newDatabase() {
+        try {
+            Path directory = Files.createTempDirectory("pulse-test");
+            directory.toFile().deleteOnExit();
+            return directory.resolve("performance_management.db");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
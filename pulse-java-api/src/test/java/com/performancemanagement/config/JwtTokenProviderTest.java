@@ -0,0 +1,152 @@
+package com.performancemanagement.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "a-test-secret-that-is-at-least-256-bits-long";
+
+    private final Logger providerLogger = (Logger) LoggerFactory.getLogger(JwtTokenProvider.class);
+    private final ListAppender<ILoggingEvent> log = new ListAppender<>();
+    private Level previousLevel;
+
+    @BeforeEach
+    void captureLog() {
+        previousLevel = providerLogger.getLevel();
+        providerLogger.setLevel(Level.DEBUG);
+        log.start();
+        providerLogger.addAppender(log);
+    }
+
+    @AfterEach
+    void releaseLog() {
+        providerLogger.detachAppender(log);
+        providerLogger.setLevel(previousLevel);
+    }
+
+    @Test
+    void cachesVerifiedTokens() {
+        JwtTokenProvider provider = provider(false);
+        String token = signed("ann@t.test", new Date(System.currentTimeMillis() + 60_000));
+
+        JwtTokenProvider.JwtUserDetails first = provider.parseToken(token);
+        JwtTokenProvider.JwtUserDetails second = provider.parseToken(token);
+
+        assertThat(first).isNotNull();
+        assertThat(first.getEmail()).isEqualTo("ann@t.test");
+        assertThat(first.getTenantId()).isEqualTo("t.test");
+        assertThat(second).isSameAs(first);
+
+        // A different token is a miss and is verified on its own
+        JwtTokenProvider.JwtUserDetails other = provider.parseToken(
+                signed("bob@t.test", new Date(System.currentTimeMillis() + 60_000)));
+        assertThat(other).isNotSameAs(first);
+        assertThat(other.getEmail()).isEqualTo("bob@t.test");
+    }
+
+    @Test
+    void rejectsTokensThatFailVerification() {
+        JwtTokenProvider provider = provider(false);
+        String token = signed("ann@t.test", new Date(System.currentTimeMillis() + 60_000));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThat(provider.parseToken(tampered)).isNull();
+        assertThat(provider.parseToken(signed("ann@t.test", null))).isNull();
+        assertThat(provider.parseToken(signed("ann@t.test", new Date(System.currentTimeMillis() - 1_000)))).isNull();
+        assertThat(provider.parseToken("")).isNull();
+        assertThat(provider.parseToken(null)).isNull();
+    }
+
+    @Test
+    void cachedTokensExpireAtTheirExpClaim() throws InterruptedException {
+        JwtTokenProvider provider = provider(false);
+        // exp has a resolution of seconds
+        long expiresAt = (System.currentTimeMillis() / 1000 + 2) * 1000;
+        String token = signed("ann@t.test", new Date(expiresAt));
+
+        assertThat(provider.parseToken(token)).isNotNull();
+        assertThat(provider.parseToken(token)).isNotNull();
+
+        Thread.sleep(Math.max(0, expiresAt - System.currentTimeMillis()));
+
+        assertThat(provider.parseToken(token)).isNull();
+    }
+
+    @Test
+    void rejectsUnsignedTokensUnlessAllowed() {
+        Date expiration = new Date(System.currentTimeMillis() + 60_000);
+        String unsigned = unsigned("ann@t.test", expiration);
+
+        assertThat(provider(true).parseToken(unsigned)).isNotNull();
+        assertThat(provider(false).parseToken(unsigned)).isNull();
+    }
+
+    @Test
+    void unsignedTokensAreRejectedWhenTheSignedTokenIsCached() {
+        JwtTokenProvider provider = provider(false);
+        Date expiration = new Date(System.currentTimeMillis() + 60_000);
+        String signed = signed("ann@t.test", expiration);
+        assertThat(provider.parseToken(signed)).isNotNull();
+
+        // The same claims, and the signature of the cached token, with the header changed to alg none
+        String[] parts = signed.split("\\.");
+        String noneHeader = encode("{\"alg\":\"none\"}");
+        assertThat(provider.parseToken(noneHeader + "." + parts[1] + ".")).isNull();
+        assertThat(provider.parseToken(noneHeader + "." + parts[1] + "." + parts[2])).isNull();
+        assertThat(provider.parseToken(signed)).isNotNull();
+    }
+
+    @Test
+    void malformedHeadersGoToTheSignedParser() {
+        JwtTokenProvider provider = provider(true);
+        String payload = unsigned("ann@t.test", new Date(System.currentTimeMillis() + 60_000)).split("\\.")[1];
+
+        for (String header : List.of("not*base64", encode("{\"alg\":\"none\""), encode("[\"none\"]"), encode("{}"))) {
+            log.list.clear();
+
+            assertThat(provider.parseToken(header + "." + payload + ".")).isNull();
+            assertThat(log.list).extracting(ILoggingEvent::getFormattedMessage)
+                    .anyMatch(message -> message.startsWith("JWT parsing failed (signed)"));
+        }
+    }
+
+    private static JwtTokenProvider provider(boolean allowUnsigned) {
+        return new JwtTokenProvider(SECRET, String.valueOf(allowUnsigned), 100, new MockEnvironment());
+    }
+
+    private static String signed(String email, Date expiration) {
+        return Jwts.builder()
+                .setClaims(Map.of("email", email, "tenantId", "t.test", "roles", List.of("USER")))
+                .setExpiration(expiration)
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private static String unsigned(String email, Date expiration) {
+        return encode("{\"alg\":\"none\"}") + "." + encode("{\"email\":\"" + email
+                + "\",\"tenantId\":\"t.test\",\"roles\":[\"USER\"],\"exp\":" + expiration.getTime() / 1000 + "}") + ".";
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,77 @@
+package com.performancemanagement.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.performancemanagement.dto.TerritoryDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TwoTierCacheTest {
+
+    private static final String KEY = "t.test::1";
+
+    private RedisCache remote;
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remote = mock(RedisCache.class);
+        when(remote.getCacheConfiguration()).thenReturn(RedisCacheConfiguration.defaultCacheConfig()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer())));
+        cache = new TwoTierCache("territory", Caffeine.newBuilder().<String, byte[]>build(), remote,
+                mock(TwoTierCacheManager.class));
+    }
+
+    @Test
+    void localHitsReturnCopies() {
+        when(remote.get(KEY)).thenReturn(new SimpleValueWrapper(territory("Global")));
+
+        TerritoryDTO first = cache.get(KEY, TerritoryDTO.class);
+        first.setName("Changed by a caller");
+        TerritoryDTO second = cache.get(KEY, TerritoryDTO.class);
+        second.setName("Changed by another caller");
+
+        assertThat(cache.get(KEY, TerritoryDTO.class).getName()).isEqualTo("Global");
+        verify(remote, times(1)).get(KEY);
+    }
+
+    @Test
+    void putStoresACopy() {
+        TerritoryDTO territory = territory("Global");
+        cache.put(KEY, territory);
+        territory.setName("Changed after put");
+
+        assertThat(cache.get(KEY, TerritoryDTO.class).getName()).isEqualTo("Global");
+    }
+
+    @Test
+    void invalidationDuringRemoteReadIsNotUndone() {
+        // Another replica evicts the entry while this one is still reading the old value from Redis
+        when(remote.get(KEY)).thenAnswer(invocation -> {
+            cache.invalidateLocal(KEY);
+            return new SimpleValueWrapper(territory("Old"));
+        }).thenReturn(new SimpleValueWrapper(territory("New")));
+
+        assertThat(cache.get(KEY, TerritoryDTO.class).getName()).isEqualTo("Old");
+        assertThat(cache.get(KEY, TerritoryDTO.class).getName()).isEqualTo("New");
+        assertThat(cache.get(KEY, TerritoryDTO.class).getName()).isEqualTo("New");
+        verify(remote, times(2)).get(KEY);
+    }
+
+    private static TerritoryDTO territory(String name) {
+        TerritoryDTO territory = new TerritoryDTO();
+        territory.setId(1L);
+        territory.setName(name);
+        return territory;
+    }
+}
@@ -0,0 +1,283 @@
+package com.performancemanagement.repository;
+
+import com.performancemanagement.SqliteTestDatabase;
+import com.performancemanagement.config.JpaConfig;
+import com.performancemanagement.config.SchemaMigrationService;
+import com.performancemanagement.model.Department;
+import com.performancemanagement.model.Goal;
+import com.performancemanagement.model.Team;
+import com.performancemanagement.model.Tenant;
+import com.performancemanagement.model.Territory;
+import com.performancemanagement.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the statements each fetch-plan query runs, including reading everything its entity graph
+ * is meant to load: every graph should load its use case in a single statement.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JpaConfig.class, SchemaMigrationService.class, EntityGraphStatementCountTest.MigrationsFirst.class})
+@ActiveProfiles("test")
+class EntityGraphStatementCountTest {
+
+    private static final String TENANT = "graphs.test";
+
+    // As in the application, the schema is migrated before the entity manager factory is created
+    static class MigrationsFirst extends EntityManagerFactoryDependsOnPostProcessor {
+        MigrationsFirst() {
+            super(SchemaMigrationService.class);
+        }
+    }
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        SqliteTestDatabase.register(registry);
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    private Statistics statistics;
+    private Department sales;
+    private User salesRep;
+    private final List<Long> goalIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        Tenant tenant = new Tenant();
+        tenant.setFqdn(TENANT);
+        tenant.setName("Graphs");
+        entityManager.persist(tenant);
+
+        Territory territory = new Territory();
+        territory.setTenant(tenant);
+        territory.setName("Global");
+        entityManager.persist(territory);
+
+        User ceo = user(tenant, "ceo", null, null);
+        Department company = department(tenant, "Company", ceo, null);
+        sales = department(tenant, "Sales", user(tenant, "sales.head", company, null), company);
+        Department support = department(tenant, "Support", user(tenant, "support.head", company, null), company);
+        sales.setCoOwner(ceo);
+        support.setManagerAssistant(ceo);
+
+        Team north = team(tenant, "North", sales, user(tenant, "north.lead", sales, null));
+        Team desk = team(tenant, "Desk", support, user(tenant, "desk.lead", support, null));
+        salesRep = user(tenant, "sales.rep", sales, north);
+        List<User> members = List.of(salesRep, user(tenant, "sales.rep2", sales, north),
+                user(tenant, "agent", support, desk), user(tenant, "agent2", support, desk), ceo);
+
+        Goal parent = null;
+        for (int i = 0; i < 12; i++) {
+            Goal goal = new Goal();
+            goal.setTenant(tenant);
+            goal.setShortDescription("Goal " + i);
+            goal.setLongDescription("Goal " + i);
+            goal.setOwner(members.get(i % members.size()));
+            goal.setCreationDate(LocalDate.now());
+            goal.setStatus(i % 3 == 0 ? Goal.GoalStatus.PENDING_APPROVAL : Goal.GoalStatus.DRAFT);
+            goal.setParentGoal(parent);
+            goal.setTerritory(i % 2 == 0 ? territory : null);
+            goal.getAssignedUsers().add(members.get((i + 1) % members.size()));
+            goal.getAssignedUsers().add(members.get((i + 2) % members.size()));
+            entityManager.persist(goal);
+            goalIds.add(goal.getId());
+            parent = i % 4 == 3 ? null : goal;
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void lazyLoadingIsCountedWithoutAGraph() {
+        long statements = count(() -> goalRepository.findById(goalIds.get(0)).map(List::of).orElseThrow(),
+                this::readRbac);
+
+        assertThat(statements).isGreaterThan(1);
+    }
+
+    @Test
+    void rbacGraphLoadsGoalsInOneStatement() {
+        assertThat(count(() -> List.of(goalRepository.findForRbacByIdAndTenantId(goalIds.get(0), TENANT).orElseThrow()),
+                this::readRbac)).isEqualTo(1);
+        assertThat(count(() -> goalRepository.findForRbacByIdInAndTenantId(goalIds, TENANT),
+                this::readRbac)).isEqualTo(1);
+    }
+
+    @Test
+    void detailGraphLoadsAGoalInOneStatement() {
+        assertThat(count(() -> List.of(goalRepository.findForDetailByIdAndTenantId(goalIds.get(1), TENANT).orElseThrow()),
+                goal -> {
+                    readRbac(goal);
+                    readDto(goal);
+                })).isEqualTo(1);
+    }
+
+    @Test
+    void dtoGraphLoadsGoalsInOneStatement() {
+        assertThat(count(() -> goalRepository.findForDtoByIdInAndTenantId(goalIds, TENANT), this::readDto)).isEqualTo(1);
+        assertThat(count(() -> goalRepository.findForDtoByOwnerEmailAndTenantId(salesRep.getEmail(), TENANT),
+                this::readDto)).isEqualTo(1);
+        assertThat(count(() -> goalRepository.findForDtoByTenantId(TENANT), this::readDto)).isEqualTo(1);
+        assertThat(count(() -> goalRepository.findPendingApprovalForDtoByDepartmentId(sales.getId(), TENANT),
+                this::readDto)).isEqualTo(1);
+        assertThat(count(() -> goalRepository.findDepartmentMembersGoalsForDto(sales.getId(), TENANT),
+                this::readDto)).isEqualTo(1);
+    }
+
+    @Test
+    void userDepartmentAndTeamGraphsLoadInOneStatement() {
+        assertThat(count(() -> userRepository.findForDtoByTenantId(TENANT), user -> {
+            readDepartment(user.getDepartment());
+            if (user.getTeam() != null) {
+                readTeam(user.getTeam());
+            }
+        })).isEqualTo(1);
+        assertThat(count(() -> departmentRepository.findForDtoByTenantId(TENANT), department -> {
+            department.getTenant().getName();
+            readUser(department.getManager());
+            readUser(department.getManagerAssistant());
+            readUser(department.getCoOwner());
+            if (department.getParentDepartment() != null) {
+                department.getParentDepartment().getName();
+            }
+            department.getUsers().forEach(user -> user.getTenant().getName());
+        })).isEqualTo(1);
+        assertThat(count(() -> teamRepository.findForDtoByTenantId(TENANT), team -> {
+            team.getDepartment().getName();
+            team.getTeamLead().getEmail();
+            team.getUsers().forEach(User::getEmail);
+        })).isEqualTo(1);
+    }
+
+    /**
+     * Statements run by the query and by reading each of the returned entities, in a new
+     * persistence context.
+     */
+    private <T> long count(Supplier<Collection<T>> query, Consumer<T> read) {
+        entityManager.clear();
+        statistics.clear();
+        Collection<T> result = query.get();
+        assertThat(result).isNotEmpty();
+        result.forEach(read);
+        return statistics.getPrepareStatementCount();
+    }
+
+    // What GoalService.canUserViewGoal reads
+    private void readRbac(Goal goal) {
+        readOrgUser(goal.getOwner());
+        goal.getAssignedUsers().forEach(this::readOrgUser);
+    }
+
+    // What GoalService.convertToDTO reads apart from the child goal tree
+    private void readDto(Goal goal) {
+        goal.getTenant().getName();
+        goal.getOwner().getEmail();
+        if (goal.getParentGoal() != null) {
+            goal.getParentGoal().getShortDescription();
+        }
+        if (goal.getTerritory() != null) {
+            goal.getTerritory().getName();
+        }
+        goal.getAssignedUsers().forEach(user -> user.getTenant().getName());
+    }
+
+    private void readOrgUser(User user) {
+        user.getEmail();
+        readDepartment(user.getDepartment());
+        if (user.getTeam() != null) {
+            readTeam(user.getTeam());
+        }
+    }
+
+    private void readDepartment(Department department) {
+        if (department != null) {
+            department.getName();
+            readUser(department.getManager());
+        }
+    }
+
+    private void readTeam(Team team) {
+        team.getName();
+        team.getTeamLead().getEmail();
+    }
+
+    private void readUser(User user) {
+        if (user != null) {
+            user.getEmail();
+        }
+    }
+
+    private User user(Tenant tenant, String name, Department department, Team team) {
+        User user = new User();
+        user.setTenant(tenant);
+        user.setFirstName(name);
+        user.setLastName(name);
+        user.setEmail(name + "@" + TENANT);
+        user.setDepartment(department);
+        user.setTeam(team);
+        entityManager.persist(user);
+        return user;
+    }
+
+    private Department department(Tenant tenant, String name, User manager, Department parent) {
+        Department department = new Department();
+        department.setTenant(tenant);
+        department.setName(name);
+        department.setSmallDescription(name);
+        department.setCreationDate(LocalDate.now());
+        department.setManager(manager);
+        department.setParentDepartment(parent);
+        entityManager.persist(department);
+        return department;
+    }
+
+    private Team team(Tenant tenant, String name, Department department, User lead) {
+        Team team = new Team();
+        team.setTenant(tenant);
+        team.setName(name);
+        team.setDepartment(department);
+        team.setTeamLead(lead);
+        entityManager.persist(team);
+        lead.setTeam(team);
+        return team;
+    }
+}
@@ -0,0 +1,326 @@
+package com.performancemanagement.service;
+
+import com.performancemanagement.SqliteTestDatabase;
+import com.performancemanagement.config.RequestContext;
+import com.performancemanagement.dto.ConnectionDTO;
+import com.performancemanagement.dto.EdgeDTO;
+import com.performancemanagement.dto.GoalDTO;
+import com.performancemanagement.dto.TeamDTO;
+import com.performancemanagement.dto.UserDTO;
+import com.performancemanagement.model.Department;
+import com.performancemanagement.model.Goal;
+import com.performancemanagement.model.Team;
+import com.performancemanagement.model.Tenant;
+import com.performancemanagement.model.User;
+import com.performancemanagement.repository.DepartmentRepository;
+import com.performancemanagement.repository.GoalRepository;
+import com.performancemanagement.repository.TeamRepository;
+import com.performancemanagement.repository.TenantRepository;
+import com.performancemanagement.repository.UserRepository;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the goals each user can see through {@link GoalVisibilityService} with the in-memory
+ * rule {@link GoalService#canUserViewGoal}, on generated org charts: before and after organization
+ * and goal changes made through the services that maintain the visible goal index.
+ */
+@SpringBootTest
+@ActiveProfiles({"local", "test"})
+class GoalVisibilityDifferentialTest {
+
+    private static final int USERS = 40;
+    private static final int DEPARTMENTS = 6;
+    private static final int GOALS = 150;
+    private static final int CHANGES = 30;
+    private static final int PAGE_SIZE = 7;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        SqliteTestDatabase.register(registry);
+    }
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    @Autowired
+    private GoalRepository goalRepository;
+
+    @Autowired
+    private OrgHierarchyService orgHierarchyService;
+
+    @Autowired
+    private VisibleGoalService visibleGoalService;
+
+    @Autowired
+    private GoalVisibilityService goalVisibilityService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @Autowired
+    private TeamService teamService;
+
+    @Autowired
+    private GoalService goalService;
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 4, 5})
+    void visibleGoalsMatchInMemoryRules(long seed) {
+        Random random = new Random(seed);
+        String tenantId = "seed-" + seed + ".test";
+        String otherTenantId = "other-" + seed + ".test";
+        generateOrgChart(tenantId, random);
+        // Goals of another tenant must never be visible
+        generateOrgChart(otherTenantId, new Random(-seed));
+
+        assertVisibilityMatches(tenantId);
+
+        try (RequestContext.Scope scope = RequestContext.forTenant(tenantId).bind()) {
+            for (int i = 0; i < CHANGES; i++) {
+                change(tenantId, random);
+            }
+        }
+        assertVisibilityMatches(tenantId);
+    }
+
+    private void generateOrgChart(String tenantId, Random random) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Tenant tenant = new Tenant();
+            tenant.setFqdn(tenantId);
+            tenant.setName(tenantId);
+            tenant = tenantRepository.save(tenant);
+
+            List<User> users = new ArrayList<>();
+            for (int i = 0; i < USERS; i++) {
+                User user = new User();
+                user.setTenant(tenant);
+                user.setFirstName("User");
+                user.setLastName(String.valueOf(i));
+                user.setEmail("user" + i + "@" + tenantId);
+                // Managers come before their reports, so there are no management cycles
+                if (i > 0 && random.nextInt(5) > 0) {
+                    user.setManager(users.get(random.nextInt(i)));
+                }
+                users.add(userRepository.save(user));
+            }
+
+            List<Department> departments = new ArrayList<>();
+            for (int i = 0; i < DEPARTMENTS; i++) {
+                Department department = new Department();
+                department.setTenant(tenant);
+                department.setName("Department " + i);
+                department.setSmallDescription("Department " + i);
+                department.setCreationDate(LocalDate.of(2024, 1, 1));
+                if (random.nextInt(6) > 0) {
+                    department.setManager(users.get(random.nextInt(USERS)));
+                }
+                if (i > 0 && random.nextBoolean()) {
+                    department.setParentDepartment(departments.get(random.nextInt(i)));
+                }
+                departments.add(departmentRepository.save(department));
+            }
+
+            Map<Department, List<User>> members = new HashMap<>();
+            for (User user : users) {
+                if (random.nextInt(8) > 0) {
+                    Department department = departments.get(random.nextInt(DEPARTMENTS));
+                    user.setDepartment(department);
+                    members.computeIfAbsent(department, d -> new ArrayList<>()).add(user);
+                }
+            }
+            for (Map.Entry<Department, List<User>> entry : members.entrySet()) {
+                List<User> departmentMembers = entry.getValue();
+                for (int i = 0; i < 2; i++) {
+                    Team team = new Team();
+                    team.setTenant(tenant);
+                    team.setName("Team " + i);
+                    team.setDepartment(entry.getKey());
+                    team.setTeamLead(departmentMembers.get(random.nextInt(departmentMembers.size())));
+                    team = teamRepository.save(team);
+                    for (User member : departmentMembers) {
+                        if (random.nextInt(3) == 0) {
+                            member.setTeam(team);
+                        }
+                    }
+                }
+            }
+
+            List<Goal> goals = new ArrayList<>();
+            for (int i = 0; i < GOALS; i++) {
+                Goal goal = new Goal();
+                goal.setTenant(tenant);
+                goal.setShortDescription("Goal " + i);
+                goal.setLongDescription("Goal " + i);
+                goal.setCreationDate(LocalDate.of(2024, 1, 1));
+                goal.setOwner(users.get(random.nextInt(USERS)));
+                goal.setConfidential(random.nextInt(4) == 0);
+                if (i > 0 && random.nextInt(4) == 0) {
+                    goal.setParentGoal(goals.get(random.nextInt(i)));
+                }
+                int assignees = random.nextInt(4);
+                for (int a = 0; a < assignees; a++) {
+                    goal.getAssignedUsers().add(users.get(random.nextInt(USERS)));
+                }
+                goals.add(goalRepository.save(goal));
+            }
+        });
+        orgHierarchyService.rebuild(tenantId);
+        visibleGoalService.rebuild(tenantId);
+    }
+
+    /**
+     * Make one random organization or goal change through the services, which keep the visible
+     * goal index up to date. Changes the services reject (such as management cycles) are skipped.
+     */
+    private void change(String tenantId, Random random) {
+        List<User> users = userRepository.findAllByTenantId(tenantId);
+        List<Department> departments = departmentRepository.findAllByTenantId(tenantId);
+        List<Team> teams = teamRepository.findByTenantId(tenantId);
+        List<Goal> goals = goalRepository.findAllByTenantId(tenantId);
+        User user = users.get(random.nextInt(users.size()));
+        User other = users.get(random.nextInt(users.size()));
+        Goal goal = goals.get(random.nextInt(goals.size()));
+        try {
+            switch (random.nextInt(7)) {
+                case 0 -> {
+                    UserDTO update = new UserDTO();
+                    update.setFirstName(user.getFirstName());
+                    update.setLastName(user.getLastName());
+                    update.setManagerId(random.nextInt(5) > 0 ? other.getId() : null);
+                    userService.updateUser(user.getId(), update);
+                }
+                case 1 -> departmentService.setDepartmentManager(
+                        departments.get(random.nextInt(departments.size())).getId(), other.getEmail());
+                case 2 -> departmentService.moveUserToDepartment(
+                        user.getId(), departments.get(random.nextInt(departments.size())).getId());
+                case 3 -> {
+                    Team team = teams.get(random.nextInt(teams.size()));
+                    teamService.assignUserToTeam(team.getId(), user.getEmail());
+                    if (random.nextBoolean()) {
+                        TeamDTO update = new TeamDTO();
+                        update.setTeamLeadEmail(user.getEmail());
+                        teamService.updateTeam(team.getId(), update);
+                    }
+                }
+                case 4 -> goalService.assignGoalToUser(goal.getId(), other.getEmail());
+                case 5 -> goalService.unassignGoalFromUser(goal.getId(), other.getEmail());
+                default -> {
+                    GoalDTO update = new GoalDTO();
+                    update.setShortDescription(goal.getShortDescription());
+                    update.setLongDescription(goal.getLongDescription());
+                    update.setParentGoalId(goal.getParentGoal() != null ? goal.getParentGoal().getId() : null);
+                    update.setConfidential(!Boolean.TRUE.equals(goal.getConfidential()));
+                    goalService.updateGoal(goal.getId(), update);
+                }
+            }
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            // Rejected by a business rule; the index must still match
+        }
+    }
+
+    private void assertVisibilityMatches(String tenantId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<User> users = userRepository.findAllByTenantId(tenantId);
+            List<Goal> goals = goalRepository.findAllByTenantId(tenantId);
+            List<Long> goalIds = goals.stream().map(Goal::getId).toList();
+            for (int u = 0; u < users.size(); u++) {
+                User user = users.get(u);
+                // One owner per user, covering different reporting relations across users
+                User owner = users.get((u * 7 + 3) % users.size());
+                Set<Long> expectedAll = new TreeSet<>();
+                Set<Long> expectedOfOwner = new TreeSet<>();
+                Set<Long> expectedNonConfidential = new TreeSet<>();
+                Set<Long> expectedOwnedOrAssigned = new TreeSet<>();
+                for (Goal goal : goals) {
+                    if (goalService.canUserViewGoal(user, goal)) {
+                        expectedAll.add(goal.getId());
+                        if (Objects.equals(goal.getOwner().getId(), owner.getId())) {
+                            expectedOfOwner.add(goal.getId());
+                        }
+                        if (!Boolean.TRUE.equals(goal.getConfidential()) || ownsOrIsAssigned(user, goal)) {
+                            expectedNonConfidential.add(goal.getId());
+                        }
+                    }
+                    if (ownsOrIsAssigned(user, goal)) {
+                        expectedOwnedOrAssigned.add(goal.getId());
+                    }
+                }
+
+                assertThat(goalVisibilityService.findVisibleGoalIds(user, tenantId, true))
+                        .as("goals visible to %s", user.getEmail())
+                        .containsExactlyElementsOf(expectedAll);
+                assertThat(goalVisibilityService.findVisibleGoalIds(user, tenantId, false))
+                        .as("goals visible to %s without confidential goals", user.getEmail())
+                        .containsExactlyElementsOf(expectedNonConfidential);
+                assertThat(visiblePages(user, tenantId, true))
+                        .as("pages of goals visible to %s", user.getEmail())
+                        .containsExactlyElementsOf(expectedAll);
+                assertThat(visiblePages(user, tenantId, false))
+                        .as("pages of goals visible to %s without confidential goals", user.getEmail())
+                        .containsExactlyElementsOf(expectedNonConfidential);
+                assertThat(goalRepository.findVisibleByOwnerEmailAndTenantId(owner.getEmail(), tenantId, user.getId()))
+                        .as("goals of %s visible to %s", owner.getEmail(), user.getEmail())
+                        .extracting(Goal::getId)
+                        .containsExactlyElementsOf(expectedOfOwner);
+                assertThat(new TreeSet<>(goalRepository.findOwnedOrAssignedGoalIdsIn(goalIds, tenantId, user.getId())))
+                        .as("goals owned by or assigned to %s", user.getEmail())
+                        .containsExactlyElementsOf(expectedOwnedOrAssigned);
+            }
+        });
+    }
+
+    private List<Long> visiblePages(User user, String tenantId, boolean includeConfidential) {
+        List<Long> ids = new ArrayList<>();
+        String after = null;
+        while (true) {
+            ConnectionDTO<Goal> page = goalVisibilityService.findVisibleGoalsPage(
+                    user, tenantId, includeConfidential, null, PAGE_SIZE, after);
+            for (EdgeDTO<Goal> edge : page.getEdges()) {
+                ids.add(edge.getNode().getId());
+            }
+            if (!page.getPageInfo().isHasNextPage()) {
+                return ids;
+            }
+            after = page.getPageInfo().getEndCursor();
+        }
+    }
+
+    private static boolean ownsOrIsAssigned(User user, Goal goal) {
+        return Objects.equals(goal.getOwner().getId(), user.getId())
+                || goal.getAssignedUsers().stream().anyMatch(assignee -> Objects.equals(assignee.getId(), user.getId()));
+    }
+}